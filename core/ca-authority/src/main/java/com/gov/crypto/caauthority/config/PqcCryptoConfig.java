@@ -1,17 +1,43 @@
 package com.gov.crypto.caauthority.config;
 
+import com.gov.crypto.common.pqc.MlDsaKeyPairPool;
+import com.gov.crypto.common.pqc.MlDsaKeyPairPoolMetrics;
 import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Arrays;
+import java.util.Set;
+
 /**
  * Configuration for PQC cryptographic services.
  */
 @Configuration
 public class PqcCryptoConfig {
 
+    /**
+     * Pre-generated ML-DSA key pairs for CA and service certificate key
+     * generation; disabled at depth 0.
+     */
+    @Bean
+    public MlDsaKeyPairPool mlDsaKeyPairPool(
+            @Value("${crypto.ml-dsa.key-pool.depth:0}") int depth,
+            @Value("${crypto.ml-dsa.key-pool.levels:ML_DSA_44,ML_DSA_65,ML_DSA_87}") MlDsaLevel[] levels) {
+        MlDsaKeyPairPool pool = new MlDsaKeyPairPool(
+                new MlDsaKeyPairPool.Settings(depth, Set.copyOf(Arrays.asList(levels))));
+        pool.start();
+        return pool;
+    }
+
+    @Bean
+    public MlDsaKeyPairPoolMetrics mlDsaKeyPairPoolMetrics(MlDsaKeyPairPool mlDsaKeyPairPool) {
+        return new MlDsaKeyPairPoolMetrics(mlDsaKeyPairPool);
+    }
+
     @Bean
-    public PqcCryptoService pqcCryptoService() {
-        return new PqcCryptoService();
+    public PqcCryptoService pqcCryptoService(MlDsaKeyPairPool mlDsaKeyPairPool) {
+        return new PqcCryptoService(mlDsaKeyPairPool);
     }
 }
@@ -27,6 +27,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/ca/init-csr", "/api/v1/ca/status", "/actuator/**").permitAll()
                         // Certificate endpoints require authentication
                         .requestMatchers("/api/v1/certificates/**").authenticated()
+                        // Trust snapshot export signs with a CA key
+                        .requestMatchers("/api/v1/ca/trust-snapshot/**").hasRole("ADMIN")
                         // All other requests permitted (internal service calls)
                         .anyRequest().permitAll());
         return http.build();
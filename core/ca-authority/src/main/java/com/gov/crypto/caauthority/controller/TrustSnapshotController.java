@@ -0,0 +1,47 @@
+package com.gov.crypto.caauthority.controller;
+
+import com.gov.crypto.caauthority.service.TrustSnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * Trust snapshot export for offline validators (Zone C, provincial offices).
+ * Restricted to administrators in {@link com.gov.crypto.caauthority.config.SecurityConfig}.
+ */
+@RestController
+@RequestMapping("/api/v1/ca/trust-snapshot")
+public class TrustSnapshotController {
+
+    private static final Logger log = LoggerFactory.getLogger(TrustSnapshotController.class);
+
+    private final TrustSnapshotService snapshotService;
+
+    public TrustSnapshotController(TrustSnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    /**
+     * Download a snapshot signed by the given CA.
+     */
+    @GetMapping(value = "/{signerCaId}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> exportSnapshot(@PathVariable UUID signerCaId) {
+        try {
+            byte[] snapshot = snapshotService.exportSnapshot(signerCaId);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trust-snapshot.gts\"")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(snapshot);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Trust snapshot export failed", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.gov.crypto.caauthority.model.CertificateAuthority;
 import com.gov.crypto.caauthority.model.IssuedCertificate;
 import com.gov.crypto.caauthority.model.IssuedCertificate.CertStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -19,6 +20,15 @@ public interface IssuedCertificateRepository extends JpaRepository<IssuedCertifi
 
     List<IssuedCertificate> findByStatus(CertStatus status);
 
+    /**
+     * Serial numbers only, for bulk exports that should not load whole entities.
+     * Rows without a certificate are requests that were never issued; their
+     * placeholder serial is not a certificate serial.
+     */
+    @Query("select c.serialNumber from IssuedCertificate c where c.status = :status and c.serialNumber is not null"
+            + " and c.certificate is not null and c.certificate <> ''")
+    List<String> findSerialNumbersByStatus(CertStatus status);
+
     List<IssuedCertificate> findBySubjectDnContaining(String subjectPart);
 
     List<IssuedCertificate> findByUsername(String username);
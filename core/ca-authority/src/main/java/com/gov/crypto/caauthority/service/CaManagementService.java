@@ -73,12 +73,13 @@ public class CaManagementService {
             CertificateAuthorityRepository caRepository,
             IssuedCertificateRepository certRepository,
             KeyEncryptionService keyEncryptionService,
+            PqcCryptoService pqcCryptoService,
             @Value("${app.ca.storage-path:/secure/ca}") String caStoragePath) {
         this.caRepository = caRepository;
         this.certRepository = certRepository;
         this.keyEncryptionService = keyEncryptionService;
         this.caStoragePath = caStoragePath;
-        this.pqcCryptoService = new PqcCryptoService();
+        this.pqcCryptoService = pqcCryptoService;
     }
 
     @PostConstruct
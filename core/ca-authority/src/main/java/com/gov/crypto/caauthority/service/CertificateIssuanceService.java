@@ -71,12 +71,13 @@ public class CertificateIssuanceService {
             CertificateAuthorityRepository caRepository,
             IssuedCertificateRepository certRepository,
             KeyEncryptionService keyEncryptionService,
+            PqcCryptoService pqcCryptoService,
             @Value("${app.mtls.storage-path:/secure/mtls}") String mtlsStoragePath) {
         this.caRepository = caRepository;
         this.certRepository = certRepository;
         this.keyEncryptionService = keyEncryptionService;
         this.mtlsStoragePath = mtlsStoragePath;
-        this.pqcCryptoService = new PqcCryptoService();
+        this.pqcCryptoService = pqcCryptoService;
     }
 
     @PostConstruct
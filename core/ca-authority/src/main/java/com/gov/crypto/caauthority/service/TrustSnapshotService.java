@@ -0,0 +1,179 @@
+package com.gov.crypto.caauthority.service;
+
+import com.gov.crypto.caauthority.model.CertificateAuthority;
+import com.gov.crypto.caauthority.model.CertificateAuthority.CaStatus;
+import com.gov.crypto.caauthority.model.IssuedCertificate.CertStatus;
+import com.gov.crypto.caauthority.repository.CertificateAuthorityRepository;
+import com.gov.crypto.caauthority.repository.IssuedCertificateRepository;
+import com.gov.crypto.caauthority.security.KeyEncryptionService;
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.truststore.TrustSnapshotWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exports signed trust snapshots for offline and air-gapped validators.
+ *
+ * A snapshot holds every active CA certificate indexed by key identifier,
+ * the serials of all revoked certificates and CAs, and a validity watermark
+ * after which validators must stop relying on it. See
+ * {@link com.gov.crypto.common.truststore.TrustSnapshotFormat} for the layout.
+ *
+ * Signing decrypts the signer's private key, so the signed snapshot is
+ * cached per signer and only rebuilt when the CA certificates or revoked
+ * serials it was built from change, or once half its validity has passed.
+ */
+@Service
+public class TrustSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrustSnapshotService.class);
+
+    private final CertificateAuthorityRepository caRepository;
+    private final IssuedCertificateRepository certRepository;
+    private final PqcCryptoService pqcCryptoService;
+    private final KeyEncryptionService keyEncryptionService;
+    private final long validityHours;
+    private final Map<UUID, CachedSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public TrustSnapshotService(
+            CertificateAuthorityRepository caRepository,
+            IssuedCertificateRepository certRepository,
+            PqcCryptoService pqcCryptoService,
+            KeyEncryptionService keyEncryptionService,
+            @Value("${app.trust-snapshot.validity-hours:24}") long validityHours) {
+        this.caRepository = caRepository;
+        this.certRepository = certRepository;
+        this.pqcCryptoService = pqcCryptoService;
+        this.keyEncryptionService = keyEncryptionService;
+        this.validityHours = validityHours;
+    }
+
+    /**
+     * Get a snapshot signed by the given CA, rebuilding it if its contents
+     * changed since the last export.
+     *
+     * @param signerCaId CA whose key signs the snapshot; validators pin its
+     *                   certificate
+     * @return The encoded snapshot, shared with the cache; not to be modified
+     */
+    @Transactional(readOnly = true)
+    public byte[] exportSnapshot(UUID signerCaId) throws Exception {
+        CertificateAuthority signer = caRepository.findById(signerCaId)
+                .orElseThrow(() -> new IllegalArgumentException("CA not found: " + signerCaId));
+        if (signer.getStatus() != CaStatus.ACTIVE || signer.getPrivateKeyPath() == null) {
+            throw new IllegalArgumentException("Snapshot signer must be an active CA with a local key");
+        }
+
+        List<String> activeCaPems = certificatePems(CaStatus.ACTIVE);
+        List<String> revokedCaPems = certificatePems(CaStatus.REVOKED);
+        List<String> revokedSerials = certRepository.findSerialNumbersByStatus(CertStatus.REVOKED);
+        byte[] contents = contentsDigest(signer.getCertificate(), activeCaPems, revokedCaPems, revokedSerials);
+
+        Instant now = Instant.now();
+        CachedSnapshot cached = snapshots.get(signerCaId);
+        if (cached != null && MessageDigest.isEqual(cached.contents(), contents)
+                && now.isBefore(cached.refreshAfter())) {
+            return cached.snapshot();
+        }
+
+        X509Certificate signerCert = pqcCryptoService.parseCertificatePem(signer.getCertificate());
+        PrivateKey signerKey = pqcCryptoService.parsePrivateKeyPem(
+                keyEncryptionService.readDecryptedKey(Path.of(signer.getPrivateKeyPath())));
+
+        // Sequence doubles as the issue time so newer exports always win
+        long sequence = now.toEpochMilli();
+        TrustSnapshotWriter writer = new TrustSnapshotWriter(sequence, now.plus(validityHours, ChronoUnit.HOURS));
+
+        for (String pem : activeCaPems) {
+            writer.addCaCertificate(pqcCryptoService.parseCertificatePem(pem));
+        }
+
+        int revokedCount = 0;
+        for (String pem : revokedCaPems) {
+            writer.addRevokedSerial(pqcCryptoService.parseCertificatePem(pem).getSerialNumber());
+            revokedCount++;
+        }
+        for (String serial : revokedSerials) {
+            BigInteger parsed = parseSerial(serial);
+            if (parsed == null) {
+                log.warn("Skipping revoked certificate with non-hex serial '{}' in trust snapshot", serial);
+                continue;
+            }
+            writer.addRevokedSerial(parsed);
+            revokedCount++;
+        }
+
+        byte[] snapshot = writer.sign(signerCert, signerKey, getMlDsaLevelFromCert(signerCert));
+        snapshots.put(signerCaId, new CachedSnapshot(contents, snapshot,
+                now.plus(validityHours * 30, ChronoUnit.MINUTES)));
+        log.info("Exported trust snapshot #{} signed by {}: {} CAs, {} revoked serials, {} bytes",
+                sequence, signer.getName(), activeCaPems.size(), revokedCount, snapshot.length);
+        return snapshot;
+    }
+
+    private List<String> certificatePems(CaStatus status) {
+        return caRepository.findByStatus(status).stream()
+                .map(CertificateAuthority::getCertificate)
+                .filter(pem -> pem != null && !pem.isEmpty())
+                .toList();
+    }
+
+    /**
+     * SHA-256 over everything a snapshot is built from, in order.
+     */
+    private static byte[] contentsDigest(String signerPem, List<String> activeCaPems, List<String> revokedCaPems,
+            List<String> revokedSerials) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(signerPem.getBytes(StandardCharsets.UTF_8));
+        for (List<String> section : List.of(activeCaPems, revokedCaPems, revokedSerials)) {
+            digest.update((byte) 0x1e);
+            for (String value : section) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0x1f);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static BigInteger parseSerial(String serial) {
+        try {
+            return new BigInteger(serial, 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private record CachedSnapshot(byte[] contents, byte[] snapshot, Instant refreshAfter) {
+    }
+
+    /**
+     * Determine ML-DSA level from certificate algorithm.
+     */
+    private PqcCryptoService.MlDsaLevel getMlDsaLevelFromCert(X509Certificate cert) {
+        String algo = cert.getPublicKey().getAlgorithm();
+        if (algo.equalsIgnoreCase("Dilithium2") || algo.contains("44")) {
+            return PqcCryptoService.MlDsaLevel.ML_DSA_44;
+        } else if (algo.equalsIgnoreCase("Dilithium3") || algo.contains("65")) {
+            return PqcCryptoService.MlDsaLevel.ML_DSA_65;
+        } else {
+            return PqcCryptoService.MlDsaLevel.ML_DSA_87;
+        }
+    }
+}
@@ -3,18 +3,32 @@ package com.gov.crypto.caauthority.service;
 import com.gov.crypto.caauthority.model.CertificateAuthority;
 import com.gov.crypto.caauthority.repository.CertificateAuthorityRepository;
 import com.gov.crypto.common.pqc.PqcCryptoService;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInfoGenerator;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoGeneratorBuilder;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.tsp.TSPAlgorithms;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampRequestGenerator;
+import org.bouncycastle.tsp.TimeStampToken;
+import org.bouncycastle.tsp.TimeStampTokenGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
-import java.time.Instant;
-import java.util.Base64;
+import java.util.Date;
+import java.util.List;
 
 /**
  * RFC 3161 Timestamp Authority Service.
@@ -22,14 +36,17 @@ import java.util.Base64;
  * The TSA certificate should be pre-signed by the offline Root CA
  * and imported into the system during initial setup.
  * 
- * Note: This is a simplified implementation. For production, use
- * BouncyCastle's full TSP (TimeStampProtocol) implementation.
+ * Tokens are standard RFC 3161 TimeStampTokens built with BouncyCastle's
+ * TSP implementation and signed with the TSA's ML-DSA key.
  */
 @Service
 public class TsaService {
 
     private static final Logger log = LoggerFactory.getLogger(TsaService.class);
 
+    /** TSA policy OID, same default_policy as infra/docker/tsa-mock/tsa.cnf */
+    private static final ASN1ObjectIdentifier TSA_POLICY_OID = new ASN1ObjectIdentifier("1.2.3.4.1");
+
     private final CertificateAuthorityRepository caRepository;
     private final PqcCryptoService pqcService;
     private final SecureRandom secureRandom = new SecureRandom();
@@ -45,19 +62,15 @@ public class TsaService {
     }
 
     /**
-     * Generate a signed timestamp token for the given data.
-     * 
-     * This is a simplified timestamp format:
-     * {
-     * "serialNumber": "...",
-     * "genTime": "ISO-8601",
-     * "hashAlgorithm": "SHA-256",
-     * "hashedMessage": "base64",
-     * "signature": "base64"
-     * }
+     * Generate an RFC 3161 TimeStampToken for the given message imprint.
+     *
+     * The token is a CMS SignedData over a TSTInfo structure, signed with the
+     * TSA's ML-DSA key and carrying the TSA certificate, so any RFC 3161
+     * verifier can check it. RFC 3161 requires the TSA certificate to carry a
+     * critical id-kp-timeStamping extended key usage.
      *
-     * @param messageImprint The hash of the data to be timestamped
-     * @return The timestamp token bytes (JSON encoded, then signed)
+     * @param messageImprint The SHA-256 hash of the data to be timestamped
+     * @return The DER-encoded TimeStampToken
      */
     public byte[] generateTimestamp(byte[] messageImprint) throws Exception {
         initializeTsa();
@@ -66,34 +79,32 @@ public class TsaService {
             throw new IllegalStateException("TSA not configured - TSA certificate not found");
         }
 
-        // Generate unique serial number
-        BigInteger serialNumber = new BigInteger(64, secureRandom);
-        Instant now = Instant.now();
-
-        // Create timestamp info
-        String timestampInfo = String.format(
-                "{\"serialNumber\":\"%s\",\"genTime\":\"%s\",\"hashAlgorithm\":\"SHA-256\",\"hashedMessage\":\"%s\"}",
-                serialNumber.toString(16),
-                now.toString(),
-                Base64.getEncoder().encodeToString(messageImprint));
-
-        // Hash the timestamp info
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] infoHash = digest.digest(timestampInfo.getBytes(StandardCharsets.UTF_8));
-
-        // Sign with TSA key
         PqcCryptoService.MlDsaLevel level = getMlDsaLevelFromCert(tsaCertificate);
-        byte[] signature = pqcService.sign(infoHash, tsaPrivateKey, level);
-
-        // Create final token: info + delimiter + signature
-        String token = timestampInfo + "|" + Base64.getEncoder().encodeToString(signature);
-        return token.getBytes(StandardCharsets.UTF_8);
+        DigestCalculatorProvider digestProvider = new JcaDigestCalculatorProviderBuilder()
+                .setProvider("BC").build();
+        SignerInfoGenerator signerInfoGenerator = new JcaSimpleSignerInfoGeneratorBuilder()
+                .setProvider("BC")
+                .build(level.getAlgorithmName(), tsaPrivateKey, tsaCertificate);
+
+        TimeStampTokenGenerator tokenGenerator = new TimeStampTokenGenerator(
+                signerInfoGenerator,
+                digestProvider.get(new AlgorithmIdentifier(NISTObjectIdentifiers.id_sha256)),
+                TSA_POLICY_OID);
+        tokenGenerator.addCertificates(new JcaCertStore(List.of(tsaCertificate)));
+
+        TimeStampRequest request = new TimeStampRequestGenerator()
+                .generate(TSPAlgorithms.SHA256, messageImprint);
+
+        // Unique serial number per token
+        BigInteger serialNumber = new BigInteger(64, secureRandom);
+        TimeStampToken token = tokenGenerator.generate(request, serialNumber, new Date());
+        return token.getEncoded();
     }
 
     /**
      * Verify a timestamp token.
      *
-     * @param timestampToken The timestamp token bytes
+     * @param timestampToken The DER-encoded TimeStampToken
      * @param originalHash   The original hash that was timestamped
      * @return true if valid
      */
@@ -106,53 +117,28 @@ public class TsaService {
                 return false;
             }
 
-            String tokenStr = new String(timestampToken, StandardCharsets.UTF_8);
-            String[] parts = tokenStr.split("\\|");
-
-            if (parts.length != 2) {
-                log.warn("Invalid timestamp token format");
-                return false;
-            }
-
-            String timestampInfo = parts[0];
-            byte[] signature = Base64.getDecoder().decode(parts[1]);
-
-            // Verify the hashedMessage in the token matches original
-            // Parse JSON manually (simple approach)
-            String hashedMessageB64 = extractJsonValue(timestampInfo, "hashedMessage");
-            byte[] tokenHash = Base64.getDecoder().decode(hashedMessageB64);
+            TimeStampToken token = new TimeStampToken(new CMSSignedData(timestampToken));
 
+            // Verify the messageImprint in the token matches original
+            byte[] tokenHash = token.getTimeStampInfo().getMessageImprintDigest();
             if (!MessageDigest.isEqual(tokenHash, originalHash)) {
                 log.warn("Timestamp hash does not match original");
                 return false;
             }
 
-            // Verify signature
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] infoHash = digest.digest(timestampInfo.getBytes(StandardCharsets.UTF_8));
-
-            PqcCryptoService.MlDsaLevel level = getMlDsaLevelFromCert(tsaCertificate);
-            return pqcService.verify(infoHash, signature, tsaCertificate.getPublicKey(), level);
+            // Checks the CMS signature, the ESS signing-certificate binding and
+            // that the TSA certificate was valid at genTime
+            token.validate(new JcaSimpleSignerInfoVerifierBuilder()
+                    .setProvider("BC")
+                    .build(tsaCertificate));
+            return true;
 
         } catch (Exception e) {
-            log.error("Failed to verify timestamp", e);
+            log.warn("Failed to verify timestamp: {}", e.getMessage());
             return false;
         }
     }
 
-    /**
-     * Simple JSON value extractor.
-     */
-    private String extractJsonValue(String json, String key) {
-        String searchKey = "\"" + key + "\":\"";
-        int start = json.indexOf(searchKey);
-        if (start < 0)
-            return null;
-        start += searchKey.length();
-        int end = json.indexOf("\"", start);
-        return json.substring(start, end);
-    }
-
     /**
      * Initialize TSA by loading the TSA certificate and private key.
      */
@@ -0,0 +1,125 @@
+package com.gov.crypto.caauthority.service;
+
+import com.gov.crypto.caauthority.model.CertificateAuthority;
+import com.gov.crypto.caauthority.model.CertificateAuthority.CaStatus;
+import com.gov.crypto.caauthority.model.IssuedCertificate.CertStatus;
+import com.gov.crypto.caauthority.repository.CertificateAuthorityRepository;
+import com.gov.crypto.caauthority.repository.IssuedCertificateRepository;
+import com.gov.crypto.caauthority.security.KeyEncryptionService;
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import com.gov.crypto.common.truststore.TrustSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TrustSnapshotService.
+ */
+@ExtendWith(MockitoExtension.class)
+class TrustSnapshotServiceTest {
+
+    @Mock
+    private CertificateAuthorityRepository caRepository;
+
+    @Mock
+    private IssuedCertificateRepository certRepository;
+
+    @Mock
+    private KeyEncryptionService keyEncryptionService;
+
+    private final PqcCryptoService pqcCryptoService = new PqcCryptoService();
+
+    @Nested
+    @DisplayName("Snapshot Export Tests")
+    class ExportTests {
+
+        @Test
+        @DisplayName("Should export despite a revoked request that was never issued")
+        void shouldSkipRevokedPendingRequest() throws Exception {
+            // Given
+            KeyPair keyPair = pqcCryptoService.generateMlDsaKeyPair(MlDsaLevel.ML_DSA_44);
+            X509Certificate caCert = pqcCryptoService.generateSelfSignedCertificate(
+                    keyPair, "CN=Snapshot Root,O=Test,C=VN", 30, MlDsaLevel.ML_DSA_44);
+            UUID caId = UUID.randomUUID();
+            CertificateAuthority ca = new CertificateAuthority();
+            ca.setName("Snapshot Root");
+            ca.setStatus(CaStatus.ACTIVE);
+            ca.setCertificate(pqcCryptoService.certificateToPem(caCert));
+            ca.setPrivateKeyPath("/secure/ca/root.key");
+
+            when(caRepository.findById(caId)).thenReturn(Optional.of(ca));
+            when(caRepository.findByStatus(CaStatus.ACTIVE)).thenReturn(List.of(ca));
+            when(caRepository.findByStatus(CaStatus.REVOKED)).thenReturn(List.of());
+            when(keyEncryptionService.readDecryptedKey(any()))
+                    .thenReturn(pqcCryptoService.privateKeyToPem(keyPair.getPrivate()));
+            // A pending request keeps its UUID placeholder serial when revoked
+            when(certRepository.findSerialNumbersByStatus(CertStatus.REVOKED))
+                    .thenReturn(List.of("0A1B2C", UUID.randomUUID().toString()));
+
+            TrustSnapshotService service = new TrustSnapshotService(caRepository, certRepository,
+                    pqcCryptoService, keyEncryptionService, 24);
+
+            // When
+            byte[] snapshot = service.exportSnapshot(caId);
+
+            // Then
+            TrustSnapshot loaded = TrustSnapshot.verify(ByteBuffer.wrap(snapshot), caCert, MlDsaLevel.ML_DSA_44);
+            assertEquals(1, loaded.revokedCount());
+            assertTrue(loaded.isRevoked(new BigInteger("0A1B2C", 16)));
+        }
+
+        @Test
+        @DisplayName("Should reuse the signed snapshot until a revocation changes it")
+        void shouldCacheUntilContentsChange() throws Exception {
+            // Given
+            KeyPair keyPair = pqcCryptoService.generateMlDsaKeyPair(MlDsaLevel.ML_DSA_44);
+            X509Certificate caCert = pqcCryptoService.generateSelfSignedCertificate(
+                    keyPair, "CN=Snapshot Root,O=Test,C=VN", 30, MlDsaLevel.ML_DSA_44);
+            UUID caId = UUID.randomUUID();
+            CertificateAuthority ca = new CertificateAuthority();
+            ca.setName("Snapshot Root");
+            ca.setStatus(CaStatus.ACTIVE);
+            ca.setCertificate(pqcCryptoService.certificateToPem(caCert));
+            ca.setPrivateKeyPath("/secure/ca/root.key");
+
+            when(caRepository.findById(caId)).thenReturn(Optional.of(ca));
+            when(caRepository.findByStatus(CaStatus.ACTIVE)).thenReturn(List.of(ca));
+            when(caRepository.findByStatus(CaStatus.REVOKED)).thenReturn(List.of());
+            when(keyEncryptionService.readDecryptedKey(any()))
+                    .thenReturn(pqcCryptoService.privateKeyToPem(keyPair.getPrivate()));
+            when(certRepository.findSerialNumbersByStatus(CertStatus.REVOKED))
+                    .thenReturn(List.of("0A1B2C"), List.of("0A1B2C"), List.of("0A1B2C", "0D0E0F"));
+
+            TrustSnapshotService service = new TrustSnapshotService(caRepository, certRepository,
+                    pqcCryptoService, keyEncryptionService, 24);
+
+            // When
+            byte[] first = service.exportSnapshot(caId);
+            byte[] second = service.exportSnapshot(caId);
+            byte[] afterRevocation = service.exportSnapshot(caId);
+
+            // Then
+            assertSame(first, second);
+            TrustSnapshot loaded = TrustSnapshot.verify(ByteBuffer.wrap(afterRevocation), caCert,
+                    MlDsaLevel.ML_DSA_44);
+            assertTrue(loaded.isRevoked(new BigInteger("0D0E0F", 16)));
+            verify(keyEncryptionService, times(2)).readDecryptedKey(any());
+        }
+    }
+}
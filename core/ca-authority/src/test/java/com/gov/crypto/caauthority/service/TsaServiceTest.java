@@ -3,6 +3,15 @@ package com.gov.crypto.caauthority.service;
 import com.gov.crypto.caauthority.model.CertificateAuthority;
 import com.gov.crypto.caauthority.repository.CertificateAuthorityRepository;
 import com.gov.crypto.common.pqc.PqcCryptoService;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.tsp.TimeStampToken;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -12,7 +21,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.cert.X509Certificate;
+import java.util.Date;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -130,4 +144,57 @@ class TsaServiceTest {
             assertFalse(result);
         }
     }
+
+    @Nested
+    @DisplayName("RFC 3161 Round-Trip Tests")
+    class RoundTripTests {
+
+        private TsaService realTsaService;
+        private byte[] imprint;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            PqcCryptoService pqc = new PqcCryptoService();
+            KeyPair keys = pqc.generateMlDsaKeyPair(PqcCryptoService.MlDsaLevel.ML_DSA_44);
+            X500Name name = new X500Name("CN=Test TSA, C=VN");
+            JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
+                    name, BigInteger.ONE,
+                    new Date(System.currentTimeMillis() - 60_000),
+                    new Date(System.currentTimeMillis() + 86_400_000L),
+                    name, keys.getPublic());
+            builder.addExtension(Extension.extendedKeyUsage, true,
+                    new ExtendedKeyUsage(KeyPurposeId.id_kp_timeStamping));
+            X509Certificate cert = new JcaX509CertificateConverter().setProvider("BC").getCertificate(
+                    builder.build(new JcaContentSignerBuilder("ML-DSA-44").setProvider("BC")
+                            .build(keys.getPrivate())));
+
+            CertificateAuthority tsaCa = new CertificateAuthority();
+            tsaCa.setName("TSA");
+            tsaCa.setCertificate(pqc.certificateToPem(cert));
+            tsaCa.setPrivateKeyPath(pqc.privateKeyToPem(keys.getPrivate()));
+            when(caRepository.findByName("TSA")).thenReturn(Optional.of(tsaCa));
+
+            realTsaService = new TsaService(caRepository, pqc);
+            imprint = MessageDigest.getInstance("SHA-256").digest("stamp".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Should issue a parseable RFC 3161 token over the imprint")
+        void shouldIssueRfc3161Token() throws Exception {
+            byte[] encoded = realTsaService.generateTimestamp(imprint);
+
+            TimeStampToken token = new TimeStampToken(new CMSSignedData(encoded));
+            assertArrayEquals(imprint, token.getTimeStampInfo().getMessageImprintDigest());
+            assertEquals("1.2.3.4.1", token.getTimeStampInfo().getPolicy().getId());
+        }
+
+        @Test
+        @DisplayName("Should verify its own token and reject a different imprint")
+        void shouldVerifyOwnToken() throws Exception {
+            byte[] encoded = realTsaService.generateTimestamp(imprint);
+
+            assertTrue(realTsaService.verifyTimestamp(encoded, imprint));
+            assertFalse(realTsaService.verifyTimestamp(encoded, new byte[32]));
+        }
+    }
 }
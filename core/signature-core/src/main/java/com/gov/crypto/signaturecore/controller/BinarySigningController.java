@@ -0,0 +1,183 @@
+package com.gov.crypto.signaturecore.controller;
+
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.rpc.FrameCodec;
+import com.gov.crypto.common.rpc.RpcStatus;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.KeyGenCall;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.KeyGenResult;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.SignCall;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.SignResult;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.VerifyCall;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.VerifyResult;
+import com.gov.crypto.signaturecore.service.KeyNotFoundException;
+import com.gov.crypto.signaturecore.service.UserKeyStorageService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.PrivateKey;
+
+/**
+ * Binary signing RPCs for internal callers (registration, doc-service
+ * workflows, bulk stamping).
+ *
+ * Bodies are application/octet-stream framed by {@link FrameCodec}: unary
+ * calls take one frame and return one; /stream calls take any number of
+ * frames and write each result as soon as it is ready, so one connection
+ * carries a whole batch. With server.http2.enabled, callers can multiplex
+ * these calls over a single long-lived h2c connection.
+ */
+@RestController
+@RequestMapping(value = "/api/v1/rpc", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+public class BinarySigningController {
+
+    private static final Logger log = LoggerFactory.getLogger(BinarySigningController.class);
+
+    private final PqcCryptoService pqcCryptoService;
+    private final UserKeyStorageService keyStorageService;
+    private final int maxFrameBytes;
+
+    public BinarySigningController(
+            PqcCryptoService pqcCryptoService,
+            UserKeyStorageService keyStorageService,
+            @Value("${signature-core.rpc.max-frame-bytes:16777216}") int maxFrameBytes) {
+        this.pqcCryptoService = pqcCryptoService;
+        this.keyStorageService = keyStorageService;
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    @PostMapping(value = "/sign", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] sign(InputStream body) {
+        return unary(body, this::sign);
+    }
+
+    /**
+     * Sign a stream of {@link SignCall} frames, answering each with a
+     * {@link SignResult} frame in order.
+     */
+    @PostMapping("/sign/stream")
+    public void signStream(InputStream body, HttpServletResponse response) throws IOException {
+        stream(body, response, this::sign, "sign");
+    }
+
+    @PostMapping(value = "/verify", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] verify(InputStream body) {
+        return unary(body, this::verify);
+    }
+
+    @PostMapping("/verify/stream")
+    public void verifyStream(InputStream body, HttpServletResponse response) throws IOException {
+        stream(body, response, this::verify, "verify");
+    }
+
+    @PostMapping(value = "/generate-key", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] generateKey(InputStream body) {
+        return unary(body, this::generateKey);
+    }
+
+    @PostMapping("/generate-key/stream")
+    public void generateKeyStream(InputStream body, HttpServletResponse response) throws IOException {
+        stream(body, response, this::generateKey, "generate-key");
+    }
+
+    private byte[] sign(byte[] frame) {
+        try {
+            SignCall call = SignCall.decode(frame);
+            PrivateKey privateKey = keyStorageService.getPrivateKey(call.userId(), call.keyAlias());
+            String algorithm = keyStorageService.getKeyAlgorithm(call.userId(), call.keyAlias());
+            byte[] signature = pqcCryptoService.sign(call.data(), privateKey, SigningController.levelOf(algorithm));
+            return new SignResult(RpcStatus.OK, "", signature, algorithm).encode();
+        } catch (IOException e) {
+            return SignResult.failed(RpcStatus.INVALID_ARGUMENT, "Malformed sign call").encode();
+        } catch (KeyNotFoundException e) {
+            return SignResult.failed(RpcStatus.NOT_FOUND, e.getMessage()).encode();
+        } catch (Exception e) {
+            log.error("Binary signing failed", e);
+            return SignResult.failed(RpcStatus.INTERNAL, "Signing failed: " + e.getMessage()).encode();
+        }
+    }
+
+    private byte[] verify(byte[] frame) {
+        try {
+            VerifyCall call = VerifyCall.decode(frame);
+            String algorithm = keyStorageService.getKeyAlgorithm(call.userId(), call.keyAlias());
+            boolean valid = pqcCryptoService.verify(call.data(), call.signature(),
+                    keyStorageService.getPublicKey(call.userId(), call.keyAlias()),
+                    SigningController.levelOf(algorithm));
+            return new VerifyResult(RpcStatus.OK, "", valid).encode();
+        } catch (IOException e) {
+            return VerifyResult.failed(RpcStatus.INVALID_ARGUMENT, "Malformed verify call").encode();
+        } catch (KeyNotFoundException e) {
+            return VerifyResult.failed(RpcStatus.NOT_FOUND, e.getMessage()).encode();
+        } catch (Exception e) {
+            log.error("Binary verification failed", e);
+            return VerifyResult.failed(RpcStatus.INTERNAL, "Verification failed: " + e.getMessage()).encode();
+        }
+    }
+
+    private byte[] generateKey(byte[] frame) {
+        try {
+            KeyGenCall call = KeyGenCall.decode(frame);
+            if (call.userId().isEmpty() || call.keyAlias().isEmpty()) {
+                return KeyGenResult.failed(RpcStatus.INVALID_ARGUMENT, "userId and keyAlias are required").encode();
+            }
+            var storedKey = keyStorageService.generateKeyForUser(call.userId(), call.keyAlias(),
+                    SigningController.levelOf(call.algorithm()));
+            return new KeyGenResult(RpcStatus.OK, "", storedKey.alias(), storedKey.algorithm(),
+                    storedKey.publicKey().getEncoded()).encode();
+        } catch (IOException e) {
+            return KeyGenResult.failed(RpcStatus.INVALID_ARGUMENT, "Malformed key generation call").encode();
+        } catch (Exception e) {
+            log.error("Binary key generation failed", e);
+            return KeyGenResult.failed(RpcStatus.INTERNAL, "Key generation failed: " + e.getMessage()).encode();
+        }
+    }
+
+    private byte[] unary(InputStream body, Handler handler) {
+        byte[] frame;
+        try {
+            frame = FrameCodec.readFrame(body, maxFrameBytes);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (frame == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Empty request body");
+        }
+        return FrameCodec.frame(handler.handle(frame));
+    }
+
+    /**
+     * Read frames until the caller closes its side, flushing each result so
+     * the caller can consume results while still sending calls.
+     */
+    private void stream(InputStream body, HttpServletResponse response, Handler handler, String rpc)
+            throws IOException {
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(body));
+        OutputStream out = response.getOutputStream();
+        int count = 0;
+        for (byte[] frame; (frame = FrameCodec.readFrame(in, maxFrameBytes)) != null;) {
+            FrameCodec.writeFrame(out, handler.handle(frame));
+            out.flush();
+            count++;
+        }
+        log.info("Binary {} stream completed: {} calls", rpc, count);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        byte[] handle(byte[] frame);
+    }
+}
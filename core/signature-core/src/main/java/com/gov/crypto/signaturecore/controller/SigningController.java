@@ -1,12 +1,21 @@
 package com.gov.crypto.signaturecore.controller;
 
 import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.signaturecore.dto.DigestSignRequest;
+import com.gov.crypto.signaturecore.dto.PreHashSignResponse;
 import com.gov.crypto.signaturecore.dto.SignRequest;
 import com.gov.crypto.signaturecore.dto.SignResponse;
+import com.gov.crypto.signaturecore.service.KeyNotFoundException;
 import com.gov.crypto.signaturecore.service.UserKeyStorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.util.Base64;
 
@@ -15,12 +24,18 @@ import java.util.Base64;
  * 
  * SECURITY: Uses UserKeyStorageService to retrieve stored keys.
  * Keys are associated with userId and keyAlias.
+ *
+ * /remote takes the data inline and suits small payloads. For large ones,
+ * /stream hashes a raw request body as it arrives and /digest takes a
+ * SHA-512 digest computed by the caller; both sign the digest with
+ * HashML-DSA, so memory use does not depend on payload size.
  */
 @RestController
 @RequestMapping("/api/v1/sign")
 public class SigningController {
 
     private static final Logger log = LoggerFactory.getLogger(SigningController.class);
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
 
     private final PqcCryptoService pqcCryptoService;
     private final UserKeyStorageService keyStorageService;
@@ -41,28 +56,102 @@ public class SigningController {
         try {
             log.info("Sign request: userId={}, keyAlias={}", request.userId(), request.keyAlias());
 
-            // Retrieve stored private key (or default if not found)
+            // Retrieve stored private key (default key only without userId)
             PrivateKey privateKey = keyStorageService.getPrivateKey(request.userId(), request.keyAlias());
             String algorithm = keyStorageService.getKeyAlgorithm(request.userId(), request.keyAlias());
 
             // Determine ML-DSA level from algorithm
-            PqcCryptoService.MlDsaLevel level = switch (algorithm) {
-                case "ML-DSA-65", "ML_DSA_65" -> PqcCryptoService.MlDsaLevel.ML_DSA_65;
-                case "ML-DSA-87", "ML_DSA_87" -> PqcCryptoService.MlDsaLevel.ML_DSA_87;
-                default -> PqcCryptoService.MlDsaLevel.ML_DSA_44;
-            };
+            PqcCryptoService.MlDsaLevel level = levelOf(algorithm);
 
             byte[] dataToSign = Base64.getDecoder().decode(request.dataBase64());
             byte[] signature = pqcCryptoService.sign(dataToSign, privateKey, level);
 
             log.info("Successfully signed {} bytes with {}", dataToSign.length, algorithm);
             return new SignResponse(Base64.getEncoder().encodeToString(signature), algorithm);
+        } catch (KeyNotFoundException e) {
+            log.warn("Sign request rejected: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Signing failed", e);
             throw new RuntimeException("Signing failed: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Sign a raw request body of any size. The body is hashed with SHA-512
+     * as it is read and the digest is signed with HashML-DSA.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public PreHashSignResponse signStream(
+            @RequestParam(required = false) String userId,
+            @RequestParam String keyAlias,
+            InputStream body) {
+        try {
+            MessageDigest sha512 = MessageDigest.getInstance("SHA-512");
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            long total = 0;
+            for (int read; (read = body.read(buffer)) != -1;) {
+                sha512.update(buffer, 0, read);
+                total += read;
+            }
+            log.info("Stream sign request: userId={}, keyAlias={}, {} bytes", userId, keyAlias, total);
+            return signPreHashed(userId, keyAlias, sha512.digest());
+        } catch (KeyNotFoundException e) {
+            log.warn("Stream sign request rejected: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Stream signing failed", e);
+            throw new RuntimeException("Signing failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sign a SHA-512 digest the caller computed, e.g. of a multi-GB archive
+     * that never leaves its storage.
+     */
+    @PostMapping("/digest")
+    public PreHashSignResponse signDigest(@RequestBody DigestSignRequest request) {
+        byte[] digest;
+        try {
+            digest = Base64.getDecoder().decode(request.digestBase64());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "digestBase64 must be Base64");
+        }
+        if (digest.length != PqcCryptoService.SHA512_DIGEST_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "digestBase64 must be a " + PqcCryptoService.SHA512_DIGEST_LENGTH + "-byte SHA-512 digest");
+        }
+        try {
+            log.info("Digest sign request: userId={}, keyAlias={}", request.userId(), request.keyAlias());
+            return signPreHashed(request.userId(), request.keyAlias(), digest);
+        } catch (KeyNotFoundException e) {
+            log.warn("Digest sign request rejected: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Digest signing failed", e);
+            throw new RuntimeException("Signing failed: " + e.getMessage(), e);
+        }
+    }
+
+    private PreHashSignResponse signPreHashed(String userId, String keyAlias, byte[] digest) throws Exception {
+        PrivateKey privateKey = keyStorageService.getPrivateKey(userId, keyAlias);
+        PqcCryptoService.MlDsaLevel level = levelOf(keyStorageService.getKeyAlgorithm(userId, keyAlias));
+
+        byte[] signature = pqcCryptoService.signPreHashed(digest, privateKey);
+
+        Base64.Encoder b64 = Base64.getEncoder();
+        return new PreHashSignResponse(b64.encodeToString(signature),
+                level.getAlgorithmName() + "-WITH-SHA512", b64.encodeToString(digest));
+    }
+
+    static PqcCryptoService.MlDsaLevel levelOf(String algorithm) {
+        return switch (algorithm) {
+            case "ML-DSA-65", "ML_DSA_65" -> PqcCryptoService.MlDsaLevel.ML_DSA_65;
+            case "ML-DSA-87", "ML_DSA_87" -> PqcCryptoService.MlDsaLevel.ML_DSA_87;
+            default -> PqcCryptoService.MlDsaLevel.ML_DSA_44;
+        };
+    }
+
     /**
      * Generate a new key pair for a user.
      */
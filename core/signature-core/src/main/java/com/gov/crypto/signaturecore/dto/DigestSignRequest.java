@@ -0,0 +1,11 @@
+package com.gov.crypto.signaturecore.dto;
+
+/**
+ * Request DTO for signing a digest computed by the caller.
+ *
+ * @param userId       User ID whose stored key signs
+ * @param keyAlias     Key alias to use for signing
+ * @param digestBase64 Base64-encoded SHA-512 digest of the data
+ */
+public record DigestSignRequest(String userId, String keyAlias, String digestBase64) {
+}
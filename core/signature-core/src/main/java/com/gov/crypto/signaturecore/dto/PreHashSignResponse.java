@@ -0,0 +1,7 @@
+package com.gov.crypto.signaturecore.dto;
+
+/**
+ * HashML-DSA signature with the SHA-512 digest it covers.
+ */
+public record PreHashSignResponse(String signatureBase64, String algorithm, String digestBase64) {
+}
@@ -0,0 +1,133 @@
+package com.gov.crypto.signaturecore.rpc;
+
+import com.gov.crypto.common.rpc.FrameCodec;
+import com.gov.crypto.common.rpc.RpcStatus;
+
+import java.io.IOException;
+
+import static com.gov.crypto.common.rpc.FrameCodec.*;
+
+/**
+ * Messages of the internal binary signing RPCs, one per frame.
+ *
+ * Every result carries a status and message so that a failed item in a
+ * stream is reported in place instead of aborting the whole call.
+ */
+public final class SigningMessages {
+
+    private SigningMessages() {
+    }
+
+    public record SignCall(String userId, String keyAlias, byte[] data) {
+
+        public static SignCall decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new SignCall(readString(in), readString(in), readBytes(in));
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                writeString(out, userId);
+                writeString(out, keyAlias);
+                writeBytes(out, data);
+            });
+        }
+    }
+
+    public record SignResult(RpcStatus status, String message, byte[] signature, String algorithm) {
+
+        public static SignResult failed(RpcStatus status, String message) {
+            return new SignResult(status, message, new byte[0], "");
+        }
+
+        public static SignResult decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new SignResult(RpcStatus.of(in.readUnsignedByte()), readString(in), readBytes(in), readString(in));
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                out.writeByte(status.getCode());
+                writeString(out, message);
+                writeBytes(out, signature);
+                writeString(out, algorithm);
+            });
+        }
+    }
+
+    public record VerifyCall(String userId, String keyAlias, byte[] data, byte[] signature) {
+
+        public static VerifyCall decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new VerifyCall(readString(in), readString(in), readBytes(in), readBytes(in));
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                writeString(out, userId);
+                writeString(out, keyAlias);
+                writeBytes(out, data);
+                writeBytes(out, signature);
+            });
+        }
+    }
+
+    public record VerifyResult(RpcStatus status, String message, boolean valid) {
+
+        public static VerifyResult failed(RpcStatus status, String message) {
+            return new VerifyResult(status, message, false);
+        }
+
+        public static VerifyResult decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new VerifyResult(RpcStatus.of(in.readUnsignedByte()), readString(in), in.readBoolean());
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                out.writeByte(status.getCode());
+                writeString(out, message);
+                out.writeBoolean(valid);
+            });
+        }
+    }
+
+    public record KeyGenCall(String userId, String keyAlias, String algorithm) {
+
+        public static KeyGenCall decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new KeyGenCall(readString(in), readString(in), readString(in));
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                writeString(out, userId);
+                writeString(out, keyAlias);
+                writeString(out, algorithm);
+            });
+        }
+    }
+
+    public record KeyGenResult(RpcStatus status, String message, String alias, String algorithm, byte[] publicKey) {
+
+        public static KeyGenResult failed(RpcStatus status, String message) {
+            return new KeyGenResult(status, message, "", "", new byte[0]);
+        }
+
+        public static KeyGenResult decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new KeyGenResult(RpcStatus.of(in.readUnsignedByte()), readString(in), readString(in),
+                    readString(in), readBytes(in));
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                out.writeByte(status.getCode());
+                writeString(out, message);
+                writeString(out, alias);
+                writeString(out, algorithm);
+                writeBytes(out, publicKey);
+            });
+        }
+    }
+}
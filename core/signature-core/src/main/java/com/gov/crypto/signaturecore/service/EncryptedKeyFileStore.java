@@ -0,0 +1,208 @@
+package com.gov.crypto.signaturecore.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * Durable, envelope-encrypted storage of user private keys.
+ *
+ * Each key is one small file under signature-core.keystore.dir, in a
+ * directory per user. The PKCS#8 private key is encrypted with AES-256-GCM
+ * under a fresh data key, bound to the user and alias; the data key is
+ * wrapped (RFC 3394) with the master key from
+ * signature-core.keystore.master-key (base64, 32 bytes). The public key is
+ * stored in the clear.
+ *
+ * Nothing is read at startup; files are opened only when a key is asked
+ * for. Startup fails without a configured master key, since keys stored
+ * under a random one cannot be read after a restart; local development
+ * may opt into a random key with
+ * signature-core.keystore.allow-random-master-key.
+ */
+@Component
+public class EncryptedKeyFileStore {
+
+    private static final Logger log = LoggerFactory.getLogger(EncryptedKeyFileStore.class);
+    private static final String FORMAT_VERSION = "1";
+    private static final String KEY_SUFFIX = ".key";
+    private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+
+    private final Path dir;
+    private final SecretKey masterKey;
+    private final String masterKeyId;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public EncryptedKeyFileStore(
+            @Value("${signature-core.keystore.dir:/data/keys/signature-core}") String dir,
+            @Value("${signature-core.keystore.master-key:}") String masterKeyBase64,
+            @Value("${signature-core.keystore.allow-random-master-key:false}") boolean allowRandomMasterKey)
+            throws GeneralSecurityException {
+        this.dir = Path.of(dir);
+        this.masterKey = masterKey(masterKeyBase64, allowRandomMasterKey);
+        this.masterKeyId = HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(masterKey.getEncoded()), 0, 8);
+    }
+
+    private static SecretKey masterKey(String base64, boolean allowRandom) throws GeneralSecurityException {
+        if (base64 == null || base64.isBlank()) {
+            if (!allowRandom) {
+                throw new IllegalStateException("signature-core.keystore.master-key is not set; "
+                        + "set it, or signature-core.keystore.allow-random-master-key for development only");
+            }
+            log.warn("signature-core.keystore.master-key is not set; using a random master key, "
+                    + "stored user keys will be unreadable after a restart");
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            return generator.generateKey();
+        }
+        byte[] key = Base64.getDecoder().decode(base64.trim());
+        if (key.length != 32) {
+            throw new IllegalArgumentException("signature-core.keystore.master-key must be 32 bytes, base64");
+        }
+        return new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * Key material as kept on disk, with the private key already decrypted.
+     */
+    public record KeyRecord(String algorithm, byte[] publicKey, byte[] privateKey) {
+    }
+
+    /**
+     * Encrypt and write a key, replacing any key with the same alias.
+     */
+    public void save(String userId, String keyAlias, KeyRecord key) throws IOException, GeneralSecurityException {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey dataKey = generator.generateKey();
+
+        byte[] iv = new byte[GCM_IV_BYTES];
+        secureRandom.nextBytes(iv);
+        Cipher gcm = Cipher.getInstance("AES/GCM/NoPadding");
+        gcm.init(Cipher.ENCRYPT_MODE, dataKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+        gcm.updateAAD(associatedData(userId, keyAlias));
+        byte[] encryptedPrivateKey = gcm.doFinal(key.privateKey());
+
+        Cipher wrap = Cipher.getInstance("AESWrap");
+        wrap.init(Cipher.WRAP_MODE, masterKey);
+
+        Base64.Encoder b64 = Base64.getEncoder();
+        Properties entry = new Properties();
+        entry.setProperty("version", FORMAT_VERSION);
+        entry.setProperty("algorithm", key.algorithm());
+        entry.setProperty("publicKey", b64.encodeToString(key.publicKey()));
+        entry.setProperty("masterKeyId", masterKeyId);
+        entry.setProperty("wrappedKey", b64.encodeToString(wrap.wrap(dataKey)));
+        entry.setProperty("iv", b64.encodeToString(iv));
+        entry.setProperty("privateKey", b64.encodeToString(encryptedPrivateKey));
+
+        Path path = entryPath(userId, keyAlias);
+        Files.createDirectories(path.getParent());
+        // Written beside its final name and renamed, so a crash never
+        // leaves a truncated entry
+        Path tmp = Files.createTempFile(path.getParent(), ".entry", ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                entry.store(os, null);
+            }
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Read and decrypt a key.
+     *
+     * @throws GeneralSecurityException if the entry was written under another
+     *                                  master key or has been tampered with
+     */
+    public Optional<KeyRecord> load(String userId, String keyAlias) throws IOException, GeneralSecurityException {
+        Path path = entryPath(userId, keyAlias);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        Properties entry = new Properties();
+        try (InputStream is = Files.newInputStream(path)) {
+            entry.load(is);
+        }
+        if (!masterKeyId.equals(entry.getProperty("masterKeyId"))) {
+            throw new GeneralSecurityException("Key '" + keyAlias + "' of user '" + userId
+                    + "' was stored under a different master key");
+        }
+
+        Base64.Decoder b64 = Base64.getDecoder();
+        Cipher unwrap = Cipher.getInstance("AESWrap");
+        unwrap.init(Cipher.UNWRAP_MODE, masterKey);
+        Key dataKey = unwrap.unwrap(b64.decode(entry.getProperty("wrappedKey")), "AES", Cipher.SECRET_KEY);
+
+        Cipher gcm = Cipher.getInstance("AES/GCM/NoPadding");
+        gcm.init(Cipher.DECRYPT_MODE, dataKey,
+                new GCMParameterSpec(GCM_TAG_BITS, b64.decode(entry.getProperty("iv"))));
+        gcm.updateAAD(associatedData(userId, keyAlias));
+        byte[] privateKey = gcm.doFinal(b64.decode(entry.getProperty("privateKey")));
+
+        return Optional.of(new KeyRecord(
+                entry.getProperty("algorithm"),
+                b64.decode(entry.getProperty("publicKey")),
+                privateKey));
+    }
+
+    /**
+     * Whether the user has at least one stored key.
+     */
+    public boolean hasKeys(String userId) throws IOException {
+        Path userDir = userDir(userId);
+        if (!Files.isDirectory(userDir)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.list(userDir)) {
+            return files.anyMatch(p -> p.getFileName().toString().endsWith(KEY_SUFFIX));
+        }
+    }
+
+    /**
+     * Ties the ciphertext to its owner, so an entry copied to another user
+     * or alias fails to decrypt.
+     */
+    private static byte[] associatedData(String userId, String keyAlias) {
+        return (userId + '\0' + keyAlias).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Path userDir(String userId) {
+        return dir.resolve(fileName(userId));
+    }
+
+    private Path entryPath(String userId, String keyAlias) {
+        return userDir(userId).resolve(fileName(keyAlias) + KEY_SUFFIX);
+    }
+
+    private static String fileName(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,15 @@
+package com.gov.crypto.signaturecore.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a user has no stored key with the requested alias.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class KeyNotFoundException extends RuntimeException {
+
+    public KeyNotFoundException(String message) {
+        super(message);
+    }
+}
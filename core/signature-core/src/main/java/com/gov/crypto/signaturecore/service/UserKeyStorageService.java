@@ -1,23 +1,34 @@
 package com.gov.crypto.signaturecore.service;
 
 import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.signaturecore.service.EncryptedKeyFileStore.KeyRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
 
 /**
  * Service for storing and retrieving user signing keys.
- * 
+ *
  * SECURITY NOTE: In production, this should be backed by HSM via PKCS#11.
- * This implementation stores keys in memory for development/demo purposes.
- * Keys are persisted per user session and associated with userId.
+ * Keys are kept envelope-encrypted on disk by {@link EncryptedKeyFileStore}
+ * and survive restarts. Decoded keys are held in an LRU of at most
+ * signature-core.keystore.cache-size entries and read from disk on first
+ * use, so neither startup time nor heap grows with the number of users.
+ *
+ * A request without userId signs with the demo default key; a userId
+ * without the requested key is an error, not a silent fallback.
  */
 @Service
 public class UserKeyStorageService {
@@ -25,15 +36,26 @@ public class UserKeyStorageService {
     private static final Logger log = LoggerFactory.getLogger(UserKeyStorageService.class);
 
     private final PqcCryptoService pqcCryptoService;
+    private final EncryptedKeyFileStore keyFileStore;
 
-    // Maps userId -> keyAlias -> stored key
-    private final Map<String, Map<String, StoredKey>> userKeys = new ConcurrentHashMap<>();
+    // Decoded keys by userId and keyAlias, least recently used evicted first
+    private final Map<String, StoredKey> decodedKeys;
 
     // Default key for anonymous/demo signing
     private KeyPair defaultKeyPair;
 
-    public UserKeyStorageService(PqcCryptoService pqcCryptoService) {
+    public UserKeyStorageService(
+            PqcCryptoService pqcCryptoService,
+            EncryptedKeyFileStore keyFileStore,
+            @Value("${signature-core.keystore.cache-size:10000}") int cacheSize) {
         this.pqcCryptoService = pqcCryptoService;
+        this.keyFileStore = keyFileStore;
+        this.decodedKeys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredKey> eldest) {
+                return size() > cacheSize;
+            }
+        };
     }
 
     @PostConstruct
@@ -48,7 +70,8 @@ public class UserKeyStorageService {
     }
 
     /**
-     * Generate and store a new key pair for a user.
+     * Generate and store a new key pair for a user, replacing any key with
+     * the same alias.
      */
     public StoredKey generateKeyForUser(String userId, String keyAlias, PqcCryptoService.MlDsaLevel level)
             throws Exception {
@@ -60,8 +83,13 @@ public class UserKeyStorageService {
                 keyPair.getPublic(),
                 level.name());
 
-        userKeys.computeIfAbsent(userId, k -> new ConcurrentHashMap<>())
-                .put(keyAlias, storedKey);
+        keyFileStore.save(userId, keyAlias, new KeyRecord(
+                level.name(),
+                keyPair.getPublic().getEncoded(),
+                keyPair.getPrivate().getEncoded()));
+        synchronized (decodedKeys) {
+            decodedKeys.put(cacheKey(userId, keyAlias), storedKey);
+        }
 
         log.info("Generated key '{}' for user '{}' with algorithm {}", keyAlias, userId, level.name());
         return storedKey;
@@ -69,51 +97,103 @@ public class UserKeyStorageService {
 
     /**
      * Retrieve a stored key for signing.
-     * Returns the default key if no specific key is found.
+     * Returns the default key only if no userId is given.
+     *
+     * @throws KeyNotFoundException if the user has no key with this alias
      */
-    public PrivateKey getPrivateKey(String userId, String keyAlias) {
+    public PrivateKey getPrivateKey(String userId, String keyAlias) throws Exception {
         if (userId == null || userId.isEmpty()) {
             log.debug("No userId provided, using default key");
             return defaultKeyPair.getPrivate();
         }
 
-        Map<String, StoredKey> keys = userKeys.get(userId);
-        if (keys == null) {
-            log.debug("No keys found for user '{}', using default key", userId);
-            return defaultKeyPair.getPrivate();
-        }
-
-        StoredKey storedKey = keys.get(keyAlias);
-        if (storedKey == null) {
-            log.debug("Key '{}' not found for user '{}', using default key", keyAlias, userId);
-            return defaultKeyPair.getPrivate();
-        }
+        StoredKey storedKey = findKey(userId, keyAlias)
+                .orElseThrow(() -> new KeyNotFoundException(
+                        "Key '" + keyAlias + "' not found for user '" + userId + "'"));
 
         log.debug("Retrieved key '{}' for user '{}'", keyAlias, userId);
         return storedKey.privateKey();
     }
 
     /**
-     * Get the algorithm for a stored key.
+     * Retrieve the public key matching {@link #getPrivateKey}.
+     *
+     * @throws KeyNotFoundException if the user has no key with this alias
      */
-    public String getKeyAlgorithm(String userId, String keyAlias) {
+    public PublicKey getPublicKey(String userId, String keyAlias) throws Exception {
         if (userId == null || userId.isEmpty()) {
-            return "ML-DSA-44";
+            return defaultKeyPair.getPublic();
         }
 
-        Map<String, StoredKey> keys = userKeys.get(userId);
-        if (keys == null || !keys.containsKey(keyAlias)) {
+        return findKey(userId, keyAlias)
+                .map(StoredKey::publicKey)
+                .orElseThrow(() -> new KeyNotFoundException(
+                        "Key '" + keyAlias + "' not found for user '" + userId + "'"));
+    }
+
+    /**
+     * Get the algorithm for a stored key.
+     *
+     * @throws KeyNotFoundException if the user has no key with this alias
+     */
+    public String getKeyAlgorithm(String userId, String keyAlias) throws Exception {
+        if (userId == null || userId.isEmpty()) {
             return "ML-DSA-44";
         }
 
-        return keys.get(keyAlias).algorithm();
+        return findKey(userId, keyAlias)
+                .map(StoredKey::algorithm)
+                .orElseThrow(() -> new KeyNotFoundException(
+                        "Key '" + keyAlias + "' not found for user '" + userId + "'"));
     }
 
     /**
      * Check if a user has any stored keys.
      */
-    public boolean hasKeysForUser(String userId) {
-        return userKeys.containsKey(userId) && !userKeys.get(userId).isEmpty();
+    public boolean hasKeysForUser(String userId) throws Exception {
+        return keyFileStore.hasKeys(userId);
+    }
+
+    /**
+     * Decoded key from the cache, or read and decrypted from disk on a miss.
+     */
+    private Optional<StoredKey> findKey(String userId, String keyAlias) throws Exception {
+        String cacheKey = cacheKey(userId, keyAlias);
+        synchronized (decodedKeys) {
+            StoredKey cached = decodedKeys.get(cacheKey);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+
+        Optional<KeyRecord> record = keyFileStore.load(userId, keyAlias);
+        if (record.isEmpty()) {
+            return Optional.empty();
+        }
+        StoredKey storedKey = decode(keyAlias, record.get());
+        synchronized (decodedKeys) {
+            decodedKeys.putIfAbsent(cacheKey, storedKey);
+        }
+        return Optional.of(storedKey);
+    }
+
+    private static StoredKey decode(String keyAlias, KeyRecord record) throws Exception {
+        KeyFactory keyFactory = KeyFactory.getInstance("ML-DSA", "BC");
+        return new StoredKey(
+                keyAlias,
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(record.privateKey())),
+                keyFactory.generatePublic(new X509EncodedKeySpec(record.publicKey())),
+                record.algorithm());
+    }
+
+    private static String cacheKey(String userId, String keyAlias) {
+        return userId + '\0' + keyAlias;
+    }
+
+    int cachedKeyCount() {
+        synchronized (decodedKeys) {
+            return decodedKeys.size();
+        }
     }
 
     /**
@@ -0,0 +1,167 @@
+package com.gov.crypto.signaturecore.controller;
+
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import com.gov.crypto.common.rpc.FrameCodec;
+import com.gov.crypto.common.rpc.RpcStatus;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.KeyGenCall;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.KeyGenResult;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.SignCall;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.SignResult;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.VerifyCall;
+import com.gov.crypto.signaturecore.rpc.SigningMessages.VerifyResult;
+import com.gov.crypto.signaturecore.service.EncryptedKeyFileStore;
+import com.gov.crypto.signaturecore.service.UserKeyStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the binary signing RPCs.
+ */
+class BinarySigningControllerTest {
+
+    private static final byte[] DATA = "document".getBytes();
+
+    @TempDir
+    Path tempDir;
+
+    private final PqcCryptoService pqcCryptoService = new PqcCryptoService();
+    private BinarySigningController controller;
+    private UserKeyStorageService.StoredKey key;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UserKeyStorageService keyStorageService = new UserKeyStorageService(pqcCryptoService,
+                new EncryptedKeyFileStore(tempDir.toString(), "", true), 10);
+        keyStorageService.init();
+        key = keyStorageService.generateKeyForUser("alice", "sig", MlDsaLevel.ML_DSA_65);
+        controller = new BinarySigningController(pqcCryptoService, keyStorageService, 1 << 20);
+    }
+
+    private static InputStream body(byte[]... messages) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] message : messages) {
+            FrameCodec.writeFrame(out, message);
+        }
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private static List<byte[]> frames(byte[] body) throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        InputStream in = new ByteArrayInputStream(body);
+        for (byte[] frame; (frame = FrameCodec.readFrame(in, 1 << 20)) != null;) {
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    @Nested
+    @DisplayName("Unary Call Tests")
+    class UnaryTests {
+
+        @Test
+        @DisplayName("Should sign raw bytes and verify the signature")
+        void shouldSignAndVerify() throws Exception {
+            // When
+            byte[] signed = controller.sign(body(new SignCall("alice", "sig", DATA).encode()));
+            SignResult result = SignResult.decode(frames(signed).get(0));
+            byte[] verified = controller.verify(body(
+                    new VerifyCall("alice", "sig", DATA, result.signature()).encode()));
+
+            // Then
+            assertEquals(RpcStatus.OK, result.status());
+            assertEquals("ML_DSA_65", result.algorithm());
+            assertTrue(pqcCryptoService.verify(DATA, result.signature(), key.publicKey(), MlDsaLevel.ML_DSA_65));
+            assertTrue(VerifyResult.decode(frames(verified).get(0)).valid());
+        }
+
+        @Test
+        @DisplayName("Should generate a key usable by later calls")
+        void shouldGenerateKey() throws Exception {
+            // When
+            byte[] generated = controller.generateKey(body(new KeyGenCall("bob", "stamp", "ML-DSA-44").encode()));
+            KeyGenResult result = KeyGenResult.decode(frames(generated).get(0));
+            SignResult signed = SignResult.decode(frames(
+                    controller.sign(body(new SignCall("bob", "stamp", DATA).encode()))).get(0));
+
+            // Then
+            assertEquals(RpcStatus.OK, result.status());
+            assertEquals("ML_DSA_44", result.algorithm());
+            assertTrue(result.publicKey().length > 0);
+            assertEquals(RpcStatus.OK, signed.status());
+        }
+
+        @Test
+        @DisplayName("Should reject an empty or oversized body")
+        void shouldRejectBadFrames() throws Exception {
+            BinarySigningController small = new BinarySigningController(pqcCryptoService,
+                    new UserKeyStorageService(pqcCryptoService,
+                            new EncryptedKeyFileStore(tempDir.toString(), "", true), 10), 16);
+
+            assertThrows(ResponseStatusException.class, () -> controller.sign(body()));
+            assertThrows(ResponseStatusException.class,
+                    () -> small.sign(body(new SignCall("alice", "sig", DATA).encode())));
+        }
+    }
+
+    @Nested
+    @DisplayName("Streaming Call Tests")
+    class StreamingTests {
+
+        @Test
+        @DisplayName("Should answer every frame in order and report failures in place")
+        void shouldSignStream() throws Exception {
+            // Given
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // When
+            controller.signStream(body(
+                    new SignCall("alice", "sig", DATA).encode(),
+                    new SignCall("alice", "missing", DATA).encode(),
+                    new byte[] { 1, 2 },
+                    new SignCall("alice", "sig", "second".getBytes()).encode()), response);
+
+            // Then
+            List<byte[]> results = frames(response.getContentAsByteArray());
+            assertEquals(4, results.size());
+            assertEquals(RpcStatus.OK, SignResult.decode(results.get(0)).status());
+            assertEquals(RpcStatus.NOT_FOUND, SignResult.decode(results.get(1)).status());
+            assertEquals(RpcStatus.INVALID_ARGUMENT, SignResult.decode(results.get(2)).status());
+            SignResult last = SignResult.decode(results.get(3));
+            assertTrue(pqcCryptoService.verify("second".getBytes(), last.signature(), key.publicKey(),
+                    MlDsaLevel.ML_DSA_65));
+        }
+
+        @Test
+        @DisplayName("Should verify a stream of signatures")
+        void shouldVerifyStream() throws Exception {
+            // Given
+            byte[] signature = pqcCryptoService.sign(DATA, key.privateKey(), MlDsaLevel.ML_DSA_65);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // When
+            controller.verifyStream(body(
+                    new VerifyCall("alice", "sig", DATA, signature).encode(),
+                    new VerifyCall("alice", "sig", "tampered".getBytes(), signature).encode()), response);
+
+            // Then
+            List<byte[]> results = frames(response.getContentAsByteArray());
+            assertTrue(VerifyResult.decode(results.get(0)).valid());
+            assertFalse(VerifyResult.decode(results.get(1)).valid());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.gov.crypto.signaturecore.controller;
+
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import com.gov.crypto.signaturecore.dto.DigestSignRequest;
+import com.gov.crypto.signaturecore.dto.PreHashSignResponse;
+import com.gov.crypto.signaturecore.service.EncryptedKeyFileStore;
+import com.gov.crypto.signaturecore.service.KeyNotFoundException;
+import com.gov.crypto.signaturecore.service.UserKeyStorageService;
+import com.gov.crypto.signaturecore.service.UserKeyStorageService.StoredKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for streaming and digest-only HashML-DSA signing.
+ */
+class SigningControllerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PqcCryptoService pqcCryptoService = new PqcCryptoService();
+    private SigningController controller;
+    private StoredKey key;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UserKeyStorageService keyStorageService = new UserKeyStorageService(pqcCryptoService,
+                new EncryptedKeyFileStore(tempDir.toString(), "", true), 10);
+        keyStorageService.init();
+        key = keyStorageService.generateKeyForUser("alice", "sig", MlDsaLevel.ML_DSA_65);
+        controller = new SigningController(pqcCryptoService, keyStorageService);
+    }
+
+    @Nested
+    @DisplayName("Pre-hashed Signing Tests")
+    class PreHashedTests {
+
+        @Test
+        @DisplayName("Should sign a streamed body over its SHA-512 digest")
+        void shouldSignStreamedBody() throws Exception {
+            // Given
+            byte[] body = new byte[200_000];
+            body[body.length - 1] = 7;
+            byte[] digest = MessageDigest.getInstance("SHA-512").digest(body);
+
+            // When
+            PreHashSignResponse response = controller.signStream("alice", "sig", new ByteArrayInputStream(body));
+
+            // Then
+            assertEquals("ML-DSA-65-WITH-SHA512", response.algorithm());
+            assertArrayEquals(digest, Base64.getDecoder().decode(response.digestBase64()));
+            assertTrue(pqcCryptoService.verifyPreHashed(digest,
+                    Base64.getDecoder().decode(response.signatureBase64()), key.publicKey()));
+        }
+
+        @Test
+        @DisplayName("Should sign a caller-computed digest")
+        void shouldSignDigest() throws Exception {
+            // Given
+            byte[] digest = MessageDigest.getInstance("SHA-512").digest("archive".getBytes());
+
+            // When
+            PreHashSignResponse response = controller.signDigest(
+                    new DigestSignRequest("alice", "sig", Base64.getEncoder().encodeToString(digest)));
+
+            // Then
+            assertTrue(pqcCryptoService.verifyPreHashed(digest,
+                    Base64.getDecoder().decode(response.signatureBase64()), key.publicKey()));
+        }
+
+        @Test
+        @DisplayName("Should reject digests of the wrong length and unknown keys")
+        void shouldRejectBadRequests() {
+            String sha256Sized = Base64.getEncoder().encodeToString(new byte[32]);
+            String sha512Sized = Base64.getEncoder().encodeToString(new byte[64]);
+
+            assertThrows(ResponseStatusException.class,
+                    () -> controller.signDigest(new DigestSignRequest("alice", "sig", sha256Sized)));
+            assertThrows(KeyNotFoundException.class,
+                    () -> controller.signDigest(new DigestSignRequest("alice", "other", sha512Sized)));
+        }
+    }
+}
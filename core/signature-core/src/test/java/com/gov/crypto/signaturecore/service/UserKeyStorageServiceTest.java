@@ -0,0 +1,149 @@
+package com.gov.crypto.signaturecore.service;
+
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the persistent, encrypted user key store.
+ */
+class UserKeyStorageServiceTest {
+
+    private static final String MASTER_KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final byte[] DATA = "document".getBytes();
+
+    @TempDir
+    Path tempDir;
+
+    private final PqcCryptoService pqcCryptoService = new PqcCryptoService();
+
+    private UserKeyStorageService newService(String masterKey, int cacheSize) throws Exception {
+        UserKeyStorageService service = new UserKeyStorageService(pqcCryptoService,
+                new EncryptedKeyFileStore(tempDir.toString(), masterKey, false), cacheSize);
+        service.init();
+        return service;
+    }
+
+    @Nested
+    @DisplayName("Persistence Tests")
+    class PersistenceTests {
+
+        @Test
+        @DisplayName("Should sign with a key generated before a restart")
+        void shouldKeepKeysAcrossRestart() throws Exception {
+            // Given
+            var stored = newService(MASTER_KEY, 10).generateKeyForUser("alice", "sig", MlDsaLevel.ML_DSA_65);
+
+            // When
+            UserKeyStorageService restarted = newService(MASTER_KEY, 10);
+            PrivateKey privateKey = restarted.getPrivateKey("alice", "sig");
+            byte[] signature = pqcCryptoService.sign(DATA, privateKey, MlDsaLevel.ML_DSA_65);
+
+            // Then
+            assertTrue(pqcCryptoService.verify(DATA, signature, stored.publicKey(), MlDsaLevel.ML_DSA_65));
+            assertEquals("ML_DSA_65", restarted.getKeyAlgorithm("alice", "sig"));
+            assertTrue(restarted.hasKeysForUser("alice"));
+            assertFalse(restarted.hasKeysForUser("bob"));
+        }
+
+        @Test
+        @DisplayName("Should not write the private key in the clear")
+        void shouldEncryptPrivateKey() throws Exception {
+            // Given
+            var stored = newService(MASTER_KEY, 10).generateKeyForUser("alice", "sig", MlDsaLevel.ML_DSA_44);
+            String encodedPrivateKey = Base64.getEncoder().encodeToString(stored.privateKey().getEncoded());
+
+            // When
+            String contents;
+            try (Stream<Path> files = Files.walk(tempDir)) {
+                Path entry = files.filter(Files::isRegularFile).findFirst().orElseThrow();
+                contents = Files.readString(entry);
+            }
+
+            // Then
+            assertFalse(contents.contains(encodedPrivateKey.substring(0, 64)));
+        }
+
+        @Test
+        @DisplayName("Should refuse keys stored under another master key")
+        void shouldRejectOtherMasterKey() throws Exception {
+            // Given
+            newService(MASTER_KEY, 10).generateKeyForUser("alice", "sig", MlDsaLevel.ML_DSA_44);
+            byte[] otherKey = new byte[32];
+            otherKey[0] = 1;
+
+            // When
+            UserKeyStorageService other = newService(Base64.getEncoder().encodeToString(otherKey), 10);
+
+            // Then
+            assertThrows(GeneralSecurityException.class, () -> other.getPrivateKey("alice", "sig"));
+        }
+
+        @Test
+        @DisplayName("Should refuse to start without a master key unless a random one is allowed")
+        void shouldRequireMasterKey() throws Exception {
+            // When / Then
+            assertThrows(IllegalStateException.class,
+                    () -> new EncryptedKeyFileStore(tempDir.toString(), " ", false));
+            UserKeyStorageService random = new UserKeyStorageService(pqcCryptoService,
+                    new EncryptedKeyFileStore(tempDir.toString(), "", true), 10);
+            random.init();
+            assertNotNull(random.generateKeyForUser("alice", "sig", MlDsaLevel.ML_DSA_44));
+        }
+    }
+
+    @Nested
+    @DisplayName("Lookup Tests")
+    class LookupTests {
+
+        @Test
+        @DisplayName("Should reject a user without the requested key")
+        void shouldRejectUnknownKey() throws Exception {
+            UserKeyStorageService service = newService(MASTER_KEY, 10);
+
+            assertThrows(KeyNotFoundException.class, () -> service.getPrivateKey("nobody", "sig"));
+            assertThrows(KeyNotFoundException.class, () -> service.getKeyAlgorithm("nobody", "sig"));
+        }
+
+        @Test
+        @DisplayName("Should use the default key only without a userId")
+        void shouldUseDefaultKeyForAnonymous() throws Exception {
+            UserKeyStorageService service = newService(MASTER_KEY, 10);
+
+            assertNotNull(service.getPrivateKey(null, "sig"));
+            assertEquals("ML-DSA-44", service.getKeyAlgorithm("", "sig"));
+        }
+
+        @Test
+        @DisplayName("Should keep at most cache-size decoded keys")
+        void shouldBoundDecodedKeys() throws Exception {
+            // Given
+            UserKeyStorageService writer = newService(MASTER_KEY, 10);
+            for (int i = 0; i < 3; i++) {
+                writer.generateKeyForUser("user" + i, "sig", MlDsaLevel.ML_DSA_44);
+            }
+
+            // When
+            UserKeyStorageService service = newService(MASTER_KEY, 2);
+            for (int i = 0; i < 3; i++) {
+                service.getPrivateKey("user" + i, "sig");
+            }
+
+            // Then
+            assertEquals(2, service.cachedKeyCount());
+            assertNotNull(service.getPrivateKey("user0", "sig"));
+        }
+    }
+}
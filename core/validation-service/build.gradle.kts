@@ -7,9 +7,21 @@ plugins {
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
     implementation(project(":libs:common-crypto"))
     implementation("com.google.zxing:core:3.5.3")
     implementation("com.google.zxing:javase:3.5.3")
     
     testImplementation("org.springframework.boot:spring-boot-starter-test")
 }
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+tasks.register<JavaExec>("qrBenchmark") {
+    group = "verification"
+    description = "Compares the legacy and direct QR rendering paths."
+    classpath = sourceSets["test"].runtimeClasspath
+    mainClass.set("com.gov.crypto.validationservice.service.QrCodeRenderBenchmark")
+}
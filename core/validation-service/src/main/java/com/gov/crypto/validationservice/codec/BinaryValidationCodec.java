@@ -0,0 +1,181 @@
+package com.gov.crypto.validationservice.codec;
+
+import com.gov.crypto.validationservice.dto.BinaryStampRequest;
+import com.gov.crypto.validationservice.dto.BinaryVerifyRequest;
+import com.gov.crypto.validationservice.dto.CertificateRef;
+import com.gov.crypto.validationservice.dto.StampVerifyResponse;
+import com.gov.crypto.validationservice.dto.VerifyResponse;
+import com.gov.crypto.validationservice.service.CertificateCache;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Length-prefixed binary encoding of the verification API for
+ * machine-to-machine callers.
+ *
+ * All integers are big-endian; every byte string is a u32 length followed by
+ * the bytes, so fields decode straight into {@code byte[]} without Base64,
+ * PEM or JSON. A certificate is a u8 tag ({@code 0} = DER,
+ * {@code 1} = SHA-256 fingerprint of a previously sent DER) followed by a
+ * byte string.
+ *
+ * <pre>
+ * verify request:   u8 version, cert, digest, signature
+ * stamp request:    u8 version, documentHash, userSignature, userCert,
+ *                   officerSignature, officerCert, timestampToken (empty = none)
+ * verify response:  u8 version, u8 valid, details (UTF-8)
+ * stamp response:   u8 version, u8 flags, message (UTF-8), details (UTF-8)
+ *                   flags: 0x01 valid, 0x02 user signature, 0x04 officer signature,
+ *                          0x08 timestamp, 0x10 user cert, 0x20 officer cert
+ * </pre>
+ */
+public final class BinaryValidationCodec {
+
+    public static final String MEDIA_TYPE = "application/vnd.gov.validation.v1+octet-stream";
+    public static final byte VERSION = 1;
+
+    private static final byte CERT_DER = 0;
+    private static final byte CERT_FINGERPRINT = 1;
+
+    private BinaryValidationCodec() {
+    }
+
+    public static BinaryVerifyRequest decodeVerifyRequest(byte[] body) {
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(body);
+            checkVersion(buf);
+            BinaryVerifyRequest request = new BinaryVerifyRequest(readCertificate(buf), readBytes(buf), readBytes(buf));
+            checkFullyRead(buf);
+            return request;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated verify request");
+        }
+    }
+
+    public static BinaryStampRequest decodeStampRequest(byte[] body) {
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(body);
+            checkVersion(buf);
+            byte[] documentHash = readBytes(buf);
+            byte[] userSignature = readBytes(buf);
+            CertificateRef userCert = readCertificate(buf);
+            byte[] officerSignature = readBytes(buf);
+            CertificateRef officerCert = readCertificate(buf);
+            byte[] timestampToken = readBytes(buf);
+            checkFullyRead(buf);
+            return new BinaryStampRequest(documentHash, userSignature, userCert, officerSignature, officerCert,
+                    timestampToken.length == 0 ? null : timestampToken);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated stamp request");
+        }
+    }
+
+    public static byte[] encode(BinaryVerifyRequest request) {
+        ByteBuffer buf = ByteBuffer.allocate(1 + certificateLength(request.certificate())
+                + 4 + request.digest().length + 4 + request.signature().length);
+        buf.put(VERSION);
+        writeCertificate(buf, request.certificate());
+        writeBytes(buf, request.digest());
+        writeBytes(buf, request.signature());
+        return buf.array();
+    }
+
+    public static byte[] encode(BinaryStampRequest request) {
+        byte[] timestampToken = request.timestampToken() == null ? new byte[0] : request.timestampToken();
+        ByteBuffer buf = ByteBuffer.allocate(1
+                + 4 + request.documentHash().length
+                + 4 + request.userSignature().length
+                + certificateLength(request.userCertificate())
+                + 4 + request.officerSignature().length
+                + certificateLength(request.officerCertificate())
+                + 4 + timestampToken.length);
+        buf.put(VERSION);
+        writeBytes(buf, request.documentHash());
+        writeBytes(buf, request.userSignature());
+        writeCertificate(buf, request.userCertificate());
+        writeBytes(buf, request.officerSignature());
+        writeCertificate(buf, request.officerCertificate());
+        writeBytes(buf, timestampToken);
+        return buf.array();
+    }
+
+    public static byte[] encode(VerifyResponse response) {
+        byte[] details = utf8(response.details());
+        return ByteBuffer.allocate(2 + 4 + details.length)
+                .put(VERSION)
+                .put((byte) (response.isValid() ? 1 : 0))
+                .putInt(details.length).put(details)
+                .array();
+    }
+
+    public static byte[] encode(StampVerifyResponse response) {
+        int flags = (response.valid() ? 0x01 : 0)
+                | (response.userSignatureValid() ? 0x02 : 0)
+                | (response.officerSignatureValid() ? 0x04 : 0)
+                | (response.timestampValid() ? 0x08 : 0)
+                | (response.userCertValid() ? 0x10 : 0)
+                | (response.officerCertValid() ? 0x20 : 0);
+        byte[] message = utf8(response.message());
+        byte[] details = utf8(response.details());
+        return ByteBuffer.allocate(2 + 4 + message.length + 4 + details.length)
+                .put(VERSION)
+                .put((byte) flags)
+                .putInt(message.length).put(message)
+                .putInt(details.length).put(details)
+                .array();
+    }
+
+    private static void checkVersion(ByteBuffer buf) {
+        byte version = buf.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary format version " + version);
+        }
+    }
+
+    private static void checkFullyRead(ByteBuffer buf) {
+        if (buf.hasRemaining()) {
+            throw new IllegalArgumentException("Trailing bytes after request");
+        }
+    }
+
+    private static CertificateRef readCertificate(ByteBuffer buf) {
+        byte tag = buf.get();
+        byte[] value = readBytes(buf);
+        if (tag == CERT_DER && value.length > 0) {
+            return CertificateRef.ofDer(value);
+        }
+        if (tag == CERT_FINGERPRINT && value.length == CertificateCache.FINGERPRINT_LENGTH) {
+            return CertificateRef.ofFingerprint(value);
+        }
+        throw new IllegalArgumentException("Invalid certificate reference");
+    }
+
+    private static byte[] readBytes(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0 || length > buf.remaining()) {
+            throw new IllegalArgumentException("Invalid field length " + length);
+        }
+        byte[] value = new byte[length];
+        buf.get(value);
+        return value;
+    }
+
+    private static int certificateLength(CertificateRef ref) {
+        return 1 + 4 + (ref.isFingerprint() ? ref.fingerprint().length : ref.der().length);
+    }
+
+    private static void writeCertificate(ByteBuffer buf, CertificateRef ref) {
+        buf.put(ref.isFingerprint() ? CERT_FINGERPRINT : CERT_DER);
+        writeBytes(buf, ref.isFingerprint() ? ref.fingerprint() : ref.der());
+    }
+
+    private static void writeBytes(ByteBuffer buf, byte[] value) {
+        buf.putInt(value.length).put(value);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -13,6 +13,8 @@ import java.util.Map;
 @RequestMapping("/api/v1/qr")
 public class QrCodeController {
 
+    private static final MediaType SVG = MediaType.valueOf("image/svg+xml");
+
     private final QrCodeService qrCodeService;
 
     public QrCodeController(QrCodeService qrCodeService) {
@@ -20,21 +22,29 @@ public class QrCodeController {
     }
 
     /**
-     * Generate a QR code for a signed document.
+     * Generate a QR code for a signed document. {@code format} is "png"
+     * (default) or "svg"; {@code size} is the image size in pixels.
      */
     @PostMapping("/generate")
     public ResponseEntity<byte[]> generateQrCode(@RequestBody GenerateQrRequest request) {
         try {
+            QrCodeService.Format format = request.format() != null
+                    ? QrCodeService.Format.valueOf(request.format().toUpperCase())
+                    : QrCodeService.Format.PNG;
             byte[] qrImage = qrCodeService.generateQrCode(
                     request.documentId(),
                     request.signatureHash(),
-                    request.timestamp() != null ? request.timestamp() : System.currentTimeMillis());
+                    request.timestamp() != null ? request.timestamp() : System.currentTimeMillis(),
+                    request.size() != null ? request.size() : QrCodeService.QR_CODE_SIZE,
+                    format);
 
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_PNG);
+            headers.setContentType(format == QrCodeService.Format.SVG ? SVG : MediaType.IMAGE_PNG);
             headers.setContentLength(qrImage.length);
 
             return new ResponseEntity<>(qrImage, headers, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -72,7 +82,8 @@ public class QrCodeController {
                 "verificationCode", code));
     }
 
-    record GenerateQrRequest(String documentId, String signatureHash, Long timestamp) {
+    record GenerateQrRequest(String documentId, String signatureHash, Long timestamp, Integer size,
+            String format) {
     }
 
     record VerifyQrRequest(String payload) {
@@ -1,11 +1,16 @@
 package com.gov.crypto.validationservice.controller;
 
+import com.gov.crypto.validationservice.codec.BinaryValidationCodec;
 import com.gov.crypto.validationservice.dto.DocumentVerifyResponse;
 import com.gov.crypto.validationservice.dto.StampVerifyRequest;
 import com.gov.crypto.validationservice.dto.StampVerifyResponse;
 import com.gov.crypto.validationservice.dto.VerifyRequest;
 import com.gov.crypto.validationservice.dto.VerifyResponse;
+import com.gov.crypto.validationservice.service.StageTimings;
+import com.gov.crypto.validationservice.service.UnknownCertificateException;
 import com.gov.crypto.validationservice.service.ValidationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -21,19 +26,90 @@ import java.util.ArrayList;
 public class ValidationController {
 
     private final ValidationService validationService;
+    private final boolean timingHeader;
 
-    public ValidationController(ValidationService validationService) {
+    public ValidationController(ValidationService validationService,
+            @Value("${validation.metrics.timing-header:false}") boolean timingHeader) {
         this.validationService = validationService;
+        this.timingHeader = timingHeader;
     }
 
+    /**
+     * With {@code validation.metrics.timing-header} enabled the response
+     * carries a Server-Timing header with the per-stage breakdown.
+     */
     @PostMapping("/verify")
     public ResponseEntity<VerifyResponse> verifySignature(@RequestBody VerifyRequest request) {
-        return ResponseEntity.ok(validationService.verifySignature(request));
+        if (!timingHeader) {
+            return ResponseEntity.ok(validationService.verifySignature(request));
+        }
+        StageTimings timings = new StageTimings();
+        VerifyResponse response = validationService.verifySignature(request, timings);
+        return ResponseEntity.ok().header(StageTimings.HEADER, timings.toHeaderValue()).body(response);
     }
 
     @PostMapping("/verify-stamp")
-    public ResponseEntity<StampVerifyResponse> verifyStamp(@RequestBody StampVerifyRequest request) {
-        return ResponseEntity.ok(validationService.verifyStamp(request));
+    public ResponseEntity<StampVerifyResponse> verifyStamp(@RequestBody StampVerifyRequest request,
+            @RequestParam(value = "failFast", defaultValue = "false") boolean failFast) {
+        if (!timingHeader) {
+            return ResponseEntity.ok(validationService.verifyStamp(request, failFast));
+        }
+        StageTimings timings = new StageTimings();
+        StampVerifyResponse response = validationService.verifyStamp(request, failFast, timings);
+        return ResponseEntity.ok().header(StageTimings.HEADER, timings.toHeaderValue()).body(response);
+    }
+
+    /**
+     * Binary variant of /verify (see {@link BinaryValidationCodec}). A
+     * certificate referenced by an unknown fingerprint is answered with 422
+     * and the caller should resend the DER encoding.
+     */
+    @PostMapping(value = "/verify", consumes = BinaryValidationCodec.MEDIA_TYPE,
+            produces = BinaryValidationCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> verifySignatureBinary(@RequestBody byte[] body) {
+        try {
+            StageTimings timings = timingHeader ? new StageTimings() : null;
+            VerifyResponse response = validationService.verifySignature(
+                    BinaryValidationCodec.decodeVerifyRequest(body), timings);
+            return binaryResponse(BinaryValidationCodec.encode(response), timings);
+        } catch (UnknownCertificateException e) {
+            return unknownCertificate(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Binary variant of /verify-stamp (see {@link BinaryValidationCodec}).
+     */
+    @PostMapping(value = "/verify-stamp", consumes = BinaryValidationCodec.MEDIA_TYPE,
+            produces = BinaryValidationCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> verifyStampBinary(@RequestBody byte[] body,
+            @RequestParam(value = "failFast", defaultValue = "false") boolean failFast) {
+        try {
+            StageTimings timings = timingHeader ? new StageTimings() : null;
+            StampVerifyResponse response = validationService.verifyStamp(
+                    BinaryValidationCodec.decodeStampRequest(body), failFast, timings);
+            return binaryResponse(BinaryValidationCodec.encode(response), timings);
+        } catch (UnknownCertificateException e) {
+            return unknownCertificate(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private ResponseEntity<byte[]> binaryResponse(byte[] body, StageTimings timings) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (timings != null) {
+            builder.header(StageTimings.HEADER, timings.toHeaderValue());
+        }
+        return builder.body(body);
+    }
+
+    private ResponseEntity<byte[]> unknownCertificate(UnknownCertificateException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .header("X-Unknown-Certificate", e.fingerprintHex())
+                .build();
     }
 
     /**
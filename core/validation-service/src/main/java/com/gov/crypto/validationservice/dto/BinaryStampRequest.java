@@ -0,0 +1,14 @@
+package com.gov.crypto.validationservice.dto;
+
+/**
+ * Binary counterpart of {@link StampVerifyRequest}. {@code timestampToken}
+ * is null when the stamp carries no timestamp.
+ */
+public record BinaryStampRequest(
+        byte[] documentHash,
+        byte[] userSignature,
+        CertificateRef userCertificate,
+        byte[] officerSignature,
+        CertificateRef officerCertificate,
+        byte[] timestampToken) {
+}
@@ -0,0 +1,8 @@
+package com.gov.crypto.validationservice.dto;
+
+/**
+ * Binary counterpart of {@link VerifyRequest}: raw digest and signature
+ * bytes, no Base64 or PEM.
+ */
+public record BinaryVerifyRequest(CertificateRef certificate, byte[] digest, byte[] signature) {
+}
@@ -0,0 +1,20 @@
+package com.gov.crypto.validationservice.dto;
+
+/**
+ * Certificate carried by a binary request: either the raw DER encoding or
+ * the SHA-256 fingerprint of a certificate the service has already seen.
+ */
+public record CertificateRef(byte[] der, byte[] fingerprint) {
+
+    public static CertificateRef ofDer(byte[] der) {
+        return new CertificateRef(der, null);
+    }
+
+    public static CertificateRef ofFingerprint(byte[] fingerprint) {
+        return new CertificateRef(null, fingerprint);
+    }
+
+    public boolean isFingerprint() {
+        return der == null;
+    }
+}
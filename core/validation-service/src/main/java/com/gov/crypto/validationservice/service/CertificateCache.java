@@ -0,0 +1,85 @@
+package com.gov.crypto.validationservice.service;
+
+import com.gov.crypto.validationservice.dto.CertificateRef;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.security.Security;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parsed certificates keyed by the SHA-256 fingerprint of their DER
+ * encoding.
+ *
+ * Binary callers send the DER once and afterwards only the 32-byte
+ * fingerprint, which saves both the transfer and the X.509 parse on every
+ * request. The cache is a bounded LRU.
+ */
+@Component
+public class CertificateCache {
+
+    public static final int FINGERPRINT_LENGTH = 32;
+
+    static {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    private final Map<String, X509Certificate> certificates;
+
+    public CertificateCache(@Value("${validation.binary.cert-cache-size:10000}") int cacheSize) {
+        this.certificates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, X509Certificate> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Certificate for a fingerprint reference, or null if it is not cached.
+     */
+    public X509Certificate lookup(byte[] fingerprint) {
+        String key = HexFormat.of().formatHex(fingerprint);
+        synchronized (certificates) {
+            return certificates.get(key);
+        }
+    }
+
+    /**
+     * Resolve a reference, parsing and caching DER certificates.
+     *
+     * @throws UnknownCertificateException if a fingerprint is not cached
+     */
+    public X509Certificate resolve(CertificateRef ref) throws Exception {
+        if (ref.isFingerprint()) {
+            X509Certificate cert = lookup(ref.fingerprint());
+            if (cert == null) {
+                throw new UnknownCertificateException(ref.fingerprint());
+            }
+            return cert;
+        }
+
+        String key = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(ref.der()));
+        synchronized (certificates) {
+            X509Certificate cached = certificates.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        X509Certificate cert = (X509Certificate) CertificateFactory.getInstance("X.509", "BC")
+                .generateCertificate(new ByteArrayInputStream(ref.der()));
+        synchronized (certificates) {
+            certificates.put(key, cert);
+        }
+        return cert;
+    }
+}
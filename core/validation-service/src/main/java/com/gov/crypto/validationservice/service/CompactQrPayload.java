@@ -0,0 +1,303 @@
+package com.gov.crypto.validationservice.service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.DigestException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Compact binary QR payload, Base45-encoded (RFC 9285) so the QR encoder
+ * uses alphanumeric mode.
+ *
+ * <pre>
+ * u8      header: version (low 7 bits, = 2) | 0x80 if a MAC follows
+ * 16      document id (UUID, big-endian)
+ * 16      signature hash, truncated
+ * varint  signing time, epoch millis (unsigned LEB128)
+ * 8       optional HMAC-SHA256 over the preceding bytes, truncated
+ * </pre>
+ *
+ * A typical payload is 47 bytes / 71 characters, against ~130 bytes of JSON
+ * in byte mode, which brings the symbol down several QR versions at the
+ * same error-correction level.
+ */
+public final class CompactQrPayload {
+
+    public static final int VERSION = 2;
+    public static final int HASH_LENGTH = 16;
+    public static final int MAC_LENGTH = 8;
+
+    static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int FLAG_MAC = 0x80;
+    private static final int MAX_VARINT = 10;
+    private static final int MAX_LENGTH = 1 + 16 + HASH_LENGTH + MAX_VARINT + MAC_LENGTH;
+    private static final String BASE45 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+    private static final byte[] BASE45_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE45_VALUES, (byte) -1);
+        for (int i = 0; i < BASE45.length(); i++) {
+            BASE45_VALUES[BASE45.charAt(i)] = (byte) i;
+        }
+    }
+
+    private CompactQrPayload() {
+    }
+
+    /**
+     * Encode a payload. {@code hash} must be at least {@link #HASH_LENGTH}
+     * bytes and is truncated; {@code macKey} may be null for no MAC.
+     */
+    public static String encode(UUID documentId, byte[] hash, long timestamp, byte[] macKey)
+            throws GeneralSecurityException {
+        if (hash.length < HASH_LENGTH) {
+            throw new IllegalArgumentException("Hash must be at least " + HASH_LENGTH + " bytes");
+        }
+        byte[] buf = new byte[MAX_LENGTH];
+        int pos = 0;
+        buf[pos++] = (byte) (VERSION | (macKey != null ? FLAG_MAC : 0));
+        pos = putLong(buf, pos, documentId.getMostSignificantBits());
+        pos = putLong(buf, pos, documentId.getLeastSignificantBits());
+        System.arraycopy(hash, 0, buf, pos, HASH_LENGTH);
+        pos += HASH_LENGTH;
+        long value = timestamp;
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        if (macKey != null) {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(macKey, MAC_ALGORITHM));
+            mac.update(buf, 0, pos);
+            System.arraycopy(mac.doFinal(), 0, buf, pos, MAC_LENGTH);
+            pos += MAC_LENGTH;
+        }
+        return base45(buf, pos);
+    }
+
+    /**
+     * True if the text is not a legacy JSON payload and could be compact.
+     */
+    public static boolean isCompact(CharSequence text) {
+        return !text.isEmpty() && text.charAt(0) < 128 && BASE45_VALUES[text.charAt(0)] >= 0;
+    }
+
+    private static int putLong(byte[] buf, int pos, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf[pos++] = (byte) (value >>> shift);
+        }
+        return pos;
+    }
+
+    private static String base45(byte[] data, int length) {
+        StringBuilder sb = new StringBuilder((length / 2) * 3 + 2);
+        for (int i = 0; i + 1 < length; i += 2) {
+            int n = ((data[i] & 0xff) << 8) | (data[i + 1] & 0xff);
+            sb.append(BASE45.charAt(n % 45)).append(BASE45.charAt(n / 45 % 45)).append(BASE45.charAt(n / 2025));
+        }
+        if (length % 2 == 1) {
+            int n = data[length - 1] & 0xff;
+            sb.append(BASE45.charAt(n % 45)).append(BASE45.charAt(n / 45));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reusable decoder. {@link #read} decodes into internal buffers and does
+     * not allocate, so one reader per thread can parse any number of
+     * payloads. Not thread-safe.
+     */
+    public static final class Reader {
+
+        private static final int SHA256_BLOCK = 64;
+
+        private final byte[] buf = new byte[MAX_LENGTH];
+        private final byte[] innerPad;
+        private final byte[] outerPad;
+        private final byte[] macOut;
+        private final MessageDigest sha256;
+
+        private long docIdMsb;
+        private long docIdLsb;
+        private long timestamp;
+        private boolean hasMac;
+        private boolean macValid;
+
+        /**
+         * @param macKey key for checking MACs, or null to skip the check
+         */
+        public Reader(byte[] macKey) throws GeneralSecurityException {
+            if (macKey != null) {
+                // HMAC computed by hand over reusable pads: javax.crypto.Mac
+                // allocates a digest array on every doFinal
+                sha256 = MessageDigest.getInstance("SHA-256");
+                byte[] key = macKey.length > SHA256_BLOCK ? sha256.digest(macKey) : macKey;
+                innerPad = new byte[SHA256_BLOCK];
+                outerPad = new byte[SHA256_BLOCK];
+                for (int i = 0; i < SHA256_BLOCK; i++) {
+                    byte k = i < key.length ? key[i] : 0;
+                    innerPad[i] = (byte) (k ^ 0x36);
+                    outerPad[i] = (byte) (k ^ 0x5c);
+                }
+                macOut = new byte[sha256.getDigestLength()];
+            } else {
+                sha256 = null;
+                innerPad = null;
+                outerPad = null;
+                macOut = null;
+            }
+        }
+
+        /**
+         * Decode a Base45 payload.
+         *
+         * @return false if the text is not a well-formed compact payload
+         */
+        public boolean read(CharSequence text) {
+            int length = decodeBase45(text);
+            if (length < 0 || length < 1 + 16 + HASH_LENGTH + 1) {
+                return false;
+            }
+            int header = buf[0] & 0xff;
+            if ((header & ~FLAG_MAC) != VERSION) {
+                return false;
+            }
+            hasMac = (header & FLAG_MAC) != 0;
+
+            docIdMsb = getLong(1);
+            docIdLsb = getLong(9);
+            int pos = 1 + 16 + HASH_LENGTH;
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                if (pos >= length || shift >= 64) {
+                    return false;
+                }
+                byte b = buf[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+                shift += 7;
+            }
+            timestamp = value;
+
+            if (length != pos + (hasMac ? MAC_LENGTH : 0)) {
+                return false;
+            }
+            macValid = hasMac && sha256 != null && checkMac(pos);
+            return true;
+        }
+
+        public long documentIdMostSignificantBits() {
+            return docIdMsb;
+        }
+
+        public long documentIdLeastSignificantBits() {
+            return docIdLsb;
+        }
+
+        public UUID documentId() {
+            return new UUID(docIdMsb, docIdLsb);
+        }
+
+        public long timestamp() {
+            return timestamp;
+        }
+
+        public boolean hasMac() {
+            return hasMac;
+        }
+
+        /**
+         * True if a MAC is present and matches the reader's key.
+         */
+        public boolean macValid() {
+            return macValid;
+        }
+
+        /**
+         * Compare the truncated hash with the start of a full hash.
+         */
+        public boolean hashMatches(byte[] fullHash) {
+            if (fullHash.length < HASH_LENGTH) {
+                return false;
+            }
+            int diff = 0;
+            for (int i = 0; i < HASH_LENGTH; i++) {
+                diff |= buf[1 + 16 + i] ^ fullHash[i];
+            }
+            return diff == 0;
+        }
+
+        public void copyHash(byte[] dst, int offset) {
+            System.arraycopy(buf, 1 + 16, dst, offset, HASH_LENGTH);
+        }
+
+        private boolean checkMac(int dataLength) {
+            try {
+                sha256.update(innerPad);
+                sha256.update(buf, 0, dataLength);
+                sha256.digest(macOut, 0, macOut.length);
+                sha256.update(outerPad);
+                sha256.update(macOut);
+                sha256.digest(macOut, 0, macOut.length);
+            } catch (DigestException e) {
+                return false;
+            }
+            int diff = 0;
+            for (int i = 0; i < MAC_LENGTH; i++) {
+                diff |= macOut[i] ^ buf[dataLength + i];
+            }
+            return diff == 0;
+        }
+
+        private long getLong(int pos) {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buf[pos + i] & 0xff);
+            }
+            return value;
+        }
+
+        private int decodeBase45(CharSequence text) {
+            int chars = text.length();
+            if (chars % 3 == 1) {
+                return -1;
+            }
+            int out = 0;
+            for (int i = 0; i < chars; i += 3) {
+                int c = value(text.charAt(i));
+                int d = value(text.charAt(i + 1));
+                if (c < 0 || d < 0) {
+                    return -1;
+                }
+                if (i + 2 < chars) {
+                    int e = value(text.charAt(i + 2));
+                    int n = e < 0 ? -1 : c + d * 45 + e * 2025;
+                    if (n < 0 || n > 0xFFFF || out + 2 > buf.length) {
+                        return -1;
+                    }
+                    buf[out++] = (byte) (n >>> 8);
+                    buf[out++] = (byte) n;
+                } else {
+                    int n = c + d * 45;
+                    if (n > 0xFF || out + 1 > buf.length) {
+                        return -1;
+                    }
+                    buf[out++] = (byte) n;
+                }
+            }
+            return out;
+        }
+
+        private static int value(char ch) {
+            return ch < 128 ? BASE45_VALUES[ch] : -1;
+        }
+    }
+}
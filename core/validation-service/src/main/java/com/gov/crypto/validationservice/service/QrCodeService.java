@@ -1,28 +1,97 @@
 package com.gov.crypto.validationservice.service;
 
-import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * QR codes for signed documents.
+ *
+ * Rendered images are cached by (docId, hash, timestamp, size, format), since
+ * every view of a document asks for the same code. Rendering goes from the
+ * QR module matrix straight to PNG or SVG bytes (see {@link QrRenderer})
+ * rather than through a full-size BitMatrix and ImageIO.
+ *
+ * The payload is JSON by default, so verification echoes the submitted hash
+ * as is. The compact binary format ({@link CompactQrPayload}) is opt-in: it
+ * carries only a truncated hash, which verification returns as hex, and
+ * documents whose id is not a UUID or whose hash is not hex/Base64 still
+ * get the JSON payload. Both are accepted by {@link #parseQrPayload}.
+ */
 @Service
 public class QrCodeService {
 
-    private static final int QR_CODE_SIZE = 300;
+    public static final int QR_CODE_SIZE = 300;
+    static final int MAX_QR_CODE_SIZE = 2000;
+
+    private static final Logger log = LoggerFactory.getLogger(QrCodeService.class);
+
+    private final Map<EncodeHintType, Object> hints;
+    private final ErrorCorrectionLevel errorCorrection;
+    private final Map<RenderKey, byte[]> rendered;
+    private final boolean compactPayload;
+    private final byte[] macKey;
+    private final ThreadLocal<CompactQrPayload.Reader> readers;
+
+    public QrCodeService() {
+        this(1000, "H", "json", "");
+    }
+
+    /**
+     * @param payloadFormat "json" or "compact"
+     * @param macKeyBase64  HMAC key for compact payloads; empty for none. When
+     *                      set, compact payloads without a valid MAC are
+     *                      rejected on parse.
+     */
+    @Autowired
+    public QrCodeService(
+            @Value("${validation.qr.cache-size:1000}") int cacheSize,
+            @Value("${validation.qr.error-correction:H}") String errorCorrection,
+            @Value("${validation.qr.payload-format:json}") String payloadFormat,
+            @Value("${validation.qr.mac-key:}") String macKeyBase64) {
+        this.errorCorrection = ErrorCorrectionLevel.valueOf(errorCorrection);
+        this.compactPayload = "compact".equalsIgnoreCase(payloadFormat);
+        this.macKey = macKeyBase64 == null || macKeyBase64.isBlank() ? null : Base64.getDecoder().decode(macKeyBase64);
+        this.readers = ThreadLocal.withInitial(() -> {
+            try {
+                return new CompactQrPayload.Reader(macKey);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialise QR payload MAC", e);
+            }
+        });
+        this.hints = Map.of(EncodeHintType.CHARACTER_SET, "UTF-8");
+        this.rendered = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RenderKey, byte[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        log.info("QR rendering: error correction {}, cache size {}, {} payload{}", errorCorrection, cacheSize,
+                compactPayload ? "compact" : "JSON", macKey != null ? " with MAC" : "");
+    }
+
+    public enum Format {
+        PNG, SVG
+    }
 
     /**
      * Generate a QR code image containing document verification data.
@@ -34,22 +103,84 @@ public class QrCodeService {
      */
     public byte[] generateQrCode(String documentId, String signatureHash, long timestamp)
             throws WriterException, IOException {
+        return generateQrCode(documentId, signatureHash, timestamp, QR_CODE_SIZE, Format.PNG);
+    }
 
-        // Create verification payload
-        String payload = String.format(
+    /**
+     * Generate a QR code at the given pixel size and format. The returned
+     * array is shared with the cache and must not be modified.
+     */
+    public byte[] generateQrCode(String documentId, String signatureHash, long timestamp, int size, Format format)
+            throws WriterException, IOException {
+        if (size <= 0 || size > MAX_QR_CODE_SIZE) {
+            throw new IllegalArgumentException("QR code size must be between 1 and " + MAX_QR_CODE_SIZE);
+        }
+        RenderKey key = new RenderKey(documentId, signatureHash, timestamp, size, format);
+        synchronized (rendered) {
+            byte[] cached = rendered.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        String payload = buildPayload(documentId, signatureHash, timestamp);
+        ByteMatrix modules = Encoder.encode(payload, errorCorrection, hints).getMatrix();
+        byte[] image = format == Format.SVG ? QrRenderer.svg(modules, size) : QrRenderer.png(modules, size);
+
+        synchronized (rendered) {
+            rendered.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * Verification payload embedded in the QR code.
+     */
+    String buildPayload(String documentId, String signatureHash, long timestamp) {
+        if (compactPayload) {
+            UUID docId = parseUuid(documentId);
+            byte[] hash = decodeHash(signatureHash);
+            if (docId != null && hash != null && hash.length >= CompactQrPayload.HASH_LENGTH && timestamp >= 0) {
+                try {
+                    return CompactQrPayload.encode(docId, hash, timestamp, macKey);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Cannot compute QR payload MAC", e);
+                }
+            }
+            log.debug("Document {} does not fit the compact QR payload, using JSON", documentId);
+        }
+        return String.format(
                 "{\"docId\":\"%s\",\"hash\":\"%s\",\"ts\":%d,\"ver\":\"1.0\"}",
                 documentId, signatureHash, timestamp);
+    }
 
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
-        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-
-        BitMatrix bitMatrix = qrCodeWriter.encode(payload, BarcodeFormat.QR_CODE, QR_CODE_SIZE, QR_CODE_SIZE, hints);
+    private static UUID parseUuid(String value) {
+        try {
+            return value != null && value.length() == 36 ? UUID.fromString(value) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-        return outputStream.toByteArray();
+    /**
+     * Signature hashes arrive as hex or Base64 strings.
+     */
+    private static byte[] decodeHash(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            if (value.length() % 2 == 0 && value.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+                return HexFormat.of().parseHex(value);
+            }
+            return Base64.getDecoder().decode(value);
+        } catch (IllegalArgumentException e) {
+            try {
+                return Base64.getUrlDecoder().decode(value);
+            } catch (IllegalArgumentException ignored) {
+                return null;
+            }
+        }
     }
 
     /**
@@ -72,6 +203,10 @@ public class QrCodeService {
      * Parse QR code payload and extract verification data.
      */
     public Map<String, Object> parseQrPayload(String payload) {
+        if (CompactQrPayload.isCompact(payload)) {
+            return parseCompactPayload(payload);
+        }
+
         // Simple JSON parsing (in production, use Jackson or Gson)
         Map<String, Object> result = new HashMap<>();
 
@@ -94,4 +229,28 @@ public class QrCodeService {
 
         return result;
     }
+
+    private Map<String, Object> parseCompactPayload(String payload) {
+        CompactQrPayload.Reader reader = readers.get();
+        if (!reader.read(payload)) {
+            throw new IllegalArgumentException("Malformed compact QR payload");
+        }
+        if (macKey != null && !reader.macValid()) {
+            throw new IllegalArgumentException("QR payload MAC is missing or invalid");
+        }
+        byte[] hash = new byte[CompactQrPayload.HASH_LENGTH];
+        reader.copyHash(hash, 0);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("docId", reader.documentId().toString());
+        result.put("hash", HexFormat.of().formatHex(hash));
+        result.put("hashTruncated", true);
+        result.put("timestamp", reader.timestamp());
+        result.put("version", CompactQrPayload.VERSION);
+        result.put("macVerified", reader.macValid());
+        return result;
+    }
+
+    private record RenderKey(String documentId, String signatureHash, long timestamp, int size, Format format) {
+    }
 }
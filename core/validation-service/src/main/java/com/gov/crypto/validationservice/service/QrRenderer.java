@@ -0,0 +1,161 @@
+package com.gov.crypto.validationservice.service;
+
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Renders a QR module matrix straight to PNG or SVG bytes.
+ *
+ * Geometry matches {@code QRCodeWriter}: a 4-module quiet zone, the largest
+ * integer module scale that fits the requested size, and the code centred
+ * in the remaining padding. The PNG is written as a 1-bit grayscale image
+ * without going through BufferedImage/ImageIO; repeated pixel rows use the
+ * PNG "Up" filter, so they deflate to almost nothing.
+ */
+final class QrRenderer {
+
+    static final int QUIET_ZONE = 4;
+
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_UP = 2;
+
+    private QrRenderer() {
+    }
+
+    static byte[] png(ByteMatrix modules, int requestedSize) throws IOException {
+        Geometry g = Geometry.of(modules, requestedSize);
+        int rowBytes = (g.width() + 7) / 8;
+
+        byte[] blank = new byte[rowBytes];
+        Arrays.fill(blank, (byte) 0xff);
+        byte[] row = new byte[rowBytes];
+        byte[] unchanged = new byte[rowBytes];
+
+        ByteArrayOutputStream idat = new ByteArrayOutputStream(rowBytes * 8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(idat, deflater)) {
+            int previousModuleRow = Integer.MIN_VALUE;
+            for (int y = 0; y < g.height(); y++) {
+                int moduleRow = y < g.top() || y >= g.top() + modules.getHeight() * g.scale()
+                        ? -1
+                        : (y - g.top()) / g.scale();
+                if (moduleRow == previousModuleRow) {
+                    out.write(FILTER_UP);
+                    out.write(unchanged);
+                    continue;
+                }
+                previousModuleRow = moduleRow;
+                out.write(FILTER_NONE);
+                if (moduleRow < 0) {
+                    out.write(blank);
+                    continue;
+                }
+                System.arraycopy(blank, 0, row, 0, rowBytes);
+                for (int x = 0; x < modules.getWidth(); x++) {
+                    if (modules.get(x, moduleRow) == 1) {
+                        int start = g.left() + x * g.scale();
+                        for (int px = start; px < start + g.scale(); px++) {
+                            row[px >>> 3] &= (byte) ~(0x80 >>> (px & 7));
+                        }
+                    }
+                }
+                out.write(row);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        byte[] ihdr = new byte[13];
+        putInt(ihdr, 0, g.width());
+        putInt(ihdr, 4, g.height());
+        ihdr[8] = 1; // bit depth
+        ihdr[9] = 0; // grayscale
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(idat.size() + 64);
+        png.write(PNG_SIGNATURE);
+        writeChunk(png, "IHDR", ihdr);
+        writeChunk(png, "IDAT", idat.toByteArray());
+        writeChunk(png, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+
+    static byte[] svg(ByteMatrix modules, int requestedSize) {
+        Geometry g = Geometry.of(modules, requestedSize);
+        int viewWidth = modules.getWidth() + 2 * QUIET_ZONE;
+        int viewHeight = modules.getHeight() + 2 * QUIET_ZONE;
+
+        StringBuilder sb = new StringBuilder(64 + modules.getWidth() * modules.getHeight() * 2);
+        sb.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(g.width())
+                .append("\" height=\"").append(g.height())
+                .append("\" viewBox=\"0 0 ").append(viewWidth).append(' ').append(viewHeight)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        for (int y = 0; y < modules.getHeight(); y++) {
+            int x = 0;
+            while (x < modules.getWidth()) {
+                if (modules.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int run = 1;
+                while (x + run < modules.getWidth() && modules.get(x + run, y) == 1) {
+                    run++;
+                }
+                sb.append('M').append(x + QUIET_ZONE).append(' ').append(y + QUIET_ZONE)
+                        .append('h').append(run).append("v1h-").append(run).append('z');
+                x += run;
+            }
+        }
+        sb.append("\"/></svg>");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data) throws IOException {
+        byte[] header = new byte[8];
+        putInt(header, 0, data.length);
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(typeBytes, 0, header, 4, 4);
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        byte[] trailer = new byte[4];
+        putInt(trailer, 0, (int) crc.getValue());
+
+        out.write(header);
+        out.write(data);
+        out.write(trailer);
+    }
+
+    private static void putInt(byte[] buf, int offset, int value) {
+        buf[offset] = (byte) (value >>> 24);
+        buf[offset + 1] = (byte) (value >>> 16);
+        buf[offset + 2] = (byte) (value >>> 8);
+        buf[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Output size, module scale and padding, computed as QRCodeWriter does.
+     */
+    private record Geometry(int width, int height, int scale, int left, int top) {
+
+        static Geometry of(ByteMatrix modules, int requestedSize) {
+            int qrWidth = modules.getWidth() + 2 * QUIET_ZONE;
+            int qrHeight = modules.getHeight() + 2 * QUIET_ZONE;
+            int width = Math.max(requestedSize, qrWidth);
+            int height = Math.max(requestedSize, qrHeight);
+            int scale = Math.min(width / qrWidth, height / qrHeight);
+            return new Geometry(width, height, scale,
+                    (width - modules.getWidth() * scale) / 2,
+                    (height - modules.getHeight() * scale) / 2);
+        }
+    }
+}
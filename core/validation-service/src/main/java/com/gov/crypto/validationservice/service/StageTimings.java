@@ -0,0 +1,43 @@
+package com.gov.crypto.validationservice.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-request breakdown of stage latencies, returned to the caller as a
+ * {@code Server-Timing} header when debug timings are enabled. Stages may
+ * finish on different threads, so additions are synchronized.
+ */
+public class StageTimings {
+
+    public static final String HEADER = "Server-Timing";
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    public synchronized void add(String stage, long nanos) {
+        entries.add(new Entry(stage, nanos));
+    }
+
+    public synchronized List<Entry> entries() {
+        return List.copyOf(entries);
+    }
+
+    /**
+     * Format as a Server-Timing header value, e.g. {@code parse;dur=0.41, crypto;dur=2.13}.
+     */
+    public synchronized String toHeaderValue() {
+        StringBuilder sb = new StringBuilder();
+        for (Entry entry : entries) {
+            if (!sb.isEmpty()) {
+                sb.append(", ");
+            }
+            sb.append(entry.stage()).append(";dur=")
+                    .append(String.format(Locale.ROOT, "%.2f", entry.nanos() / 1_000_000.0));
+        }
+        return sb.toString();
+    }
+
+    public record Entry(String stage, long nanos) {
+    }
+}
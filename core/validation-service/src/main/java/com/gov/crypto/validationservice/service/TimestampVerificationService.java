@@ -0,0 +1,180 @@
+package com.gov.crypto.validationservice.service;
+
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformationVerifier;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.tsp.TimeStampToken;
+import org.bouncycastle.tsp.TimeStampTokenInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.Security;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 3161 TimeStampToken verification against a fixed set of trusted TSA
+ * certificates.
+ *
+ * Trusted TSA certificates are parsed once at startup, together with their
+ * CMS signer verifiers. Verified tokens are cached by the SHA-256 of their
+ * encoding, so repeated verification of the same stamp only pays a digest
+ * and a messageImprint comparison instead of CMS parsing and an ML-DSA
+ * verify.
+ */
+@Service
+public class TimestampVerificationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TimestampVerificationService.class);
+
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    static {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    private final List<TrustedTsa> trustedTsas;
+    private final Map<String, TokenInfo> verifiedTokens;
+
+    @Autowired
+    public TimestampVerificationService(
+            @Value("${validation.tsa.trusted-certs:}") String trustedCertPaths,
+            @Value("${validation.tsa.token-cache-size:10000}") int cacheSize) {
+        this(loadCertificates(trustedCertPaths), cacheSize);
+    }
+
+    public TimestampVerificationService(Collection<X509Certificate> trustedCertificates) {
+        this(trustedCertificates, DEFAULT_CACHE_SIZE);
+    }
+
+    public TimestampVerificationService(Collection<X509Certificate> trustedCertificates, int cacheSize) {
+        List<TrustedTsa> tsas = new ArrayList<>();
+        for (X509Certificate cert : trustedCertificates) {
+            try {
+                tsas.add(new TrustedTsa(
+                        new X509CertificateHolder(cert.getEncoded()),
+                        new JcaSimpleSignerInfoVerifierBuilder().setProvider("BC").build(cert)));
+            } catch (Exception e) {
+                log.warn("Skipping unusable TSA certificate {}: {}", cert.getSubjectX500Principal(), e.getMessage());
+            }
+        }
+        this.trustedTsas = List.copyOf(tsas);
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenInfo> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        log.info("Timestamp verification initialized with {} trusted TSA certificate(s)", trustedTsas.size());
+    }
+
+    /**
+     * Verify a DER-encoded TimeStampToken and check that its messageImprint
+     * is a SHA-256 digest equal to {@code expectedImprint}.
+     */
+    public TimestampVerification verify(byte[] encodedToken, byte[] expectedImprint) {
+        TokenInfo info;
+        try {
+            info = verifiedToken(encodedToken);
+        } catch (Exception e) {
+            log.debug("Timestamp token rejected: {}", e.getMessage());
+            return TimestampVerification.invalid("Timestamp token invalid: " + e.getMessage());
+        }
+
+        if (!info.sha256Imprint() || !MessageDigest.isEqual(info.imprintDigest(), expectedImprint)) {
+            return TimestampVerification.invalid("Timestamp messageImprint does not match stamp data");
+        }
+        return new TimestampVerification(true, info.genTime(), info.tsaSubject(), "Timestamp verified");
+    }
+
+    private TokenInfo verifiedToken(byte[] encodedToken) throws Exception {
+        String key = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(encodedToken));
+        synchronized (verifiedTokens) {
+            TokenInfo cached = verifiedTokens.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        TimeStampToken token = new TimeStampToken(new CMSSignedData(encodedToken));
+        TrustedTsa tsa = trustedTsas.stream()
+                .filter(t -> token.getSID().match(t.certificate()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("signed by an untrusted TSA"));
+
+        // Checks the CMS signature, the ESS signing-certificate binding, the
+        // timeStamping EKU and that the TSA certificate was valid at genTime
+        token.validate(tsa.verifier());
+
+        TimeStampTokenInfo tstInfo = token.getTimeStampInfo();
+        TokenInfo info = new TokenInfo(
+                tstInfo.getGenTime(),
+                NISTObjectIdentifiers.id_sha256.equals(tstInfo.getMessageImprintAlgOID()),
+                tstInfo.getMessageImprintDigest(),
+                tsa.certificate().getSubject().toString());
+
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(key, info);
+        }
+        return info;
+    }
+
+    private static List<X509Certificate> loadCertificates(String paths) {
+        List<X509Certificate> certs = new ArrayList<>();
+        if (paths == null || paths.isBlank()) {
+            log.warn("No trusted TSA certificates configured (validation.tsa.trusted-certs)");
+            return certs;
+        }
+        for (String path : paths.split(",")) {
+            try (InputStream in = Files.newInputStream(Path.of(path.trim()))) {
+                CertificateFactory factory = CertificateFactory.getInstance("X.509", "BC");
+                factory.generateCertificates(in).forEach(c -> certs.add((X509Certificate) c));
+            } catch (Exception e) {
+                log.error("Failed to load TSA certificates from {}", path, e);
+            }
+        }
+        return certs;
+    }
+
+    private record TrustedTsa(X509CertificateHolder certificate, SignerInformationVerifier verifier) {
+    }
+
+    /**
+     * Fields of a token whose signature has already been verified.
+     */
+    private record TokenInfo(Date genTime, boolean sha256Imprint, byte[] imprintDigest, String tsaSubject) {
+        TokenInfo {
+            imprintDigest = Arrays.copyOf(imprintDigest, imprintDigest.length);
+        }
+    }
+
+    /**
+     * Result of verifying a timestamp token.
+     */
+    public record TimestampVerification(boolean valid, Date genTime, String tsaSubject, String message) {
+
+        static TimestampVerification invalid(String message) {
+            return new TimestampVerification(false, null, null, message);
+        }
+    }
+}
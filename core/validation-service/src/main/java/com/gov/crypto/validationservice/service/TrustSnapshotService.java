@@ -0,0 +1,131 @@
+package com.gov.crypto.validationservice.service;
+
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.truststore.TrustSnapshot;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.cert.X509Certificate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the trust snapshot used by offline validators.
+ *
+ * The snapshot file is memory-mapped and its signature checked against the
+ * pinned signer certificate. The file is polled and a newer snapshot (higher
+ * sequence) is swapped in atomically; in-flight verifications keep using the
+ * snapshot they started with. Operators should replace the file with an
+ * atomic rename so a partially copied file is never mapped.
+ */
+@Service
+public class TrustSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrustSnapshotService.class);
+
+    private final Path snapshotPath;
+    private final X509Certificate signerCert;
+    private final AtomicReference<TrustSnapshot> current = new AtomicReference<>();
+    private volatile FileTime lastSeenModified;
+
+    @Autowired
+    public TrustSnapshotService(
+            @Value("${validation.trust-snapshot.path:}") String snapshotPath,
+            @Value("${validation.trust-snapshot.signer-cert:}") String signerCertPath) throws Exception {
+        this(snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath),
+                loadSignerCert(signerCertPath));
+    }
+
+    public TrustSnapshotService(Path snapshotPath, X509Certificate signerCert) {
+        this.snapshotPath = signerCert != null ? snapshotPath : null;
+        this.signerCert = signerCert;
+        if (snapshotPath != null && signerCert == null) {
+            log.warn("Trust snapshot path set but no signer certificate pinned; snapshots disabled");
+        }
+    }
+
+    /**
+     * The installed snapshot, if there is one and its validity watermark has
+     * not passed.
+     */
+    public Optional<TrustSnapshot> current() {
+        TrustSnapshot snapshot = current.get();
+        if (snapshot == null || !snapshot.isCurrent(System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Reload the snapshot file if it changed since the last check.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${validation.trust-snapshot.poll-interval-ms:30000}")
+    public void refresh() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(snapshotPath);
+            if (modified.equals(lastSeenModified)) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            TrustSnapshot loaded = TrustSnapshot.load(snapshotPath, signerCert, getMlDsaLevel(signerCert));
+            if (install(loaded)) {
+                log.info("Installed trust snapshot #{} ({} CAs, {} revoked, valid until {}) in {} ms",
+                        loaded.sequence(), loaded.caCount(), loaded.revokedCount(), loaded.validUntil(),
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+            // Only a file that verified is skipped from now on; one caught
+            // mid-copy is retried on the next poll
+            lastSeenModified = modified;
+        } catch (Exception e) {
+            log.error("Failed to load trust snapshot from {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Atomically install a verified snapshot if it is newer than the current
+     * one.
+     *
+     * @return true if the snapshot was installed
+     */
+    public boolean install(TrustSnapshot candidate) {
+        TrustSnapshot previous = current.getAndAccumulate(candidate,
+                (cur, next) -> cur == null || next.sequence() > cur.sequence() ? next : cur);
+        if (previous != null && candidate.sequence() <= previous.sequence()) {
+            log.warn("Ignoring trust snapshot #{}: not newer than installed #{}",
+                    candidate.sequence(), previous.sequence());
+            return false;
+        }
+        return true;
+    }
+
+    private static X509Certificate loadSignerCert(String path) throws Exception {
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        return new PqcCryptoService().parseCertificatePem(Files.readString(Path.of(path)));
+    }
+
+    private PqcCryptoService.MlDsaLevel getMlDsaLevel(X509Certificate cert) {
+        String algorithm = cert.getPublicKey().getAlgorithm();
+        if (algorithm.equalsIgnoreCase("Dilithium2") || algorithm.contains("44")) {
+            return PqcCryptoService.MlDsaLevel.ML_DSA_44;
+        } else if (algorithm.equalsIgnoreCase("Dilithium3") || algorithm.contains("65")) {
+            return PqcCryptoService.MlDsaLevel.ML_DSA_65;
+        } else {
+            return PqcCryptoService.MlDsaLevel.ML_DSA_87;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.gov.crypto.validationservice.service;
+
+import java.util.HexFormat;
+
+/**
+ * A binary request referenced a certificate by fingerprint that is not in
+ * the certificate cache; the caller must resend the DER encoding.
+ */
+public class UnknownCertificateException extends RuntimeException {
+
+    private final byte[] fingerprint;
+
+    public UnknownCertificateException(byte[] fingerprint) {
+        super("Unknown certificate fingerprint " + HexFormat.of().formatHex(fingerprint));
+        this.fingerprint = fingerprint.clone();
+    }
+
+    public String fingerprintHex() {
+        return HexFormat.of().formatHex(fingerprint);
+    }
+}
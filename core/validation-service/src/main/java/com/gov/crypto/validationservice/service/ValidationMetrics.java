@@ -0,0 +1,64 @@
+package com.gov.crypto.validationservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency timers for the individual validation stages.
+ *
+ * Every stage is recorded as {@code validation.stage} tagged with the
+ * operation (verify, stamp), stage name, ML-DSA level of the certificate and
+ * outcome (valid, invalid, error). Timers publish percentile histograms so
+ * SLO dashboards can aggregate quantiles across instances.
+ */
+@Component
+public class ValidationMetrics {
+
+    public static final String STAGE_TIMER = "validation.stage";
+    public static final String UNKNOWN_LEVEL = "unknown";
+
+    private final MeterRegistry registry;
+
+    public ValidationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Metrics that are kept in memory only (tests and manual wiring).
+     */
+    public static ValidationMetrics inMemory() {
+        return new ValidationMetrics(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Record a finished stage and add it to the per-request breakdown, if one
+     * is being collected.
+     */
+    public void record(String operation, String stage, String level, String outcome, long startNanos,
+            StageTimings timings) {
+        long elapsed = System.nanoTime() - startNanos;
+        Timer.builder(STAGE_TIMER)
+                .description("Latency of a single validation stage")
+                .tag("operation", operation)
+                .tag("stage", stage)
+                .tag("level", level)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        if (timings != null) {
+            timings.add(stage, elapsed);
+        }
+    }
+
+    public static String outcome(boolean passed) {
+        return passed ? "valid" : "invalid";
+    }
+}
@@ -1,5 +1,7 @@
 package com.gov.crypto.validationservice.service;
 
+import com.gov.crypto.validationservice.dto.BinaryStampRequest;
+import com.gov.crypto.validationservice.dto.BinaryVerifyRequest;
 import com.gov.crypto.validationservice.dto.StampVerifyRequest;
 import com.gov.crypto.validationservice.dto.StampVerifyResponse;
 import com.gov.crypto.validationservice.dto.VerifyRequest;
@@ -8,12 +10,47 @@ import com.gov.crypto.validationservice.dto.VerifyResponse;
 public interface ValidationService {
     VerifyResponse verifySignature(VerifyRequest request);
 
+    /**
+     * Verify a signature and collect per-stage latencies into
+     * {@code timings} (may be null).
+     */
+    VerifyResponse verifySignature(VerifyRequest request, StageTimings timings);
+
+    /**
+     * Verify a signature from the binary API.
+     *
+     * @throws UnknownCertificateException if the certificate is referenced by
+     *         a fingerprint that is not cached
+     */
+    VerifyResponse verifySignature(BinaryVerifyRequest request, StageTimings timings);
+
     /**
      * Verify a countersignature (stamp) including user signature,
      * officer signature, and optional timestamp.
      */
     StampVerifyResponse verifyStamp(StampVerifyRequest request);
 
+    /**
+     * Verify a stamp, optionally returning as soon as any stage fails.
+     * With {@code failFast} set, stages that had not finished are reported
+     * as not valid.
+     */
+    StampVerifyResponse verifyStamp(StampVerifyRequest request, boolean failFast);
+
+    /**
+     * Verify a stamp and collect per-stage latencies into {@code timings}
+     * (may be null).
+     */
+    StampVerifyResponse verifyStamp(StampVerifyRequest request, boolean failFast, StageTimings timings);
+
+    /**
+     * Verify a stamp from the binary API.
+     *
+     * @throws UnknownCertificateException if a certificate is referenced by a
+     *         fingerprint that is not cached
+     */
+    StampVerifyResponse verifyStamp(BinaryStampRequest request, boolean failFast, StageTimings timings);
+
     /**
      * Debug only: Generate signature for testing.
      * WARNING: Do not use in production.
@@ -1,21 +1,49 @@
 package com.gov.crypto.validationservice.service.impl;
 
 import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.truststore.KeyIdentifiers;
+import com.gov.crypto.common.truststore.TrustSnapshot;
+import com.gov.crypto.validationservice.dto.BinaryStampRequest;
+import com.gov.crypto.validationservice.dto.BinaryVerifyRequest;
+import com.gov.crypto.validationservice.dto.CertificateRef;
 import com.gov.crypto.validationservice.dto.StampVerifyRequest;
 import com.gov.crypto.validationservice.dto.StampVerifyResponse;
 import com.gov.crypto.validationservice.dto.VerifyRequest;
 import com.gov.crypto.validationservice.dto.VerifyResponse;
+import com.gov.crypto.validationservice.service.CertificateCache;
+import com.gov.crypto.validationservice.service.StageTimings;
+import com.gov.crypto.validationservice.service.TimestampVerificationService;
+import com.gov.crypto.validationservice.service.TimestampVerificationService.TimestampVerification;
+import com.gov.crypto.validationservice.service.TrustSnapshotService;
+import com.gov.crypto.validationservice.service.UnknownCertificateException;
+import com.gov.crypto.validationservice.service.ValidationMetrics;
 import com.gov.crypto.validationservice.service.ValidationService;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Enhanced Validation Service with PQC support.
@@ -25,42 +53,101 @@ public class ValidationServiceImpl implements ValidationService {
 
     private static final Logger log = LoggerFactory.getLogger(ValidationServiceImpl.class);
 
+    private static final String OP_VERIFY = "verify";
+    private static final String OP_STAMP = "stamp";
+
     @Value("${service.ca-authority.url:http://ca-authority:8082}")
     private String caAuthorityUrl;
 
     private final RestTemplate restTemplate;
     private final PqcCryptoService pqcService;
+    private final TimestampVerificationService timestampVerifier;
+    private final TrustSnapshotService trustSnapshots;
+    private final ValidationMetrics metrics;
+    private final CertificateCache certificateCache;
+    private final ExecutorService stageExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     public ValidationServiceImpl() {
+        this(new TimestampVerificationService(List.of()), new TrustSnapshotService((Path) null, null),
+                ValidationMetrics.inMemory(), new CertificateCache(1000));
+    }
+
+    @Autowired
+    public ValidationServiceImpl(TimestampVerificationService timestampVerifier,
+            TrustSnapshotService trustSnapshots, ValidationMetrics metrics, CertificateCache certificateCache) {
         this.restTemplate = new RestTemplate();
         this.pqcService = new PqcCryptoService();
+        this.timestampVerifier = timestampVerifier;
+        this.trustSnapshots = trustSnapshots;
+        this.metrics = metrics;
+        this.certificateCache = certificateCache;
     }
 
     @Override
     public VerifyResponse verifySignature(VerifyRequest request) {
+        return verifySignature(request, null);
+    }
+
+    @Override
+    public VerifyResponse verifySignature(VerifyRequest request, StageTimings timings) {
+        return verifySignature(
+                () -> pqcService.parseCertificatePem(request.certPem()),
+                () -> Base64.getDecoder().decode(request.originalDocHash()),
+                () -> Base64.getDecoder().decode(request.signatureBase64()),
+                timings);
+    }
+
+    @Override
+    public VerifyResponse verifySignature(BinaryVerifyRequest request, StageTimings timings) {
+        requireKnown(request.certificate());
+        return verifySignature(() -> certificateCache.resolve(request.certificate()),
+                request::digest, request::signature, timings);
+    }
+
+    /**
+     * Shared verification pipeline. Inputs are supplied lazily so decoding
+     * cost and errors are attributed to the stage that needs them.
+     */
+    private VerifyResponse verifySignature(Callable<X509Certificate> certSource, Callable<byte[]> hashSource,
+            Callable<byte[]> signatureSource, StageTimings timings) {
         StringBuilder details = new StringBuilder();
         boolean cryptoValid = false;
         boolean notRevoked = true;
         boolean notExpired = false;
         boolean chainValid = true;
+        long requestStart = System.nanoTime();
+        String level = ValidationMetrics.UNKNOWN_LEVEL;
 
         try {
             // Parse certificate once
-            X509Certificate cert = pqcService.parseCertificatePem(request.certPem());
+            long start = System.nanoTime();
+            X509Certificate cert = certSource.call();
+            level = levelTag(cert);
+            metrics.record(OP_VERIFY, "parse", level, "valid", start, timings);
 
             // 1. Verify cryptographic signature
-            cryptoValid = verifyCryptoSignature(request, cert, details);
+            start = System.nanoTime();
+            cryptoValid = verifyCryptoSignature(hashSource, signatureSource, cert, details);
+            metrics.record(OP_VERIFY, "crypto", level, ValidationMetrics.outcome(cryptoValid), start, timings);
 
             // 2. Check certificate validity period
+            start = System.nanoTime();
             notExpired = checkCertificateValidity(cert, details);
+            metrics.record(OP_VERIFY, "validity", level, ValidationMetrics.outcome(notExpired), start, timings);
 
             // 3. Check revocation status
+            start = System.nanoTime();
             notRevoked = checkRevocationStatus(cert, details);
+            metrics.record(OP_VERIFY, "revocation", level, ValidationMetrics.outcome(notRevoked), start, timings);
 
             // 4. Verify certificate structure/chain (basic check)
+            start = System.nanoTime();
             chainValid = verifyCertificateChain(cert, details);
+            metrics.record(OP_VERIFY, "chain", level, ValidationMetrics.outcome(chainValid), start, timings);
 
             boolean isFullyValid = cryptoValid && notRevoked && notExpired && chainValid;
+            metrics.record(OP_VERIFY, "total", level, ValidationMetrics.outcome(isFullyValid), requestStart,
+                    timings);
 
             String message = buildResultMessage(cryptoValid, notRevoked, notExpired, chainValid, details);
             log.info("Signature verification completed: valid={}, crypto={}, revocation={}, expiry={}, chain={}",
@@ -70,14 +157,16 @@ public class ValidationServiceImpl implements ValidationService {
 
         } catch (Exception e) {
             log.error("Signature verification failed with exception", e);
+            metrics.record(OP_VERIFY, "total", level, "error", requestStart, timings);
             return new VerifyResponse(false, "Verification error: " + e.getMessage());
         }
     }
 
-    private boolean verifyCryptoSignature(VerifyRequest request, X509Certificate cert, StringBuilder details) {
+    private boolean verifyCryptoSignature(Callable<byte[]> hashSource, Callable<byte[]> signatureSource,
+            X509Certificate cert, StringBuilder details) {
         try {
-            byte[] hash = Base64.getDecoder().decode(request.originalDocHash());
-            byte[] sig = Base64.getDecoder().decode(request.signatureBase64());
+            byte[] hash = hashSource.call();
+            byte[] sig = signatureSource.call();
             PublicKey publicKey = cert.getPublicKey();
 
             String algo = publicKey.getAlgorithm();
@@ -121,6 +210,19 @@ public class ValidationServiceImpl implements ValidationService {
     }
 
     private boolean checkRevocationStatus(X509Certificate cert, StringBuilder details) {
+        // Offline validators answer from the signed trust snapshot
+        Optional<TrustSnapshot> snapshot = trustSnapshots.current();
+        if (snapshot.isPresent()) {
+            if (snapshot.get().isRevoked(cert.getSerialNumber())) {
+                details.append("✗ Certificate is REVOKED (trust snapshot #")
+                        .append(snapshot.get().sequence()).append("). ");
+                return false;
+            }
+            details.append("✓ Certificate is not revoked (trust snapshot #")
+                    .append(snapshot.get().sequence()).append("). ");
+            return true;
+        }
+
         try {
             String serialNumber = cert.getSerialNumber().toString(16);
             try {
@@ -146,12 +248,58 @@ public class ValidationServiceImpl implements ValidationService {
         }
     }
 
+    /**
+     * With a trust snapshot installed the issuing CA must be in it: found by
+     * the certificate's AuthorityKeyIdentifier, or, for certificates without
+     * one, by trying each CA's key. Anything else fails closed.
+     */
     private boolean verifyCertificateChain(X509Certificate cert, StringBuilder details) {
+        if (cert == null) {
+            return false;
+        }
+        Optional<TrustSnapshot> snapshot = trustSnapshots.current();
+        if (snapshot.isPresent()) {
+            byte[] issuerKeyId = KeyIdentifiers.authorityKeyId(cert);
+            boolean trusted = issuerKeyId != null
+                    ? isSignedBySnapshotCa(cert, snapshot.get(), snapshot.get().findCa(issuerKeyId))
+                    : isSignedByAnySnapshotCa(cert, snapshot.get());
+            if (!trusted) {
+                details.append("✗ Certificate is not signed by a CA in the trust snapshot. ");
+                return false;
+            }
+            details.append("✓ Certificate is signed by a trusted CA. ");
+            return true;
+        }
+
         // Basic self-consistency check for now
         // For full chain validation, we'd need the issuer cert
-        if (cert != null) {
-            details.append("✓ Certificate structure is valid. ");
+        details.append("✓ Certificate structure is valid. ");
+        return true;
+    }
+
+    private static boolean isSignedBySnapshotCa(X509Certificate cert, TrustSnapshot snapshot, int index) {
+        if (index < 0) {
+            return false;
+        }
+        try {
+            cert.verify(snapshot.caCertificate(index).getPublicKey(), "BC");
             return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Linear scan for certificates without an AuthorityKeyIdentifier. The
+     * issuer name is not used to narrow it down: certificates issued here
+     * carry the CA's name re-parsed from its RFC 2253 form, with the RDNs in
+     * reverse order, so it does not equal the CA's encoded subject.
+     */
+    private static boolean isSignedByAnySnapshotCa(X509Certificate cert, TrustSnapshot snapshot) {
+        for (int i = 0; i < snapshot.caCount(); i++) {
+            if (isSignedBySnapshotCa(cert, snapshot, i)) {
+                return true;
+            }
         }
         return false;
     }
@@ -177,101 +325,269 @@ public class ValidationServiceImpl implements ValidationService {
 
     @Override
     public StampVerifyResponse verifyStamp(StampVerifyRequest request) {
-        StringBuilder details = new StringBuilder();
-        boolean userSigValid = false;
-        boolean officerSigValid = false;
-        boolean timestampValid = true; // Optional, default to true if not provided
-        boolean userCertValid = false;
-        boolean officerCertValid = false;
-
-        try {
-            // 1. Parse and validate user certificate
-            X509Certificate userCert = pqcService.parseCertificatePem(request.userCertPem());
-            try {
-                userCert.checkValidity();
-                userCertValid = true;
-                details.append("✓ User certificate is valid. ");
-            } catch (Exception e) {
-                details.append("✗ User certificate expired/invalid. ");
-            }
-
-            // 2. Verify user's signature on document
-            byte[] docHash = Base64.getDecoder().decode(request.documentHash());
-            byte[] userSig = Base64.getDecoder().decode(request.userSignature());
-            PqcCryptoService.MlDsaLevel userLevel = getMlDsaLevel(userCert.getPublicKey().getAlgorithm());
-
-            userSigValid = pqcService.verify(docHash, userSig, userCert.getPublicKey(), userLevel);
-            if (userSigValid) {
-                details.append("✓ User signature verified. ");
-            } else {
-                details.append("✗ User signature INVALID. ");
-            }
-
-            // 3. Parse and validate officer certificate
-            X509Certificate officerCert = pqcService.parseCertificatePem(request.officerCertPem());
-            try {
-                officerCert.checkValidity();
-                officerCertValid = true;
-                details.append("✓ Officer certificate is valid. ");
-            } catch (Exception e) {
-                details.append("✗ Officer certificate expired/invalid. ");
-            }
+        return verifyStamp(request, false);
+    }
 
-            // 4. Verify officer's countersignature
-            // Officer signs: SHA256(documentHash + ":" + userSignature)
-            String stampData = request.documentHash() + ":" + request.userSignature();
-            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] stampHash = digest.digest(stampData.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    /**
+     * The user signature, officer countersignature and timestamp stages are
+     * independent of each other, so they run concurrently on virtual threads
+     * and total latency is bounded by the slowest stage rather than the sum.
+     */
+    @Override
+    public StampVerifyResponse verifyStamp(StampVerifyRequest request, boolean failFast) {
+        return verifyStamp(request, failFast, null);
+    }
 
-            byte[] officerSig = Base64.getDecoder().decode(request.officerSignature());
-            PqcCryptoService.MlDsaLevel officerLevel = getMlDsaLevel(officerCert.getPublicKey().getAlgorithm());
+    @Override
+    public StampVerifyResponse verifyStamp(StampVerifyRequest request, boolean failFast, StageTimings timings) {
+        return verifyStamp(new StampInput(
+                () -> Base64.getDecoder().decode(request.documentHash()),
+                () -> Base64.getDecoder().decode(request.userSignature()),
+                () -> pqcService.parseCertificatePem(request.userCertPem()),
+                () -> Base64.getDecoder().decode(request.officerSignature()),
+                () -> pqcService.parseCertificatePem(request.officerCertPem()),
+                () -> stampHash(request.documentHash().getBytes(StandardCharsets.UTF_8),
+                        request.userSignature().getBytes(StandardCharsets.UTF_8)),
+                () -> request.timestampToken() == null || request.timestampToken().isEmpty()
+                        ? null
+                        : Base64.getDecoder().decode(request.timestampToken())),
+                failFast, timings);
+    }
 
-            officerSigValid = pqcService.verify(stampHash, officerSig, officerCert.getPublicKey(), officerLevel);
-            if (officerSigValid) {
-                details.append("✓ Officer countersignature verified. ");
-            } else {
-                details.append("✗ Officer countersignature INVALID. ");
-            }
+    @Override
+    public StampVerifyResponse verifyStamp(BinaryStampRequest request, boolean failFast, StageTimings timings) {
+        requireKnown(request.userCertificate());
+        requireKnown(request.officerCertificate());
+        return verifyStamp(new StampInput(
+                request::documentHash,
+                request::userSignature,
+                () -> certificateCache.resolve(request.userCertificate()),
+                request::officerSignature,
+                () -> certificateCache.resolve(request.officerCertificate()),
+                () -> stampHash(Base64.getEncoder().encode(request.documentHash()),
+                        Base64.getEncoder().encode(request.userSignature())),
+                request::timestampToken),
+                failFast, timings);
+    }
 
-            // 5. Verify timestamp (if provided)
-            if (request.timestampToken() != null && !request.timestampToken().isEmpty()) {
-                // Simplified timestamp verification - just check format
-                // Full TSA verification would require the TSA certificate
-                try {
-                    byte[] tsToken = Base64.getDecoder().decode(request.timestampToken());
-                    String tokenStr = new String(tsToken, java.nio.charset.StandardCharsets.UTF_8);
-                    if (tokenStr.contains("genTime") && tokenStr.contains("hashedMessage")) {
-                        timestampValid = true;
-                        details.append("✓ Timestamp token present. ");
-                    } else {
-                        timestampValid = false;
-                        details.append("⚠ Timestamp format unrecognized. ");
-                    }
-                } catch (Exception e) {
-                    timestampValid = false;
-                    details.append("⚠ Timestamp verification failed. ");
+    private StampVerifyResponse verifyStamp(StampInput request, boolean failFast, StageTimings timings) {
+        List<Future<StageResult>> futures = new ArrayList<>(3);
+        long requestStart = System.nanoTime();
+        try {
+            CompletionService<StageResult> completion = new ExecutorCompletionService<>(stageExecutor);
+            futures.add(completion.submit(() -> timedStage(Stage.USER, timings, () -> verifyUserStage(request))));
+            futures.add(completion.submit(
+                    () -> timedStage(Stage.OFFICER, timings, () -> verifyOfficerStage(request))));
+            futures.add(completion.submit(
+                    () -> timedStage(Stage.TIMESTAMP, timings, () -> verifyTimestampStage(request))));
+
+            Map<Stage, StageResult> results = new EnumMap<>(Stage.class);
+            for (int i = 0; i < futures.size(); i++) {
+                StageResult result = completion.take().get();
+                results.put(result.stage(), result);
+                if (failFast && !result.passed()) {
+                    log.debug("Stamp verification short-circuited at stage {}", result.stage());
+                    break;
                 }
-            } else {
-                details.append("ℹ No timestamp provided. ");
             }
 
-            boolean allValid = userSigValid && officerSigValid && userCertValid && officerCertValid && timestampValid;
+            StageResult user = results.getOrDefault(Stage.USER, StageResult.skipped(Stage.USER));
+            StageResult officer = results.getOrDefault(Stage.OFFICER, StageResult.skipped(Stage.OFFICER));
+            StageResult timestamp = results.getOrDefault(Stage.TIMESTAMP, StageResult.skipped(Stage.TIMESTAMP));
+
+            boolean allValid = user.passed() && officer.passed() && timestamp.passed();
             String message = allValid ? "Stamp is VALID" : "Stamp verification FAILED";
+            metrics.record(OP_STAMP, "total", user.level(), ValidationMetrics.outcome(allValid), requestStart,
+                    timings);
 
             return new StampVerifyResponse(
                     allValid,
-                    userSigValid,
-                    officerSigValid,
-                    timestampValid,
-                    userCertValid,
-                    officerCertValid,
+                    user.signatureValid(),
+                    officer.signatureValid(),
+                    timestamp.signatureValid(),
+                    user.certValid(),
+                    officer.certValid(),
                     message,
-                    details.toString());
+                    user.details() + officer.details() + timestamp.details());
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Stamp verification failed", cause);
+            metrics.record(OP_STAMP, "total", ValidationMetrics.UNKNOWN_LEVEL, "error", requestStart, timings);
+            return new StampVerifyResponse(false, "Verification error: " + cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new StampVerifyResponse(false, "Verification error: interrupted");
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
 
+    /**
+     * Run a stamp stage and record its latency, tagged with the level of the
+     * certificate the stage checked.
+     */
+    private StageResult timedStage(Stage stage, StageTimings timings, Callable<StageResult> body) throws Exception {
+        long start = System.nanoTime();
+        try {
+            StageResult result = body.call();
+            metrics.record(OP_STAMP, stage.tag(), result.level(), ValidationMetrics.outcome(result.passed()), start,
+                    timings);
+            return result;
+        } catch (Exception e) {
+            metrics.record(OP_STAMP, stage.tag(), ValidationMetrics.UNKNOWN_LEVEL, "error", start, timings);
+            throw e;
+        }
+    }
+
+    /**
+     * Stage 1: validate the user certificate and the user's signature on the
+     * document hash.
+     */
+    private StageResult verifyUserStage(StampInput request) throws Exception {
+        StringBuilder details = new StringBuilder();
+        X509Certificate userCert = request.userCert().call();
+        boolean certValid = false;
+        try {
+            userCert.checkValidity();
+            certValid = true;
+            details.append("✓ User certificate is valid. ");
         } catch (Exception e) {
-            log.error("Stamp verification failed", e);
-            return new StampVerifyResponse(false, "Verification error: " + e.getMessage());
+            details.append("✗ User certificate expired/invalid. ");
+        }
+
+        byte[] docHash = request.documentHash().call();
+        byte[] userSig = request.userSignature().call();
+        PqcCryptoService.MlDsaLevel userLevel = getMlDsaLevel(userCert.getPublicKey().getAlgorithm());
+
+        boolean sigValid = pqcService.verify(docHash, userSig, userCert.getPublicKey(), userLevel);
+        details.append(sigValid ? "✓ User signature verified. " : "✗ User signature INVALID. ");
+        return new StageResult(Stage.USER, userLevel.getAlgorithmName(), certValid, sigValid, details.toString());
+    }
+
+    /**
+     * Stage 2: validate the officer certificate and the officer's
+     * countersignature over SHA256(documentHash + ":" + userSignature).
+     */
+    private StageResult verifyOfficerStage(StampInput request) throws Exception {
+        StringBuilder details = new StringBuilder();
+        X509Certificate officerCert = request.officerCert().call();
+        boolean certValid = false;
+        try {
+            officerCert.checkValidity();
+            certValid = true;
+            details.append("✓ Officer certificate is valid. ");
+        } catch (Exception e) {
+            details.append("✗ Officer certificate expired/invalid. ");
+        }
+
+        byte[] stampHash = request.stampHash().call();
+        byte[] officerSig = request.officerSignature().call();
+        PqcCryptoService.MlDsaLevel officerLevel = getMlDsaLevel(officerCert.getPublicKey().getAlgorithm());
+
+        boolean sigValid = pqcService.verify(stampHash, officerSig, officerCert.getPublicKey(), officerLevel);
+        details.append(sigValid ? "✓ Officer countersignature verified. " : "✗ Officer countersignature INVALID. ");
+        return new StageResult(Stage.OFFICER, officerLevel.getAlgorithmName(), certValid, sigValid,
+                details.toString());
+    }
+
+    /**
+     * Stage 3: verify the RFC 3161 timestamp token, if one was provided. The
+     * TSA timestamps the same stamp hash the officer countersigns.
+     */
+    private StageResult verifyTimestampStage(StampInput request) {
+        try {
+            byte[] tsToken = request.timestampToken().call();
+            if (tsToken == null) {
+                return new StageResult(Stage.TIMESTAMP, ValidationMetrics.UNKNOWN_LEVEL, true, true,
+                        "ℹ No timestamp provided. ");
+            }
+            TimestampVerification result = timestampVerifier.verify(tsToken, request.stampHash().call());
+            if (result.valid()) {
+                return new StageResult(Stage.TIMESTAMP, ValidationMetrics.UNKNOWN_LEVEL, true, true,
+                        "✓ Timestamp verified (" + result.genTime().toInstant() + "). ");
+            }
+            return new StageResult(Stage.TIMESTAMP, ValidationMetrics.UNKNOWN_LEVEL, true, false,
+                    "⚠ " + result.message() + ". ");
+        } catch (Exception e) {
+            return new StageResult(Stage.TIMESTAMP, ValidationMetrics.UNKNOWN_LEVEL, true, false,
+                    "⚠ Timestamp verification failed. ");
+        }
+    }
+
+    /**
+     * Officer countersignature input: SHA256(documentHash + ":" + userSignature),
+     * both in their Base64 form.
+     */
+    private byte[] stampHash(byte[] documentHashBase64, byte[] userSignatureBase64) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(documentHashBase64);
+        digest.update((byte) ':');
+        return digest.digest(userSignatureBase64);
+    }
+
+    /**
+     * Fingerprint references are resolved up front so an unknown certificate
+     * is reported to the caller rather than as a failed stage.
+     */
+    private void requireKnown(CertificateRef ref) {
+        if (ref.isFingerprint() && certificateCache.lookup(ref.fingerprint()) == null) {
+            throw new UnknownCertificateException(ref.fingerprint());
+        }
+    }
+
+    @PreDestroy
+    void shutdownStageExecutor() {
+        stageExecutor.shutdownNow();
+    }
+
+    /**
+     * Stamp inputs independent of the wire format. Each value is produced on
+     * the stage thread that consumes it.
+     */
+    private record StampInput(
+            Callable<byte[]> documentHash,
+            Callable<byte[]> userSignature,
+            Callable<X509Certificate> userCert,
+            Callable<byte[]> officerSignature,
+            Callable<X509Certificate> officerCert,
+            Callable<byte[]> stampHash,
+            Callable<byte[]> timestampToken) {
+    }
+
+    private enum Stage {
+        USER, OFFICER, TIMESTAMP;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * Outcome of one independent stamp verification stage.
+     */
+    private record StageResult(Stage stage, String level, boolean certValid, boolean signatureValid,
+            String details) {
+
+        boolean passed() {
+            return certValid && signatureValid;
+        }
+
+        static StageResult skipped(Stage stage) {
+            return new StageResult(stage, ValidationMetrics.UNKNOWN_LEVEL, false, false,
+                    "⚠ " + stage.tag() + " stage skipped (fail-fast). ");
+        }
+    }
+
+    /**
+     * Metric tag for the signature level of a certificate key.
+     */
+    private String levelTag(X509Certificate cert) {
+        String algorithm = cert.getPublicKey().getAlgorithm();
+        if (algorithm.toUpperCase().startsWith("ML-DSA") || algorithm.toUpperCase().startsWith("DILITHIUM")) {
+            return getMlDsaLevel(algorithm).getAlgorithmName();
         }
+        return algorithm;
     }
 
     private PqcCryptoService.MlDsaLevel getMlDsaLevel(String algorithm) {
@@ -1,7 +1,11 @@
 package com.gov.crypto.validationservice.controller;
 
+import com.gov.crypto.validationservice.codec.BinaryValidationCodec;
+import com.gov.crypto.validationservice.dto.BinaryVerifyRequest;
+import com.gov.crypto.validationservice.dto.CertificateRef;
 import com.gov.crypto.validationservice.dto.VerifyRequest;
 import com.gov.crypto.validationservice.dto.VerifyResponse;
+import com.gov.crypto.validationservice.service.UnknownCertificateException;
 import com.gov.crypto.validationservice.service.ValidationService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -15,6 +19,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.Base64;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -136,4 +142,55 @@ class ValidationControllerTest {
                     .andExpect(status().isOk());
         }
     }
+
+    @Nested
+    @DisplayName("Binary verification API")
+    class BinaryApiTests {
+
+        private final byte[] fingerprint = new byte[32];
+
+        @Test
+        @DisplayName("Should decode a binary request and return a binary response")
+        void shouldVerifyBinaryRequest() throws Exception {
+            when(validationService.verifySignature(any(BinaryVerifyRequest.class), isNull()))
+                    .thenReturn(new VerifyResponse(true, "OK"));
+            byte[] body = BinaryValidationCodec.encode(new BinaryVerifyRequest(
+                    CertificateRef.ofFingerprint(fingerprint), new byte[] { 1, 2, 3 }, new byte[] { 4, 5 }));
+
+            mockMvc.perform(post("/api/v1/validation/verify")
+                    .contentType(BinaryValidationCodec.MEDIA_TYPE)
+                    .accept(BinaryValidationCodec.MEDIA_TYPE)
+                    .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(BinaryValidationCodec.encode(new VerifyResponse(true, "OK"))));
+
+            verify(validationService).verifySignature(
+                    argThat((BinaryVerifyRequest r) -> r.certificate().isFingerprint() && r.digest().length == 3),
+                    isNull());
+        }
+
+        @Test
+        @DisplayName("Should answer 422 for an unknown certificate fingerprint")
+        void shouldRejectUnknownFingerprint() throws Exception {
+            when(validationService.verifySignature(any(BinaryVerifyRequest.class), isNull()))
+                    .thenThrow(new UnknownCertificateException(fingerprint));
+            byte[] body = BinaryValidationCodec.encode(new BinaryVerifyRequest(
+                    CertificateRef.ofFingerprint(fingerprint), new byte[] { 1 }, new byte[] { 2 }));
+
+            mockMvc.perform(post("/api/v1/validation/verify")
+                    .contentType(BinaryValidationCodec.MEDIA_TYPE)
+                    .content(body))
+                    .andExpect(status().isUnprocessableEntity())
+                    .andExpect(header().string("X-Unknown-Certificate", "00".repeat(32)));
+        }
+
+        @Test
+        @DisplayName("Should reject a truncated binary request")
+        void shouldRejectTruncatedRequest() throws Exception {
+            mockMvc.perform(post("/api/v1/validation/verify-stamp")
+                    .contentType(BinaryValidationCodec.MEDIA_TYPE)
+                    .content(new byte[] { 1, 0, 0, 0, 9 }))
+                    .andExpect(status().isBadRequest());
+        }
+    }
 }
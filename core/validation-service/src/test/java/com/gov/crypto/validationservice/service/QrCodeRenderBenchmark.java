@@ -0,0 +1,64 @@
+package com.gov.crypto.validationservice.service;
+
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+/**
+ * Compares the legacy QR rendering path (QRCodeWriter + MatrixToImageWriter)
+ * with the direct encoder, uncached and cached.
+ *
+ * Run with {@code gradle :core:validation-service:qrBenchmark}.
+ */
+public class QrCodeRenderBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 5_000;
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    public static void main(String[] args) throws Exception {
+        String payload = QrCodeServiceTest.payload();
+        QrCodeService uncached = new QrCodeService(0, "H", "json", "");
+        QrCodeService cached = new QrCodeService(1000, "H", "json", "");
+        QrCodeService compact = new QrCodeService(0, "H", "compact", "");
+
+        run("legacy QRCodeWriter + ImageIO", i -> {
+            try {
+                QrCodeServiceTest.legacyPng(payload + i, QrCodeService.QR_CODE_SIZE);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        run("direct PNG encoder", i -> render(uncached, "doc-" + i, QrCodeService.Format.PNG));
+        run("direct SVG encoder", i -> render(uncached, "doc-" + i, QrCodeService.Format.SVG));
+        run("direct PNG encoder, compact payload", i -> {
+            try {
+                compact.generateQrCode(new UUID(0, i).toString(), HASH, 1_700_000_000_000L,
+                        QrCodeService.QR_CODE_SIZE, QrCodeService.Format.PNG);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        run("cached PNG (100 distinct documents)", i -> render(cached, "doc-" + (i % 100), QrCodeService.Format.PNG));
+    }
+
+    private static void render(QrCodeService service, String docId, QrCodeService.Format format) {
+        try {
+            service.generateQrCode(docId, HASH, 1_700_000_000_000L, QrCodeService.QR_CODE_SIZE,
+                    format);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void run(String name, IntConsumer body) {
+        for (int i = 0; i < WARMUP; i++) {
+            body.accept(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            body.accept(i);
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+        System.out.printf("%-40s %10.1f us/op%n", name, micros);
+    }
+}
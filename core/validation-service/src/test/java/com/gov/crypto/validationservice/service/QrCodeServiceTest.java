@@ -0,0 +1,218 @@
+package com.gov.crypto.validationservice.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.Encoder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QR code rendering and caching.
+ */
+class QrCodeServiceTest {
+
+    private static final String DOC_ID = "7f1c2a4e-0b7d-4c1e-9a55-2f3d0c9b8e61";
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final long TS = 1_700_000_000_000L;
+
+    private final QrCodeService service = new QrCodeService();
+
+    @Nested
+    @DisplayName("PNG rendering")
+    class PngTests {
+
+        @Test
+        @DisplayName("Should render the same pixels as QRCodeWriter and MatrixToImageWriter")
+        void shouldMatchLegacyRenderer() throws Exception {
+            for (int size : new int[] { 100, 300, 517 }) {
+                BufferedImage direct = ImageIO.read(new ByteArrayInputStream(
+                        service.generateQrCode(DOC_ID, HASH, TS, size, QrCodeService.Format.PNG)));
+                BufferedImage legacy = ImageIO.read(new ByteArrayInputStream(legacyPng(service.buildPayload(DOC_ID, HASH, TS), size)));
+
+                assertEquals(legacy.getWidth(), direct.getWidth());
+                assertEquals(legacy.getHeight(), direct.getHeight());
+                for (int y = 0; y < legacy.getHeight(); y++) {
+                    for (int x = 0; x < legacy.getWidth(); x++) {
+                        assertEquals(legacy.getRGB(x, y), direct.getRGB(x, y), "pixel " + x + "," + y);
+                    }
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should produce a scannable code carrying the verification payload")
+        void shouldDecodeToPayload() throws Exception {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(service.generateQrCode(DOC_ID, HASH, TS)));
+
+            String text = new QRCodeReader().decode(new BinaryBitmap(
+                    new HybridBinarizer(new BufferedImageLuminanceSource(image)))).getText();
+
+            assertEquals(service.buildPayload(DOC_ID, HASH, TS), text);
+        }
+    }
+
+    @Nested
+    @DisplayName("Compact payload")
+    class CompactPayloadTests {
+
+        private final byte[] macKey = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+        private final String macKeyBase64 = Base64.getEncoder().encodeToString(macKey);
+        private final QrCodeService compact = new QrCodeService(10, "H", "compact", "");
+
+        @Test
+        @DisplayName("Should keep JSON as the default payload and echo the submitted hash")
+        void shouldDefaultToJson() {
+            String payload = service.buildPayload(DOC_ID, HASH, TS);
+
+            assertFalse(CompactQrPayload.isCompact(payload));
+            assertEquals(HASH, service.parseQrPayload(payload).get("hash"));
+        }
+
+        @Test
+        @DisplayName("Should round-trip docId, truncated hash and timestamp")
+        void shouldRoundTripCompactPayload() {
+            String payload = compact.buildPayload(DOC_ID, HASH, TS);
+
+            Map<String, Object> parsed = compact.parseQrPayload(payload);
+
+            assertTrue(CompactQrPayload.isCompact(payload));
+            assertEquals(DOC_ID, parsed.get("docId"));
+            assertEquals(HASH.substring(0, 2 * CompactQrPayload.HASH_LENGTH), parsed.get("hash"));
+            assertEquals(TS, parsed.get("timestamp"));
+        }
+
+        @Test
+        @DisplayName("Should need a smaller QR version than the JSON payload")
+        void shouldProduceSmallerSymbol() throws Exception {
+            QrCodeService json = new QrCodeService(10, "H", "json", "");
+
+            int compactVersion = Encoder.encode(compact.buildPayload(DOC_ID, HASH, TS), ErrorCorrectionLevel.H)
+                    .getVersion().getVersionNumber();
+            int jsonVersion = Encoder.encode(json.buildPayload(DOC_ID, HASH, TS), ErrorCorrectionLevel.H)
+                    .getVersion().getVersionNumber();
+
+            assertTrue(compactVersion < jsonVersion, compactVersion + " vs " + jsonVersion);
+        }
+
+        @Test
+        @DisplayName("Should verify the MAC and reject tampered or unsigned payloads")
+        void shouldCheckMac() {
+            QrCodeService signing = new QrCodeService(10, "H", "compact", macKeyBase64);
+            String payload = signing.buildPayload(DOC_ID, HASH, TS);
+            char[] tampered = payload.toCharArray();
+            tampered[5] = tampered[5] == 'A' ? 'B' : 'A';
+
+            assertEquals(true, signing.parseQrPayload(payload).get("macVerified"));
+            assertThrows(IllegalArgumentException.class, () -> signing.parseQrPayload(new String(tampered)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> signing.parseQrPayload(compact.buildPayload(DOC_ID, HASH, TS)));
+        }
+
+        @Test
+        @DisplayName("Should still parse legacy JSON payloads")
+        void shouldParseLegacyJson() {
+            Map<String, Object> parsed = service.parseQrPayload(payload());
+
+            assertEquals(DOC_ID, parsed.get("docId"));
+            assertEquals(TS, parsed.get("timestamp"));
+        }
+
+        @Test
+        @DisplayName("Should decode without allocating")
+        void shouldReadWithoutAllocation() throws Exception {
+            String payload = CompactQrPayload.encode(UUID.fromString(DOC_ID), HexFormat.of().parseHex(HASH), TS,
+                    macKey);
+            CompactQrPayload.Reader reader = new CompactQrPayload.Reader(macKey);
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            for (int i = 0; i < 20_000; i++) {
+                reader.read(payload);
+            }
+
+            long before = threads.getCurrentThreadAllocatedBytes();
+            boolean ok = true;
+            for (int i = 0; i < 10_000; i++) {
+                ok &= reader.read(payload) && reader.macValid() && reader.timestamp() == TS;
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+            assertTrue(ok);
+            assertTrue(allocated < 10_000, "allocated " + allocated + " bytes");
+        }
+    }
+
+    @Nested
+    @DisplayName("SVG rendering and caching")
+    class SvgAndCacheTests {
+
+        @Test
+        @DisplayName("Should render SVG with the requested size")
+        void shouldRenderSvg() throws Exception {
+            String svg = new String(service.generateQrCode(DOC_ID, HASH, TS, 240, QrCodeService.Format.SVG),
+                    StandardCharsets.UTF_8);
+
+            assertTrue(svg.startsWith("<svg"));
+            assertTrue(svg.contains("width=\"240\""));
+            assertTrue(svg.endsWith("</svg>"));
+        }
+
+        @Test
+        @DisplayName("Should serve repeated renders from the cache")
+        void shouldCacheRenderedImages() throws Exception {
+            byte[] first = service.generateQrCode(DOC_ID, HASH, TS, 300, QrCodeService.Format.PNG);
+            byte[] second = service.generateQrCode(DOC_ID, HASH, TS, 300, QrCodeService.Format.PNG);
+            byte[] otherSize = service.generateQrCode(DOC_ID, HASH, TS, 200, QrCodeService.Format.PNG);
+
+            assertSame(first, second);
+            assertNotSame(first, otherSize);
+        }
+
+        @Test
+        @DisplayName("Should reject an out-of-range size")
+        void shouldRejectInvalidSize() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.generateQrCode(DOC_ID, HASH, TS, 0, QrCodeService.Format.PNG));
+        }
+    }
+
+    /**
+     * The JSON (version 1.0) payload.
+     */
+    static String payload() {
+        return String.format("{\"docId\":\"%s\",\"hash\":\"%s\",\"ts\":%d,\"ver\":\"1.0\"}", DOC_ID, HASH, TS);
+    }
+
+    /**
+     * The rendering path used before the cache and direct encoder.
+     */
+    static byte[] legacyPng(String payload, int size) throws Exception {
+        BitMatrix matrix = new QRCodeWriter().encode(payload, BarcodeFormat.QR_CODE, size, size, Map.of(
+                EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H,
+                EncodeHintType.CHARACTER_SET, "UTF-8"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(matrix, "PNG", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,138 @@
+package com.gov.crypto.validationservice.service;
+
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.validationservice.service.TimestampVerificationService.TimestampVerification;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.tsp.TSPAlgorithms;
+import org.bouncycastle.tsp.TimeStampRequestGenerator;
+import org.bouncycastle.tsp.TimeStampTokenGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RFC 3161 timestamp token verification.
+ */
+class TimestampVerificationServiceTest {
+
+    private static final PqcCryptoService pqc = new PqcCryptoService();
+
+    private static KeyPair tsaKeys;
+    private static X509Certificate tsaCert;
+    private static byte[] imprint;
+    private static byte[] token;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        tsaKeys = pqc.generateMlDsaKeyPair(PqcCryptoService.MlDsaLevel.ML_DSA_44);
+        tsaCert = tsaCertificate(tsaKeys, "CN=Test TSA, C=VN");
+        imprint = MessageDigest.getInstance("SHA-256").digest("stamp-data".getBytes(StandardCharsets.UTF_8));
+        token = timestamp(tsaKeys, tsaCert, imprint);
+    }
+
+    @Test
+    @DisplayName("Should verify a token from a trusted TSA with matching imprint")
+    void shouldVerifyTrustedToken() {
+        TimestampVerificationService service = new TimestampVerificationService(List.of(tsaCert));
+
+        TimestampVerification result = service.verify(token, imprint);
+
+        assertTrue(result.valid());
+        assertNotNull(result.genTime());
+        assertTrue(result.tsaSubject().contains("Test TSA"));
+    }
+
+    @Test
+    @DisplayName("Should serve repeated verifications from the verified-token cache")
+    void shouldVerifyRepeatedTokenFromCache() {
+        TimestampVerificationService service = new TimestampVerificationService(List.of(tsaCert));
+
+        TimestampVerification first = service.verify(token, imprint);
+        TimestampVerification second = service.verify(token, imprint);
+
+        assertTrue(first.valid());
+        assertTrue(second.valid());
+        assertEquals(first.genTime(), second.genTime());
+    }
+
+    @Test
+    @DisplayName("Should reject a token whose imprint does not match the stamp data")
+    void shouldRejectImprintMismatch() throws Exception {
+        TimestampVerificationService service = new TimestampVerificationService(List.of(tsaCert));
+        byte[] otherImprint = MessageDigest.getInstance("SHA-256").digest("other".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(service.verify(token, imprint).valid());
+        assertFalse(service.verify(token, otherImprint).valid());
+    }
+
+    @Test
+    @DisplayName("Should reject a token signed by an untrusted TSA")
+    void shouldRejectUntrustedTsa() throws Exception {
+        KeyPair otherKeys = pqc.generateMlDsaKeyPair(PqcCryptoService.MlDsaLevel.ML_DSA_44);
+        X509Certificate otherCert = tsaCertificate(otherKeys, "CN=Other TSA, C=VN");
+        TimestampVerificationService service = new TimestampVerificationService(List.of(otherCert));
+
+        TimestampVerification result = service.verify(token, imprint);
+
+        assertFalse(result.valid());
+        assertTrue(result.message().contains("untrusted TSA"));
+    }
+
+    @Test
+    @DisplayName("Should reject the legacy JSON pseudo-token format")
+    void shouldRejectLegacyPseudoToken() {
+        TimestampVerificationService service = new TimestampVerificationService(List.of(tsaCert));
+        byte[] legacy = "{\"genTime\":\"2025-01-01T00:00:00Z\",\"hashedMessage\":\"AA==\"}|c2ln"
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(service.verify(legacy, imprint).valid());
+    }
+
+    static X509Certificate tsaCertificate(KeyPair keys, String dn) throws Exception {
+        X500Name name = new X500Name(dn);
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
+                name, BigInteger.valueOf(System.nanoTime()),
+                new Date(System.currentTimeMillis() - 60_000),
+                new Date(System.currentTimeMillis() + 86_400_000L),
+                name, keys.getPublic());
+        builder.addExtension(Extension.extendedKeyUsage, true,
+                new ExtendedKeyUsage(KeyPurposeId.id_kp_timeStamping));
+        return new JcaX509CertificateConverter().setProvider("BC").getCertificate(
+                builder.build(new JcaContentSignerBuilder("ML-DSA-44").setProvider("BC").build(keys.getPrivate())));
+    }
+
+    static byte[] timestamp(KeyPair keys, X509Certificate cert, byte[] imprint) throws Exception {
+        TimeStampTokenGenerator generator = new TimeStampTokenGenerator(
+                new JcaSimpleSignerInfoGeneratorBuilder().setProvider("BC")
+                        .build("ML-DSA-44", keys.getPrivate(), cert),
+                new JcaDigestCalculatorProviderBuilder().setProvider("BC").build()
+                        .get(new AlgorithmIdentifier(NISTObjectIdentifiers.id_sha256)),
+                new ASN1ObjectIdentifier("1.2.3.4.1"));
+        generator.addCertificates(new JcaCertStore(List.of(cert)));
+        return generator.generate(
+                new TimeStampRequestGenerator().generate(TSPAlgorithms.SHA256, imprint),
+                BigInteger.ONE, new Date()).getEncoded();
+    }
+}
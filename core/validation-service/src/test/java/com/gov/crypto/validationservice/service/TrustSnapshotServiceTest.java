@@ -0,0 +1,120 @@
+package com.gov.crypto.validationservice.service;
+
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import com.gov.crypto.common.truststore.TrustSnapshotWriter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for loading and hot-swapping trust snapshots.
+ */
+class TrustSnapshotServiceTest {
+
+    private static final PqcCryptoService pqc = new PqcCryptoService();
+
+    private static KeyPair signerKeys;
+    private static X509Certificate signerCert;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        signerKeys = pqc.generateMlDsaKeyPair(MlDsaLevel.ML_DSA_44);
+        signerCert = pqc.generateSelfSignedCertificate(signerKeys, "CN=Snapshot Signer, C=VN", 30,
+                MlDsaLevel.ML_DSA_44);
+    }
+
+    private void writeSnapshot(Path target, long sequence, Instant validUntil, BigInteger revoked) throws Exception {
+        byte[] bytes = new TrustSnapshotWriter(sequence, validUntil)
+                .addCaCertificate(signerCert)
+                .addRevokedSerial(revoked)
+                .sign(signerCert, signerKeys.getPrivate(), MlDsaLevel.ML_DSA_44);
+        Path tmp = Files.createTempFile(target.getParent(), "snapshot", ".tmp");
+        Files.write(tmp, bytes);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    @DisplayName("Should hot-swap to a newer snapshot and ignore older ones")
+    void shouldSwapOnlyToNewerSnapshot(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trust.gts");
+        Instant validUntil = Instant.now().plus(1, ChronoUnit.DAYS);
+        writeSnapshot(file, 5, validUntil, BigInteger.ONE);
+        TrustSnapshotService service = new TrustSnapshotService(file, signerCert);
+
+        service.refresh();
+        assertEquals(5, service.current().orElseThrow().sequence());
+
+        writeSnapshot(file, 6, validUntil, BigInteger.TWO);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        service.refresh();
+        assertEquals(6, service.current().orElseThrow().sequence());
+        assertTrue(service.current().orElseThrow().isRevoked(BigInteger.TWO));
+
+        writeSnapshot(file, 4, validUntil, BigInteger.TEN);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+        service.refresh();
+        assertEquals(6, service.current().orElseThrow().sequence());
+    }
+
+    @Test
+    @DisplayName("Should retry a snapshot that failed to load without a new modification time")
+    void shouldRetryPartiallyCopiedSnapshot(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trust.gts");
+        Path complete = dir.resolve("complete.gts");
+        writeSnapshot(complete, 3, Instant.now().plus(1, ChronoUnit.DAYS), BigInteger.ONE);
+        byte[] bytes = Files.readAllBytes(complete);
+        FileTime modified = FileTime.from(Instant.now().plusSeconds(5));
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        Files.setLastModifiedTime(file, modified);
+        TrustSnapshotService service = new TrustSnapshotService(file, signerCert);
+
+        service.refresh();
+        assertTrue(service.current().isEmpty());
+
+        // the copy finishes within the same mtime granularity
+        Files.write(file, bytes);
+        Files.setLastModifiedTime(file, modified);
+        service.refresh();
+
+        assertEquals(3, service.current().orElseThrow().sequence());
+    }
+
+    @Test
+    @DisplayName("Should stop using a snapshot past its validity watermark")
+    void shouldIgnoreExpiredSnapshot(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trust.gts");
+        writeSnapshot(file, 1, Instant.now().minus(1, ChronoUnit.MINUTES), BigInteger.ONE);
+        TrustSnapshotService service = new TrustSnapshotService(file, signerCert);
+
+        service.refresh();
+
+        assertTrue(service.current().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should stay disabled without a pinned signer certificate")
+    void shouldStayDisabledWithoutSigner(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trust.gts");
+        writeSnapshot(file, 1, Instant.now().plus(1, ChronoUnit.DAYS), BigInteger.ONE);
+        TrustSnapshotService service = new TrustSnapshotService(file, (X509Certificate) null);
+
+        service.refresh();
+
+        assertTrue(service.current().isEmpty());
+    }
+}
@@ -1,14 +1,33 @@
 package com.gov.crypto.validationservice.service;
 
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.truststore.KeyIdentifiers;
+import com.gov.crypto.common.truststore.TrustSnapshotWriter;
+import com.gov.crypto.validationservice.dto.BinaryStampRequest;
+import com.gov.crypto.validationservice.dto.BinaryVerifyRequest;
+import com.gov.crypto.validationservice.dto.CertificateRef;
+import com.gov.crypto.validationservice.dto.StampVerifyRequest;
+import com.gov.crypto.validationservice.dto.StampVerifyResponse;
 import com.gov.crypto.validationservice.dto.VerifyRequest;
 import com.gov.crypto.validationservice.dto.VerifyResponse;
 import com.gov.crypto.validationservice.service.impl.ValidationServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Base64;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -182,4 +201,201 @@ class ValidationServiceTest {
             assertFalse(response.isValid());
         }
     }
+
+    @Nested
+    @DisplayName("Stamp Verification Tests")
+    class StampVerificationTests {
+
+        private final PqcCryptoService pqc = new PqcCryptoService();
+
+        private StampVerifyRequest signedStamp(boolean tamperUserSig, boolean tamperOfficerSig) throws Exception {
+            KeyPair userKeys = pqc.generateMlDsaKeyPair(PqcCryptoService.MlDsaLevel.ML_DSA_44);
+            KeyPair officerKeys = pqc.generateMlDsaKeyPair(PqcCryptoService.MlDsaLevel.ML_DSA_44);
+            X509Certificate userCert = pqc.generateSelfSignedCertificate(
+                    userKeys, "CN=Test Citizen, C=VN", 30, PqcCryptoService.MlDsaLevel.ML_DSA_44);
+            X509Certificate officerCert = pqc.generateSelfSignedCertificate(
+                    officerKeys, "CN=Test Officer, C=VN", 30, PqcCryptoService.MlDsaLevel.ML_DSA_44);
+
+            byte[] docHash = MessageDigest.getInstance("SHA-256").digest("dossier".getBytes(StandardCharsets.UTF_8));
+            String docHashB64 = Base64.getEncoder().encodeToString(docHash);
+            byte[] userSig = pqc.sign(docHash, userKeys.getPrivate(), PqcCryptoService.MlDsaLevel.ML_DSA_44);
+            if (tamperUserSig) {
+                userSig[0] ^= 0x01;
+            }
+            String userSigB64 = Base64.getEncoder().encodeToString(userSig);
+
+            byte[] stampHash = MessageDigest.getInstance("SHA-256")
+                    .digest((docHashB64 + ":" + userSigB64).getBytes(StandardCharsets.UTF_8));
+            byte[] officerSig = pqc.sign(stampHash, officerKeys.getPrivate(), PqcCryptoService.MlDsaLevel.ML_DSA_44);
+            if (tamperOfficerSig) {
+                officerSig[0] ^= 0x01;
+            }
+
+            return new StampVerifyRequest(
+                    docHashB64,
+                    userSigB64,
+                    pqc.certificateToPem(userCert),
+                    Base64.getEncoder().encodeToString(officerSig),
+                    pqc.certificateToPem(officerCert),
+                    null);
+        }
+
+        @Test
+        @DisplayName("Should verify a valid stamp with all stages passing")
+        void shouldVerifyValidStamp() throws Exception {
+            StampVerifyResponse response = validationService.verifyStamp(signedStamp(false, false));
+
+            assertTrue(response.valid());
+            assertTrue(response.userSignatureValid());
+            assertTrue(response.officerSignatureValid());
+            assertTrue(response.timestampValid());
+            assertTrue(response.details().indexOf("User signature verified")
+                    < response.details().indexOf("Officer countersignature verified"));
+        }
+
+        @Test
+        @DisplayName("Should report each stage independently when the officer signature is invalid")
+        void shouldReportInvalidOfficerSignature() throws Exception {
+            StampVerifyResponse response = validationService.verifyStamp(signedStamp(false, true));
+
+            assertFalse(response.valid());
+            assertTrue(response.userSignatureValid());
+            assertFalse(response.officerSignatureValid());
+        }
+
+        @Test
+        @DisplayName("Should fail the stamp in fail-fast mode when the user signature is invalid")
+        void shouldFailFastOnInvalidUserSignature() throws Exception {
+            StampVerifyResponse response = validationService.verifyStamp(signedStamp(true, false), true);
+
+            assertFalse(response.valid());
+            assertFalse(response.userSignatureValid());
+        }
+
+        @Test
+        @DisplayName("Should return an error response for a malformed officer certificate")
+        void shouldRejectMalformedOfficerCertificate() throws Exception {
+            StampVerifyRequest valid = signedStamp(false, false);
+            StampVerifyRequest request = new StampVerifyRequest(valid.documentHash(), valid.userSignature(),
+                    valid.userCertPem(), valid.officerSignature(), "not-a-valid-pem-certificate", null);
+
+            StampVerifyResponse response = validationService.verifyStamp(request);
+
+            assertFalse(response.valid());
+            assertTrue(response.message().startsWith("Verification error"));
+        }
+
+        @Test
+        @DisplayName("Should record per-stage timers and the request breakdown")
+        void shouldRecordStageMetrics() throws Exception {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            ValidationServiceImpl service = new ValidationServiceImpl(new TimestampVerificationService(List.of()),
+                    new TrustSnapshotService((Path) null, null), new ValidationMetrics(registry),
+                    new CertificateCache(100));
+            StageTimings timings = new StageTimings();
+
+            service.verifyStamp(signedStamp(false, false), false, timings);
+
+            assertEquals(1, registry.get(ValidationMetrics.STAGE_TIMER)
+                    .tags("operation", "stamp", "stage", "user", "level", "ML-DSA-44", "outcome", "valid")
+                    .timer().count());
+            assertEquals(1, registry.get(ValidationMetrics.STAGE_TIMER)
+                    .tags("operation", "stamp", "stage", "total").timer().count());
+            assertEquals(4, timings.entries().size());
+            assertTrue(timings.toHeaderValue().contains("officer;dur="));
+        }
+    
+        @Test
+        @DisplayName("Should verify a binary stamp and accept fingerprint references afterwards")
+        void shouldVerifyBinaryStampWithFingerprints() throws Exception {
+            StampVerifyRequest json = signedStamp(false, false);
+            byte[] userDer = pqc.parseCertificatePem(json.userCertPem()).getEncoded();
+            byte[] officerDer = pqc.parseCertificatePem(json.officerCertPem()).getEncoded();
+            Base64.Decoder b64 = Base64.getDecoder();
+
+            StampVerifyResponse first = validationService.verifyStamp(new BinaryStampRequest(
+                    b64.decode(json.documentHash()), b64.decode(json.userSignature()), CertificateRef.ofDer(userDer),
+                    b64.decode(json.officerSignature()), CertificateRef.ofDer(officerDer), null), false, null);
+            StampVerifyResponse second = validationService.verifyStamp(new BinaryStampRequest(
+                    b64.decode(json.documentHash()), b64.decode(json.userSignature()),
+                    CertificateRef.ofFingerprint(sha256(userDer)), b64.decode(json.officerSignature()),
+                    CertificateRef.ofFingerprint(sha256(officerDer)), null), false, null);
+
+            assertTrue(first.valid());
+            assertTrue(second.valid());
+        }
+
+        @Test
+        @DisplayName("Should reject a binary request referencing an unknown fingerprint")
+        void shouldRejectUnknownFingerprint() {
+            BinaryVerifyRequest request = new BinaryVerifyRequest(
+                    CertificateRef.ofFingerprint(new byte[32]), new byte[32], new byte[16]);
+
+            assertThrows(UnknownCertificateException.class, () -> validationService.verifySignature(request, null));
+        }
+
+        private byte[] sha256(byte[] data) throws Exception {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        }
+    }
+
+    @Nested
+    @DisplayName("Trust Snapshot Chain Tests")
+    class TrustSnapshotChainTests {
+
+        private final PqcCryptoService pqc = new PqcCryptoService();
+        private final PqcCryptoService.MlDsaLevel level = PqcCryptoService.MlDsaLevel.ML_DSA_44;
+
+        private KeyPair caKeys;
+        private X509Certificate caCert;
+        private ValidationServiceImpl service;
+
+        @BeforeEach
+        void installSnapshot(@TempDir Path dir) throws Exception {
+            caKeys = pqc.generateMlDsaKeyPair(level);
+            caCert = pqc.generateSelfSignedCertificate(caKeys, "CN=Snapshot CA, C=VN", 30, level);
+            Path file = dir.resolve("trust.gts");
+            Files.write(file, new TrustSnapshotWriter(1, Instant.now().plus(1, ChronoUnit.DAYS))
+                    .addCaCertificate(caCert)
+                    .sign(caCert, caKeys.getPrivate(), level));
+            TrustSnapshotService snapshots = new TrustSnapshotService(file, caCert);
+            snapshots.refresh();
+            service = new ValidationServiceImpl(new TimestampVerificationService(List.of()), snapshots,
+                    ValidationMetrics.inMemory(), new CertificateCache(100));
+        }
+
+        private VerifyResponse verify(KeyPair keys, X509Certificate cert) throws Exception {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest("dossier".getBytes(StandardCharsets.UTF_8));
+            return service.verifySignature(new VerifyRequest(Base64.getEncoder().encodeToString(hash),
+                    Base64.getEncoder().encodeToString(pqc.sign(hash, keys.getPrivate(), level)),
+                    pqc.certificateToPem(cert)));
+        }
+
+        @Test
+        @DisplayName("Should find the issuing CA of a certificate without AKI in the snapshot")
+        void shouldTrustCertificateWithoutAkiIssuedBySnapshotCa() throws Exception {
+            KeyPair userKeys = pqc.generateMlDsaKeyPair(level);
+            X509Certificate userCert = pqc.generateSubordinateCertificate(userKeys, "CN=Citizen, C=VN", caCert,
+                    caKeys.getPrivate(), 30, false, level);
+
+            VerifyResponse response = verify(userKeys, userCert);
+
+            assertNull(KeyIdentifiers.authorityKeyId(userCert));
+            assertTrue(response.details().contains("✓ Certificate is signed by a trusted CA"));
+        }
+
+        @Test
+        @DisplayName("Should reject a self-made certificate without AKI when a snapshot is installed")
+        void shouldRejectSelfMadeCertificateWithoutAki() throws Exception {
+            KeyPair forgerKeys = pqc.generateMlDsaKeyPair(level);
+            X509Certificate selfMade = pqc.generateSelfSignedCertificate(forgerKeys, "CN=Snapshot CA, C=VN", 30,
+                    level);
+
+            VerifyResponse response = verify(forgerKeys, selfMade);
+
+            assertNull(KeyIdentifiers.authorityKeyId(selfMade));
+            assertFalse(response.isValid());
+            assertTrue(response.details().contains("[Invalid Chain]"));
+        }
+    }
 }
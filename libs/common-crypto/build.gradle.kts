@@ -30,12 +30,16 @@ dependencies {
     
     // Spring Context for @Service annotation
     compileOnly("org.springframework:spring-context:6.2.1")
+
+    // Metrics binder for apps that ship Micrometer (actuator)
+    compileOnly("io.micrometer:micrometer-core:1.14.2")
     
     // Logging
     implementation("org.slf4j:slf4j-api:2.0.9")
     
     // Testing
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
+    testImplementation("io.micrometer:micrometer-core:1.14.2")
 }
 
 tasks.test {
@@ -0,0 +1,207 @@
+package com.gov.crypto.common.pqc;
+
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.security.auth.DestroyFailedException;
+import javax.security.auth.Destroyable;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ML-DSA key pairs generated ahead of demand, per {@link MlDsaLevel}, so
+ * {@link PqcCryptoService#generateMlDsaKeyPair} does not pay key generation
+ * latency on the request path.
+ *
+ * A single background thread tops every pooled level up to the configured
+ * depth, starting when the pool is started and again after each take. An
+ * empty pool falls back to generating on the caller's thread, counted as a
+ * miss. A depth of 0 disables the pool.
+ *
+ * Pooled private keys stay on the heap: decoding a key from off-heap bytes
+ * costs about as much as generating it. On close the pool drops every
+ * unused pair and destroys the private keys that support it.
+ */
+public class MlDsaKeyPairPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MlDsaKeyPairPool.class);
+
+    private final Generator generator;
+    private final Settings settings;
+    private final Map<MlDsaLevel, BlockingQueue<KeyPair>> ready = new EnumMap<>(MlDsaLevel.class);
+    private final Map<MlDsaLevel, LongAdder> hits = new EnumMap<>(MlDsaLevel.class);
+    private final Map<MlDsaLevel, LongAdder> misses = new EnumMap<>(MlDsaLevel.class);
+    private final AtomicBoolean refillPending = new AtomicBoolean();
+    private ExecutorService refiller;
+    private volatile boolean closed;
+
+    public MlDsaKeyPairPool(Settings settings) {
+        this(settings, PqcCryptoService::createMlDsaKeyPair);
+    }
+
+    MlDsaKeyPairPool(Settings settings, Generator generator) {
+        if (settings.depth() < 0) {
+            throw new IllegalArgumentException("Key pool depth must not be negative");
+        }
+        this.settings = settings;
+        this.generator = generator;
+        for (MlDsaLevel level : MlDsaLevel.values()) {
+            hits.put(level, new LongAdder());
+            misses.put(level, new LongAdder());
+            if (settings.enabled() && settings.levels().contains(level)) {
+                ready.put(level, new LinkedBlockingQueue<>(settings.depth()));
+            }
+        }
+    }
+
+    /**
+     * Start filling the pool in the background.
+     */
+    public synchronized void start() {
+        if (refiller != null || ready.isEmpty() || closed) {
+            return;
+        }
+        refiller = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ml-dsa-key-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        requestRefill();
+        log.info("ML-DSA key pool started: depth {} for {}", settings.depth(), ready.keySet());
+    }
+
+    /**
+     * Whether key pairs of this level are pooled.
+     */
+    public boolean covers(MlDsaLevel level) {
+        return ready.containsKey(level);
+    }
+
+    /**
+     * A pre-generated key pair, or a freshly generated one if the pool is
+     * empty. Either way the pair is the caller's alone.
+     */
+    public KeyPair take(MlDsaLevel level) throws GeneralSecurityException {
+        BlockingQueue<KeyPair> queue = ready.get(level);
+        KeyPair keyPair = queue == null ? null : queue.poll();
+        if (queue != null) {
+            requestRefill();
+        }
+        if (keyPair != null) {
+            hits.get(level).increment();
+            return keyPair;
+        }
+        misses.get(level).increment();
+        return generator.generate(level);
+    }
+
+    private void requestRefill() {
+        ExecutorService executor = refiller;
+        if (executor != null && refillPending.compareAndSet(false, true)) {
+            executor.execute(this::refill);
+        }
+    }
+
+    /**
+     * Top every pooled level up to the configured depth.
+     */
+    void refill() {
+        refillPending.set(false);
+        for (Map.Entry<MlDsaLevel, BlockingQueue<KeyPair>> entry : ready.entrySet()) {
+            BlockingQueue<KeyPair> queue = entry.getValue();
+            while (!closed && queue.remainingCapacity() > 0) {
+                try {
+                    KeyPair keyPair = generator.generate(entry.getKey());
+                    if (closed || !queue.offer(keyPair)) {
+                        destroy(keyPair);
+                        break;
+                    }
+                } catch (GeneralSecurityException e) {
+                    log.warn("ML-DSA key pool refill for {} failed: {}", entry.getKey(), e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    public int size(MlDsaLevel level) {
+        BlockingQueue<KeyPair> queue = ready.get(level);
+        return queue == null ? 0 : queue.size();
+    }
+
+    public long hits(MlDsaLevel level) {
+        return hits.get(level).sum();
+    }
+
+    public long misses(MlDsaLevel level) {
+        return misses.get(level).sum();
+    }
+
+    public Set<MlDsaLevel> levels() {
+        return ready.keySet();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (refiller != null) {
+            refiller.shutdownNow();
+            refiller = null;
+        }
+        int released = 0;
+        for (BlockingQueue<KeyPair> queue : ready.values()) {
+            for (KeyPair keyPair; (keyPair = queue.poll()) != null; released++) {
+                destroy(keyPair);
+            }
+        }
+        if (released > 0) {
+            log.info("ML-DSA key pool closed, released {} unused key pairs", released);
+        }
+    }
+
+    private static void destroy(KeyPair keyPair) {
+        if (keyPair.getPrivate() instanceof Destroyable destroyable) {
+            try {
+                destroyable.destroy();
+            } catch (DestroyFailedException e) {
+                // Provider keeps no destroyable copy; dropping the reference is all we can do
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Generator {
+        KeyPair generate(MlDsaLevel level) throws GeneralSecurityException;
+    }
+
+    /**
+     * @param depth  key pairs kept ready per level; 0 disables the pool
+     * @param levels levels to pool; others are always generated inline
+     */
+    public record Settings(int depth, Set<MlDsaLevel> levels) {
+
+        public Settings {
+            levels = levels == null || levels.isEmpty() ? EnumSet.noneOf(MlDsaLevel.class) : EnumSet.copyOf(levels);
+        }
+
+        public boolean enabled() {
+            return depth > 0 && !levels.isEmpty();
+        }
+
+        public static Settings disabled() {
+            return new Settings(0, Set.of());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.gov.crypto.common.pqc;
+
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Micrometer meters for an {@link MlDsaKeyPairPool}, per pooled level.
+ * Kept apart from the pool so common-crypto does not need Micrometer at
+ * runtime.
+ */
+public class MlDsaKeyPairPoolMetrics implements MeterBinder {
+
+    private final MlDsaKeyPairPool pool;
+
+    public MlDsaKeyPairPoolMetrics(MlDsaKeyPairPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (MlDsaLevel level : pool.levels()) {
+            String tag = level.getAlgorithmName();
+            FunctionCounter.builder("crypto.ml_dsa.key_pool.takes", pool, p -> p.hits(level))
+                    .tag("level", tag).tag("result", "hit")
+                    .description("ML-DSA key generations served from the pre-generated pool")
+                    .register(registry);
+            FunctionCounter.builder("crypto.ml_dsa.key_pool.takes", pool, p -> p.misses(level))
+                    .tag("level", tag).tag("result", "miss")
+                    .description("ML-DSA key generations that found the pool empty")
+                    .register(registry);
+            Gauge.builder("crypto.ml_dsa.key_pool.size", pool, p -> p.size(level))
+                    .tag("level", tag)
+                    .description("Pre-generated ML-DSA key pairs ready for use")
+                    .register(registry);
+        }
+    }
+}
@@ -2,7 +2,13 @@ package com.gov.crypto.common.pqc;
 
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+import org.bouncycastle.jcajce.interfaces.MLDSAPrivateKey;
+import org.bouncycastle.jcajce.interfaces.MLDSAPublicKey;
 import org.bouncycastle.jcajce.spec.MLDSAParameterSpec;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.AccessDescription;
 import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
@@ -28,6 +34,7 @@ import java.math.BigInteger;
 import java.security.*;
 import java.security.cert.X509Certificate;
 import java.util.Date;
+import java.io.IOException;
 import java.io.StringWriter;
 import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
 import org.bouncycastle.util.io.pem.PemObject;
@@ -53,6 +60,11 @@ public class PqcCryptoService {
 
         private static final Logger log = LoggerFactory.getLogger(PqcCryptoService.class);
 
+        public static final int SHA512_DIGEST_LENGTH = 64;
+        private static final int MU_LENGTH = 64;
+        // Thread-safe; seeding a new instance per key pair only adds latency
+        private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
         static {
                 // Register Bouncy Castle providers
                 Security.addProvider(new BouncyCastleProvider());
@@ -89,21 +101,44 @@ public class PqcCryptoService {
                 }
         }
 
+        // Null unless constructed with a pool
+        private final MlDsaKeyPairPool keyPairPool;
+
+        public PqcCryptoService() {
+                this(null);
+        }
+
         /**
-         * Generate ML-DSA (Dilithium) key pair
+         * @param keyPairPool pre-generated key pairs for
+         *                    {@link #generateMlDsaKeyPair}; the caller owns
+         *                    its lifecycle
          */
-        public KeyPair generateMlDsaKeyPair(MlDsaLevel level) throws Exception {
-                log.info("Generating ML-DSA key pair with level: {}", level);
+        public PqcCryptoService(MlDsaKeyPairPool keyPairPool) {
+                this.keyPairPool = keyPairPool;
+        }
 
-                KeyPairGenerator keyGen = KeyPairGenerator.getInstance(level.getAlgorithmName(), "BC");
-                keyGen.initialize(level.getSpec(), new SecureRandom());
+        /**
+         * Generate ML-DSA (Dilithium) key pair, taken from the key pair pool
+         * when one is configured for this level.
+         */
+        public KeyPair generateMlDsaKeyPair(MlDsaLevel level) throws Exception {
+                if (keyPairPool != null && keyPairPool.covers(level)) {
+                        return keyPairPool.take(level);
+                }
 
-                KeyPair keyPair = keyGen.generateKeyPair();
+                log.info("Generating ML-DSA key pair with level: {}", level);
+                KeyPair keyPair = createMlDsaKeyPair(level);
                 log.info("ML-DSA key pair generated successfully");
 
                 return keyPair;
         }
 
+        static KeyPair createMlDsaKeyPair(MlDsaLevel level) throws GeneralSecurityException {
+                KeyPairGenerator keyGen = KeyPairGenerator.getInstance(level.getAlgorithmName(), "BC");
+                keyGen.initialize(level.getSpec(), SECURE_RANDOM);
+                return keyGen.generateKeyPair();
+        }
+
         /**
          * Generate self-signed X.509 certificate (for Root CA)
          */
@@ -386,6 +421,67 @@ public class PqcCryptoService {
                 return signature.verify(signatureBytes);
         }
 
+        /**
+         * Sign a SHA-512 digest with HashML-DSA (FIPS 204, empty context), so
+         * the message can be hashed in a stream or by the client instead of
+         * being held in memory. The signature is the one ML-DSA-xx-WITH-SHA512
+         * would make over the message.
+         */
+        public byte[] signPreHashed(byte[] sha512Digest, PrivateKey privateKey) throws Exception {
+                if (!(privateKey instanceof MLDSAPrivateKey mlDsaKey)) {
+                        throw new IllegalArgumentException("HashML-DSA needs an ML-DSA key");
+                }
+                Signature signature = Signature.getInstance("ML-DSA-EXTERNAL-MU", "BC");
+                signature.initSign(privateKey);
+                signature.update(hashMlDsaMu(mlDsaKey.getPublicKey().getPublicData(), sha512Digest));
+                return signature.sign();
+        }
+
+        /**
+         * Verify a HashML-DSA signature made by {@link #signPreHashed}.
+         */
+        public boolean verifyPreHashed(byte[] sha512Digest, byte[] signatureBytes, PublicKey publicKey)
+                        throws Exception {
+                if (!(publicKey instanceof MLDSAPublicKey mlDsaKey)) {
+                        throw new IllegalArgumentException("HashML-DSA needs an ML-DSA key");
+                }
+                Signature signature = Signature.getInstance("ML-DSA-EXTERNAL-MU", "BC");
+                signature.initVerify(publicKey);
+                signature.update(hashMlDsaMu(mlDsaKey.getPublicData(), sha512Digest));
+                return signature.verify(signatureBytes);
+        }
+
+        private static byte[] hashMlDsaMu(byte[] publicKey, byte[] sha512Digest) throws IOException {
+                if (sha512Digest.length != SHA512_DIGEST_LENGTH) {
+                        throw new IllegalArgumentException(
+                                        "SHA-512 digest must be " + SHA512_DIGEST_LENGTH + " bytes");
+                }
+                return hashMlDsaMu(publicKey, NISTObjectIdentifiers.id_sha512.getId(), sha512Digest);
+        }
+
+        /**
+         * The HashML-DSA message representative (FIPS 204, empty context) of
+         * a digest made with the hash of the given OID, to be signed with
+         * ML-DSA-EXTERNAL-MU: mu = SHAKE256(tr || M', 64), with
+         * tr = SHAKE256(pk, 64) and M' = 0x01 || 0x00 || OID(hash) || digest.
+         */
+        public static byte[] hashMlDsaMu(byte[] publicKey, String hashOid, byte[] digest) throws IOException {
+                byte[] tr = new byte[MU_LENGTH];
+                SHAKEDigest shake = new SHAKEDigest(256);
+                shake.update(publicKey, 0, publicKey.length);
+                shake.doFinal(tr, 0, MU_LENGTH);
+
+                byte[] oid = new ASN1ObjectIdentifier(hashOid).getEncoded(ASN1Encoding.DER);
+                shake.update(tr, 0, tr.length);
+                shake.update((byte) 1);
+                shake.update((byte) 0);
+                shake.update(oid, 0, oid.length);
+                shake.update(digest, 0, digest.length);
+                byte[] mu = new byte[MU_LENGTH];
+                shake.doFinal(mu, 0, MU_LENGTH);
+                return mu;
+        }
+
         /**
          * Convert certificate to PEM format
          */
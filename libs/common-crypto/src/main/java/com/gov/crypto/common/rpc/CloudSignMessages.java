@@ -0,0 +1,154 @@
+package com.gov.crypto.common.rpc;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.gov.crypto.common.rpc.FrameCodec.*;
+
+/**
+ * Messages of the cloud-sign binary RPCs, one per frame, shared by
+ * cloud-sign and its internal callers. They mirror the JSON bodies of
+ * /csc/v1 with hashes, signatures, keys and CSRs as raw bytes (DER for keys
+ * and CSRs) instead of Base64 and PEM.
+ */
+public final class CloudSignMessages {
+
+    private CloudSignMessages() {
+    }
+
+    /**
+     * Several hashes form one batch under one OTP. An empty hashAlgo means
+     * the hashes are signed as data, as with /csc/v1/sign/init.
+     */
+    public record SignInitCall(String keyAlias, String algorithm, String hashAlgo, List<byte[]> hashes) {
+
+        public static SignInitCall decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new SignInitCall(readString(in), readString(in), readString(in), readBytesList(in));
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                writeString(out, keyAlias);
+                writeString(out, algorithm);
+                writeString(out, hashAlgo);
+                writeBytesList(out, hashes);
+            });
+        }
+    }
+
+    public record SignInitResult(RpcStatus status, String message, String challengeId, long expiresAtMillis) {
+
+        public static SignInitResult failed(RpcStatus status, String message) {
+            return new SignInitResult(status, message, "", 0);
+        }
+
+        public static SignInitResult decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new SignInitResult(RpcStatus.of(in.readUnsignedByte()), readString(in), readString(in),
+                    in.readLong());
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                out.writeByte(status.getCode());
+                writeString(out, message);
+                writeString(out, challengeId);
+                out.writeLong(expiresAtMillis);
+            });
+        }
+    }
+
+    public record SignConfirmCall(String challengeId, String otp) {
+
+        public static SignConfirmCall decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new SignConfirmCall(readString(in), readString(in));
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                writeString(out, challengeId);
+                writeString(out, otp);
+            });
+        }
+    }
+
+    /**
+     * signatures follow the order of the challenge's hashes; mlDsaSignatures
+     * is empty unless hybrid signing produced them.
+     */
+    public record SignConfirmResult(RpcStatus status, String message, String keyAlias, String algorithm,
+            List<byte[]> signatures, List<byte[]> mlDsaSignatures, boolean classicalOnly) {
+
+        public static SignConfirmResult failed(RpcStatus status, String message) {
+            return new SignConfirmResult(status, message, "", "", List.of(), List.of(), false);
+        }
+
+        public static SignConfirmResult decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new SignConfirmResult(RpcStatus.of(in.readUnsignedByte()), readString(in), readString(in),
+                    readString(in), readBytesList(in), readBytesList(in), in.readBoolean());
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                out.writeByte(status.getCode());
+                writeString(out, message);
+                writeString(out, keyAlias);
+                writeString(out, algorithm);
+                writeBytesList(out, signatures);
+                writeBytesList(out, mlDsaSignatures);
+                out.writeBoolean(classicalOnly);
+            });
+        }
+    }
+
+    /**
+     * With a subject the key's CSR is generated in the same call, as with
+     * /csc/v1/keys/generate-with-csr.
+     */
+    public record KeyGenCall(String alias, String algorithm, String subject) {
+
+        public static KeyGenCall decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new KeyGenCall(readString(in), readString(in), readString(in));
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                writeString(out, alias);
+                writeString(out, algorithm);
+                writeString(out, subject);
+            });
+        }
+    }
+
+    /**
+     * Public keys are SubjectPublicKeyInfo DER and the CSR is PKCS#10 DER;
+     * csr and mlDsaPublicKey are empty when not requested or not hybrid.
+     */
+    public record KeyGenResult(RpcStatus status, String message, byte[] publicKey, byte[] csr,
+            byte[] mlDsaPublicKey) {
+
+        public static KeyGenResult failed(RpcStatus status, String message) {
+            return new KeyGenResult(status, message, new byte[0], new byte[0], new byte[0]);
+        }
+
+        public static KeyGenResult decode(byte[] frame) throws IOException {
+            MessageReader in = new MessageReader(frame);
+            return new KeyGenResult(RpcStatus.of(in.readUnsignedByte()), readString(in), readBytes(in),
+                    readBytes(in), readBytes(in));
+        }
+
+        public byte[] encode() {
+            return FrameCodec.encode(out -> {
+                out.writeByte(status.getCode());
+                writeString(out, message);
+                writeBytes(out, publicKey);
+                writeBytes(out, csr);
+                writeBytes(out, mlDsaPublicKey);
+            });
+        }
+    }
+}
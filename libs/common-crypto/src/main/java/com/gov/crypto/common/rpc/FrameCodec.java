@@ -0,0 +1,156 @@
+package com.gov.crypto.common.rpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Length-prefixed binary framing for the internal signing RPCs of
+ * signature-core and cloud-sign.
+ *
+ * A body is a sequence of frames, each a 4-byte big-endian length followed
+ * by that many bytes of message. Inside a message, byte fields are a 4-byte
+ * length plus the raw bytes, lists of byte fields a 4-byte count plus the
+ * fields, and string fields use modified UTF-8, so no payload is ever
+ * Base64-encoded. Messages are decoded through a {@link MessageReader}, so
+ * a field or count is checked against the bytes left in its frame before
+ * anything is allocated for it.
+ */
+public final class FrameCodec {
+
+    private FrameCodec() {
+    }
+
+    /**
+     * Read the next frame.
+     *
+     * @return the frame, or null at a clean end of stream
+     * @throws IOException if the stream ends mid-frame or the frame exceeds maxFrameBytes
+     */
+    public static byte[] readFrame(InputStream in, int maxFrameBytes) throws IOException {
+        DataInputStream data = in instanceof DataInputStream d ? d : new DataInputStream(in);
+        int first = data.read();
+        if (first == -1) {
+            return null;
+        }
+        int length = (first << 24) | (data.readUnsignedByte() << 16)
+                | (data.readUnsignedByte() << 8) | data.readUnsignedByte();
+        if (length < 0 || length > maxFrameBytes) {
+            throw new IOException("Frame of " + length + " bytes exceeds limit of " + maxFrameBytes);
+        }
+        byte[] frame = new byte[length];
+        data.readFully(frame);
+        return frame;
+    }
+
+    public static void writeFrame(OutputStream out, byte[] frame) throws IOException {
+        out.write(frame.length >>> 24);
+        out.write(frame.length >>> 16);
+        out.write(frame.length >>> 8);
+        out.write(frame.length);
+        out.write(frame);
+    }
+
+    /**
+     * A single message as a complete frame, e.g. a unary response body.
+     */
+    public static byte[] frame(byte[] message) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(message.length + 4);
+        try {
+            writeFrame(buffer, message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static byte[] readBytes(MessageReader in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new EOFException("Field of " + length + " bytes exceeds the " + in.remaining() + " left");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    public static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        byte[] value = bytes == null ? new byte[0] : bytes;
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    public static List<byte[]> readBytesList(MessageReader in) throws IOException {
+        int count = in.readInt();
+        // every element carries at least its 4-byte length
+        if (count < 0 || count > in.remaining() / 4) {
+            throw new EOFException("List of " + count + " fields exceeds the " + in.remaining() + " bytes left");
+        }
+        List<byte[]> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readBytes(in));
+        }
+        return values;
+    }
+
+    public static void writeBytesList(DataOutput out, List<byte[]> values) throws IOException {
+        List<byte[]> list = values == null ? List.of() : values;
+        out.writeInt(list.size());
+        for (byte[] value : list) {
+            writeBytes(out, value);
+        }
+    }
+
+    public static String readString(MessageReader in) throws IOException {
+        return in.readUTF();
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        out.writeUTF(value == null ? "" : value);
+    }
+
+    /**
+     * Encode one message body with the given field writer.
+     */
+    public static byte[] encode(FieldWriter writer) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Reads the fields of one message held in memory, knowing how many of
+     * its bytes are left.
+     */
+    public static final class MessageReader extends DataInputStream {
+
+        public MessageReader(byte[] message) {
+            super(new ByteArrayInputStream(message));
+        }
+
+        /**
+         * Exact for the in-memory message, unlike available() in general.
+         */
+        public int remaining() throws IOException {
+            return available();
+        }
+    }
+
+    @FunctionalInterface
+    public interface FieldWriter {
+        void write(DataOutput out) throws IOException;
+    }
+}
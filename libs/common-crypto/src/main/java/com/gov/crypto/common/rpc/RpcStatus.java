@@ -0,0 +1,31 @@
+package com.gov.crypto.common.rpc;
+
+import java.io.IOException;
+
+/**
+ * Result status of a binary RPC message; codes follow the gRPC status codes
+ * of the same name.
+ */
+public enum RpcStatus {
+    OK(0), INVALID_ARGUMENT(3), NOT_FOUND(5), ALREADY_EXISTS(6), RESOURCE_EXHAUSTED(8),
+    FAILED_PRECONDITION(9), INTERNAL(13), UNAUTHENTICATED(16);
+
+    private final int code;
+
+    RpcStatus(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static RpcStatus of(int code) throws IOException {
+        for (RpcStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IOException("Unknown status code " + code);
+    }
+}
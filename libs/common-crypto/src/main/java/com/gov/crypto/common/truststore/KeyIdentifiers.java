@@ -0,0 +1,54 @@
+package com.gov.crypto.common.truststore;
+
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+
+import java.security.MessageDigest;
+import java.security.cert.X509Certificate;
+
+/**
+ * Normalized 20-byte key identifiers used to index CA certificates in a
+ * trust snapshot.
+ *
+ * Uses the certificate's own SubjectKeyIdentifier when it is 20 bytes long,
+ * otherwise the RFC 5280 section 4.2.1.2 method 1 value: SHA-1 over the
+ * subjectPublicKey BIT STRING.
+ */
+public final class KeyIdentifiers {
+
+    private KeyIdentifiers() {
+    }
+
+    /**
+     * Key identifier of the certificate's own public key.
+     */
+    public static byte[] subjectKeyId(X509Certificate cert) throws Exception {
+        byte[] ext = cert.getExtensionValue(Extension.subjectKeyIdentifier.getId());
+        if (ext != null) {
+            byte[] ski = SubjectKeyIdentifier.getInstance(
+                    ASN1OctetString.getInstance(ext).getOctets()).getKeyIdentifier();
+            if (ski.length == TrustSnapshotFormat.SKI_LENGTH) {
+                return ski;
+            }
+        }
+        SubjectPublicKeyInfo spki = SubjectPublicKeyInfo.getInstance(cert.getPublicKey().getEncoded());
+        return MessageDigest.getInstance("SHA-1").digest(spki.getPublicKeyData().getOctets());
+    }
+
+    /**
+     * Key identifier of the issuer, from the AuthorityKeyIdentifier
+     * extension, or null if the certificate does not carry a 20-byte one.
+     */
+    public static byte[] authorityKeyId(X509Certificate cert) {
+        byte[] ext = cert.getExtensionValue(Extension.authorityKeyIdentifier.getId());
+        if (ext == null) {
+            return null;
+        }
+        ASN1OctetString aki = AuthorityKeyIdentifier.getInstance(
+                ASN1OctetString.getInstance(ext).getOctets()).getKeyIdentifierObject();
+        return aki != null && aki.getOctets().length == TrustSnapshotFormat.SKI_LENGTH ? aki.getOctets() : null;
+    }
+}
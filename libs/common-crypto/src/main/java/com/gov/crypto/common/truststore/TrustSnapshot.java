@@ -0,0 +1,235 @@
+package com.gov.crypto.common.truststore;
+
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read-only view over a signed trust snapshot (see {@link TrustSnapshotFormat}).
+ *
+ * The snapshot is memory-mapped and queried in place: revocation and CA
+ * lookups are binary searches over the mapped buffer using absolute reads,
+ * so they allocate nothing. Loading costs one ML-DSA verification over the
+ * payload plus header bounds checks, independent of how the entries are
+ * later queried. CA certificates are only parsed on first access.
+ */
+public final class TrustSnapshot {
+
+    private final ByteBuffer buf;
+    private final int caCount;
+    private final int revokedCount;
+    private final int caIndexOffset;
+    private final int revokedOffset;
+    private final AtomicReferenceArray<X509Certificate> parsedCerts;
+
+    private TrustSnapshot(ByteBuffer buf) {
+        this.buf = buf;
+        this.caCount = buf.getInt(TrustSnapshotFormat.OFF_CA_COUNT);
+        this.revokedCount = buf.getInt(TrustSnapshotFormat.OFF_REVOKED_COUNT);
+        this.caIndexOffset = buf.getInt(TrustSnapshotFormat.OFF_CA_INDEX);
+        this.revokedOffset = buf.getInt(TrustSnapshotFormat.OFF_REVOKED);
+        this.parsedCerts = new AtomicReferenceArray<>(caCount);
+    }
+
+    /**
+     * Memory-map a snapshot file and verify it against the signer certificate.
+     */
+    public static TrustSnapshot load(Path file, X509Certificate signerCert, MlDsaLevel level)
+            throws IOException, GeneralSecurityException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return verify(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), signerCert, level);
+        }
+    }
+
+    /**
+     * Verify an in-memory snapshot against the signer certificate.
+     */
+    public static TrustSnapshot verify(ByteBuffer source, X509Certificate signerCert, MlDsaLevel level)
+            throws GeneralSecurityException {
+        ByteBuffer buf = source.duplicate();
+        int size = buf.limit();
+        if (size < TrustSnapshotFormat.HEADER_LENGTH || buf.getInt(TrustSnapshotFormat.OFF_MAGIC) != TrustSnapshotFormat.MAGIC) {
+            throw new GeneralSecurityException("Not a trust snapshot");
+        }
+        if (buf.getShort(TrustSnapshotFormat.OFF_VERSION) != TrustSnapshotFormat.VERSION
+                || buf.getShort(TrustSnapshotFormat.OFF_SERIAL_WIDTH) != TrustSnapshotFormat.SERIAL_WIDTH) {
+            throw new GeneralSecurityException("Unsupported trust snapshot version");
+        }
+
+        int payloadLength = buf.getInt(TrustSnapshotFormat.OFF_PAYLOAD_LENGTH);
+        long caEnd = (long) buf.getInt(TrustSnapshotFormat.OFF_CA_INDEX)
+                + (long) buf.getInt(TrustSnapshotFormat.OFF_CA_COUNT) * TrustSnapshotFormat.CA_ENTRY_LENGTH;
+        long revokedEnd = (long) buf.getInt(TrustSnapshotFormat.OFF_REVOKED)
+                + (long) buf.getInt(TrustSnapshotFormat.OFF_REVOKED_COUNT) * TrustSnapshotFormat.SERIAL_WIDTH;
+        if (payloadLength < TrustSnapshotFormat.HEADER_LENGTH || (long) payloadLength + 4 > size
+                || caEnd > payloadLength || revokedEnd > payloadLength
+                || buf.getInt(TrustSnapshotFormat.OFF_CERT_BLOB) > payloadLength) {
+            throw new GeneralSecurityException("Corrupt trust snapshot header");
+        }
+
+        byte[] signerSki = new byte[TrustSnapshotFormat.SKI_LENGTH];
+        buf.get(TrustSnapshotFormat.OFF_SIGNER_SKI, signerSki);
+        try {
+            if (!MessageDigest.isEqual(signerSki, KeyIdentifiers.subjectKeyId(signerCert))) {
+                throw new GeneralSecurityException("Trust snapshot was signed by a different CA");
+            }
+        } catch (GeneralSecurityException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new GeneralSecurityException("Cannot compute signer key identifier", e);
+        }
+
+        int sigLength = buf.getInt(payloadLength);
+        if (sigLength <= 0 || (long) payloadLength + 4 + sigLength > size) {
+            throw new GeneralSecurityException("Corrupt trust snapshot signature");
+        }
+        byte[] sig = new byte[sigLength];
+        buf.get(payloadLength + 4, sig);
+
+        Signature verifier = Signature.getInstance(level.getAlgorithmName(), "BC");
+        verifier.initVerify(signerCert.getPublicKey());
+        verifier.update(buf.duplicate().position(0).limit(payloadLength));
+        if (!verifier.verify(sig)) {
+            throw new GeneralSecurityException("Trust snapshot signature INVALID");
+        }
+        return new TrustSnapshot(buf);
+    }
+
+    public long sequence() {
+        return buf.getLong(TrustSnapshotFormat.OFF_SEQUENCE);
+    }
+
+    public Instant issuedAt() {
+        return Instant.ofEpochMilli(buf.getLong(TrustSnapshotFormat.OFF_ISSUED_AT));
+    }
+
+    /**
+     * Validity watermark: the snapshot must not be relied on after this time.
+     */
+    public Instant validUntil() {
+        return Instant.ofEpochMilli(buf.getLong(TrustSnapshotFormat.OFF_VALID_UNTIL));
+    }
+
+    public boolean isCurrent(long nowMillis) {
+        return nowMillis <= buf.getLong(TrustSnapshotFormat.OFF_VALID_UNTIL);
+    }
+
+    public int caCount() {
+        return caCount;
+    }
+
+    public int revokedCount() {
+        return revokedCount;
+    }
+
+    /**
+     * Check a serial number given as its unsigned big-endian magnitude
+     * (leading zero bytes allowed). Does not allocate.
+     */
+    public boolean isRevoked(byte[] serial) {
+        int start = 0;
+        while (start < serial.length - 1 && serial[start] == 0) {
+            start++;
+        }
+        int len = serial.length - start;
+        if (len > TrustSnapshotFormat.SERIAL_WIDTH) {
+            return false;
+        }
+        int lo = 0;
+        int hi = revokedCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareSerial(revokedOffset + mid * TrustSnapshotFormat.SERIAL_WIDTH, serial, start, len);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isRevoked(BigInteger serial) {
+        return serial.signum() >= 0 && isRevoked(serial.toByteArray());
+    }
+
+    /**
+     * Index of the CA certificate with the given 20-byte key identifier, or
+     * -1 if the snapshot does not contain it. Does not allocate.
+     */
+    public int findCa(byte[] keyId) {
+        if (keyId == null || keyId.length != TrustSnapshotFormat.SKI_LENGTH) {
+            return -1;
+        }
+        int lo = 0;
+        int hi = caCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareSki(caIndexOffset + mid * TrustSnapshotFormat.CA_ENTRY_LENGTH, keyId);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * CA certificate at the given index, parsed on first access.
+     */
+    public X509Certificate caCertificate(int index) throws GeneralSecurityException {
+        X509Certificate cert = parsedCerts.get(index);
+        if (cert == null) {
+            int entry = caIndexOffset + index * TrustSnapshotFormat.CA_ENTRY_LENGTH;
+            int offset = buf.getInt(entry + TrustSnapshotFormat.SKI_LENGTH);
+            int length = buf.getInt(entry + TrustSnapshotFormat.SKI_LENGTH + 4);
+            byte[] der = new byte[length];
+            buf.get(offset, der);
+            cert = (X509Certificate) CertificateFactory.getInstance("X.509", "BC")
+                    .generateCertificate(new ByteArrayInputStream(der));
+            parsedCerts.compareAndSet(index, null, cert);
+        }
+        return cert;
+    }
+
+    private int compareSerial(int offset, byte[] serial, int start, int len) {
+        int pad = TrustSnapshotFormat.SERIAL_WIDTH - len;
+        for (int i = 0; i < TrustSnapshotFormat.SERIAL_WIDTH; i++) {
+            int stored = buf.get(offset + i) & 0xff;
+            int probe = i < pad ? 0 : serial[start + i - pad] & 0xff;
+            if (stored != probe) {
+                return stored - probe;
+            }
+        }
+        return 0;
+    }
+
+    private int compareSki(int offset, byte[] keyId) {
+        for (int i = 0; i < TrustSnapshotFormat.SKI_LENGTH; i++) {
+            int stored = buf.get(offset + i) & 0xff;
+            int probe = keyId[i] & 0xff;
+            if (stored != probe) {
+                return stored - probe;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.gov.crypto.common.truststore;
+
+/**
+ * Binary layout of a signed trust-store snapshot.
+ *
+ * All integers are big-endian. Sections are fixed-width so a validator can
+ * memory-map the file and binary-search it in place:
+ *
+ * <pre>
+ * offset  size  field
+ *      0     4  magic "GTS1"
+ *      4     2  format version (1)
+ *      6     2  serial width in bytes (20, RFC 5280 maximum)
+ *      8     8  sequence (monotonic, newer snapshots have larger values)
+ *     16     8  issuedAt (epoch millis)
+ *     24     8  validUntil (epoch millis) - validity watermark
+ *     32     4  CA count
+ *     36     4  revoked serial count
+ *     40     4  CA index offset
+ *     44     4  revoked serial offset
+ *     48     4  certificate blob offset
+ *     52     4  payload length (offset of the signature trailer)
+ *     56    20  SKI of the signing CA
+ *     76    20  reserved (zero)
+ *     96     -  CA index: count x (SKI[20], certOffset u32, certLength u32), sorted by SKI
+ *      -     -  revoked serials: count x serial[serialWidth], left zero-padded, sorted
+ *      -     -  certificate blob: concatenated DER certificates
+ * payload    4  signature length
+ *      -     -  ML-DSA signature over bytes [0, payload length)
+ * </pre>
+ */
+public final class TrustSnapshotFormat {
+
+    public static final int MAGIC = 0x47545331; // "GTS1"
+    public static final short VERSION = 1;
+    public static final int SERIAL_WIDTH = 20;
+    public static final int SKI_LENGTH = 20;
+    public static final int HEADER_LENGTH = 96;
+    public static final int CA_ENTRY_LENGTH = SKI_LENGTH + 8;
+
+    static final int OFF_MAGIC = 0;
+    static final int OFF_VERSION = 4;
+    static final int OFF_SERIAL_WIDTH = 6;
+    static final int OFF_SEQUENCE = 8;
+    static final int OFF_ISSUED_AT = 16;
+    static final int OFF_VALID_UNTIL = 24;
+    static final int OFF_CA_COUNT = 32;
+    static final int OFF_REVOKED_COUNT = 36;
+    static final int OFF_CA_INDEX = 40;
+    static final int OFF_REVOKED = 44;
+    static final int OFF_CERT_BLOB = 48;
+    static final int OFF_PAYLOAD_LENGTH = 52;
+    static final int OFF_SIGNER_SKI = 56;
+
+    private TrustSnapshotFormat() {
+    }
+}
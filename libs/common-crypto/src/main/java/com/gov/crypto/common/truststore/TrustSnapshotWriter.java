@@ -0,0 +1,133 @@
+package com.gov.crypto.common.truststore;
+
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds a signed trust snapshot (see {@link TrustSnapshotFormat}).
+ *
+ * Usage:
+ *
+ * <pre>
+ * byte[] snapshot = new TrustSnapshotWriter(sequence, validUntil)
+ *         .addCaCertificate(caCert)
+ *         .addRevokedSerial(serial)
+ *         .sign(signerCert, signerKey, level);
+ * </pre>
+ */
+public class TrustSnapshotWriter {
+
+    private final long sequence;
+    private final Instant validUntil;
+    private final List<CaEntry> caEntries = new ArrayList<>();
+    private final List<byte[]> revokedSerials = new ArrayList<>();
+
+    public TrustSnapshotWriter(long sequence, Instant validUntil) {
+        this.sequence = sequence;
+        this.validUntil = validUntil;
+    }
+
+    public TrustSnapshotWriter addCaCertificate(X509Certificate cert) throws Exception {
+        caEntries.add(new CaEntry(KeyIdentifiers.subjectKeyId(cert), cert.getEncoded()));
+        return this;
+    }
+
+    public TrustSnapshotWriter addRevokedSerial(BigInteger serial) {
+        revokedSerials.add(toFixedWidth(serial));
+        return this;
+    }
+
+    /**
+     * Serialize and sign the snapshot with the given CA key.
+     */
+    public byte[] sign(X509Certificate signerCert, PrivateKey signerKey, MlDsaLevel level) throws Exception {
+        caEntries.sort(Comparator.comparing(CaEntry::ski, Arrays::compareUnsigned));
+        revokedSerials.sort(Arrays::compareUnsigned);
+        List<byte[]> serials = dedupe(revokedSerials);
+
+        int caIndexOffset = TrustSnapshotFormat.HEADER_LENGTH;
+        int revokedOffset = caIndexOffset + caEntries.size() * TrustSnapshotFormat.CA_ENTRY_LENGTH;
+        int certBlobOffset = revokedOffset + serials.size() * TrustSnapshotFormat.SERIAL_WIDTH;
+        int payloadLength = certBlobOffset;
+        for (CaEntry entry : caEntries) {
+            payloadLength += entry.der().length;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(payloadLength);
+        buf.putInt(TrustSnapshotFormat.MAGIC)
+                .putShort(TrustSnapshotFormat.VERSION)
+                .putShort((short) TrustSnapshotFormat.SERIAL_WIDTH)
+                .putLong(sequence)
+                .putLong(System.currentTimeMillis())
+                .putLong(validUntil.toEpochMilli())
+                .putInt(caEntries.size())
+                .putInt(serials.size())
+                .putInt(caIndexOffset)
+                .putInt(revokedOffset)
+                .putInt(certBlobOffset)
+                .putInt(payloadLength)
+                .put(KeyIdentifiers.subjectKeyId(signerCert));
+
+        buf.position(caIndexOffset);
+        int certOffset = certBlobOffset;
+        for (CaEntry entry : caEntries) {
+            buf.put(entry.ski()).putInt(certOffset).putInt(entry.der().length);
+            certOffset += entry.der().length;
+        }
+        for (byte[] serial : serials) {
+            buf.put(serial);
+        }
+        for (CaEntry entry : caEntries) {
+            buf.put(entry.der());
+        }
+
+        Signature signature = Signature.getInstance(level.getAlgorithmName(), "BC");
+        signature.initSign(signerKey);
+        signature.update(buf.array());
+        byte[] sig = signature.sign();
+
+        return ByteBuffer.allocate(payloadLength + 4 + sig.length)
+                .put(buf.array())
+                .putInt(sig.length)
+                .put(sig)
+                .array();
+    }
+
+    /**
+     * Left zero-pad the unsigned magnitude of a serial to the fixed width.
+     */
+    static byte[] toFixedWidth(BigInteger serial) {
+        byte[] raw = serial.toByteArray();
+        int start = raw.length > 1 && raw[0] == 0 ? 1 : 0;
+        int len = raw.length - start;
+        if (serial.signum() < 0 || len > TrustSnapshotFormat.SERIAL_WIDTH) {
+            throw new IllegalArgumentException("Serial number out of RFC 5280 range: " + serial.toString(16));
+        }
+        byte[] fixed = new byte[TrustSnapshotFormat.SERIAL_WIDTH];
+        System.arraycopy(raw, start, fixed, TrustSnapshotFormat.SERIAL_WIDTH - len, len);
+        return fixed;
+    }
+
+    private static List<byte[]> dedupe(List<byte[]> sorted) {
+        List<byte[]> result = new ArrayList<>(sorted.size());
+        for (byte[] serial : sorted) {
+            if (result.isEmpty() || !Arrays.equals(result.get(result.size() - 1), serial)) {
+                result.add(serial);
+            }
+        }
+        return result;
+    }
+
+    private record CaEntry(byte[] ski, byte[] der) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.gov.crypto.common.pqc;
+
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pre-generated ML-DSA key pairs: refill, fallback and release.
+ */
+public class MlDsaKeyPairPoolTest {
+
+    private static final byte[] DATA = "pooled".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void shouldServePooledKeysAndRefill() throws Exception {
+        try (MlDsaKeyPairPool pool = new MlDsaKeyPairPool(
+                new MlDsaKeyPairPool.Settings(2, Set.of(MlDsaLevel.ML_DSA_44)))) {
+            pool.refill();
+            assertEquals(2, pool.size(MlDsaLevel.ML_DSA_44));
+
+            PqcCryptoService pqc = new PqcCryptoService(pool);
+            KeyPair first = pqc.generateMlDsaKeyPair(MlDsaLevel.ML_DSA_44);
+            KeyPair second = pqc.generateMlDsaKeyPair(MlDsaLevel.ML_DSA_44);
+            KeyPair inline = pqc.generateMlDsaKeyPair(MlDsaLevel.ML_DSA_44);
+
+            assertEquals(2, pool.hits(MlDsaLevel.ML_DSA_44));
+            assertEquals(1, pool.misses(MlDsaLevel.ML_DSA_44));
+            assertNotEquals(first.getPublic(), second.getPublic());
+            assertNotEquals(second.getPublic(), inline.getPublic());
+            byte[] signature = pqc.sign(DATA, first.getPrivate(), MlDsaLevel.ML_DSA_44);
+            assertTrue(pqc.verify(DATA, signature, first.getPublic(), MlDsaLevel.ML_DSA_44));
+
+            pool.refill();
+            assertEquals(2, pool.size(MlDsaLevel.ML_DSA_44));
+        }
+    }
+
+    @Test
+    void shouldFillInBackgroundOnlyForPooledLevels() throws Exception {
+        AtomicInteger generated = new AtomicInteger();
+        try (MlDsaKeyPairPool pool = new MlDsaKeyPairPool(
+                new MlDsaKeyPairPool.Settings(3, Set.of(MlDsaLevel.ML_DSA_65)),
+                level -> {
+                    generated.incrementAndGet();
+                    return PqcCryptoService.createMlDsaKeyPair(level);
+                })) {
+            pool.start();
+            for (int i = 0; i < 100 && pool.size(MlDsaLevel.ML_DSA_65) < 3; i++) {
+                Thread.sleep(50);
+            }
+
+            assertEquals(3, pool.size(MlDsaLevel.ML_DSA_65));
+            assertTrue(pool.covers(MlDsaLevel.ML_DSA_65));
+            assertFalse(pool.covers(MlDsaLevel.ML_DSA_87));
+            assertEquals(3, generated.get());
+        }
+    }
+
+    @Test
+    void shouldReleaseUnusedKeysOnClose() throws Exception {
+        MlDsaKeyPairPool pool = new MlDsaKeyPairPool(
+                new MlDsaKeyPairPool.Settings(2, Set.of(MlDsaLevel.ML_DSA_44)));
+        pool.refill();
+
+        pool.close();
+
+        assertEquals(0, pool.size(MlDsaLevel.ML_DSA_44));
+        assertNotNull(pool.take(MlDsaLevel.ML_DSA_44));
+    }
+
+    @Test
+    void shouldBeDisabledAtDepthZero() {
+        MlDsaKeyPairPool pool = new MlDsaKeyPairPool(MlDsaKeyPairPool.Settings.disabled());
+
+        assertTrue(pool.levels().isEmpty());
+        assertFalse(pool.covers(MlDsaLevel.ML_DSA_44));
+        assertThrows(IllegalArgumentException.class,
+                () -> new MlDsaKeyPairPool(new MlDsaKeyPairPool.Settings(-1, Set.of(MlDsaLevel.ML_DSA_44))));
+    }
+
+    @Test
+    void shouldReportMissesPerLevel() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (MlDsaKeyPairPool pool = new MlDsaKeyPairPool(
+                new MlDsaKeyPairPool.Settings(1, Set.of(MlDsaLevel.ML_DSA_44)))) {
+            new MlDsaKeyPairPoolMetrics(pool).bindTo(registry);
+
+            pool.take(MlDsaLevel.ML_DSA_44);
+
+            assertEquals(1.0, registry.get("crypto.ml_dsa.key_pool.takes")
+                    .tags("level", "ML-DSA-44", "result", "miss").functionCounter().count());
+            assertEquals(0.0, registry.get("crypto.ml_dsa.key_pool.size").gauge().value());
+        }
+    }
+}
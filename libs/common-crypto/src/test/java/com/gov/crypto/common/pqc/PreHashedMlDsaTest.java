@@ -0,0 +1,51 @@
+package com.gov.crypto.common.pqc;
+
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import org.bouncycastle.jcajce.interfaces.MLDSAPublicKey;
+import org.bouncycastle.pqc.crypto.mldsa.HashMLDSASigner;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAPublicKeyParameters;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HashML-DSA over a SHA-512 digest must match HashML-DSA over the message.
+ */
+public class PreHashedMlDsaTest {
+
+    private static final byte[] DOCUMENT = "a large archive, hashed elsewhere".getBytes(StandardCharsets.UTF_8);
+
+    private final PqcCryptoService pqcCryptoService = new PqcCryptoService();
+
+    @Test
+    void shouldMatchHashMlDsaOverTheMessage() throws Exception {
+        KeyPair keyPair = pqcCryptoService.generateMlDsaKeyPair(MlDsaLevel.ML_DSA_65);
+        byte[] digest = MessageDigest.getInstance("SHA-512").digest(DOCUMENT);
+
+        byte[] signature = pqcCryptoService.signPreHashed(digest, keyPair.getPrivate());
+
+        HashMLDSASigner reference = new HashMLDSASigner();
+        reference.init(false, new MLDSAPublicKeyParameters(MLDSAParameters.ml_dsa_65_with_sha512,
+                ((MLDSAPublicKey) keyPair.getPublic()).getPublicData()));
+        reference.update(DOCUMENT, 0, DOCUMENT.length);
+        assertTrue(reference.verifySignature(signature));
+        assertTrue(pqcCryptoService.verifyPreHashed(digest, signature, keyPair.getPublic()));
+    }
+
+    @Test
+    void shouldRejectOtherDigestsAndLengths() throws Exception {
+        KeyPair keyPair = pqcCryptoService.generateMlDsaKeyPair(MlDsaLevel.ML_DSA_44);
+        byte[] digest = MessageDigest.getInstance("SHA-512").digest(DOCUMENT);
+        byte[] signature = pqcCryptoService.signPreHashed(digest, keyPair.getPrivate());
+
+        digest[0] ^= 1;
+        assertFalse(pqcCryptoService.verifyPreHashed(digest, signature, keyPair.getPublic()));
+        assertThrows(IllegalArgumentException.class,
+                () -> pqcCryptoService.signPreHashed(new byte[32], keyPair.getPrivate()));
+    }
+}
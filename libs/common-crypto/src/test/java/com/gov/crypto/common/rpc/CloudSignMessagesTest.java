@@ -0,0 +1,69 @@
+package com.gov.crypto.common.rpc;
+
+import com.gov.crypto.common.rpc.CloudSignMessages.SignConfirmResult;
+import com.gov.crypto.common.rpc.CloudSignMessages.SignInitCall;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Framing and encoding of the cloud-sign binary RPC messages.
+ */
+public class CloudSignMessagesTest {
+
+    @Test
+    void shouldRoundTripBatchThroughFrames() throws Exception {
+        SignInitCall call = new SignInitCall("alice", "SHA384withECDSA", "", List.of(new byte[48], new byte[] { 7 }));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        FrameCodec.writeFrame(body, call.encode());
+        FrameCodec.writeFrame(body, SignConfirmResult.failed(RpcStatus.UNAUTHENTICATED, "Invalid TOTP code").encode());
+
+        ByteArrayInputStream in = new ByteArrayInputStream(body.toByteArray());
+        SignInitCall decoded = SignInitCall.decode(FrameCodec.readFrame(in, 1024));
+        SignConfirmResult refused = SignConfirmResult.decode(FrameCodec.readFrame(in, 1024));
+
+        assertEquals("alice", decoded.keyAlias());
+        assertEquals(2, decoded.hashes().size());
+        assertArrayEquals(new byte[] { 7 }, decoded.hashes().get(1));
+        assertEquals(RpcStatus.UNAUTHENTICATED, refused.status());
+        assertTrue(refused.signatures().isEmpty());
+        assertNull(FrameCodec.readFrame(in, 1024));
+    }
+
+    @Test
+    void shouldRejectOversizedOrTruncatedFrames() {
+        byte[] frame = FrameCodec.frame(new byte[64]);
+
+        assertThrows(IOException.class, () -> FrameCodec.readFrame(new ByteArrayInputStream(frame), 16));
+        assertThrows(IOException.class,
+                () -> FrameCodec.readFrame(new ByteArrayInputStream(frame, 0, 10), 1024));
+        assertThrows(IOException.class, () -> RpcStatus.of(99));
+    }
+
+    @Test
+    void shouldRejectInnerLengthsBeyondTheFrame() {
+        // a 20-byte frame claiming a 2 GB field, then one claiming 2^31-1 list elements
+        byte[] field = FrameCodec.encode(out -> {
+            out.writeByte(RpcStatus.OK.getCode());
+            out.writeUTF("");
+            out.writeInt(Integer.MAX_VALUE);
+            out.write(new byte[13]);
+        });
+        byte[] list = FrameCodec.encode(out -> {
+            out.writeUTF("alice");
+            out.writeUTF("");
+            out.writeUTF("");
+            out.writeInt(Integer.MAX_VALUE);
+            out.writeInt(0);
+        });
+
+        assertEquals(20, field.length);
+        assertThrows(IOException.class, () -> CloudSignMessages.KeyGenResult.decode(field));
+        assertThrows(IOException.class, () -> SignInitCall.decode(list));
+    }
+}
@@ -0,0 +1,121 @@
+package com.gov.crypto.common.truststore;
+
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import com.gov.crypto.common.pqc.PqcCryptoService.MlDsaLevel;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the signed trust snapshot format.
+ */
+public class TrustSnapshotTest {
+
+    private static final PqcCryptoService pqc = new PqcCryptoService();
+
+    private static KeyPair signerKeys;
+    private static X509Certificate signerCert;
+    private static X509Certificate otherCaCert;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        signerKeys = pqc.generateMlDsaKeyPair(MlDsaLevel.ML_DSA_44);
+        signerCert = pqc.generateSelfSignedCertificate(signerKeys, "CN=Snapshot Signer, C=VN", 30,
+                MlDsaLevel.ML_DSA_44);
+        KeyPair otherKeys = pqc.generateMlDsaKeyPair(MlDsaLevel.ML_DSA_44);
+        otherCaCert = pqc.generateSelfSignedCertificate(otherKeys, "CN=Provincial CA, C=VN", 30,
+                MlDsaLevel.ML_DSA_44);
+    }
+
+    private byte[] snapshot(long sequence, BigInteger... revoked) throws Exception {
+        TrustSnapshotWriter writer = new TrustSnapshotWriter(sequence, Instant.now().plus(1, ChronoUnit.DAYS))
+                .addCaCertificate(signerCert)
+                .addCaCertificate(otherCaCert);
+        for (BigInteger serial : revoked) {
+            writer.addRevokedSerial(serial);
+        }
+        return writer.sign(signerCert, signerKeys.getPrivate(), MlDsaLevel.ML_DSA_44);
+    }
+
+    @Test
+    void shouldRoundTripHeaderAndLookups() throws Exception {
+        BigInteger revoked = new BigInteger("00ff00aa", 16);
+        TrustSnapshot snapshot = TrustSnapshot.verify(
+                ByteBuffer.wrap(snapshot(7, revoked, BigInteger.ONE, revoked)), signerCert, MlDsaLevel.ML_DSA_44);
+
+        assertEquals(7, snapshot.sequence());
+        assertEquals(2, snapshot.caCount());
+        assertEquals(2, snapshot.revokedCount());
+        assertTrue(snapshot.isCurrent(System.currentTimeMillis()));
+
+        assertTrue(snapshot.isRevoked(revoked));
+        assertTrue(snapshot.isRevoked(new byte[] { 0, 0, (byte) 0xff, 0, (byte) 0xaa }));
+        assertTrue(snapshot.isRevoked(BigInteger.ONE));
+        assertFalse(snapshot.isRevoked(BigInteger.TWO));
+
+        int index = snapshot.findCa(KeyIdentifiers.subjectKeyId(otherCaCert));
+        assertTrue(index >= 0);
+        assertEquals(otherCaCert, snapshot.caCertificate(index));
+        assertEquals(-1, snapshot.findCa(new byte[20]));
+    }
+
+    @Test
+    void shouldMemoryMapSnapshotFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trust.gts");
+        Files.write(file, snapshot(1, BigInteger.TEN));
+
+        TrustSnapshot snapshot = TrustSnapshot.load(file, signerCert, MlDsaLevel.ML_DSA_44);
+
+        assertTrue(snapshot.isRevoked(BigInteger.TEN));
+    }
+
+    @Test
+    void shouldRejectTamperedSnapshot() throws Exception {
+        byte[] bytes = snapshot(1, BigInteger.TEN);
+        bytes[TrustSnapshotFormat.HEADER_LENGTH + 3] ^= 0x01;
+
+        assertThrows(GeneralSecurityException.class,
+                () -> TrustSnapshot.verify(ByteBuffer.wrap(bytes), signerCert, MlDsaLevel.ML_DSA_44));
+    }
+
+    @Test
+    void shouldRejectSnapshotFromDifferentSigner() throws Exception {
+        byte[] bytes = snapshot(1);
+
+        assertThrows(GeneralSecurityException.class,
+                () -> TrustSnapshot.verify(ByteBuffer.wrap(bytes), otherCaCert, MlDsaLevel.ML_DSA_44));
+    }
+
+    @Test
+    void shouldLookUpLargeRevocationList() throws Exception {
+        SecureRandom random = new SecureRandom();
+        TrustSnapshotWriter writer = new TrustSnapshotWriter(1, Instant.now().plus(1, ChronoUnit.DAYS));
+        BigInteger probe = null;
+        for (int i = 0; i < 200_000; i++) {
+            BigInteger serial = new BigInteger(128, random);
+            writer.addRevokedSerial(serial);
+            if (i == 123_456) {
+                probe = serial;
+            }
+        }
+        byte[] bytes = writer.sign(signerCert, signerKeys.getPrivate(), MlDsaLevel.ML_DSA_44);
+
+        TrustSnapshot snapshot = TrustSnapshot.verify(ByteBuffer.wrap(bytes), signerCert, MlDsaLevel.ML_DSA_44);
+
+        assertTrue(snapshot.isRevoked(probe));
+        assertFalse(snapshot.isRevoked(BigInteger.ONE.shiftLeft(160).subtract(BigInteger.ONE)));
+    }
+}
@@ -23,6 +23,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/v1/credentials/**").authenticated()
                         .requestMatchers("/csc/v1/**").permitAll() // Handled by SadValidator
+                        .requestMatchers("/api/v1/rpc/**").permitAll() // Handled by SadValidator
                         .requestMatchers("/actuator/**").permitAll()
                         .anyRequest().permitAll())
                 .build();
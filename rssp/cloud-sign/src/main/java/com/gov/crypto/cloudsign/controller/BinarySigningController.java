@@ -0,0 +1,206 @@
+package com.gov.crypto.cloudsign.controller;
+
+import com.gov.crypto.cloudsign.controller.SigningController.ErrorResponse;
+import com.gov.crypto.cloudsign.controller.SigningController.KeyGenCsrRequest;
+import com.gov.crypto.cloudsign.controller.SigningController.KeyGenCsrResponse;
+import com.gov.crypto.cloudsign.controller.SigningController.KeyGenRequest;
+import com.gov.crypto.cloudsign.controller.SigningController.KeyGenResponse;
+import com.gov.crypto.cloudsign.controller.SigningController.SignConfirmRequest;
+import com.gov.crypto.cloudsign.controller.SigningController.SignConfirmResponse;
+import com.gov.crypto.cloudsign.controller.SigningController.SignInitRequest;
+import com.gov.crypto.cloudsign.controller.SigningController.SignInitResponse;
+import com.gov.crypto.common.rpc.CloudSignMessages.KeyGenCall;
+import com.gov.crypto.common.rpc.CloudSignMessages.KeyGenResult;
+import com.gov.crypto.common.rpc.CloudSignMessages.SignConfirmCall;
+import com.gov.crypto.common.rpc.CloudSignMessages.SignConfirmResult;
+import com.gov.crypto.common.rpc.CloudSignMessages.SignInitCall;
+import com.gov.crypto.common.rpc.CloudSignMessages.SignInitResult;
+import com.gov.crypto.common.rpc.FrameCodec;
+import com.gov.crypto.common.rpc.RpcStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Binary signing RPCs for internal callers such as ca-authority
+ * registration, framed by {@link FrameCodec} like signature-core's.
+ *
+ * Each call is one frame in and one frame out, carrying hashes, signatures,
+ * keys and CSRs as raw bytes. The calls run through the /csc/v1 handlers
+ * of {@link SigningController}, so the SAD check, the two-step OTP flow,
+ * the signing executor and Idempotency-Key handling are exactly those of
+ * the JSON API; a batch is one sign/init call with several hashes. There
+ * are no /stream variants, since every batch needs its own OTP.
+ *
+ * A refused call still answers 200 with the refusal in the result's
+ * status, except that Retry-After is passed on when signing is busy.
+ */
+@RestController
+@RequestMapping(value = "/api/v1/rpc", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+        produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+public class BinarySigningController {
+
+    private final SigningController signingController;
+    private final int maxFrameBytes;
+
+    public BinarySigningController(
+            SigningController signingController,
+            @Value("${signing.rpc.max-frame-bytes:16777216}") int maxFrameBytes) {
+        this.signingController = signingController;
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    @PostMapping("/sign/init")
+    public ResponseEntity<byte[]> initializeSigning(
+            InputStream body,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            Principal principal) {
+        SignInitCall call;
+        try {
+            call = SignInitCall.decode(readFrame(body));
+        } catch (IOException e) {
+            return reply(null, SignInitResult.failed(RpcStatus.INVALID_ARGUMENT, "Malformed sign init call")
+                    .encode());
+        }
+
+        Base64.Encoder b64 = Base64.getEncoder();
+        SignInitRequest request = new SignInitRequest(call.keyAlias(), null,
+                call.hashes().stream().map(b64::encodeToString).toList(), call.algorithm(),
+                emptyToNull(call.hashAlgo()));
+        ResponseEntity<?> response = signingController.initializeSigning(request, authHeader, principal);
+
+        if (response.getBody() instanceof SignInitResponse created) {
+            return reply(response, new SignInitResult(RpcStatus.OK, "", created.challengeId(),
+                    created.expiresAt().toEpochMilli()).encode());
+        }
+        return reply(response, SignInitResult.failed(statusOf(response), messageOf(response)).encode());
+    }
+
+    @PostMapping("/sign/confirm")
+    public CompletableFuture<ResponseEntity<byte[]>> confirmSigning(
+            InputStream body,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        SignConfirmCall call;
+        try {
+            call = SignConfirmCall.decode(readFrame(body));
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(reply(null,
+                    SignConfirmResult.failed(RpcStatus.INVALID_ARGUMENT, "Malformed sign confirm call").encode()));
+        }
+
+        SignConfirmRequest request = new SignConfirmRequest(emptyToNull(call.challengeId()),
+                emptyToNull(call.otp()));
+        return signingController.confirmSigning(request, idempotencyKey).thenApply(response -> {
+            if (response.getBody() instanceof SignConfirmResponse signed) {
+                return reply(response, new SignConfirmResult(RpcStatus.OK, "", signed.keyAlias(),
+                        signed.algorithm(), decodeAll(signed.signatures()), decodeAll(signed.mlDsaSignatures()),
+                        signed.classicalOnly()).encode());
+            }
+            return reply(response, SignConfirmResult.failed(statusOf(response), messageOf(response)).encode());
+        });
+    }
+
+    /**
+     * Generate a key pair, with its CSR when the call has a subject.
+     */
+    @PostMapping("/keys/generate")
+    public ResponseEntity<byte[]> generateKey(
+            InputStream body,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            Principal principal) {
+        KeyGenCall call;
+        try {
+            call = KeyGenCall.decode(readFrame(body));
+        } catch (IOException e) {
+            return reply(null, KeyGenResult.failed(RpcStatus.INVALID_ARGUMENT, "Malformed key generation call")
+                    .encode());
+        }
+
+        ResponseEntity<?> response = call.subject().isEmpty()
+                ? signingController.generateKey(new KeyGenRequest(call.alias(), emptyToNull(call.algorithm())),
+                        authHeader, idempotencyKey, principal)
+                : signingController.generateKeyWithCsr(new KeyGenCsrRequest(call.alias(),
+                        emptyToNull(call.algorithm()), call.subject()), authHeader, idempotencyKey, principal);
+
+        if (response.getBody() instanceof KeyGenResponse generated) {
+            return reply(response, new KeyGenResult(RpcStatus.OK, "", pemToDer(generated.publicKeyPem()),
+                    new byte[0], pemToDer(generated.mlDsaPublicKeyPem())).encode());
+        }
+        if (response.getBody() instanceof KeyGenCsrResponse generated) {
+            return reply(response, new KeyGenResult(RpcStatus.OK, "", pemToDer(generated.publicKeyPem()),
+                    pemToDer(generated.csrPem()), pemToDer(generated.mlDsaPublicKeyPem())).encode());
+        }
+        return reply(response, KeyGenResult.failed(statusOf(response), messageOf(response)).encode());
+    }
+
+    /**
+     * An oversized, truncated or missing frame fails like a malformed
+     * message, so callers only ever see INVALID_ARGUMENT for either.
+     */
+    private byte[] readFrame(InputStream body) throws IOException {
+        byte[] frame = FrameCodec.readFrame(body, maxFrameBytes);
+        if (frame == null) {
+            throw new EOFException("Empty request body");
+        }
+        return frame;
+    }
+
+    private static ResponseEntity<byte[]> reply(ResponseEntity<?> response, byte[] message) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        String retryAfter = response == null ? null : response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null) {
+            builder.header(HttpHeaders.RETRY_AFTER, retryAfter);
+        }
+        return builder.body(FrameCodec.frame(message));
+    }
+
+    private static RpcStatus statusOf(ResponseEntity<?> response) {
+        HttpStatusCode status = response.getStatusCode();
+        return switch (status.value()) {
+            case 400 -> RpcStatus.INVALID_ARGUMENT;
+            case 401 -> RpcStatus.UNAUTHENTICATED;
+            case 409 -> RpcStatus.ALREADY_EXISTS;
+            case 422 -> RpcStatus.FAILED_PRECONDITION;
+            case 429 -> RpcStatus.RESOURCE_EXHAUSTED;
+            default -> status.is2xxSuccessful() ? RpcStatus.OK : RpcStatus.INTERNAL;
+        };
+    }
+
+    private static String messageOf(ResponseEntity<?> response) {
+        return response.getBody() instanceof ErrorResponse error ? error.error() : "";
+    }
+
+    private static List<byte[]> decodeAll(List<String> base64) {
+        if (base64 == null) {
+            return List.of();
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        return base64.stream().map(decoder::decode).toList();
+    }
+
+    private static byte[] pemToDer(String pem) {
+        if (pem == null) {
+            return new byte[0];
+        }
+        return Base64.getDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", ""));
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
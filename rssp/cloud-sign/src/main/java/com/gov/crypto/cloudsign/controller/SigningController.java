@@ -2,19 +2,32 @@ package com.gov.crypto.cloudsign.controller;
 
 import com.gov.crypto.cloudsign.security.SadValidator;
 import com.gov.crypto.cloudsign.security.SadValidator.ValidationResult;
+import com.gov.crypto.cloudsign.service.IdempotencyKeyReusedException;
+import com.gov.crypto.cloudsign.service.IdempotencyService;
+import com.gov.crypto.cloudsign.service.KeyAlreadyExistsException;
+import com.gov.crypto.cloudsign.service.PendingChallengeLimitException;
 import com.gov.crypto.cloudsign.service.SigningChallengeService;
 import com.gov.crypto.cloudsign.service.SigningChallengeService.ChallengeCreatedResult;
 import com.gov.crypto.cloudsign.service.SigningChallengeService.SigningChallenge;
 import com.gov.crypto.cloudsign.service.SigningChallengeService.VerificationResult;
+import com.gov.crypto.cloudsign.service.SigningExecutor;
+import com.gov.crypto.cloudsign.service.SigningRejectedException;
+import com.gov.crypto.service.HybridKeyStorage;
+import com.gov.crypto.service.HybridKeyStorage.HybridSignatures;
 import com.gov.crypto.service.KeyStorageService;
+import com.gov.crypto.service.KeyStorageService.GeneratedKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
 import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Cloud Signing Controller implementing CSC (Cloud Signature Consortium) API.
@@ -26,6 +39,13 @@ import java.time.Instant;
  * 
  * This ensures "Sole Control" - the user, not the server, authorizes each
  * signature.
+ *
+ * Signing runs on the {@link SigningExecutor}, not on the request thread;
+ * when its queue is full the request is answered 429 with Retry-After.
+ *
+ * Confirmation and key generation honour an Idempotency-Key header: a
+ * repeat with the same key gets the first response instead of running
+ * again (see {@link IdempotencyService}).
  */
 @RestController
 @RequestMapping("/csc/v1")
@@ -36,24 +56,47 @@ public class SigningController {
     private final KeyStorageService keyStorageService;
     private final SadValidator sadValidator;
     private final SigningChallengeService signingChallengeService;
+    private final SigningExecutor signingExecutor;
+    private final IdempotencyService idempotencyService;
 
     public SigningController(
             KeyStorageService keyStorageService,
             SadValidator sadValidator,
-            SigningChallengeService signingChallengeService) {
+            SigningChallengeService signingChallengeService,
+            SigningExecutor signingExecutor,
+            IdempotencyService idempotencyService) {
         this.keyStorageService = keyStorageService;
         this.sadValidator = sadValidator;
         this.signingChallengeService = signingChallengeService;
+        this.signingExecutor = signingExecutor;
+        this.idempotencyService = idempotencyService;
     }
 
     // ============ Request/Response Records ============
 
-    record SignInitRequest(String keyAlias, String dataHashBase64, String algorithm) {
+    /**
+     * Either dataHashBase64 or dataHashesBase64 (several documents under one
+     * OTP) is given.
+     *
+     * hashAlgo (CSC digest OID, e.g. 2.16.840.1.101.3.4.2.2 for SHA-384)
+     * marks the hashes as client-computed digests that are signed without
+     * hashing them again; without it they are signed as data.
+     */
+    record SignInitRequest(String keyAlias, String dataHashBase64, List<String> dataHashesBase64, String algorithm,
+            String hashAlgo) {
+
+        List<String> hashes() {
+            if (dataHashesBase64 != null && !dataHashesBase64.isEmpty()) {
+                return dataHashesBase64;
+            }
+            return dataHashBase64 != null ? List.of(dataHashBase64) : List.of();
+        }
     }
 
     record SignInitResponse(
             String challengeId,
             String documentHash,
+            List<String> documentHashes,
             Instant expiresAt,
             String message) {
     }
@@ -61,7 +104,16 @@ public class SigningController {
     record SignConfirmRequest(String challengeId, String otp) {
     }
 
-    record SignConfirmResponse(String signatureBase64, String keyAlias, String algorithm) {
+    /**
+     * signatures is in the same order as the hashes of the challenge;
+     * signatureBase64 is the first of them. With hybrid signing enabled,
+     * mlDsaSignatures holds the ML-DSA signatures of the same hashes, in the
+     * same order; otherwise it is null. classicalOnly is true when hybrid
+     * signing is enabled but the key predates it and has no ML-DSA half, so
+     * only the classical signatures could be made.
+     */
+    record SignConfirmResponse(String signatureBase64, List<String> signatures, List<String> mlDsaSignatures,
+            boolean classicalOnly, String keyAlias, String algorithm) {
     }
 
     record ErrorResponse(String error, String code, Instant timestamp) {
@@ -73,7 +125,10 @@ public class SigningController {
     record KeyGenRequest(String alias, String algorithm) {
     }
 
-    record KeyGenResponse(String publicKeyPem) {
+    /**
+     * mlDsaPublicKeyPem is only set with hybrid signing enabled.
+     */
+    record KeyGenResponse(String publicKeyPem, String mlDsaPublicKeyPem) {
     }
 
     record CsrRequest(String alias, String subject) {
@@ -82,6 +137,12 @@ public class SigningController {
     record CsrResponse(String csrPem) {
     }
 
+    record KeyGenCsrRequest(String alias, String algorithm, String subject) {
+    }
+
+    record KeyGenCsrResponse(String publicKeyPem, String csrPem, String mlDsaPublicKeyPem) {
+    }
+
     // ============ Signing Endpoints (SAP Two-Step Flow) ============
 
     /**
@@ -107,25 +168,36 @@ public class SigningController {
                     .body(ErrorResponse.of(validation.errorMessage(), "UNAUTHORIZED"));
         }
 
+        List<String> hashes = request.hashes();
+
         try {
-            log.info("Creating signing challenge for user {} on key {}",
-                    validation.username(), request.keyAlias());
+            log.info("Creating signing challenge for user {} on key {} ({} hashes)",
+                    validation.username(), request.keyAlias(), hashes.size());
 
             ChallengeCreatedResult challenge = signingChallengeService.createChallenge(
                     validation.username(),
                     request.keyAlias(),
-                    request.dataHashBase64(),
-                    request.algorithm());
+                    hashes,
+                    request.algorithm(),
+                    request.hashAlgo());
 
             // In production, send OTP via SMS/Email here or rely on TOTP app
             log.info("Challenge created: {}", challenge.challengeId());
 
             return ResponseEntity.ok(new SignInitResponse(
                     challenge.challengeId(),
-                    request.dataHashBase64(),
+                    hashes.get(0),
+                    hashes,
                     challenge.expiresAt(),
                     "Challenge created. Enter TOTP from Authenticator App to confirm signing."));
 
+        } catch (PendingChallengeLimitException e) {
+            log.warn("Sign init rejected for user {}: {}", validation.username(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ErrorResponse.of(e.getMessage(), "TOO_MANY_CHALLENGES"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ErrorResponse.of(e.getMessage(), "INVALID_REQUEST"));
         } catch (Exception e) {
             log.error("Failed to create signing challenge: {}", e.getMessage());
             return ResponseEntity.internalServerError()
@@ -143,13 +215,38 @@ public class SigningController {
      * signature.
      */
     @PostMapping("/sign/confirm")
-    public ResponseEntity<?> confirmSigning(@RequestBody SignConfirmRequest request) {
+    public CompletableFuture<ResponseEntity<?>> confirmSigning(
+            @RequestBody SignConfirmRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
         if (request.challengeId() == null || request.otp() == null) {
-            return ResponseEntity.badRequest()
-                    .body(ErrorResponse.of("Missing challengeId or otp", "INVALID_REQUEST"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(ErrorResponse.of("Missing challengeId or otp", "INVALID_REQUEST")));
+        }
+
+        if (idempotencyKey == null) {
+            return submitConfirm(request);
+        }
+        try {
+            return idempotencyService.execute("sign/confirm:" + idempotencyKey,
+                    request.challengeId() + "\n" + request.otp(), () -> submitConfirm(request));
+        } catch (IdempotencyKeyReusedException e) {
+            return CompletableFuture.completedFuture(idempotencyKeyReused(e));
+        }
+    }
+
+    private CompletableFuture<ResponseEntity<?>> submitConfirm(SignConfirmRequest request) {
+        // The challenge is only verified and consumed once the task is
+        // admitted, so a rejected confirmation can simply be retried
+        try {
+            return signingExecutor.submit(() -> verifyAndSign(request));
+        } catch (SigningRejectedException e) {
+            log.warn("Sign confirm rejected for challenge {}: {}", request.challengeId(), e.getMessage());
+            return CompletableFuture.completedFuture(signingBusy(e));
         }
+    }
 
+    private ResponseEntity<?> verifyAndSign(SignConfirmRequest request) {
         // Verify OTP and get challenge details
         VerificationResult verification = signingChallengeService.verifyChallenge(
                 request.challengeId(), request.otp());
@@ -164,20 +261,30 @@ public class SigningController {
         SigningChallenge challenge = verification.challenge();
 
         try {
-            log.info("OTP verified. Executing signature for user {} on key {}",
-                    challenge.username(), challenge.keyAlias());
-
-            // Execute the actual signing operation
-            String signature = keyStorageService.signHash(
-                    challenge.keyAlias(),
-                    challenge.documentHash(),
-                    challenge.algorithm());
+            log.info("OTP verified. Executing {} signature(s) for user {} on key {}",
+                    challenge.documentHashes().size(), challenge.username(), challenge.keyAlias());
+
+            // Execute the actual signing operation, one HSM session for the batch;
+            // hybrid stores compute the ECDSA and ML-DSA signatures concurrently.
+            // Keys from before hybrid signing have no ML-DSA half and are
+            // signed classically rather than failing the consumed challenge
+            HybridKeyStorage hybrid = keyStorageService instanceof HybridKeyStorage h ? h : null;
+            boolean classicalOnly = hybrid != null && !hybrid.hasMlDsaKey(challenge.keyAlias());
+            if (classicalOnly) {
+                log.warn("Key {} has no ML-DSA half, signing classically only", challenge.keyAlias());
+            }
+            HybridSignatures signed = hybrid != null && !classicalOnly ? signHybrid(hybrid, challenge)
+                    : new HybridSignatures(signClassical(challenge), null);
+            List<String> signatures = signed.classical();
 
             log.info("Signature created successfully for user {} on key {}",
                     challenge.username(), challenge.keyAlias());
 
             return ResponseEntity.ok(new SignConfirmResponse(
-                    signature,
+                    signatures.get(0),
+                    signatures,
+                    signed.mlDsa(),
+                    classicalOnly,
                     challenge.keyAlias(),
                     challenge.algorithm()));
 
@@ -189,6 +296,60 @@ public class SigningController {
         }
     }
 
+    private List<String> signClassical(SigningChallenge challenge) throws Exception {
+        return challenge.hashAlgo() != null
+                ? keyStorageService.signDigests(challenge.keyAlias(), challenge.documentHashes(), challenge.hashAlgo())
+                : keyStorageService.signHashes(challenge.keyAlias(), challenge.documentHashes(), challenge.algorithm());
+    }
+
+    private static HybridSignatures signHybrid(HybridKeyStorage hybrid, SigningChallenge challenge)
+            throws Exception {
+        return challenge.hashAlgo() != null
+                ? hybrid.signDigestsHybrid(challenge.keyAlias(), challenge.documentHashes(), challenge.hashAlgo())
+                : hybrid.signHashesHybrid(challenge.keyAlias(), challenge.documentHashes(), challenge.algorithm());
+    }
+
+    /**
+     * PEM of the alias's ML-DSA public key, or null if the store is not
+     * hybrid.
+     */
+    private String mlDsaPublicKeyPem(String alias) throws Exception {
+        return keyStorageService instanceof HybridKeyStorage hybrid ? hybrid.mlDsaPublicKeyPem(alias) : null;
+    }
+
+    private static ResponseEntity<?> keyExists(KeyAlreadyExistsException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ErrorResponse.of(e.getMessage(), "KEY_EXISTS"));
+    }
+
+    private static ResponseEntity<?> signingBusy(SigningRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(ErrorResponse.of(e.getMessage(), "SIGNING_BUSY"));
+    }
+
+    private static ResponseEntity<?> idempotencyKeyReused(IdempotencyKeyReusedException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ErrorResponse.of(e.getMessage(), "IDEMPOTENCY_KEY_REUSED"));
+    }
+
+    /**
+     * Run a synchronous key operation at most once per Idempotency-Key;
+     * without a key it simply runs.
+     */
+    private ResponseEntity<?> once(String idempotencyKey, String scope, String fingerprint,
+            Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        try {
+            return idempotencyService.execute(scope + ":" + idempotencyKey, fingerprint,
+                    () -> CompletableFuture.completedFuture(action.get())).join();
+        } catch (IdempotencyKeyReusedException e) {
+            return idempotencyKeyReused(e);
+        }
+    }
+
     /**
      * Cancel a pending signing challenge.
      */
@@ -226,7 +387,7 @@ public class SigningController {
 
     @Deprecated
     @PostMapping("/sign")
-    public ResponseEntity<?> signHash(
+    public CompletableFuture<ResponseEntity<?>> signHash(
             @RequestBody SignRequest request,
             @RequestHeader(value = "Authorization", required = false) String authHeader,
             Principal principal) {
@@ -237,22 +398,28 @@ public class SigningController {
         ValidationResult validation = sadValidator.validate(authHeader, request.keyAlias(), principal);
 
         if (!validation.valid()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(ErrorResponse.of(validation.errorMessage(), "UNAUTHORIZED"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ErrorResponse.of(validation.errorMessage(), "UNAUTHORIZED")));
         }
 
         try {
-            String signature = keyStorageService.signHash(
-                    request.keyAlias(),
-                    request.dataHashBase64(),
-                    request.algorithm());
-
-            return ResponseEntity.ok(new SignResponse(signature));
-
-        } catch (Exception e) {
-            log.error("Signing failed: {}", e.getMessage());
-            return ResponseEntity.internalServerError()
-                    .body(ErrorResponse.of("Signing operation failed", "INTERNAL_ERROR"));
+            return signingExecutor.submit(() -> {
+                try {
+                    String signature = keyStorageService.signHash(
+                            request.keyAlias(),
+                            request.dataHashBase64(),
+                            request.algorithm());
+
+                    return ResponseEntity.ok(new SignResponse(signature));
+
+                } catch (Exception e) {
+                    log.error("Signing failed: {}", e.getMessage());
+                    return ResponseEntity.internalServerError()
+                            .body(ErrorResponse.of("Signing operation failed", "INTERNAL_ERROR"));
+                }
+            });
+        } catch (SigningRejectedException e) {
+            return CompletableFuture.completedFuture(signingBusy(e));
         }
     }
 
@@ -265,6 +432,7 @@ public class SigningController {
     public ResponseEntity<?> generateKey(
             @RequestBody KeyGenRequest request,
             @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Principal principal) {
 
         ValidationResult validation = sadValidator.validate(authHeader, request.alias(), principal);
@@ -275,6 +443,11 @@ public class SigningController {
                     .body(ErrorResponse.of(validation.errorMessage(), "UNAUTHORIZED"));
         }
 
+        return once(idempotencyKey, "keys/generate:" + validation.username(),
+                request.alias() + "\n" + request.algorithm(), () -> generate(request, validation));
+    }
+
+    private ResponseEntity<?> generate(KeyGenRequest request, ValidationResult validation) {
         try {
             log.info("Generating key pair for user {} with alias {}", validation.username(), request.alias());
 
@@ -282,8 +455,12 @@ public class SigningController {
 
             log.info("Key pair generated successfully for user {}", validation.username());
 
-            return ResponseEntity.ok(new KeyGenResponse(publicKey));
+            return ResponseEntity.ok(new KeyGenResponse(publicKey,
+                    mlDsaPublicKeyPem(request.alias())));
 
+        } catch (KeyAlreadyExistsException e) {
+            log.warn("Key generation refused for {}: {}", validation.username(), e.getMessage());
+            return keyExists(e);
         } catch (IllegalArgumentException e) {
             log.warn("Invalid key generation request from {}: {}", validation.username(), e.getMessage());
             return ResponseEntity.badRequest()
@@ -329,4 +506,58 @@ public class SigningController {
                     .body(ErrorResponse.of("CSR generation failed", "INTERNAL_ERROR"));
         }
     }
+
+    /**
+     * Generate a key pair and its CSR in one round trip, as used by
+     * registration. The CSR is signed with the freshly generated key, so
+     * the key is not looked up again.
+     */
+    @PostMapping("/keys/generate-with-csr")
+    public ResponseEntity<?> generateKeyWithCsr(
+            @RequestBody KeyGenCsrRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            Principal principal) {
+
+        ValidationResult validation = sadValidator.validate(authHeader, request.alias(), principal);
+
+        if (!validation.valid()) {
+            log.warn("Key generation rejected: {} for alias {}", validation.errorMessage(), request.alias());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ErrorResponse.of(validation.errorMessage(), "UNAUTHORIZED"));
+        }
+
+        if (request.subject() == null || request.subject().isBlank()) {
+            return ResponseEntity.badRequest()
+                    .body(ErrorResponse.of("Missing subject", "INVALID_REQUEST"));
+        }
+
+        return once(idempotencyKey, "keys/generate-with-csr:" + validation.username(),
+                request.alias() + "\n" + request.algorithm() + "\n" + request.subject(),
+                () -> generateWithCsr(request, validation));
+    }
+
+    private ResponseEntity<?> generateWithCsr(KeyGenCsrRequest request, ValidationResult validation) {
+        try {
+            log.info("Generating key pair and CSR for user {} with alias {}", validation.username(), request.alias());
+
+            GeneratedKey generated = keyStorageService.generateKeyPairWithCsr(
+                    request.alias(), request.algorithm(), request.subject());
+
+            return ResponseEntity.ok(new KeyGenCsrResponse(generated.publicKeyPem(), generated.csrPem(),
+                    mlDsaPublicKeyPem(request.alias())));
+
+        } catch (KeyAlreadyExistsException e) {
+            log.warn("Key generation refused for {}: {}", validation.username(), e.getMessage());
+            return keyExists(e);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid key generation request from {}: {}", validation.username(), e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ErrorResponse.of(e.getMessage(), "INVALID_REQUEST"));
+        } catch (Exception e) {
+            log.error("Key and CSR generation failed for user {}: {}", validation.username(), e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ErrorResponse.of("Key generation failed", "INTERNAL_ERROR"));
+        }
+    }
 }
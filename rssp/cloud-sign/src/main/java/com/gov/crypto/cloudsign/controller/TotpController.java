@@ -2,7 +2,10 @@ package com.gov.crypto.cloudsign.controller;
 
 import com.gov.crypto.cloudsign.model.UserTotp;
 import com.gov.crypto.cloudsign.repository.UserTotpRepository;
+import com.gov.crypto.cloudsign.service.TotpSecretChangedEvent;
 import com.gov.crypto.cloudsign.service.TotpService;
+import com.gov.crypto.cloudsign.service.TotpVerifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,10 +17,15 @@ public class TotpController {
 
     private final TotpService totpService;
     private final UserTotpRepository userTotpRepository;
+    private final TotpVerifier totpVerifier;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public TotpController(TotpService totpService, UserTotpRepository userTotpRepository) {
+    public TotpController(TotpService totpService, UserTotpRepository userTotpRepository,
+            TotpVerifier totpVerifier, ApplicationEventPublisher eventPublisher) {
         this.totpService = totpService;
         this.userTotpRepository = userTotpRepository;
+        this.totpVerifier = totpVerifier;
+        this.eventPublisher = eventPublisher;
     }
 
     @PostMapping("/setup")
@@ -36,6 +44,7 @@ public class TotpController {
                 .orElse(new UserTotp(username, secret));
         userTotp.setSecretKey(secret);
         userTotpRepository.save(userTotp);
+        eventPublisher.publishEvent(new TotpSecretChangedEvent(username));
 
         return ResponseEntity.ok(new TotpSetupResponse(secret, qrUri));
     }
@@ -48,20 +57,18 @@ public class TotpController {
 
     @PostMapping("/verify")
     public ResponseEntity<?> verifyTotp(@RequestBody TotpVerifyRequest request) {
-        return userTotpRepository.findByUsername(request.username())
-                .map(totp -> {
-                    try {
-                        int code = Integer.parseInt(request.code());
-                        boolean valid = totpService.verifyCode(totp.getSecretKey(), code);
-                        if (valid) {
-                            return ResponseEntity.ok().build();
-                        } else {
-                            return ResponseEntity.badRequest().body("Invalid Code");
-                        }
-                    } catch (NumberFormatException e) {
-                        return ResponseEntity.badRequest().body("Invalid Code Format");
-                    }
-                })
-                .orElse(ResponseEntity.status(404).body("TOTP not set up"));
+        int code;
+        try {
+            code = Integer.parseInt(request.code());
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid Code Format");
+        }
+
+        return switch (totpVerifier.verify(request.username(), code)) {
+            case VALID -> ResponseEntity.ok().build();
+            case INVALID -> ResponseEntity.badRequest().body("Invalid Code");
+            case REPLAYED -> ResponseEntity.badRequest().body("Code Already Used");
+            case NOT_SET_UP -> ResponseEntity.status(404).body("TOTP not set up");
+        };
     }
 }
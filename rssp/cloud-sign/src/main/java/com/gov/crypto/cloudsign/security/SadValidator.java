@@ -1,24 +1,96 @@
 package com.gov.crypto.cloudsign.security;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Signature Activation Data (SAD) Validator for Cloud Signing.
  * Implements authorization checks before allowing signing operations.
- * 
+ *
  * Per CSC (Cloud Signature Consortium) API specification, SAD is required
  * to authorize remote signing operations.
+ *
+ * Bearer JWTs are verified (JWS signature, exp/nbf, optional issuer)
+ * against the JWK set published at sad.jwt.jwks-uri. The JWK set is cached
+ * and re-fetched when a token carries an unknown key id, so key rotation
+ * needs no restart. Verified claims are cached by token hash for a short
+ * time, never beyond the token's expiry, so repeated calls from the same
+ * session skip parsing and signature verification. Without a JWK set URI
+ * bearer JWTs are rejected.
  */
 @Component
 public class SadValidator {
 
+    private static final Logger log = LoggerFactory.getLogger(SadValidator.class);
+    private static final String VERIFIED = "VERIFIED";
+
+    private final JwtDecoder jwtDecoder;
+    private final long claimsCacheTtlMillis;
+    private final Map<String, VerifiedToken> verifiedTokens;
+
+    @Autowired
+    public SadValidator(
+            @Value("${sad.jwt.jwks-uri:}") String jwksUri,
+            @Value("${sad.jwt.issuer:}") String issuer,
+            @Value("${sad.jwt.algorithms:RS256,ES256,ES384}") String algorithms,
+            @Value("${sad.jwt.claims-cache-size:10000}") int claimsCacheSize,
+            @Value("${sad.jwt.claims-cache-ttl-seconds:60}") long claimsCacheTtlSeconds) {
+        this(jwksUri.isBlank() ? null : jwksDecoder(jwksUri, issuer, algorithms),
+                claimsCacheSize, claimsCacheTtlSeconds);
+        if (jwtDecoder == null) {
+            log.warn("sad.jwt.jwks-uri not set; bearer JWTs will be rejected");
+        }
+    }
+
+    SadValidator(JwtDecoder jwtDecoder, int claimsCacheSize, long claimsCacheTtlSeconds) {
+        this.jwtDecoder = jwtDecoder;
+        this.claimsCacheTtlMillis = claimsCacheTtlSeconds * 1000;
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > claimsCacheSize;
+            }
+        };
+    }
+
+    private static JwtDecoder jwksDecoder(String jwksUri, String issuer, String algorithms) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withJwkSetUri(jwksUri)
+                .jwsAlgorithms(algs -> {
+                    for (String name : algorithms.split(",")) {
+                        SignatureAlgorithm alg = SignatureAlgorithm.from(name.trim());
+                        if (alg == null) {
+                            throw new IllegalArgumentException("Unsupported JWS algorithm: " + name);
+                        }
+                        algs.add(alg);
+                    }
+                })
+                .build();
+        OAuth2TokenValidator<Jwt> validator = issuer.isBlank()
+                ? JwtValidators.createDefault()
+                : JwtValidators.createDefaultWithIssuer(issuer);
+        decoder.setJwtValidator(validator);
+        return decoder;
+    }
+
     /**
      * Validates the Signature Activation Data (SAD) token.
-     * In production, this should:
-     * 1. Verify JWT/OAuth2 token signature
-     * 2. Check token expiration
-     * 3. Validate the user has access to the specified key
-     * 4. Verify any additional claims (OTP, device binding, etc.)
      *
      * @param authHeader Authorization header (Bearer token)
      * @param keyAlias   The key alias being requested for signing
@@ -62,115 +134,83 @@ public class SadValidator {
             return ValidationResult.failure("Empty token");
         }
 
-        // TODO: In production, implement proper JWT validation:
-        // 1. Verify signature using public key from identity-service
-        // 2. Check expiration
-        // 3. Validate issuer and audience claims
-        // 4. Check key access permissions from database
-
-        // For now, we do basic token presence validation
-        // This ensures API cannot be called without authentication
+        VerifiedToken verified;
         try {
-            // Basic token structure validation (should be 3 parts separated by dots for
-            // JWT)
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) {
-                return ValidationResult.failure("Invalid token structure");
-            }
+            verified = verify(token);
+        } catch (Exception e) {
+            return ValidationResult.failure("Token validation failed: " + e.getMessage());
+        }
 
-            // Decode payload to extract user info (in production, verify signature first!)
-            String payloadJson = new String(java.util.Base64.getUrlDecoder().decode(parts[1]));
+        if (verified.username() == null || verified.username().isBlank()) {
+            return ValidationResult.failure("Token missing subject claim");
+        }
 
-            // Extract username from payload (simplified - use proper JSON parsing in
-            // production)
-            String username = extractClaim(payloadJson, "sub");
-            if (username == null || username.isBlank()) {
-                return ValidationResult.failure("Token missing subject claim");
-            }
+        // Check Identity Status
+        if (!VERIFIED.equals(verified.identityStatus())) {
+            return ValidationResult.failure("User identity not verified. Status: " + verified.identityStatus());
+        }
 
-            // Validate key ownership (in production, check database)
-            // For now, we just verify the user is authenticated
-            // Check expiration
-            String expStr = extractClaim(payloadJson, "exp");
-            if (expStr != null) {
-                try {
-                    long exp = Long.parseLong(expStr);
-                    if (System.currentTimeMillis() / 1000 > exp) {
-                        return ValidationResult.failure("Token expired");
-                    }
-                } catch (NumberFormatException e) {
-                    // Ignore or fail? fail is safer
-                    return ValidationResult.failure("Invalid expiration claim");
-                }
-            }
-            // Actually, let's fix the parser logic slightly or just skip exp if not easy,
-            // BUT I must implement identity_status which IS a string.
+        if (!isUserAuthorizedForKey(verified.username(), keyAlias)) {
+            return ValidationResult.failure("User not authorized for key: " + keyAlias);
+        }
 
-            // Check Identity Status
-            String identityStatus = extractClaim(payloadJson, "identity_status");
-            if (identityStatus == null || !"VERIFIED".equals(identityStatus)) {
-                return ValidationResult.failure("User identity not verified. Status: " + identityStatus);
-            }
+        return ValidationResult.success(verified.username());
+    }
 
-            // Validate key ownership (in production, check database)
-            // For now, we just verify the user is authenticated
-            if (!isUserAuthorizedForKey(username, keyAlias)) {
-                return ValidationResult.failure("User not authorized for key: " + keyAlias);
-            }
+    /**
+     * Verify a JWT, or return its claims from the cache if it was verified
+     * recently.
+     */
+    private VerifiedToken verify(String token) throws Exception {
+        if (jwtDecoder == null) {
+            throw new JwtException("JWT verification is not configured");
+        }
 
-            return ValidationResult.success(username);
+        String cacheKey = HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        long now = System.currentTimeMillis();
+        synchronized (verifiedTokens) {
+            VerifiedToken cached = verifiedTokens.get(cacheKey);
+            if (cached != null) {
+                if (now < cached.cacheUntilMillis()) {
+                    return cached;
+                }
+                verifiedTokens.remove(cacheKey);
+            }
+        }
 
-        } catch (Exception e) {
-            return ValidationResult.failure("Token validation failed: " + e.getMessage());
+        Jwt jwt = jwtDecoder.decode(token);
+        long cacheUntil = now + claimsCacheTtlMillis;
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt != null) {
+            cacheUntil = Math.min(cacheUntil, expiresAt.toEpochMilli());
         }
+        VerifiedToken verified = new VerifiedToken(jwt.getSubject(), jwt.getClaimAsString("identity_status"),
+                cacheUntil);
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(cacheKey, verified);
+        }
+        return verified;
     }
 
     /**
      * Check if user is authorized to use the specified key.
-     * In production, this should query the database for key ownership.
+     *
+     * Ownership is encoded in the alias itself (username or
+     * username_suffix), so this is a string comparison and needs no lookup
+     * or cache.
      */
     private boolean isUserAuthorizedForKey(String username, String keyAlias) {
-        // TODO: Implement proper authorization check against database
-        // For now, allow if the key alias starts with the username (simple ownership
-        // model)
-        // This is a placeholder - implement proper RBAC/ABAC in production
-
         if (keyAlias == null || username == null) {
             return false;
         }
 
         // Simple ownership model: user can only sign with their own keys
-        // Key aliases are expected to be in format: username or username_suffix
-        return keyAlias.equals(username) || keyAlias.startsWith(username + "_");
+        return keyAlias.startsWith(username)
+                && (keyAlias.length() == username.length() || keyAlias.charAt(username.length()) == '_');
     }
 
-    /**
-     * Extract a claim from JWT payload JSON.
-     * In production, use a proper JSON library.
-     */
-    private String extractClaim(String json, String claimName) {
-        // Simplified extraction for Strings: "claim":"value"
-        String searchKey = "\"" + claimName + "\":\"";
-        int start = json.indexOf(searchKey);
-        if (start == -1) {
-            // Try searching for numeric/boolean (no quotes around value): "claim":123
-            searchKey = "\"" + claimName + "\":";
-            start = json.indexOf(searchKey);
-            if (start == -1)
-                return null;
-            start += searchKey.length();
-            int end = json.indexOf(",", start);
-            if (end == -1)
-                end = json.indexOf("}", start);
-            if (end == -1)
-                return null;
-            return json.substring(start, end).trim();
-        }
-        start += searchKey.length();
-        int end = json.indexOf("\"", start);
-        if (end == -1)
-            return null;
-        return json.substring(start, end);
+    private record VerifiedToken(String username, String identityStatus, long cacheUntilMillis) {
     }
 
     public record ValidationResult(boolean valid, String username, String errorMessage) {
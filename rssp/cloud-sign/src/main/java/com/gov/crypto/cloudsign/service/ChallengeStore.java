@@ -0,0 +1,39 @@
+package com.gov.crypto.cloudsign.service;
+
+import com.gov.crypto.cloudsign.service.SigningChallengeService.SigningChallenge;
+
+import java.util.Optional;
+
+/**
+ * Storage for pending signing challenges.
+ *
+ * The in-memory store keeps challenges on one replica; the Redis store
+ * shares them so /sign/init and /sign/confirm may land on different
+ * replicas. Selected with signing.challenge.store (memory or redis).
+ */
+public interface ChallengeStore {
+
+    /**
+     * Store a new challenge unless its user already holds
+     * maxPendingPerUser unexpired challenges.
+     *
+     * @return false if the per-user limit was reached
+     */
+    boolean create(SigningChallenge challenge, int maxPendingPerUser);
+
+    Optional<SigningChallenge> find(String challengeId);
+
+    /**
+     * Atomically remove a challenge. Of several concurrent callers only one
+     * receives it.
+     */
+    Optional<SigningChallenge> consume(String challengeId);
+
+    /**
+     * Drop challenges past their expiry that the backend does not expire by
+     * itself.
+     *
+     * @return number of challenges dropped
+     */
+    int expireDue();
+}
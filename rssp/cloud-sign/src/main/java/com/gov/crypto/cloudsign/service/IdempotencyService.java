@@ -0,0 +1,157 @@
+package com.gov.crypto.cloudsign.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for signing and key generation.
+ *
+ * The first request with a key runs; its response is kept for
+ * signing.idempotency.ttl-seconds and replayed to any repeat with the same
+ * key and request. A repeat that arrives while the first is still running
+ * waits for the same result instead of running again, so gateway retries
+ * and double-clicks cost no extra HSM operations. Failures (exceptions,
+ * 5xx and 429) are not kept, so a retry after them runs afresh.
+ *
+ * Entries are local to the replica. A duplicate confirmation that reaches
+ * another replica still cannot sign twice, because challenges are consumed
+ * once; it is answered as already used instead of replayed.
+ */
+@Service
+public class IdempotencyService {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter mismatched;
+
+    public IdempotencyService(
+            @Value("${signing.idempotency.ttl-seconds:600}") long ttlSeconds,
+            @Value("${signing.idempotency.max-entries:10000}") int maxEntries,
+            MeterRegistry meterRegistry) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+
+        this.executed = requestCounter(meterRegistry, "executed");
+        this.replayed = requestCounter(meterRegistry, "replayed");
+        this.mismatched = requestCounter(meterRegistry, "mismatched");
+        Gauge.builder("idempotency.entries", entries, Map::size)
+                .description("Idempotency keys with a stored or in-flight response")
+                .register(meterRegistry);
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests carrying an Idempotency-Key")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Run the action once per key, or return the response of the run that
+     * already used it.
+     *
+     * @param key         Idempotency-Key scoped by the caller, e.g. by
+     *                    endpoint and user
+     * @param fingerprint the request's identifying fields; a repeat must
+     *                    match them
+     * @throws IdempotencyKeyReusedException if the key was used for a
+     *                                       different request
+     */
+    public CompletableFuture<ResponseEntity<?>> execute(String key, String fingerprint,
+            Supplier<CompletableFuture<ResponseEntity<?>>> action) {
+        String requestHash = sha256(fingerprint);
+        long now = System.currentTimeMillis();
+
+        CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+        Entry mine = new Entry(requestHash, result, now + ttlMillis);
+        Entry existing = entries.compute(key, (k, current) ->
+                current == null || current.expiresAtMillis() <= now ? mine : current);
+
+        if (existing != mine) {
+            if (!existing.requestHash().equals(requestHash)) {
+                mismatched.increment();
+                throw new IdempotencyKeyReusedException("Idempotency-Key was already used for a different request");
+            }
+            replayed.increment();
+            return existing.response();
+        }
+
+        executed.increment();
+        if (entries.size() > maxEntries) {
+            // Over capacity: still run, just do not remember this one
+            entries.remove(key, mine);
+        }
+
+        CompletableFuture<ResponseEntity<?>> started;
+        try {
+            started = action.get();
+        } catch (RuntimeException e) {
+            entries.remove(key, mine);
+            result.completeExceptionally(e);
+            throw e;
+        }
+        started.whenComplete((response, failure) -> {
+            if (failure != null || !storable(response)) {
+                entries.remove(key, mine);
+            }
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(response);
+            }
+        });
+        return result;
+    }
+
+    private static boolean storable(ResponseEntity<?> response) {
+        int status = response.getStatusCode().value();
+        return status < 500 && status != 429;
+    }
+
+    /**
+     * Drop expired responses.
+     *
+     * @return number of entries removed
+     */
+    @Scheduled(fixedDelayString = "${signing.idempotency.sweep-interval-ms:60000}")
+    public int expireEntries() {
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.values().removeIf(e -> e.expiresAtMillis() <= now && e.response().isDone());
+        return before - entries.size();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(String requestHash, CompletableFuture<ResponseEntity<?>> response, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.gov.crypto.cloudsign.service;
+
+/**
+ * Thrown when a key is generated for an alias that already has one and the
+ * store cannot replace it consistently.
+ */
+public class KeyAlreadyExistsException extends RuntimeException {
+
+    public KeyAlreadyExistsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.gov.crypto.cloudsign.service;
+
+/**
+ * Thrown when a user already holds the maximum number of open signing
+ * challenges.
+ */
+public class PendingChallengeLimitException extends RuntimeException {
+
+    public PendingChallengeLimitException(String message) {
+        super(message);
+    }
+}
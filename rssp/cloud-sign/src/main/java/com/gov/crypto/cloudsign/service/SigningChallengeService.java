@@ -1,55 +1,108 @@
 package com.gov.crypto.cloudsign.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.gov.crypto.service.HashAlgorithm;
+
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Base64;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
 /**
  * Service for managing signing challenges (Signature Activation Protocol).
  * 
  * Implements the "Sole Control" requirement per Decree 23/2025:
  * - User must authorize each signing operation with OTP
- * - Challenge is bound to specific document hash
+ * - Challenge is bound to specific document hash(es)
  * - Challenge expires after 5 minutes
+ *
+ * As in CSC signatures/signHash, one challenge may authorize a batch of
+ * hashes signed with the same key, so a multi-document dossier needs a
+ * single OTP.
+ *
+ * Challenges are kept in a {@link ChallengeStore}: in memory for a single
+ * replica, or in Redis so any replica can confirm a challenge another one
+ * created. Expiry never scans every pending challenge on the request path.
+ * Each user may hold at most signing.challenge.max-pending-per-user open
+ * challenges.
+ *
+ * OTPs are checked by {@link TotpVerifier} against cached secrets, and each
+ * code is accepted only once.
  */
 @Service
 public class SigningChallengeService {
 
-    private static final long CHALLENGE_TTL_SECONDS = 300; // 5 minutes
+    public static final int MAX_HASHES_PER_CHALLENGE = 100;
 
-    // In production, use Redis for distributed storage
-    private final Map<String, SigningChallenge> pendingChallenges = new ConcurrentHashMap<>();
+    private final ChallengeStore challengeStore;
     private final SecureRandom secureRandom = new SecureRandom();
     
-    private final com.gov.crypto.cloudsign.repository.UserTotpRepository userTotpRepository;
-    private final com.gov.crypto.cloudsign.service.TotpService totpService;
+    private final TotpVerifier totpVerifier;
+    private final long ttlSeconds;
+    private final int maxPendingPerUser;
+
+    private final Counter created;
+    private final Counter consumed;
+    private final Counter expired;
+    private final Counter cancelled;
+    private final Counter rejected;
 
     public SigningChallengeService(
-            com.gov.crypto.cloudsign.repository.UserTotpRepository userTotpRepository,
-            com.gov.crypto.cloudsign.service.TotpService totpService) {
-        this.userTotpRepository = userTotpRepository;
-        this.totpService = totpService;
+            TotpVerifier totpVerifier,
+            ChallengeStore challengeStore,
+            MeterRegistry meterRegistry,
+            @Value("${signing.challenge.ttl-seconds:300}") long ttlSeconds,
+            @Value("${signing.challenge.max-pending-per-user:10}") int maxPendingPerUser) {
+        this.totpVerifier = totpVerifier;
+        this.challengeStore = challengeStore;
+        this.ttlSeconds = ttlSeconds;
+        this.maxPendingPerUser = maxPendingPerUser;
+
+        this.created = challengeCounter(meterRegistry, "created");
+        this.consumed = challengeCounter(meterRegistry, "consumed");
+        this.expired = challengeCounter(meterRegistry, "expired");
+        this.cancelled = challengeCounter(meterRegistry, "cancelled");
+        this.rejected = challengeCounter(meterRegistry, "rejected");
+    }
+
+    private static Counter challengeCounter(MeterRegistry registry, String event) {
+        return Counter.builder("signing.challenges")
+                .description("Signing challenge lifecycle events")
+                .tag("event", event)
+                .register(registry);
     }
 
     /**
      * Represents a pending signing challenge.
+     *
+     * hashAlgo is the CSC digest OID when documentHashes are client-computed
+     * digests to be signed as is, or null when they are signed as data.
      */
     public record SigningChallenge(
             String challengeId,
             String username,
             String keyAlias,
-            String documentHash,
+            List<String> documentHashes,
             String algorithm,
+            String hashAlgo,
             Instant createdAt,
             Instant expiresAt) {
 
         public boolean isExpired() {
             return Instant.now().isAfter(expiresAt);
         }
+
+        /**
+         * First (for single-hash challenges, the only) authorized hash.
+         */
+        public String documentHash() {
+            return documentHashes.get(0);
+        }
     }
 
     /**
@@ -61,24 +114,68 @@ public class SigningChallengeService {
             String keyAlias,
             String documentHash,
             String algorithm) {
+        return createChallenge(username, keyAlias, List.of(documentHash), algorithm, null);
+    }
+
+    public ChallengeCreatedResult createChallenge(
+            String username,
+            String keyAlias,
+            List<String> documentHashes,
+            String algorithm) {
+        return createChallenge(username, keyAlias, documentHashes, algorithm, null);
+    }
+
+    /**
+     * Create one challenge authorizing several hashes with the same key.
+     * They are signed, in order, when the challenge is confirmed.
+     *
+     * With a hashAlgo the hashes are digests of that algorithm, checked here
+     * so a malformed request fails before the user is asked for an OTP.
+     *
+     * @throws PendingChallengeLimitException if the user already has the
+     *                                        maximum number of open challenges
+     */
+    public ChallengeCreatedResult createChallenge(
+            String username,
+            String keyAlias,
+            List<String> documentHashes,
+            String algorithm,
+            String hashAlgo) {
+
+        if (documentHashes == null || documentHashes.isEmpty()) {
+            throw new IllegalArgumentException("At least one document hash is required");
+        }
+        if (documentHashes.size() > MAX_HASHES_PER_CHALLENGE) {
+            throw new IllegalArgumentException(
+                    "At most " + MAX_HASHES_PER_CHALLENGE + " hashes may be signed per challenge");
+        }
+        if (hashAlgo != null) {
+            HashAlgorithm hashAlgorithm = HashAlgorithm.fromOid(hashAlgo);
+            for (String digest : documentHashes) {
+                hashAlgorithm.digest(Base64.getDecoder().decode(digest));
+            }
+        }
 
         String challengeId = generateChallengeId();
         Instant now = Instant.now();
-        Instant expiresAt = now.plusSeconds(CHALLENGE_TTL_SECONDS);
+        Instant expiresAt = now.plusSeconds(ttlSeconds);
 
         SigningChallenge challenge = new SigningChallenge(
                 challengeId,
                 username,
                 keyAlias,
-                documentHash,
+                List.copyOf(documentHashes),
                 algorithm,
+                hashAlgo,
                 now,
                 expiresAt);
 
-        pendingChallenges.put(challengeId, challenge);
-
-        // Clean up expired challenges periodically
-        cleanupExpiredChallenges();
+        if (!challengeStore.create(challenge, maxPendingPerUser)) {
+            rejected.increment();
+            throw new PendingChallengeLimitException(
+                    "Too many pending signing challenges (max " + maxPendingPerUser + ")");
+        }
+        created.increment();
 
         return new ChallengeCreatedResult(challengeId, expiresAt);
     }
@@ -91,14 +188,16 @@ public class SigningChallengeService {
      * Challenge is removed after successful verification (one-time use).
      */
     public VerificationResult verifyChallenge(String challengeId, String providedOtp) {
-        SigningChallenge challenge = pendingChallenges.get(challengeId);
+        SigningChallenge challenge = challengeStore.find(challengeId).orElse(null);
 
         if (challenge == null) {
             return VerificationResult.failure("Challenge not found or already used");
         }
 
         if (challenge.isExpired()) {
-            pendingChallenges.remove(challengeId);
+            if (challengeStore.consume(challengeId).isPresent()) {
+                expired.increment();
+            }
             return VerificationResult.failure("Challenge expired");
         }
         
@@ -110,21 +209,30 @@ public class SigningChallengeService {
             return VerificationResult.failure("Invalid OTP format");
         }
         
-        // Look up User Secret
-        var userTotp = userTotpRepository.findByUsername(challenge.username());
-        if (userTotp.isEmpty()) {
-            return VerificationResult.failure("TOTP not set up for user");
+        // Verify TOTP against the user's cached secret; the code is only
+        // used up once this confirmation has won the challenge below
+        TotpVerifier.Check check = totpVerifier.check(challenge.username(), otpCode);
+        switch (check.outcome()) {
+            case NOT_SET_UP:
+                return VerificationResult.failure("TOTP not set up for user");
+            case INVALID:
+                return VerificationResult.failure("Invalid TOTP code");
+            case REPLAYED:
+                return VerificationResult.failure("TOTP code already used");
+            case VALID:
+                break;
         }
 
-        // Verify TOTP
-        boolean isValid = totpService.verifyCode(userTotp.get().getSecretKey(), otpCode);
-        
-        if (!isValid) {
-            return VerificationResult.failure("Invalid TOTP code");
+        // Remove challenge after successful verification (one-time use);
+        // only one of two concurrent confirmations may win
+        if (challengeStore.consume(challengeId).isEmpty()) {
+            return VerificationResult.failure("Challenge not found or already used");
         }
-
-        // Remove challenge after successful verification (one-time use)
-        pendingChallenges.remove(challengeId);
+        // The same code confirming another challenge at the same time
+        if (!totpVerifier.commit(challenge.username(), check.timeStep())) {
+            return VerificationResult.failure("TOTP code already used");
+        }
+        consumed.increment();
 
         return VerificationResult.success(challenge);
     }
@@ -147,7 +255,22 @@ public class SigningChallengeService {
      * Cancel a pending challenge.
      */
     public void cancelChallenge(String challengeId) {
-        pendingChallenges.remove(challengeId);
+        if (challengeStore.consume(challengeId).isPresent()) {
+            cancelled.increment();
+        }
+    }
+
+    /**
+     * Drop challenges whose TTL has passed, for stores that do not expire
+     * them natively.
+     *
+     * @return number of challenges expired
+     */
+    @Scheduled(fixedDelayString = "${signing.challenge.sweep-interval-ms:1000}")
+    public int expireChallenges() {
+        int count = challengeStore.expireDue();
+        expired.increment(count);
+        return count;
     }
 
     private String generateChallengeId() {
@@ -155,8 +278,4 @@ public class SigningChallengeService {
         secureRandom.nextBytes(bytes);
         return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
-
-    private void cleanupExpiredChallenges() {
-        pendingChallenges.entrySet().removeIf(entry -> entry.getValue().isExpired());
-    }
 }
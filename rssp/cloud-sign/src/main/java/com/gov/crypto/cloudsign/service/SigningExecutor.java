@@ -0,0 +1,134 @@
+package com.gov.crypto.cloudsign.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs signing operations off the servlet request threads.
+ *
+ * Each task gets a virtual thread, and at most signing.executor.concurrency
+ * of them (by default the HSM session pool size) sign at once. The rest
+ * wait for a permit, up to signing.executor.max-queued. Beyond that,
+ * submissions are rejected at once, so a saturated HSM shows up as 429s
+ * instead of blocked Tomcat threads and failing health checks.
+ */
+@Service
+public class SigningExecutor {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final long retryAfterSeconds;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Timer serviceTimer;
+    private final Counter rejected;
+
+    public SigningExecutor(
+            @Value("${signing.executor.concurrency:${hsm.session-pool-size:16}}") int concurrency,
+            @Value("${signing.executor.max-queued:64}") int maxQueued,
+            @Value("${signing.executor.retry-after-seconds:1}") long retryAfterSeconds,
+            MeterRegistry meterRegistry) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Signing concurrency must be positive");
+        }
+        this.permits = new Semaphore(concurrency, true);
+        this.maxQueued = maxQueued;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        this.waitTimer = Timer.builder("signing.executor.wait")
+                .description("Time signing tasks waited for a free signing permit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.serviceTimer = Timer.builder("signing.executor.service")
+                .description("Time signing tasks held a permit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("signing.executor.rejected")
+                .description("Signing tasks rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("signing.executor.queued", queued, AtomicInteger::get)
+                .description("Signing tasks waiting for a permit")
+                .register(meterRegistry);
+        Gauge.builder("signing.executor.active", active, AtomicInteger::get)
+                .description("Signing tasks holding a permit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a signing task.
+     *
+     * @throws SigningRejectedException if max-queued tasks are already
+     *                                  waiting; the task is not run
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new SigningRejectedException("Signing capacity exhausted, retry later", retryAfterSeconds);
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long submitted = System.nanoTime();
+        executor.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                queued.decrementAndGet();
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+                return;
+            }
+            queued.decrementAndGet();
+            long started = System.nanoTime();
+            waitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+            active.incrementAndGet();
+            T value = null;
+            Throwable failure = null;
+            try {
+                value = task.call();
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                active.decrementAndGet();
+                permits.release();
+                serviceTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+            // Completed after the permit is back, so callers never see it held
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    public int active() {
+        return active.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,19 @@
+package com.gov.crypto.cloudsign.service;
+
+/**
+ * Thrown when the signing executor's queue is full; the caller should retry
+ * after {@link #getRetryAfterSeconds()}.
+ */
+public class SigningRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public SigningRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
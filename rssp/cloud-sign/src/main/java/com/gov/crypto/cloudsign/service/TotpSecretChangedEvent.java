@@ -0,0 +1,8 @@
+package com.gov.crypto.cloudsign.service;
+
+/**
+ * Published when a user's TOTP secret is set up or reset, so cached copies
+ * of the old secret are dropped.
+ */
+public record TotpSecretChangedEvent(String username) {
+}
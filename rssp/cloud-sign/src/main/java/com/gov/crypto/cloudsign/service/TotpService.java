@@ -1,5 +1,7 @@
 package com.gov.crypto.cloudsign.service;
 
+import java.util.OptionalLong;
+
 public interface TotpService {
     /**
      * Generate a new random secret key for TOTP.
@@ -25,4 +27,25 @@ public interface TotpService {
      * @return true if valid, false otherwise.
      */
     boolean verifyCode(String secret, int code);
+
+    /**
+     * Decode a stored base32 secret into the raw HMAC key, so it can be
+     * cached and checked without decoding it again.
+     */
+    byte[] decodeSecret(String secret);
+
+    /**
+     * Verify a TOTP code against a decoded key.
+     *
+     * @param key  The decoded secret, see {@link #decodeSecret(String)}.
+     * @param code The 6-digit code provided by the user.
+     * @return the time step the code belongs to, or empty if it matches
+     *         none inside the verification window.
+     */
+    OptionalLong matchTimeStep(byte[] key, int code);
+
+    /**
+     * @return the time step of the current time.
+     */
+    long currentTimeStep();
 }
@@ -0,0 +1,181 @@
+package com.gov.crypto.cloudsign.service;
+
+import com.gov.crypto.cloudsign.repository.UserTotpRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks a user's TOTP code without a database round trip on the hot path.
+ *
+ * Decoded secrets are cached per user (LRU, totp.secret-cache.size) and
+ * dropped when a {@link TotpSecretChangedEvent} reports a setup or reset.
+ * Cache entries also expire after totp.secret-cache.ttl-seconds, which
+ * bounds how long another replica may keep accepting a replaced secret.
+ *
+ * Each time step is accepted once per user: a code that was already used,
+ * or one older than the last accepted code, is rejected as a replay for
+ * the rest of its window. Callers whose action can still fail after the
+ * code checks out use {@link #check} and {@link #commit} separately, so a
+ * code is only used up by an action that happened.
+ */
+@Service
+public class TotpVerifier {
+
+    public enum Outcome {
+        VALID, INVALID, REPLAYED, NOT_SET_UP
+    }
+
+    /**
+     * @param timeStep the matched time step, to {@link #commit}; only
+     *                 meaningful when the outcome is VALID
+     */
+    public record Check(Outcome outcome, long timeStep) {
+    }
+
+    private final UserTotpRepository userTotpRepository;
+    private final TotpService totpService;
+    private final long secretTtlMillis;
+
+    private final Map<String, CachedSecret> secrets;
+    private final Map<String, Long> lastUsedSteps = new ConcurrentHashMap<>();
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter replays;
+
+    public TotpVerifier(
+            UserTotpRepository userTotpRepository,
+            TotpService totpService,
+            MeterRegistry meterRegistry,
+            @Value("${totp.secret-cache.size:10000}") int secretCacheSize,
+            @Value("${totp.secret-cache.ttl-seconds:300}") long secretCacheTtlSeconds) {
+        this.userTotpRepository = userTotpRepository;
+        this.totpService = totpService;
+        this.secretTtlMillis = secretCacheTtlSeconds * 1000;
+        this.secrets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSecret> eldest) {
+                return size() > secretCacheSize;
+            }
+        };
+
+        this.cacheHits = Counter.builder("totp.secret_cache").tag("result", "hit")
+                .description("TOTP secret lookups served from the cache")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("totp.secret_cache").tag("result", "miss")
+                .description("TOTP secret lookups that went to the database")
+                .register(meterRegistry);
+        this.replays = Counter.builder("totp.replays")
+                .description("Valid TOTP codes rejected because their time step was already used")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check a code and record its time step as used.
+     */
+    public Outcome verify(String username, int code) {
+        Check check = check(username, code);
+        if (check.outcome() == Outcome.VALID && !commit(username, check.timeStep())) {
+            return Outcome.REPLAYED;
+        }
+        return check.outcome();
+    }
+
+    /**
+     * Check a code without recording its time step as used.
+     */
+    public Check check(String username, int code) {
+        byte[] key = secretFor(username);
+        if (key == null) {
+            return new Check(Outcome.NOT_SET_UP, -1);
+        }
+
+        OptionalLong step = totpService.matchTimeStep(key, code);
+        if (step.isEmpty()) {
+            return new Check(Outcome.INVALID, -1);
+        }
+
+        long matched = step.getAsLong();
+        Long last = lastUsedSteps.get(username);
+        if (last != null && last >= matched) {
+            replays.increment();
+            return new Check(Outcome.REPLAYED, matched);
+        }
+        return new Check(Outcome.VALID, matched);
+    }
+
+    /**
+     * Record a time step from a VALID {@link #check} as used.
+     *
+     * @return false if the step, or a later one, was used in the meantime
+     */
+    public boolean commit(String username, long timeStep) {
+        boolean[] fresh = new boolean[1];
+        lastUsedSteps.compute(username, (u, last) -> {
+            if (last != null && last >= timeStep) {
+                return last;
+            }
+            fresh[0] = true;
+            return timeStep;
+        });
+        if (!fresh[0]) {
+            replays.increment();
+        }
+        return fresh[0];
+    }
+
+    private byte[] secretFor(String username) {
+        long now = System.currentTimeMillis();
+        synchronized (secrets) {
+            CachedSecret cached = secrets.get(username);
+            if (cached != null && now < cached.cacheUntilMillis()) {
+                cacheHits.increment();
+                return cached.key();
+            }
+        }
+
+        cacheMisses.increment();
+        var userTotp = userTotpRepository.findByUsername(username);
+        if (userTotp.isEmpty()) {
+            return null;
+        }
+        byte[] key = totpService.decodeSecret(userTotp.get().getSecretKey());
+        synchronized (secrets) {
+            secrets.put(username, new CachedSecret(key, now + secretTtlMillis));
+        }
+        return key;
+    }
+
+    @EventListener
+    public void onSecretChanged(TotpSecretChangedEvent event) {
+        synchronized (secrets) {
+            secrets.remove(event.username());
+        }
+    }
+
+    /**
+     * Forget used time steps that have left the verification window; codes
+     * from them no longer verify anyway.
+     *
+     * @return number of users removed
+     */
+    @Scheduled(fixedDelayString = "${totp.replay-sweep-interval-ms:60000}")
+    public int expireUsedCodes() {
+        long oldestValid = totpService.currentTimeStep() - 1;
+        int before = lastUsedSteps.size();
+        lastUsedSteps.values().removeIf(step -> step < oldestValid);
+        return before - lastUsedSteps.size();
+    }
+
+    private record CachedSecret(byte[] key, long cacheUntilMillis) {
+    }
+}
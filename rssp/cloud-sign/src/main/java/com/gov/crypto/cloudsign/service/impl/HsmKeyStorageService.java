@@ -1,9 +1,14 @@
 package com.gov.crypto.cloudsign.service.impl;
 
-import com.gov.crypto.service.KeyStorageService;
+import com.gov.crypto.service.HashAlgorithm;
+import com.gov.crypto.service.PreHashedSignatures;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
@@ -15,7 +20,12 @@ import java.io.StringWriter;
 import java.security.*;
 import java.security.cert.Certificate;
 import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * HSM-backed Key Storage Service using PKCS#11.
@@ -25,10 +35,23 @@ import java.util.Base64;
  * 
  * For development: Use SoftwareKeyStorageService with @Profile("dev")
  * For production: This service with real HSM (Thales, Utimaco, etc.)
+ *
+ * Signing runs on a pool of PKCS#11 sessions sized to the token's session
+ * limit, and resolved private-key handles are cached per alias, so
+ * concurrent signHash calls do not serialize on the KeyStore.
+ *
+ * With hsm.multi-slot.enabled one instance is created per slot by
+ * {@link MultiSlotKeyStorageService} instead of this bean.
+ *
+ * With hsm.key-pool.enabled, key pairs are generated in the token ahead of
+ * demand by a {@link KeyPairPool}. They stay session objects until
+ * generateKeyPair stores one under its alias, so unassigned keys never
+ * persist on the token.
  */
 @Service("hsmKeyStorage")
 @Profile("prod")
-public class HsmKeyStorageService implements KeyStorageService {
+@ConditionalOnProperty(name = "hsm.multi-slot.enabled", havingValue = "false", matchIfMissing = true)
+public class HsmKeyStorageService implements KeySlot {
 
     private static final Logger log = LoggerFactory.getLogger(HsmKeyStorageService.class);
     private static final String ECDSA_ALGORITHM = "SHA384withECDSA";
@@ -36,19 +59,50 @@ public class HsmKeyStorageService implements KeyStorageService {
 
     private Provider pkcs11Provider;
     private KeyStore hsmKeyStore;
+    private Pkcs11SessionPool sessionPool;
+    private KeyPairPool keyPool;
     private final char[] userPin;
+    private final String slotName;
+    private final Map<String, PrivateKey> keyHandles = new ConcurrentHashMap<>();
 
+    @Autowired
     public HsmKeyStorageService(
             @Value("${hsm.library:/usr/lib/softhsm/libsofthsm2.so}") String hsmLibrary,
             @Value("${hsm.slot:0}") int hsmSlot,
             @Value("${hsm.user-pin:87654321}") String hsmUserPin,
-            @Value("${hsm.token-label:gov-signing-token}") String tokenLabel) {
+            @Value("${hsm.token-label:gov-signing-token}") String tokenLabel,
+            @Value("${hsm.session-pool-size:16}") int sessionPoolSize,
+            @Value("${hsm.session-wait-timeout-ms:5000}") long sessionWaitTimeoutMs,
+            @Value("${hsm.key-pool.enabled:false}") boolean keyPoolEnabled,
+            @Value("${hsm.key-pool.low-watermark:20}") int keyPoolLowWatermark,
+            @Value("${hsm.key-pool.high-watermark:100}") int keyPoolHighWatermark,
+            @Value("${hsm.key-pool.refill-per-second:10}") int keyPoolRefillPerSecond,
+            MeterRegistry meterRegistry) {
+        this(hsmLibrary, hsmSlot, hsmUserPin, tokenLabel, sessionPoolSize, sessionWaitTimeoutMs,
+                new KeyPairPool.Settings(keyPoolEnabled, keyPoolLowWatermark, keyPoolHighWatermark,
+                        keyPoolRefillPerSecond),
+                meterRegistry, String.valueOf(hsmSlot));
+    }
+
+    public HsmKeyStorageService(String hsmLibrary, int hsmSlot, String hsmUserPin, String tokenLabel,
+            int sessionPoolSize, long sessionWaitTimeoutMs, KeyPairPool.Settings keyPoolSettings,
+            MeterRegistry meterRegistry, String slotName) {
 
         this.userPin = hsmUserPin.toCharArray();
+        this.slotName = slotName;
 
         try {
             initializePkcs11(hsmLibrary, hsmSlot, tokenLabel);
-            log.info("HSM Key Storage initialized with PKCS#11");
+            sessionPool = new Pkcs11SessionPool(sessionPoolSize, sessionWaitTimeoutMs,
+                    () -> Signature.getInstance(ECDSA_ALGORITHM, pkcs11Provider), meterRegistry,
+                    Tags.of("slot", slotName));
+            if (keyPoolSettings.enabled()) {
+                keyPool = new KeyPairPool(slotName, this::generateEcKeyPair, keyPoolSettings, meterRegistry,
+                        Tags.of("slot", slotName));
+                keyPool.start();
+            }
+            log.info("HSM Key Storage initialized with PKCS#11 slot {} ({} signing sessions, key pool {})",
+                    slotName, sessionPoolSize, keyPoolSettings.enabled() ? "on" : "off");
         } catch (Exception e) {
             log.error("FAILED to initialize HSM - service will not function: {}", e.getMessage());
             throw new IllegalStateException("HSM initialization failed - cannot start in prod mode", e);
@@ -85,14 +139,25 @@ public class HsmKeyStorageService implements KeyStorageService {
     @Override
     public String generateKeyPair(String alias, String algorithm) throws Exception {
         log.info("Generating key pair in HSM: alias={}, algorithm={}", alias, algorithm);
-        return generateKeyInHsm(alias, algorithm);
+        // Return public key in PEM format
+        return publicKeyToPem(generateKeyInHsm(alias).getPublic());
     }
 
-    private String generateKeyInHsm(String alias, String algorithm) throws Exception {
-        // Generate key pair inside the HSM
-        KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC", pkcs11Provider);
-        kpg.initialize(new ECGenParameterSpec(EC_CURVE));
-        KeyPair keyPair = kpg.generateKeyPair();
+    /**
+     * Generate the key and sign the CSR with the key objects in hand, saving
+     * the keystore lookups a separate generateCsr call would make.
+     */
+    @Override
+    public GeneratedKey generateKeyPairWithCsr(String alias, String algorithm, String subject) throws Exception {
+        log.info("Generating key pair and CSR in HSM: alias={}, subject={}", alias, subject);
+        KeyPair keyPair = generateKeyInHsm(alias);
+        return new GeneratedKey(publicKeyToPem(keyPair.getPublic()),
+                csrToPem(keyPair.getPublic(), keyPair.getPrivate(), subject));
+    }
+
+    private KeyPair generateKeyInHsm(String alias) throws Exception {
+        // Generate key pair inside the HSM, or take one generated ahead
+        KeyPair keyPair = keyPool != null ? keyPool.take() : generateEcKeyPair();
 
         // Store in HSM - private key stays in HSM
         // Note: For PKCS#11, we typically need a certificate chain
@@ -101,11 +166,35 @@ public class HsmKeyStorageService implements KeyStorageService {
         Certificate[] certChain = new Certificate[] { selfSignedCert };
 
         hsmKeyStore.setKeyEntry(alias, keyPair.getPrivate(), userPin, certChain);
+        keyHandles.remove(alias);
 
         log.info("Key pair generated in HSM with alias: {}", alias);
+        return keyPair;
+    }
 
-        // Return public key in PEM format
-        return publicKeyToPem(keyPair.getPublic());
+    private KeyPair generateEcKeyPair() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC", pkcs11Provider);
+        kpg.initialize(new ECGenParameterSpec(EC_CURVE));
+        return kpg.generateKeyPair();
+    }
+
+    @jakarta.annotation.PreDestroy
+    @Override
+    public void close() {
+        if (keyPool != null) {
+            keyPool.close();
+        }
+        if (sessionPool != null) {
+            sessionPool.close();
+        }
+        if (pkcs11Provider instanceof AuthProvider authProvider) {
+            try {
+                authProvider.logout();
+            } catch (javax.security.auth.login.LoginException e) {
+                log.warn("HSM logout on slot {} failed: {}", slotName, e.getMessage());
+            }
+        }
+        log.info("HSM slot {} closed", slotName);
     }
 
     @Override
@@ -115,25 +204,126 @@ public class HsmKeyStorageService implements KeyStorageService {
         return signWithHsm(keyAlias, dataHash);
     }
 
-    private String signWithHsm(String alias, byte[] data) throws Exception {
-        // Get private key from HSM (key never leaves HSM)
-        PrivateKey privateKey = (PrivateKey) hsmKeyStore.getKey(alias, userPin);
+    @Override
+    public List<String> signHashes(String keyAlias, List<String> dataHashesBase64, String algorithm)
+            throws Exception {
+        log.info("Signing {} hashes with HSM key: {}", dataHashesBase64.size(), keyAlias);
+        List<byte[]> hashes = new ArrayList<>(dataHashesBase64.size());
+        for (String hash : dataHashesBase64) {
+            hashes.add(Base64.getDecoder().decode(hash));
+        }
+
+        PrivateKey privateKey = keyHandle(keyAlias);
+        List<byte[]> sigs;
+        try {
+            sigs = sessionPool.signAll(privateKey, hashes);
+        } catch (ProviderException e) {
+            keyHandles.remove(keyAlias);
+            throw e;
+        }
+
+        List<String> encoded = new ArrayList<>(sigs.size());
+        for (byte[] sig : sigs) {
+            encoded.add(Base64.getEncoder().encodeToString(sig));
+        }
+        return encoded;
+    }
+
+    @Override
+    public List<String> signDigests(String keyAlias, List<String> digestsBase64, String hashAlgoOid)
+            throws Exception {
+        log.info("Signing {} pre-hashed digests with HSM key: {}", digestsBase64.size(), keyAlias);
+        HashAlgorithm hashAlgorithm = HashAlgorithm.fromOid(hashAlgoOid);
+        PrivateKey privateKey = keyHandle(keyAlias);
+        List<byte[]> inputs = new ArrayList<>(digestsBase64.size());
+        for (String digest : digestsBase64) {
+            inputs.add(PreHashedSignatures.signatureInput(privateKey, hashAlgorithm,
+                    hashAlgorithm.digest(Base64.getDecoder().decode(digest))));
+        }
+        String rawAlgorithm = PreHashedSignatures.signatureAlgorithm(privateKey);
 
-        if (privateKey == null) {
-            throw new IllegalArgumentException("Key not found in HSM: " + alias);
+        List<String> encoded = new ArrayList<>(inputs.size());
+        try {
+            // The pooled SHA384withECDSA instance only reserves the session
+            // slot; the raw mechanism (CKM_ECDSA / CKM_RSA_PKCS) runs in it
+            sessionPool.withSession(ignored -> {
+                Signature raw = Signature.getInstance(rawAlgorithm, pkcs11Provider);
+                raw.initSign(privateKey);
+                for (byte[] input : inputs) {
+                    raw.update(input);
+                    encoded.add(Base64.getEncoder().encodeToString(raw.sign()));
+                }
+                return null;
+            });
+        } catch (ProviderException e) {
+            keyHandles.remove(keyAlias);
+            throw e;
         }
+        return encoded;
+    }
 
-        // Sign using HSM
-        Signature signature = Signature.getInstance(ECDSA_ALGORITHM, pkcs11Provider);
-        signature.initSign(privateKey);
-        signature.update(data);
-        byte[] sig = signature.sign();
+    private String signWithHsm(String alias, byte[] data) throws Exception {
+        // Private key handle (key never leaves HSM)
+        PrivateKey privateKey = keyHandle(alias);
+
+        byte[] sig;
+        try {
+            sig = sessionPool.sign(privateKey, data);
+        } catch (ProviderException e) {
+            // Handle may be stale (token re-inserted, object deleted)
+            keyHandles.remove(alias);
+            throw e;
+        }
 
         log.info("Signature created in HSM for key: {}", alias);
         return Base64.getEncoder().encodeToString(sig);
     }
 
+    /**
+     * Resolve a private-key handle, cached per alias. P11KeyStore lookups are
+     * synchronized and search the token, so they are kept off the hot path.
+     */
+    private PrivateKey keyHandle(String alias) throws Exception {
+        PrivateKey key = keyHandles.get(alias);
+        if (key == null) {
+            key = (PrivateKey) hsmKeyStore.getKey(alias, userPin);
+            if (key == null) {
+                throw new IllegalArgumentException("Key not found in HSM: " + alias);
+            }
+            keyHandles.put(alias, key);
+        }
+        return key;
+    }
 
+    @Override
+    public String name() {
+        return slotName;
+    }
+
+    @Override
+    public List<String> aliases() throws Exception {
+        List<String> keyAliases = new ArrayList<>();
+        for (String alias : Collections.list(hsmKeyStore.aliases())) {
+            if (hsmKeyStore.isKeyEntry(alias)) {
+                keyAliases.add(alias);
+            }
+        }
+        return keyAliases;
+    }
+
+    @Override
+    public boolean containsAlias(String alias) throws Exception {
+        return hsmKeyStore.isKeyEntry(alias);
+    }
+
+    /**
+     * P11KeyStore checks that the token is still present before answering,
+     * so a removed token or dead proxy surfaces here as an exception.
+     */
+    @Override
+    public void probe() throws Exception {
+        hsmKeyStore.size();
+    }
 
     @Override
     public String generateCsr(String alias, String subject) throws Exception {
@@ -148,11 +338,15 @@ public class HsmKeyStorageService implements KeyStorageService {
                 throw new IllegalArgumentException("Certificate not found for alias: " + alias);
             }
             publicKey = cert.getPublicKey();
-            privateKey = (PrivateKey) hsmKeyStore.getKey(alias, userPin);
+            privateKey = keyHandle(alias);
         } else {
             throw new IllegalStateException("HSM KeyStore not initialized");
         }
 
+        return csrToPem(publicKey, privateKey, subject);
+    }
+
+    private String csrToPem(PublicKey publicKey, PrivateKey privateKey, String subject) throws Exception {
         // Generate CSR using BouncyCastle
         org.bouncycastle.asn1.x500.X500Name x500Subject = new org.bouncycastle.asn1.x500.X500Name(subject);
         org.bouncycastle.pkcs.PKCS10CertificationRequestBuilder csrBuilder = new org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder(
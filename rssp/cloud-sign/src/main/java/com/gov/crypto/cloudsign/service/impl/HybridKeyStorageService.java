@@ -0,0 +1,222 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import com.gov.crypto.cloudsign.service.KeyAlreadyExistsException;
+import com.gov.crypto.service.HybridKeyStorage;
+import com.gov.crypto.service.KeyStorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ECDSA + ML-DSA hybrid key storage.
+ *
+ * Every alias has two keys: the classical ECDSA P-384 key in the store this
+ * one wraps (software or HSM), and an ML-DSA key in a per-key PKCS#12
+ * directory, since the PKCS#11 provider has no ML-DSA mechanism. Keys are
+ * generated in pairs, and the hybrid signing methods compute both
+ * signatures at the same time, the ML-DSA half on a virtual thread, so a
+ * confirmation takes about as long as the slower of the two rather than
+ * their sum.
+ *
+ * The plain KeyStorageService methods use the classical key only, so
+ * clients that do not ask for hybrid signatures see no change. Aliases
+ * generated before hybrid signing was enabled have no ML-DSA key until
+ * they are generated again; {@link #hasMlDsaKey} tells callers so.
+ *
+ * The classical store may keep an existing key (software) or replace it
+ * (HSM) when an alias is generated again, while the ML-DSA directory
+ * cannot be told which happened. Generating an alias that already has an
+ * ML-DSA key is therefore refused before either store is touched, and an
+ * ML-DSA key whose classical half failed is removed again, so the two
+ * keys of an alias always come from the same generation.
+ */
+@Service("hybridKeyStorage")
+@Primary
+@ConditionalOnProperty(name = "signing.hybrid.enabled", havingValue = "true")
+public class HybridKeyStorageService implements HybridKeyStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridKeyStorageService.class);
+    private static final Set<String> ML_DSA_LEVELS = Set.of("ML-DSA-65", "ML-DSA-87");
+    private static final int LOCK_STRIPES = 64;
+
+    private final KeyStorageService classical;
+    private final SoftwareKeyStorageService mlDsa;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Object[] generateLocks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param classical the profile's regular key store; Spring never
+     *                  injects this bean into itself
+     */
+    @Autowired
+    public HybridKeyStorageService(
+            KeyStorageService classical,
+            @Value("${signing.hybrid.ml-dsa-dir:/data/keys/cloud-sign-mldsa}") String mlDsaDir,
+            @Value("${app.keystore.password:changeit}") String keystorePassword,
+            @Value("${signing.hybrid.ml-dsa-level:ML-DSA-65}") String mlDsaLevel) {
+        this(classical, new SoftwareKeyStorageService(mlDsaDir + ".p12", mlDsaDir, keystorePassword,
+                requireLevel(mlDsaLevel)));
+    }
+
+    HybridKeyStorageService(KeyStorageService classical, SoftwareKeyStorageService mlDsa) {
+        this.classical = classical;
+        this.mlDsa = mlDsa;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            generateLocks[i] = new Object();
+        }
+    }
+
+    private static String requireLevel(String level) {
+        if (!ML_DSA_LEVELS.contains(level)) {
+            throw new IllegalArgumentException("Hybrid ML-DSA level must be one of " + ML_DSA_LEVELS);
+        }
+        return level;
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        mlDsa.init();
+        log.info("Hybrid signing active: {} + ML-DSA", classical.getClass().getSimpleName());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean hasMlDsaKey(String alias) {
+        return mlDsa.hasKey(alias);
+    }
+
+    @Override
+    public HybridSignatures signHashesHybrid(String keyAlias, List<String> dataHashesBase64, String algorithm)
+            throws Exception {
+        return both(
+                () -> classical.signHashes(keyAlias, dataHashesBase64, algorithm),
+                () -> mlDsa.signHashes(keyAlias, dataHashesBase64, algorithm));
+    }
+
+    @Override
+    public HybridSignatures signDigestsHybrid(String keyAlias, List<String> digestsBase64, String hashAlgoOid)
+            throws Exception {
+        return both(
+                () -> classical.signDigests(keyAlias, digestsBase64, hashAlgoOid),
+                () -> mlDsa.signDigests(keyAlias, digestsBase64, hashAlgoOid));
+    }
+
+    /**
+     * Run the ML-DSA half on its own thread while the classical half runs
+     * on the caller's, which already holds the signing permit.
+     */
+    private HybridSignatures both(Callable<List<String>> classicalTask, Callable<List<String>> mlDsaTask)
+            throws Exception {
+        Future<List<String>> mlDsaSignatures = executor.submit(mlDsaTask);
+        List<String> classicalSignatures;
+        try {
+            classicalSignatures = classicalTask.call();
+        } catch (Exception e) {
+            mlDsaSignatures.cancel(true);
+            throw e;
+        }
+        return new HybridSignatures(classicalSignatures, await(mlDsaSignatures));
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public String mlDsaPublicKeyPem(String alias) throws Exception {
+        return mlDsa.publicKeyPem(alias);
+    }
+
+    @Override
+    public String signHash(String keyAlias, String dataHashBase64, String algorithm) throws Exception {
+        return classical.signHash(keyAlias, dataHashBase64, algorithm);
+    }
+
+    @Override
+    public List<String> signHashes(String keyAlias, List<String> dataHashesBase64, String algorithm)
+            throws Exception {
+        return classical.signHashes(keyAlias, dataHashesBase64, algorithm);
+    }
+
+    @Override
+    public List<String> signDigests(String keyAlias, List<String> digestsBase64, String hashAlgoOid)
+            throws Exception {
+        return classical.signDigests(keyAlias, digestsBase64, hashAlgoOid);
+    }
+
+    @Override
+    public String generateKeyPair(String alias, String algorithm) throws Exception {
+        return generatePair(alias, algorithm, () -> classical.generateKeyPair(alias, algorithm));
+    }
+
+    @Override
+    public GeneratedKey generateKeyPairWithCsr(String alias, String algorithm, String subject) throws Exception {
+        return generatePair(alias, algorithm, () -> classical.generateKeyPairWithCsr(alias, algorithm, subject));
+    }
+
+    /**
+     * Generate both keys of a new alias, the ML-DSA key on its own thread.
+     * An alias without an ML-DSA key, new or from before hybrid signing,
+     * gets one alongside whatever the classical store does.
+     *
+     * @throws KeyAlreadyExistsException if the alias already has an ML-DSA
+     *                                   key
+     */
+    private <T> T generatePair(String alias, String algorithm, Callable<T> classicalTask) throws Exception {
+        synchronized (generateLocks[Math.floorMod(alias.hashCode(), LOCK_STRIPES)]) {
+            if (mlDsa.hasKey(alias)) {
+                throw new KeyAlreadyExistsException("Alias already has a hybrid key pair: " + alias);
+            }
+            Future<String> mlDsaKey = executor.submit(() -> mlDsa.generateKeyPair(alias, algorithm));
+            T generated;
+            try {
+                generated = classicalTask.call();
+            } catch (Exception e) {
+                discardMlDsaKey(alias, mlDsaKey);
+                throw e;
+            }
+            await(mlDsaKey);
+            return generated;
+        }
+    }
+
+    private void discardMlDsaKey(String alias, Future<String> mlDsaKey) {
+        try {
+            await(mlDsaKey);
+            mlDsa.deleteKey(alias);
+        } catch (Exception e) {
+            log.warn("Could not discard ML-DSA key of {} after classical key generation failed: {}",
+                    alias, e.getMessage());
+        }
+    }
+
+    @Override
+    public String generateCsr(String alias, String subject) throws Exception {
+        return classical.generateCsr(alias, subject);
+    }
+}
@@ -0,0 +1,102 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import com.gov.crypto.cloudsign.service.ChallengeStore;
+import com.gov.crypto.cloudsign.service.SigningChallengeService.SigningChallenge;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Challenge store local to one replica, also used as the stand-in for the
+ * Redis store in tests.
+ *
+ * Expiry is driven by a delay queue, so a sweep only touches challenges
+ * that are actually due.
+ */
+@Component
+@ConditionalOnProperty(name = "signing.challenge.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryChallengeStore implements ChallengeStore {
+
+    private final Map<String, SigningChallenge> pendingChallenges = new ConcurrentHashMap<>();
+    private final Map<String, Integer> pendingPerUser = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiryQueue = new DelayQueue<>();
+
+    public InMemoryChallengeStore(MeterRegistry meterRegistry) {
+        Gauge.builder("signing.challenges.pending", pendingChallenges, Map::size)
+                .description("Signing challenges awaiting OTP confirmation")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean create(SigningChallenge challenge, int maxPendingPerUser) {
+        boolean[] reserved = new boolean[1];
+        pendingPerUser.compute(challenge.username(), (user, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxPendingPerUser) {
+                return count;
+            }
+            reserved[0] = true;
+            return current + 1;
+        });
+        if (!reserved[0]) {
+            return false;
+        }
+        pendingChallenges.put(challenge.challengeId(), challenge);
+        expiryQueue.add(new Expiry(challenge));
+        return true;
+    }
+
+    @Override
+    public Optional<SigningChallenge> find(String challengeId) {
+        return Optional.ofNullable(pendingChallenges.get(challengeId));
+    }
+
+    @Override
+    public Optional<SigningChallenge> consume(String challengeId) {
+        SigningChallenge challenge = pendingChallenges.remove(challengeId);
+        if (challenge == null) {
+            return Optional.empty();
+        }
+        pendingPerUser.computeIfPresent(challenge.username(), (user, count) -> count > 1 ? count - 1 : null);
+        return Optional.of(challenge);
+    }
+
+    @Override
+    public int expireDue() {
+        int count = 0;
+        Expiry due;
+        while ((due = expiryQueue.poll()) != null) {
+            // Already consumed or cancelled challenges are skipped
+            if (consume(due.challenge().challengeId()).isPresent()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int size() {
+        return pendingChallenges.size();
+    }
+
+    private record Expiry(SigningChallenge challenge) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(challenge.expiresAt().toEpochMilli() - System.currentTimeMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return challenge.expiresAt().compareTo(((Expiry) other).challenge.expiresAt());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.KeyPair;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key pairs generated ahead of demand, so key generation during
+ * registration campaigns only binds an alias to a ready key.
+ *
+ * A background thread tops the pool up to the high watermark, generating
+ * at most refillPerSecond keys per second so it does not starve signing of
+ * HSM capacity. Refilling starts again once the pool drops below the low
+ * watermark. An empty pool falls back to generating on the caller's
+ * thread.
+ */
+public class KeyPairPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyPairPool.class);
+
+    private final String name;
+    private final Callable<KeyPair> generator;
+    private final Settings settings;
+    private final BlockingQueue<KeyPair> ready;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter generated;
+    private ScheduledExecutorService refiller;
+    private volatile boolean refilling = true;
+
+    public KeyPairPool(String name, Callable<KeyPair> generator, Settings settings, MeterRegistry registry,
+            Tags tags) {
+        if (settings.lowWatermark() < 0 || settings.highWatermark() < settings.lowWatermark()
+                || settings.highWatermark() == 0) {
+            throw new IllegalArgumentException("Key pool watermarks must satisfy 0 <= low <= high, high > 0");
+        }
+        if (settings.refillPerSecond() <= 0) {
+            throw new IllegalArgumentException("Key pool refill rate must be positive");
+        }
+        this.name = name;
+        this.generator = generator;
+        this.settings = settings;
+        this.ready = new LinkedBlockingQueue<>(settings.highWatermark());
+
+        this.hits = Counter.builder("hsm.key_pool.takes").tags(tags).tag("result", "hit")
+                .description("Key generations served from the pre-generated pool")
+                .register(registry);
+        this.misses = Counter.builder("hsm.key_pool.takes").tags(tags).tag("result", "miss")
+                .description("Key generations that found the pool empty")
+                .register(registry);
+        this.generated = Counter.builder("hsm.key_pool.generated").tags(tags)
+                .description("Key pairs generated by the background refill")
+                .register(registry);
+        Gauge.builder("hsm.key_pool.size", ready, BlockingQueue::size).tags(tags)
+                .description("Pre-generated key pairs ready for use")
+                .register(registry);
+    }
+
+    /**
+     * Start refilling in the background, one step per second.
+     */
+    public synchronized void start() {
+        if (refiller != null) {
+            return;
+        }
+        refiller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "key-pool-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        refiller.scheduleAtFixedRate(this::refill, 0, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * A pre-generated key pair, or a freshly generated one if the pool is
+     * empty. Either way the pair is the caller's alone.
+     */
+    public KeyPair take() throws Exception {
+        KeyPair keyPair = ready.poll();
+        if (ready.size() < settings.lowWatermark()) {
+            refilling = true;
+        }
+        if (keyPair != null) {
+            hits.increment();
+            return keyPair;
+        }
+        misses.increment();
+        return generator.call();
+    }
+
+    /**
+     * One refill step: up to refillPerSecond keys while below the high
+     * watermark.
+     */
+    void refill() {
+        if (!refilling) {
+            return;
+        }
+        for (int i = 0; i < settings.refillPerSecond() && ready.size() < settings.highWatermark(); i++) {
+            try {
+                if (!ready.offer(generator.call())) {
+                    break;
+                }
+                generated.increment();
+            } catch (Exception e) {
+                log.warn("Key pool {} refill failed: {}", name, e.getMessage());
+                return;
+            }
+        }
+        if (ready.size() >= settings.highWatermark()) {
+            refilling = false;
+        }
+    }
+
+    public int size() {
+        return ready.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refiller != null) {
+            refiller.shutdownNow();
+            refiller = null;
+        }
+    }
+
+    /**
+     * @param refillPerSecond most keys generated per second while refilling
+     */
+    public record Settings(boolean enabled, int lowWatermark, int highWatermark, int refillPerSecond) {
+
+        public static Settings disabled() {
+            return new Settings(false, 0, 0, 1);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import com.gov.crypto.service.KeyStorageService;
+
+import java.util.List;
+
+/**
+ * One token (HSM slot or HSM instance) behind {@link MultiSlotKeyStorageService}.
+ */
+interface KeySlot extends KeyStorageService, AutoCloseable {
+
+    /**
+     * Stable name used in logs and meter tags.
+     */
+    String name();
+
+    /**
+     * Aliases of the private keys held on this token.
+     */
+    List<String> aliases() throws Exception;
+
+    boolean containsAlias(String alias) throws Exception;
+
+    /**
+     * Cheap liveness check; throws if the token cannot be reached.
+     */
+    void probe() throws Exception;
+
+    /**
+     * Stop background work and release the token's sessions.
+     */
+    @Override
+    void close();
+}
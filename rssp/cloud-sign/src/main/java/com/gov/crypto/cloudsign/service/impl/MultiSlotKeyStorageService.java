@@ -0,0 +1,317 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import com.gov.crypto.service.KeyStorageService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Key storage spread over several PKCS#11 slots or HSM instances.
+ *
+ * A key lives on the slot it was generated on; the alias-to-slot directory is
+ * built by enumerating every token at startup and filled lazily for aliases
+ * created elsewhere. New keys go to the healthy slot with the fewest
+ * outstanding requests (then the fewest keys). When a key is present on
+ * several tokens (cloned or replicated HSMs) each request goes to the least
+ * busy healthy holder.
+ *
+ * A slot is taken out of rotation after hsm.failure-threshold consecutive
+ * errors or a failed health probe, and put back once a probe succeeds.
+ *
+ * Slots are configured as a comma-separated list, each entry either a slot
+ * ID on hsm.library or "library-path:slot" for a separate HSM. For local
+ * testing, initialise two SoftHSM2 tokens and list the slot IDs shown by
+ * {@code softhsm2-util --show-slots}.
+ */
+@Service("hsmKeyStorage")
+@Profile("prod")
+@ConditionalOnProperty(name = "hsm.multi-slot.enabled", havingValue = "true")
+public class MultiSlotKeyStorageService implements KeyStorageService {
+
+    private static final Logger log = LoggerFactory.getLogger(MultiSlotKeyStorageService.class);
+
+    private final List<SlotState> slots;
+    private final int failureThreshold;
+    private final Map<String, List<SlotState>> directory = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MultiSlotKeyStorageService(
+            @Value("${hsm.library:/usr/lib/softhsm/libsofthsm2.so}") String hsmLibrary,
+            @Value("${hsm.slots:0}") String slotList,
+            @Value("${hsm.user-pin:87654321}") String hsmUserPin,
+            @Value("${hsm.token-label:gov-signing-token}") String tokenLabel,
+            @Value("${hsm.session-pool-size:16}") int sessionPoolSize,
+            @Value("${hsm.session-wait-timeout-ms:5000}") long sessionWaitTimeoutMs,
+            @Value("${hsm.failure-threshold:3}") int failureThreshold,
+            @Value("${hsm.key-pool.enabled:false}") boolean keyPoolEnabled,
+            @Value("${hsm.key-pool.low-watermark:20}") int keyPoolLowWatermark,
+            @Value("${hsm.key-pool.high-watermark:100}") int keyPoolHighWatermark,
+            @Value("${hsm.key-pool.refill-per-second:10}") int keyPoolRefillPerSecond,
+            MeterRegistry meterRegistry) throws Exception {
+        this(openSlots(hsmLibrary, slotList, hsmUserPin, tokenLabel, sessionPoolSize, sessionWaitTimeoutMs,
+                new KeyPairPool.Settings(keyPoolEnabled, keyPoolLowWatermark, keyPoolHighWatermark,
+                        keyPoolRefillPerSecond),
+                meterRegistry), failureThreshold, meterRegistry);
+    }
+
+    MultiSlotKeyStorageService(List<? extends KeySlot> keySlots, int failureThreshold, MeterRegistry meterRegistry)
+            throws Exception {
+        if (keySlots.isEmpty()) {
+            throw new IllegalArgumentException("At least one HSM slot must be configured");
+        }
+        this.failureThreshold = failureThreshold;
+        List<SlotState> states = new ArrayList<>();
+        for (KeySlot slot : keySlots) {
+            SlotState state = new SlotState(slot);
+            for (String alias : slot.aliases()) {
+                addHolder(alias, state);
+            }
+            states.add(state);
+
+            Tags tags = Tags.of("slot", slot.name());
+            Gauge.builder("hsm.slot.outstanding", state.outstanding, AtomicInteger::get)
+                    .tags(tags).register(meterRegistry);
+            Gauge.builder("hsm.slot.keys", state.keys, AtomicInteger::get)
+                    .tags(tags).register(meterRegistry);
+            Gauge.builder("hsm.slot.healthy", state, s -> s.healthy ? 1 : 0)
+                    .tags(tags).register(meterRegistry);
+            log.info("HSM slot {} registered with {} keys", slot.name(), state.keys.get());
+        }
+        this.slots = List.copyOf(states);
+    }
+
+    private static List<KeySlot> openSlots(String library, String slotList, String pin, String tokenLabel,
+            int sessionPoolSize, long sessionWaitTimeoutMs, KeyPairPool.Settings keyPoolSettings,
+            MeterRegistry meterRegistry) {
+        List<KeySlot> opened = new ArrayList<>();
+        for (String entry : slotList.split(",")) {
+            String spec = entry.trim();
+            if (spec.isEmpty()) {
+                continue;
+            }
+            int sep = spec.lastIndexOf(':');
+            String slotLibrary = sep > 0 ? spec.substring(0, sep) : library;
+            int slot = Integer.parseInt(spec.substring(sep + 1));
+            // Watermarks apply per slot
+            opened.add(new HsmKeyStorageService(slotLibrary, slot, pin, tokenLabel, sessionPoolSize,
+                    sessionWaitTimeoutMs, keyPoolSettings, meterRegistry, spec));
+        }
+        return opened;
+    }
+
+    @Override
+    public String signHash(String keyAlias, String dataHashBase64, String algorithm) throws Exception {
+        SlotState target = leastBusy(holders(keyAlias), keyAlias);
+        return call(target, () -> target.slot.signHash(keyAlias, dataHashBase64, algorithm));
+    }
+
+    @Override
+    public List<String> signHashes(String keyAlias, List<String> dataHashesBase64, String algorithm)
+            throws Exception {
+        SlotState target = leastBusy(holders(keyAlias), keyAlias);
+        return call(target, () -> target.slot.signHashes(keyAlias, dataHashesBase64, algorithm));
+    }
+
+    @Override
+    public List<String> signDigests(String keyAlias, List<String> digestsBase64, String hashAlgoOid)
+            throws Exception {
+        SlotState target = leastBusy(holders(keyAlias), keyAlias);
+        return call(target, () -> target.slot.signDigests(keyAlias, digestsBase64, hashAlgoOid));
+    }
+
+    @Override
+    public String generateKeyPair(String alias, String algorithm) throws Exception {
+        return placeKey(alias, slot -> slot.generateKeyPair(alias, algorithm));
+    }
+
+    @Override
+    public GeneratedKey generateKeyPairWithCsr(String alias, String algorithm, String subject) throws Exception {
+        return placeKey(alias, slot -> slot.generateKeyPairWithCsr(alias, algorithm, subject));
+    }
+
+    /**
+     * Generate a key for the alias on the least busy healthy slot, or on a
+     * slot already holding the alias, and record where it now lives.
+     */
+    private <T> T placeKey(String alias, SlotOperation<T> generate) throws Exception {
+        List<SlotState> existing = directory.get(alias);
+        SlotState target = existing != null
+                ? leastBusy(existing, alias)
+                : slots.stream()
+                        .filter(s -> s.healthy)
+                        .min(Comparator.comparingInt((SlotState s) -> s.outstanding.get())
+                                .thenComparingInt(s -> s.keys.get()))
+                        .orElseThrow(() -> new IllegalStateException("No healthy HSM slot available"));
+
+        T generated = call(target, () -> generate.apply(target.slot));
+        // A regenerated alias now only matches the key on this token
+        List<SlotState> previous = directory.put(alias, List.of(target));
+        if (previous != null) {
+            previous.forEach(s -> s.keys.decrementAndGet());
+        }
+        target.keys.incrementAndGet();
+        log.info("Key {} placed on HSM slot {}", alias, target.slot.name());
+        return generated;
+    }
+
+    @Override
+    public String generateCsr(String alias, String subject) throws Exception {
+        SlotState target = leastBusy(holders(alias), alias);
+        return call(target, () -> target.slot.generateCsr(alias, subject));
+    }
+
+    /**
+     * Probe every slot, taking failed ones out of rotation and restoring
+     * recovered ones.
+     */
+    @Scheduled(fixedDelayString = "${hsm.health-check-interval-ms:10000}")
+    public void checkHealth() {
+        for (SlotState state : slots) {
+            try {
+                state.slot.probe();
+                state.failures.set(0);
+                if (!state.healthy) {
+                    state.healthy = true;
+                    log.info("HSM slot {} is healthy again, resuming traffic", state.slot.name());
+                }
+            } catch (Exception e) {
+                if (state.healthy) {
+                    state.healthy = false;
+                    log.warn("HSM slot {} failed health check, removing from rotation: {}",
+                            state.slot.name(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Close every slot. The slots are created here rather than by Spring,
+     * so their key pool threads and session pools are not closed otherwise.
+     */
+    @PreDestroy
+    public void close() {
+        for (SlotState state : slots) {
+            try {
+                state.slot.close();
+            } catch (RuntimeException e) {
+                log.warn("Closing HSM slot {} failed: {}", state.slot.name(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Whether the named slot is currently receiving traffic.
+     */
+    public boolean isHealthy(String slotName) {
+        return slots.stream().anyMatch(s -> s.slot.name().equals(slotName) && s.healthy);
+    }
+
+    private List<SlotState> holders(String alias) {
+        List<SlotState> holders = directory.get(alias);
+        if (holders != null) {
+            return holders;
+        }
+        // Key created by another instance since startup
+        for (SlotState state : slots) {
+            if (!state.healthy) {
+                continue;
+            }
+            try {
+                if (state.slot.containsAlias(alias)) {
+                    addHolder(alias, state);
+                }
+            } catch (Exception e) {
+                log.debug("Alias lookup on HSM slot {} failed: {}", state.slot.name(), e.getMessage());
+            }
+        }
+        holders = directory.get(alias);
+        if (holders == null) {
+            throw new IllegalArgumentException("Key not found in HSM: " + alias);
+        }
+        return holders;
+    }
+
+    private void addHolder(String alias, SlotState state) {
+        directory.compute(alias, (key, current) -> {
+            if (current == null) {
+                state.keys.incrementAndGet();
+                return List.of(state);
+            }
+            if (current.contains(state)) {
+                return current;
+            }
+            state.keys.incrementAndGet();
+            List<SlotState> updated = new ArrayList<>(current);
+            updated.add(state);
+            return List.copyOf(updated);
+        });
+    }
+
+    private SlotState leastBusy(List<SlotState> holders, String alias) {
+        SlotState best = null;
+        for (SlotState state : holders) {
+            if (state.healthy && (best == null || state.outstanding.get() < best.outstanding.get())) {
+                best = state;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("No healthy HSM slot holds key: " + alias);
+        }
+        return best;
+    }
+
+    private <T> T call(SlotState state, Callable<T> operation) throws Exception {
+        state.outstanding.incrementAndGet();
+        try {
+            T result = operation.call();
+            state.failures.set(0);
+            return result;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Bad input or session pool saturation, not a token fault
+            throw e;
+        } catch (Exception e) {
+            if (state.failures.incrementAndGet() >= failureThreshold && state.healthy) {
+                state.healthy = false;
+                log.warn("HSM slot {} removed from rotation after {} consecutive failures: {}",
+                        state.slot.name(), failureThreshold, e.getMessage());
+            }
+            throw e;
+        } finally {
+            state.outstanding.decrementAndGet();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SlotOperation<T> {
+        T apply(KeySlot slot) throws Exception;
+    }
+
+    private static final class SlotState {
+        final KeySlot slot;
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicInteger keys = new AtomicInteger();
+        volatile boolean healthy = true;
+
+        SlotState(KeySlot slot) {
+            this.slot = slot;
+        }
+    }
+}
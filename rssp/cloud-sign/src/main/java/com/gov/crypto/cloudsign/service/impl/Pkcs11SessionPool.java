@@ -0,0 +1,148 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of PKCS#11 signing sessions.
+ *
+ * Each pooled {@link Signature} is bound to the PKCS#11 provider and holds an
+ * operation session on the token while it signs. Sizing the pool to the
+ * token's session limit lets that many signatures run in parallel; excess
+ * callers queue here, with the wait recorded as {@code hsm.session.wait},
+ * instead of failing inside the provider with CKR_SESSION_COUNT.
+ */
+public class Pkcs11SessionPool implements AutoCloseable {
+
+    private final BlockingQueue<Signature> idle;
+    private final int size;
+    private final long waitTimeoutMillis;
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter timeouts;
+    private volatile boolean closed;
+
+    public Pkcs11SessionPool(int size, long waitTimeoutMillis, Callable<Signature> factory, MeterRegistry registry)
+            throws Exception {
+        this(size, waitTimeoutMillis, factory, registry, Tags.empty());
+    }
+
+    /**
+     * @param tags extra meter tags, e.g. the slot when several tokens are pooled
+     */
+    public Pkcs11SessionPool(int size, long waitTimeoutMillis, Callable<Signature> factory, MeterRegistry registry,
+            Tags tags) throws Exception {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Session pool size must be positive");
+        }
+        this.size = size;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            idle.add(factory.call());
+        }
+
+        this.waitTimer = Timer.builder("hsm.session.wait")
+                .description("Time spent waiting for a free PKCS#11 signing session")
+                .publishPercentileHistogram()
+                .tags(tags)
+                .register(registry);
+        this.timeouts = Counter.builder("hsm.session.timeouts")
+                .description("Signing requests that gave up waiting for a session")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("hsm.session.in_use", inUse, AtomicInteger::get).tags(tags).register(registry);
+        Gauge.builder("hsm.session.size", () -> this.size).tags(tags).register(registry);
+    }
+
+    /**
+     * Sign data with the given key on a pooled session.
+     */
+    public byte[] sign(PrivateKey key, byte[] data) throws Exception {
+        return withSession(signature -> {
+            signature.initSign(key);
+            signature.update(data);
+            return signature.sign();
+        });
+    }
+
+    /**
+     * Sign several messages with one key on a single pooled session.
+     */
+    public List<byte[]> signAll(PrivateKey key, List<byte[]> data) throws Exception {
+        return withSession(signature -> {
+            signature.initSign(key);
+            List<byte[]> signatures = new ArrayList<>(data.size());
+            for (byte[] item : data) {
+                // sign() resets to the initialized state, so the key stays bound
+                signature.update(item);
+                signatures.add(signature.sign());
+            }
+            return signatures;
+        });
+    }
+
+    /**
+     * Run an operation with exclusive use of a session.
+     *
+     * @throws IllegalStateException if no session became free within the
+     *                               configured wait timeout
+     */
+    public <T> T withSession(SessionCallback<T> callback) throws Exception {
+        if (closed) {
+            throw new IllegalStateException("HSM session pool is closed");
+        }
+        long start = System.nanoTime();
+        Signature signature = idle.poll(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (signature == null) {
+            timeouts.increment();
+            throw new IllegalStateException("No HSM session available within " + waitTimeoutMillis + " ms");
+        }
+        inUse.incrementAndGet();
+        try {
+            return callback.apply(signature);
+        } finally {
+            inUse.decrementAndGet();
+            if (!closed) {
+                idle.add(signature);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int inUse() {
+        return inUse.get();
+    }
+
+    /**
+     * Release idle sessions; sessions in use are released when their
+     * operation returns.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        idle.clear();
+    }
+
+    @FunctionalInterface
+    public interface SessionCallback<T> {
+        T apply(Signature signature) throws Exception;
+    }
+}
@@ -0,0 +1,175 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gov.crypto.cloudsign.service.ChallengeStore;
+import com.gov.crypto.cloudsign.service.SigningChallengeService.SigningChallenge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Challenge store shared by all cloud-sign replicas through Redis.
+ *
+ * Each challenge is a key written with the challenge's TTL, so Redis expires
+ * it natively and no sweep is needed. Confirmation consumes it with GETDEL,
+ * which lets exactly one replica win. Per-user limits are a sorted set of
+ * challenge ids scored by expiry; one Lua script prunes and checks it,
+ * reserves the slot and writes the challenge, so a slot is never held
+ * without its challenge.
+ *
+ * Challenges are immutable, so lookups are served from a small per-replica
+ * near-cache. A stale entry can at worst let a caller get as far as OTP
+ * checking, because consumption always goes to Redis.
+ */
+@Component
+@ConditionalOnProperty(name = "signing.challenge.store", havingValue = "redis")
+public class RedisChallengeStore implements ChallengeStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisChallengeStore.class);
+
+    static final String CHALLENGE_PREFIX = "signing:challenge:";
+    static final String USER_PREFIX = "signing:pending:";
+
+    /**
+     * KEYS[1] user set, KEYS[2] challenge key; ARGV: now millis, expiry
+     * millis, challenge id, max pending, TTL millis, challenge JSON. Returns
+     * 1 if the challenge was stored.
+     */
+    private static final RedisScript<Long> CREATE = new DefaultRedisScript<>("""
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[1])
+            if redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[4]) then
+              return 0
+            end
+            redis.call('ZADD', KEYS[1], ARGV[2], ARGV[3])
+            redis.call('PEXPIRE', KEYS[1], ARGV[5])
+            redis.call('SET', KEYS[2], ARGV[6], 'PX', ARGV[5])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, SigningChallenge> nearCache;
+
+    public RedisChallengeStore(
+            StringRedisTemplate redis,
+            @Value("${signing.challenge.near-cache-size:1024}") int nearCacheSize) {
+        this.redis = redis;
+        this.nearCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SigningChallenge> eldest) {
+                return size() > nearCacheSize;
+            }
+        };
+    }
+
+    @Override
+    public boolean create(SigningChallenge challenge, int maxPendingPerUser) {
+        long now = System.currentTimeMillis();
+        long ttlMillis = Math.max(1, challenge.expiresAt().toEpochMilli() - now);
+
+        Long stored = redis.execute(CREATE,
+                List.of(USER_PREFIX + challenge.username(), CHALLENGE_PREFIX + challenge.challengeId()),
+                Long.toString(now), Long.toString(challenge.expiresAt().toEpochMilli()),
+                challenge.challengeId(), Integer.toString(maxPendingPerUser), Long.toString(ttlMillis),
+                encode(challenge));
+        if (stored == null || stored == 0) {
+            return false;
+        }
+
+        synchronized (nearCache) {
+            nearCache.put(challenge.challengeId(), challenge);
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<SigningChallenge> find(String challengeId) {
+        SigningChallenge cached;
+        synchronized (nearCache) {
+            cached = nearCache.get(challengeId);
+        }
+        if (cached != null && !cached.isExpired()) {
+            return Optional.of(cached);
+        }
+
+        String json = redis.opsForValue().get(CHALLENGE_PREFIX + challengeId);
+        if (json == null) {
+            return Optional.empty();
+        }
+        SigningChallenge challenge = decode(json);
+        synchronized (nearCache) {
+            nearCache.put(challengeId, challenge);
+        }
+        return Optional.of(challenge);
+    }
+
+    @Override
+    public Optional<SigningChallenge> consume(String challengeId) {
+        synchronized (nearCache) {
+            nearCache.remove(challengeId);
+        }
+        String json = redis.opsForValue().getAndDelete(CHALLENGE_PREFIX + challengeId);
+        if (json == null) {
+            return Optional.empty();
+        }
+        SigningChallenge challenge = decode(json);
+        redis.opsForZSet().remove(USER_PREFIX + challenge.username(), challengeId);
+        return Optional.of(challenge);
+    }
+
+    /**
+     * Redis expires challenge keys itself.
+     */
+    @Override
+    public int expireDue() {
+        return 0;
+    }
+
+    private String encode(SigningChallenge challenge) {
+        try {
+            return objectMapper.writeValueAsString(new StoredChallenge(
+                    challenge.challengeId(), challenge.username(), challenge.keyAlias(),
+                    challenge.documentHashes(), challenge.algorithm(), challenge.hashAlgo(),
+                    challenge.createdAt().toEpochMilli(), challenge.expiresAt().toEpochMilli()));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot serialize signing challenge", e);
+        }
+    }
+
+    private SigningChallenge decode(String json) {
+        try {
+            StoredChallenge stored = objectMapper.readValue(json, StoredChallenge.class);
+            return new SigningChallenge(stored.challengeId(), stored.username(), stored.keyAlias(),
+                    stored.documentHashes(), stored.algorithm(), stored.hashAlgo(),
+                    Instant.ofEpochMilli(stored.createdAt()), Instant.ofEpochMilli(stored.expiresAt()));
+        } catch (Exception e) {
+            log.error("Corrupt signing challenge in Redis: {}", e.getMessage());
+            throw new IllegalStateException("Cannot read signing challenge", e);
+        }
+    }
+
+    /**
+     * Wire form in Redis; times as epoch millis.
+     */
+    record StoredChallenge(
+            String challengeId,
+            String username,
+            String keyAlias,
+            List<String> documentHashes,
+            String algorithm,
+            String hashAlgo,
+            long createdAt,
+            long expiresAt) {
+    }
+}
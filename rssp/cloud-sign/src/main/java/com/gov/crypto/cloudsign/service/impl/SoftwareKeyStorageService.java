@@ -1,6 +1,8 @@
 package com.gov.crypto.cloudsign.service.impl;
 
+import com.gov.crypto.service.HashAlgorithm;
 import com.gov.crypto.service.KeyStorageService;
+import com.gov.crypto.service.PreHashedSignatures;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
@@ -19,24 +21,42 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 import java.io.*;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.*;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.ECKey;
 import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Software-based Key Storage Service using PKCS#12 KeyStore.
- * 
+ *
  * SECURITY IMPROVEMENT (2026): Keys are now persisted to disk using
  * encrypted PKCS#12 format instead of volatile in-memory storage.
- * 
+ *
  * Keys survive pod restarts when backed by a PersistentVolumeClaim.
- * 
+ *
+ * Each key is written to its own encrypted PKCS#12 file under
+ * app.keystore.dir, so generating a key costs one small file write rather
+ * than rewriting every key. Decoded keys are cached after first use and
+ * signing takes no lock; loads and generation are serialized per alias on
+ * a fixed set of lock stripes. A legacy single-file keystore at
+ * app.keystore.path is split into per-key files on first start.
+ *
  * For production, still recommend HsmKeyStorageService with proper HSM.
+ *
+ * Keys are ECDSA P-384 by default. The hybrid key store keeps its ML-DSA
+ * half in a second instance created with an ML-DSA key algorithm.
  */
 @Service("softwareKeyStorage")
 @Profile("dev")
@@ -45,84 +65,133 @@ public class SoftwareKeyStorageService implements KeyStorageService {
     private static final Logger log = LoggerFactory.getLogger(SoftwareKeyStorageService.class);
     private static final String ECDSA_ALGORITHM = "SHA384withECDSA";
     private static final String EC_CURVE = "secp384r1";
+    static final String EC_KEY_ALGORITHM = "EC";
     private static final String KEYSTORE_TYPE = "PKCS12";
+    private static final String ENTRY_SUFFIX = ".p12";
+    private static final int LOCK_STRIPES = 64;
+
+    private final String keystorePath;
+    private final Path keyDir;
+    private final char[] keystorePassword;
+    private final String keyAlgorithm;
+    private final Map<String, KeyEntry> cache = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public SoftwareKeyStorageService(
+            @Value("${app.keystore.path:/data/keys/cloud-sign.p12}") String keystorePath,
+            @Value("${app.keystore.dir:/data/keys/cloud-sign}") String keyDir,
+            @Value("${app.keystore.password:changeit}") String keystorePassword) {
+        this(keystorePath, keyDir, keystorePassword, EC_KEY_ALGORITHM);
+    }
 
-    @Value("${app.keystore.path:/data/keys/cloud-sign.p12}")
-    private String keystorePath;
-
-    @Value("${app.keystore.password:changeit}")
-    private String keystorePassword;
-
-    private KeyStore keyStore;
-
-    public SoftwareKeyStorageService() {
+    /**
+     * @param keyAlgorithm EC, or an ML-DSA parameter set such as ML-DSA-65
+     */
+    SoftwareKeyStorageService(String keystorePath, String keyDir, String keystorePassword, String keyAlgorithm) {
         Security.addProvider(new BouncyCastleProvider());
+        this.keystorePath = keystorePath;
+        this.keyDir = Path.of(keyDir);
+        this.keystorePassword = keystorePassword.toCharArray();
+        this.keyAlgorithm = keyAlgorithm;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
     }
 
     @jakarta.annotation.PostConstruct
     public void init() throws Exception {
-        log.info("Initializing PKCS#12 KeyStore at: {}", keystorePath);
-
-        Path path = Path.of(keystorePath);
-        Files.createDirectories(path.getParent());
-
-        keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+        log.info("Initializing per-key PKCS#12 storage at: {}", keyDir);
+        Files.createDirectories(keyDir);
 
-        if (Files.exists(path)) {
-            // Load existing keystore
-            try (InputStream is = Files.newInputStream(path)) {
-                keyStore.load(is, keystorePassword.toCharArray());
-                log.info("Loaded existing keystore with {} entries", keyStore.size());
-            }
-        } else {
-            // Create new empty keystore
-            keyStore.load(null, keystorePassword.toCharArray());
-            saveKeyStore();
-            log.info("Created new PKCS#12 keystore");
+        Path legacy = Path.of(keystorePath);
+        if (Files.exists(legacy)) {
+            migrateLegacyKeyStore(legacy);
         }
 
         log.info("============================================================");
         log.info("  PKCS#12 KEY STORAGE ACTIVE - Keys persist across restarts");
-        log.info("  Keystore: {}", keystorePath);
+        log.info("  Key directory: {}", keyDir);
         log.info("  For production, enable HSM via HsmKeyStorageService.");
         log.info("============================================================");
     }
 
-    private synchronized void saveKeyStore() throws Exception {
-        Path path = Path.of(keystorePath);
-        try (OutputStream os = Files.newOutputStream(path)) {
-            keyStore.store(os, keystorePassword.toCharArray());
+    /**
+     * Split the old single-file keystore into per-key files, then set it
+     * aside so the split only happens once.
+     */
+    private void migrateLegacyKeyStore(Path legacy) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+        try (InputStream is = Files.newInputStream(legacy)) {
+            keyStore.load(is, keystorePassword);
+        }
+        int migrated = 0;
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (!keyStore.isKeyEntry(alias) || Files.exists(entryPath(alias))) {
+                continue;
+            }
+            PrivateKey key = (PrivateKey) keyStore.getKey(alias, keystorePassword);
+            writeEntry(alias, key, (X509Certificate) keyStore.getCertificate(alias));
+            migrated++;
         }
+        Files.move(legacy, legacy.resolveSibling(legacy.getFileName() + ".migrated"),
+                StandardCopyOption.REPLACE_EXISTING);
+        log.info("Migrated {} keys from legacy keystore {}", migrated, legacy);
     }
 
     @Override
-    public synchronized String generateKeyPair(String alias, String algorithm) throws Exception {
+    public String generateKeyPair(String alias, String algorithm) throws Exception {
         log.info("Generating key pair: alias={}, algorithm={}", alias, algorithm);
+        return publicKeyToPem(generateEntry(alias).certificate().getPublicKey());
+    }
 
-        // Check if key already exists
-        if (keyStore.containsAlias(alias)) {
-            log.info("Key already exists: {}", alias);
-            return publicKeyToPem((PublicKey) keyStore.getCertificate(alias).getPublicKey());
-        }
+    @Override
+    public GeneratedKey generateKeyPairWithCsr(String alias, String algorithm, String subject) throws Exception {
+        log.info("Generating key pair and CSR: alias={}, algorithm={}", alias, algorithm);
+        KeyEntry entry = generateEntry(alias);
+        PublicKey publicKey = entry.certificate().getPublicKey();
+        return new GeneratedKey(publicKeyToPem(publicKey), csrToPem(publicKey, entry.privateKey(), subject));
+    }
+
+    /**
+     * The alias's key, generated and persisted if it does not exist yet.
+     */
+    private KeyEntry generateEntry(String alias) throws Exception {
+        synchronized (lockFor(alias)) {
+            // Check if key already exists
+            KeyEntry existing = findEntry(alias);
+            if (existing != null) {
+                log.info("Key already exists: {}", alias);
+                return existing;
+            }
 
-        KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC", "BC");
-        kpg.initialize(new ECGenParameterSpec(EC_CURVE));
-        KeyPair keyPair = kpg.generateKeyPair();
+            KeyPair keyPair = newKeyPair();
 
-        // Create a self-signed certificate for the key (required for PKCS#12)
-        X509Certificate cert = generateSelfSignedCert(keyPair, alias);
+            // Create a self-signed certificate for the key (required for PKCS#12)
+            X509Certificate cert = generateSelfSignedCert(keyPair, alias);
 
-        // Store in keystore
-        keyStore.setKeyEntry(
-                alias,
-                keyPair.getPrivate(),
-                keystorePassword.toCharArray(),
-                new Certificate[] { cert });
+            writeEntry(alias, keyPair.getPrivate(), cert);
+            KeyEntry entry = new KeyEntry(keyPair.getPrivate(), cert);
+            cache.put(alias, entry);
+            log.info("Key pair persisted to PKCS#12: {}", alias);
 
-        saveKeyStore();
-        log.info("Key pair persisted to PKCS#12: {}", alias);
+            return entry;
+        }
+    }
 
-        return publicKeyToPem(keyPair.getPublic());
+    private KeyPair newKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance(keyAlgorithm, "BC");
+        if (EC_KEY_ALGORITHM.equals(keyAlgorithm)) {
+            kpg.initialize(new ECGenParameterSpec(EC_CURVE));
+        }
+        return kpg.generateKeyPair();
+    }
+
+    /**
+     * SHA384withECDSA for EC keys; ML-DSA keys sign with their own
+     * parameter set.
+     */
+    private static String signatureAlgorithm(PrivateKey key) {
+        return key instanceof ECKey ? ECDSA_ALGORITHM : key.getAlgorithm();
     }
 
     private X509Certificate generateSelfSignedCert(KeyPair keyPair, String alias) throws Exception {
@@ -141,7 +210,7 @@ public class SoftwareKeyStorageService implements KeyStorageService {
                 subject,
                 keyPair.getPublic());
 
-        ContentSigner signer = new JcaContentSignerBuilder(ECDSA_ALGORITHM)
+        ContentSigner signer = new JcaContentSignerBuilder(signatureAlgorithm(keyPair.getPrivate()))
                 .setProvider("BC")
                 .build(keyPair.getPrivate());
 
@@ -151,22 +220,14 @@ public class SoftwareKeyStorageService implements KeyStorageService {
     }
 
     @Override
-    public synchronized String signHash(String keyAlias, String dataHashBase64, String algorithm) throws Exception {
+    public String signHash(String keyAlias, String dataHashBase64, String algorithm) throws Exception {
         log.info("Signing with key: {}", keyAlias);
 
-        if (!keyStore.containsAlias(keyAlias)) {
-            throw new IllegalArgumentException("Key not found in keystore: " + keyAlias);
-        }
-
-        Key key = keyStore.getKey(keyAlias, keystorePassword.toCharArray());
-        if (!(key instanceof PrivateKey)) {
-            throw new IllegalArgumentException("Entry is not a private key: " + keyAlias);
-        }
-
+        KeyEntry entry = requireEntry(keyAlias);
         byte[] dataHash = Base64.getDecoder().decode(dataHashBase64);
 
-        Signature signature = Signature.getInstance(ECDSA_ALGORITHM, "BC");
-        signature.initSign((PrivateKey) key);
+        Signature signature = Signature.getInstance(signatureAlgorithm(entry.privateKey()), "BC");
+        signature.initSign(entry.privateKey());
         signature.update(dataHash);
         byte[] sig = signature.sign();
 
@@ -174,25 +235,58 @@ public class SoftwareKeyStorageService implements KeyStorageService {
     }
 
     @Override
-    public synchronized String generateCsr(String alias, String subject) throws Exception {
-        log.info("Generating CSR for key: {}", alias);
-
-        if (!keyStore.containsAlias(alias)) {
-            throw new IllegalArgumentException("Key not found: " + alias);
+    public List<String> signHashes(String keyAlias, List<String> dataHashesBase64, String algorithm)
+            throws Exception {
+        log.info("Signing {} hashes with key: {}", dataHashesBase64.size(), keyAlias);
+
+        KeyEntry entry = requireEntry(keyAlias);
+        Signature signature = Signature.getInstance(signatureAlgorithm(entry.privateKey()), "BC");
+        signature.initSign(entry.privateKey());
+
+        List<String> signatures = new ArrayList<>(dataHashesBase64.size());
+        for (String dataHashBase64 : dataHashesBase64) {
+            signature.update(Base64.getDecoder().decode(dataHashBase64));
+            signatures.add(Base64.getEncoder().encodeToString(signature.sign()));
         }
+        return signatures;
+    }
 
-        Key key = keyStore.getKey(alias, keystorePassword.toCharArray());
-        if (!(key instanceof PrivateKey)) {
-            throw new IllegalArgumentException("Entry is not a private key: " + alias);
+    @Override
+    public List<String> signDigests(String keyAlias, List<String> digestsBase64, String hashAlgoOid)
+            throws Exception {
+        log.info("Signing {} pre-hashed digests with key: {}", digestsBase64.size(), keyAlias);
+
+        HashAlgorithm hashAlgorithm = HashAlgorithm.fromOid(hashAlgoOid);
+        KeyEntry entry = requireEntry(keyAlias);
+        PrivateKey key = entry.privateKey();
+        Signature signature = Signature.getInstance(PreHashedSignatures.signatureAlgorithm(key), "BC");
+        signature.initSign(key);
+
+        List<String> signatures = new ArrayList<>(digestsBase64.size());
+        for (String digestBase64 : digestsBase64) {
+            byte[] digest = hashAlgorithm.digest(Base64.getDecoder().decode(digestBase64));
+            signature.update(PreHashedSignatures.signatureInput(key, hashAlgorithm, digest));
+            signatures.add(Base64.getEncoder().encodeToString(signature.sign()));
         }
+        return signatures;
+    }
+
+    @Override
+    public String generateCsr(String alias, String subject) throws Exception {
+        log.info("Generating CSR for key: {}", alias);
 
-        PublicKey publicKey = keyStore.getCertificate(alias).getPublicKey();
+        KeyEntry entry = requireEntry(alias);
+        return csrToPem(entry.certificate().getPublicKey(), entry.privateKey(), subject);
+    }
 
+    private String csrToPem(PublicKey publicKey, PrivateKey privateKey, String subject) throws Exception {
         X500Name x500Subject = new X500Name(subject);
         PKCS10CertificationRequestBuilder csrBuilder = new JcaPKCS10CertificationRequestBuilder(
                 x500Subject, publicKey);
 
-        ContentSigner signer = new JcaContentSignerBuilder(ECDSA_ALGORITHM).build((PrivateKey) key);
+        ContentSigner signer = new JcaContentSignerBuilder(signatureAlgorithm(privateKey))
+                .setProvider("BC")
+                .build(privateKey);
         PKCS10CertificationRequest csr = csrBuilder.build(signer);
 
         StringWriter sw = new StringWriter();
@@ -211,15 +305,106 @@ public class SoftwareKeyStorageService implements KeyStorageService {
         return sw.toString();
     }
 
+    /**
+     * PEM of an existing key's public key.
+     */
+    String publicKeyPem(String alias) throws Exception {
+        return publicKeyToPem(requireEntry(alias).certificate().getPublicKey());
+    }
+
     /**
      * Check if a key exists.
      */
-    public synchronized boolean hasKey(String alias) {
+    public boolean hasKey(String alias) {
+        return cache.containsKey(alias) || Files.exists(entryPath(alias));
+    }
+
+    /**
+     * Remove a key, e.g. to roll back half of a key pair whose other half
+     * could not be generated.
+     */
+    void deleteKey(String alias) throws Exception {
+        synchronized (lockFor(alias)) {
+            cache.remove(alias);
+            Files.deleteIfExists(entryPath(alias));
+        }
+    }
+
+    private KeyEntry requireEntry(String alias) throws Exception {
+        KeyEntry entry = findEntry(alias);
+        if (entry == null) {
+            throw new IllegalArgumentException("Key not found in keystore: " + alias);
+        }
+        return entry;
+    }
+
+    /**
+     * Cached key, or decoded from its file on first use.
+     */
+    private KeyEntry findEntry(String alias) throws Exception {
+        KeyEntry entry = cache.get(alias);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (lockFor(alias)) {
+            entry = cache.get(alias);
+            if (entry == null) {
+                entry = readEntry(alias);
+                if (entry != null) {
+                    cache.put(alias, entry);
+                }
+            }
+            return entry;
+        }
+    }
+
+    private KeyEntry readEntry(String alias) throws Exception {
+        Path path = entryPath(alias);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+        try (InputStream is = Files.newInputStream(path)) {
+            keyStore.load(is, keystorePassword);
+        }
+        Key key = keyStore.getKey(alias, keystorePassword);
+        if (!(key instanceof PrivateKey)) {
+            throw new IllegalArgumentException("Entry is not a private key: " + alias);
+        }
+        return new KeyEntry((PrivateKey) key, (X509Certificate) keyStore.getCertificate(alias));
+    }
+
+    /**
+     * Write one key as its own PKCS#12 file. The file is written beside its
+     * final name and renamed, so a crash never leaves a truncated entry.
+     */
+    private void writeEntry(String alias, PrivateKey key, X509Certificate cert) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+        keyStore.load(null, keystorePassword);
+        keyStore.setKeyEntry(alias, key, keystorePassword, new Certificate[] { cert });
+
+        Path path = entryPath(alias);
+        Path tmp = Files.createTempFile(keyDir, ".entry", ".tmp");
         try {
-            return keyStore.containsAlias(alias);
-        } catch (KeyStoreException e) {
-            log.error("Error checking key existence: {}", e.getMessage());
-            return false;
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                keyStore.store(os, keystorePassword);
+            }
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
         }
     }
+
+    private Path entryPath(String alias) {
+        String fileName = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(alias.getBytes(StandardCharsets.UTF_8));
+        return keyDir.resolve(fileName + ENTRY_SUFFIX);
+    }
+
+    private Object lockFor(String alias) {
+        return locks[Math.floorMod(alias.hashCode(), LOCK_STRIPES)];
+    }
+
+    private record KeyEntry(PrivateKey privateKey, X509Certificate certificate) {
+    }
 }
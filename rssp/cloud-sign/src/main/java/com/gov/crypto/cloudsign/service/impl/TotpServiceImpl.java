@@ -2,24 +2,36 @@ package com.gov.crypto.cloudsign.service.impl;
 
 import com.gov.crypto.cloudsign.service.TotpService;
 import com.warrenstrange.googleauth.GoogleAuthenticator;
+import com.warrenstrange.googleauth.GoogleAuthenticatorConfig;
 import com.warrenstrange.googleauth.GoogleAuthenticatorKey;
+import org.apache.commons.codec.binary.Base32;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Locale;
+import java.util.OptionalLong;
 
 @Service
 public class TotpServiceImpl implements TotpService {
 
     private static final Logger log = LoggerFactory.getLogger(TotpServiceImpl.class);
     private static final String ISSUER = "GovID Crypto";
-    
+
     private final GoogleAuthenticator gAuth;
+    private final GoogleAuthenticatorConfig config;
+    private final int codeModulus;
 
     public TotpServiceImpl() {
-        this.gAuth = new GoogleAuthenticator();
+        this.config = new GoogleAuthenticatorConfig();
+        this.gAuth = new GoogleAuthenticator(config);
+        this.codeModulus = config.getKeyModulus();
     }
 
     @Override
@@ -34,7 +46,7 @@ public class TotpServiceImpl implements TotpService {
         // Use manual formatting to avoid complex object reconstruction
         String encodedIssuer = URLEncoder.encode(ISSUER, StandardCharsets.UTF_8);
         String encodedAccount = URLEncoder.encode(accountName, StandardCharsets.UTF_8);
-        
+
         return String.format("otpauth://totp/%s:%s?secret=%s&issuer=%s",
                 encodedIssuer, encodedAccount, secret, encodedIssuer);
     }
@@ -48,4 +60,56 @@ public class TotpServiceImpl implements TotpService {
             return false;
         }
     }
+
+    @Override
+    public byte[] decodeSecret(String secret) {
+        return new Base32().decode(secret.toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public OptionalLong matchTimeStep(byte[] key, int code) {
+        return matchTimeStep(key, code, System.currentTimeMillis());
+    }
+
+    /**
+     * Same window as {@link GoogleAuthenticator#authorize(String, int)}, but
+     * on an already decoded key and reporting which step matched.
+     */
+    OptionalLong matchTimeStep(byte[] key, int code, long timeMillis) {
+        if (code < 0 || code >= codeModulus) {
+            return OptionalLong.empty();
+        }
+        long current = timeMillis / config.getTimeStepSizeInMillis();
+        int window = config.getWindowSize();
+        try {
+            Mac mac = Mac.getInstance(config.getHmacHashFunction().toString());
+            mac.init(new SecretKeySpec(key, "RAW"));
+            for (long step = current - (window - 1) / 2; step <= current + window / 2; step++) {
+                if (codeAt(mac, step) == code) {
+                    return OptionalLong.of(step);
+                }
+            }
+        } catch (GeneralSecurityException e) {
+            log.error("Error verifying TOTP code: {}", e.getMessage());
+        }
+        return OptionalLong.empty();
+    }
+
+    @Override
+    public long currentTimeStep() {
+        return System.currentTimeMillis() / config.getTimeStepSizeInMillis();
+    }
+
+    /**
+     * RFC 4226 dynamic truncation of the HMAC over the time step.
+     */
+    private int codeAt(Mac mac, long step) {
+        byte[] hash = mac.doFinal(ByteBuffer.allocate(Long.BYTES).putLong(step).array());
+        int offset = hash[hash.length - 1] & 0xF;
+        long truncated = ((hash[offset] & 0x7FL) << 24)
+                | ((hash[offset + 1] & 0xFFL) << 16)
+                | ((hash[offset + 2] & 0xFFL) << 8)
+                | (hash[offset + 3] & 0xFFL);
+        return (int) (truncated % codeModulus);
+    }
 }
@@ -0,0 +1,89 @@
+package com.gov.crypto.service;
+
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.DERNull;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.DigestInfo;
+
+import java.io.IOException;
+
+/**
+ * Digest algorithms accepted for pre-hashed signing, identified as in the
+ * CSC API (hashAlgo) by their OID.
+ */
+public enum HashAlgorithm {
+    SHA256("2.16.840.1.101.3.4.2.1", "SHA-256", 32),
+    SHA384("2.16.840.1.101.3.4.2.2", "SHA-384", 48),
+    SHA512("2.16.840.1.101.3.4.2.3", "SHA-512", 64),
+    SHA3_256("2.16.840.1.101.3.4.2.8", "SHA3-256", 32),
+    SHA3_384("2.16.840.1.101.3.4.2.9", "SHA3-384", 48),
+    SHA3_512("2.16.840.1.101.3.4.2.10", "SHA3-512", 64);
+
+    private final String oid;
+    private final String jcaName;
+    private final int digestLength;
+
+    HashAlgorithm(String oid, String jcaName, int digestLength) {
+        this.oid = oid;
+        this.jcaName = jcaName;
+        this.digestLength = digestLength;
+    }
+
+    public String oid() {
+        return oid;
+    }
+
+    public String jcaName() {
+        return jcaName;
+    }
+
+    public int digestLength() {
+        return digestLength;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the OID is not a supported digest
+     */
+    public static HashAlgorithm fromOid(String oid) {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.oid.equals(oid)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported hashAlgo: " + oid);
+    }
+
+    /**
+     * The bare digest from a client value, which may be the digest itself or
+     * a DER DigestInfo carrying it (as PKCS#1 clients often send).
+     *
+     * @throws IllegalArgumentException if the value is neither for this
+     *                                  algorithm
+     */
+    public byte[] digest(byte[] value) {
+        if (value.length == digestLength) {
+            return value;
+        }
+        DigestInfo info;
+        try {
+            info = DigestInfo.getInstance(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(
+                    jcaName + " digest must be " + digestLength + " bytes, got " + value.length);
+        }
+        if (!info.getAlgorithmId().getAlgorithm().getId().equals(oid)
+                || info.getDigest().length != digestLength) {
+            throw new IllegalArgumentException("DigestInfo does not carry a " + jcaName + " digest");
+        }
+        return info.getDigest();
+    }
+
+    /**
+     * DER DigestInfo for a digest, the input to PKCS#1 v1.5 signing.
+     */
+    public byte[] digestInfo(byte[] digest) throws IOException {
+        AlgorithmIdentifier id = new AlgorithmIdentifier(new ASN1ObjectIdentifier(oid), DERNull.INSTANCE);
+        return new DigestInfo(id, digest).getEncoded(ASN1Encoding.DER);
+    }
+}
@@ -0,0 +1,51 @@
+package com.gov.crypto.service;
+
+import java.util.List;
+
+/**
+ * A key store in which an alias can also have an ML-DSA key next to its
+ * classical one, for ECDSA + ML-DSA hybrid signatures.
+ *
+ * Aliases created before hybrid signing was enabled have no ML-DSA key;
+ * callers check {@link #hasMlDsaKey} before asking for both signatures.
+ */
+public interface HybridKeyStorage extends KeyStorageService {
+
+    /**
+     * Whether the alias has an ML-DSA key, so the hybrid methods below can
+     * be used for it.
+     */
+    boolean hasMlDsaKey(String alias);
+
+    /**
+     * Sign hashes with both the classical key and the ML-DSA key of the
+     * alias, as {@link #signHashes} would with each.
+     *
+     * @throws IllegalArgumentException if the alias lacks either key
+     */
+    HybridSignatures signHashesHybrid(String keyAlias, List<String> dataHashesBase64, String algorithm)
+            throws Exception;
+
+    /**
+     * Sign pre-hashed digests with both keys of the alias, as
+     * {@link #signDigests} would with each.
+     *
+     * @throws IllegalArgumentException if the alias lacks either key
+     */
+    HybridSignatures signDigestsHybrid(String keyAlias, List<String> digestsBase64, String hashAlgoOid)
+            throws Exception;
+
+    /**
+     * PEM of the alias's ML-DSA public key.
+     *
+     * @throws IllegalArgumentException if the alias has no ML-DSA key
+     */
+    String mlDsaPublicKeyPem(String alias) throws Exception;
+
+    /**
+     * Signatures of the same inputs, in input order, by the classical key
+     * and by the ML-DSA key.
+     */
+    record HybridSignatures(List<String> classical, List<String> mlDsa) {
+    }
+}
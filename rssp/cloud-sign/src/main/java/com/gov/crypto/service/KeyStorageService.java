@@ -1,9 +1,50 @@
 package com.gov.crypto.service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface KeyStorageService {
     String signHash(String keyAlias, String dataHashBase64, String algorithm) throws Exception;
 
+    /**
+     * Sign several hashes with one key, returning signatures in input order.
+     * Implementations should resolve the key and acquire a session once for
+     * the whole batch.
+     */
+    default List<String> signHashes(String keyAlias, List<String> dataHashesBase64, String algorithm)
+            throws Exception {
+        List<String> signatures = new ArrayList<>(dataHashesBase64.size());
+        for (String dataHashBase64 : dataHashesBase64) {
+            signatures.add(signHash(keyAlias, dataHashBase64, algorithm));
+        }
+        return signatures;
+    }
+
+    /**
+     * Sign digests the client already computed with the CSC hashAlgo
+     * {@code hashAlgoOid}, returning signatures in input order. Each digest
+     * is signed once as is (see {@link PreHashedSignatures}), unlike
+     * {@link #signHashes}, which hashes its input again.
+     *
+     * @throws IllegalArgumentException if the algorithm is unsupported or a
+     *                                  digest has the wrong length
+     */
+    List<String> signDigests(String keyAlias, List<String> digestsBase64, String hashAlgoOid) throws Exception;
+
     String generateKeyPair(String alias, String algorithm) throws Exception;
 
     String generateCsr(String alias, String subject) throws Exception;
+
+    /**
+     * Generate a key pair and a CSR for it with the given subject DN in one
+     * step. Implementations sign the CSR with the key objects they just
+     * generated instead of looking the key up again.
+     */
+    default GeneratedKey generateKeyPairWithCsr(String alias, String algorithm, String subject) throws Exception {
+        String publicKeyPem = generateKeyPair(alias, algorithm);
+        return new GeneratedKey(publicKeyPem, generateCsr(alias, subject));
+    }
+
+    record GeneratedKey(String publicKeyPem, String csrPem) {
+    }
 }
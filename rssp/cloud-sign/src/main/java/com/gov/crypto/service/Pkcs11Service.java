@@ -20,7 +20,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.*;
 import java.security.cert.Certificate;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 
 @Service("hsmKeyStorage")
 @ConditionalOnProperty(name = "hsm.enabled", havingValue = "true")
@@ -121,6 +123,31 @@ public class Pkcs11Service implements KeyStorageService {
         return Base64.getEncoder().encodeToString(sigBytes);
     }
 
+    @Override
+    public List<String> signDigests(String keyAlias, List<String> digestsBase64, String hashAlgoOid)
+            throws Exception {
+        ensureInitialized();
+
+        HashAlgorithm hashAlgorithm = HashAlgorithm.fromOid(hashAlgoOid);
+        PrivateKey privateKey = (PrivateKey) keyStore.getKey(keyAlias, hsmPin.toCharArray());
+        if (privateKey == null) {
+            throw new IllegalArgumentException("Key not found in HSM: " + keyAlias);
+        }
+
+        // Raw mechanism over the client's digest: no second hash on the token
+        Signature signature = Signature.getInstance(PreHashedSignatures.signatureAlgorithm(privateKey),
+                pkcs11Provider);
+        signature.initSign(privateKey);
+
+        List<String> signatures = new ArrayList<>(digestsBase64.size());
+        for (String digestBase64 : digestsBase64) {
+            byte[] digest = hashAlgorithm.digest(Base64.getDecoder().decode(digestBase64));
+            signature.update(PreHashedSignatures.signatureInput(privateKey, hashAlgorithm, digest));
+            signatures.add(Base64.getEncoder().encodeToString(signature.sign()));
+        }
+        return signatures;
+    }
+
     @Override
     public String generateKeyPair(String alias, String algorithm) throws Exception {
         ensureInitialized();
@@ -0,0 +1,55 @@
+package com.gov.crypto.service;
+
+import com.gov.crypto.common.pqc.PqcCryptoService;
+import org.bouncycastle.jcajce.interfaces.MLDSAPrivateKey;
+
+import java.security.PrivateKey;
+
+/**
+ * Signing of digests the client computed itself (CSC signHash with a
+ * hashAlgo), so large documents are hashed where they live and the server
+ * does one private-key operation per signature without hashing again.
+ *
+ * EC keys sign the digest with NONEwithECDSA and RSA keys sign its
+ * DigestInfo with NONEwithRSA; both give the same signature as
+ * SHAxxxwithECDSA/RSA over the document. ML-DSA keys produce HashML-DSA
+ * (FIPS 204, empty context), fed to the signer as the external message
+ * representative mu because the provider's HashML-DSA would hash the input
+ * itself.
+ */
+public final class PreHashedSignatures {
+
+    private PreHashedSignatures() {
+    }
+
+    /**
+     * JCA signature algorithm that signs the output of
+     * {@link #signatureInput} as is.
+     */
+    public static String signatureAlgorithm(PrivateKey key) {
+        if (key instanceof MLDSAPrivateKey) {
+            return "ML-DSA-EXTERNAL-MU";
+        }
+        return switch (key.getAlgorithm()) {
+            case "EC", "ECDSA" -> "NONEwithECDSA";
+            case "RSA" -> "NONEwithRSA";
+            default -> throw new IllegalArgumentException(
+                    "Pre-hashed signing not supported for " + key.getAlgorithm() + " keys");
+        };
+    }
+
+    /**
+     * What to pass to the {@link #signatureAlgorithm} signer for one digest.
+     */
+    public static byte[] signatureInput(PrivateKey key, HashAlgorithm hashAlgorithm, byte[] digest)
+            throws Exception {
+        if (key instanceof MLDSAPrivateKey mldsaKey) {
+            return PqcCryptoService.hashMlDsaMu(mldsaKey.getPublicKey().getPublicData(), hashAlgorithm.oid(),
+                    digest);
+        }
+        if ("RSA".equals(key.getAlgorithm())) {
+            return hashAlgorithm.digestInfo(digest);
+        }
+        return digest;
+    }
+}
@@ -0,0 +1,170 @@
+package com.gov.crypto.cloudsign.controller;
+
+import com.gov.crypto.cloudsign.security.SadValidator;
+import com.gov.crypto.cloudsign.security.SadValidator.ValidationResult;
+import com.gov.crypto.cloudsign.service.IdempotencyService;
+import com.gov.crypto.cloudsign.service.SigningChallengeService;
+import com.gov.crypto.cloudsign.service.SigningChallengeService.ChallengeCreatedResult;
+import com.gov.crypto.cloudsign.service.SigningChallengeService.SigningChallenge;
+import com.gov.crypto.cloudsign.service.SigningChallengeService.VerificationResult;
+import com.gov.crypto.cloudsign.service.SigningExecutor;
+import com.gov.crypto.cloudsign.service.impl.SoftwareKeyStorageService;
+import com.gov.crypto.common.rpc.CloudSignMessages.KeyGenCall;
+import com.gov.crypto.common.rpc.CloudSignMessages.KeyGenResult;
+import com.gov.crypto.common.rpc.CloudSignMessages.SignConfirmCall;
+import com.gov.crypto.common.rpc.CloudSignMessages.SignConfirmResult;
+import com.gov.crypto.common.rpc.CloudSignMessages.SignInitCall;
+import com.gov.crypto.common.rpc.CloudSignMessages.SignInitResult;
+import com.gov.crypto.common.rpc.FrameCodec;
+import com.gov.crypto.common.rpc.RpcStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BinarySigningControllerTest {
+
+    private static final byte[] HASH = new byte[48];
+
+    @Mock
+    private SadValidator sadValidator;
+
+    @Mock
+    private SigningChallengeService signingChallengeService;
+
+    @TempDir
+    Path tempDir;
+
+    private SigningExecutor signingExecutor;
+    private BinarySigningController controller;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        SoftwareKeyStorageService keyStorageService = new SoftwareKeyStorageService(
+                tempDir.resolve("ec.p12").toString(), tempDir.resolve("ec").toString(), "changeit");
+        keyStorageService.init();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        signingExecutor = new SigningExecutor(2, 4, 1, meterRegistry);
+        SigningController signingController = new SigningController(keyStorageService, sadValidator,
+                signingChallengeService, signingExecutor, new IdempotencyService(600, 100, meterRegistry));
+        controller = new BinarySigningController(signingController, 1 << 20);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        signingExecutor.shutdown();
+    }
+
+    private static InputStream body(byte[] message) {
+        return new ByteArrayInputStream(FrameCodec.frame(message));
+    }
+
+    private static byte[] message(ResponseEntity<byte[]> response) throws Exception {
+        return FrameCodec.readFrame(new ByteArrayInputStream(response.getBody()), 1 << 20);
+    }
+
+    @Test
+    public void testGenerateKeyWithCsrReturnsDer() throws Exception {
+        when(sadValidator.validate(anyString(), eq("alice"), isNull()))
+                .thenReturn(ValidationResult.success("alice"));
+
+        KeyGenResult result = KeyGenResult.decode(message(controller.generateKey(
+                body(new KeyGenCall("alice", "EC", "CN=Alice,C=VN").encode()), "Bearer t", null, null)));
+
+        Assertions.assertEquals(RpcStatus.OK, result.status());
+        PKCS10CertificationRequest csr = new PKCS10CertificationRequest(result.csr());
+        Assertions.assertEquals("CN=Alice,C=VN", csr.getSubject().toString());
+        Assertions.assertArrayEquals(result.publicKey(), csr.getSubjectPublicKeyInfo().getEncoded());
+        Assertions.assertEquals(0, result.mlDsaPublicKey().length);
+    }
+
+    @Test
+    public void testBatchSignsRawHashesAfterConfirmation() throws Exception {
+        when(sadValidator.validate(anyString(), eq("alice"), isNull()))
+                .thenReturn(ValidationResult.success("alice"));
+        KeyGenResult key = KeyGenResult.decode(message(controller.generateKey(
+                body(new KeyGenCall("alice", "EC", "").encode()), "Bearer t", null, null)));
+        String hashBase64 = Base64.getEncoder().encodeToString(HASH);
+        Instant expiresAt = Instant.now().plusSeconds(300);
+        when(signingChallengeService.createChallenge("alice", "alice", List.of(hashBase64, hashBase64),
+                "SHA384withECDSA", null)).thenReturn(new ChallengeCreatedResult("c-1", expiresAt));
+        when(signingChallengeService.verifyChallenge("c-1", "123456"))
+                .thenReturn(VerificationResult.success(new SigningChallenge("c-1", "alice", "alice",
+                        List.of(hashBase64, hashBase64), "SHA384withECDSA", null, Instant.now(), expiresAt)));
+
+        SignInitResult init = SignInitResult.decode(message(controller.initializeSigning(
+                body(new SignInitCall("alice", "SHA384withECDSA", "", List.of(HASH, HASH)).encode()),
+                "Bearer t", null)));
+        SignConfirmResult signed = SignConfirmResult.decode(message(controller.confirmSigning(
+                body(new SignConfirmCall(init.challengeId(), "123456").encode()), null).join()));
+
+        Assertions.assertEquals(RpcStatus.OK, init.status());
+        Assertions.assertEquals(expiresAt.toEpochMilli(), init.expiresAtMillis());
+        Assertions.assertEquals(RpcStatus.OK, signed.status());
+        Assertions.assertEquals(2, signed.signatures().size());
+        Assertions.assertTrue(signed.mlDsaSignatures().isEmpty());
+        PublicKey publicKey = KeyFactory.getInstance("EC", BouncyCastleProvider.PROVIDER_NAME)
+                .generatePublic(new X509EncodedKeySpec(key.publicKey()));
+        for (byte[] signature : signed.signatures()) {
+            Signature verifier = Signature.getInstance("SHA384withECDSA", BouncyCastleProvider.PROVIDER_NAME);
+            verifier.initVerify(publicKey);
+            verifier.update(HASH);
+            Assertions.assertTrue(verifier.verify(signature));
+        }
+    }
+
+    @Test
+    public void testRefusalsAreReportedInTheResult() throws Exception {
+        when(sadValidator.validate(any(), eq("alice"), isNull()))
+                .thenReturn(ValidationResult.failure("Missing authorization"));
+        when(signingChallengeService.verifyChallenge("c-9", "000000"))
+                .thenReturn(VerificationResult.failure("Invalid TOTP code"));
+
+        KeyGenResult key = KeyGenResult.decode(message(controller.generateKey(
+                body(new KeyGenCall("alice", "EC", "").encode()), null, null, null)));
+        SignConfirmResult confirm = SignConfirmResult.decode(message(controller.confirmSigning(
+                body(new SignConfirmCall("c-9", "000000").encode()), null).join()));
+        SignInitResult malformed = SignInitResult.decode(message(controller.initializeSigning(
+                body(new byte[] { 1, 2 }), "Bearer t", null)));
+        KeyGenResult oversized = KeyGenResult.decode(message(controller.generateKey(
+                body(new byte[(1 << 20) + 1]), "Bearer t", null, null)));
+        SignConfirmResult truncated = SignConfirmResult.decode(message(controller.confirmSigning(
+                new ByteArrayInputStream(new byte[] { 0, 0, 0, 9, 1 }), null).join()));
+        SignConfirmResult empty = SignConfirmResult.decode(message(controller.confirmSigning(
+                new ByteArrayInputStream(new byte[0]), null).join()));
+
+        Assertions.assertEquals(RpcStatus.UNAUTHENTICATED, key.status());
+        Assertions.assertEquals("Missing authorization", key.message());
+        Assertions.assertEquals(RpcStatus.UNAUTHENTICATED, confirm.status());
+        Assertions.assertEquals(RpcStatus.INVALID_ARGUMENT, malformed.status());
+        Assertions.assertEquals(RpcStatus.INVALID_ARGUMENT, oversized.status());
+        Assertions.assertEquals(RpcStatus.INVALID_ARGUMENT, truncated.status());
+        Assertions.assertEquals(RpcStatus.INVALID_ARGUMENT, empty.status());
+    }
+}
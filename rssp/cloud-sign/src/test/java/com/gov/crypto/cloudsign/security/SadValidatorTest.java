@@ -0,0 +1,117 @@
+package com.gov.crypto.cloudsign.security;
+
+import com.gov.crypto.cloudsign.security.SadValidator.ValidationResult;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SadValidatorTest {
+
+    private static KeyPair issuerKeys;
+    private static KeyPair otherKeys;
+
+    @BeforeAll
+    public static void keys() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        issuerKeys = kpg.generateKeyPair();
+        otherKeys = kpg.generateKeyPair();
+    }
+
+    private static String token(KeyPair keys, String subject, String identityStatus, long expiresInMillis)
+            throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject(subject)
+                .claim("identity_status", identityStatus)
+                .expirationTime(new Date(System.currentTimeMillis() + expiresInMillis))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claims);
+        jwt.sign(new RSASSASigner(keys.getPrivate()));
+        return jwt.serialize();
+    }
+
+    private static JwtDecoder decoder() {
+        return NimbusJwtDecoder.withPublicKey((RSAPublicKey) issuerKeys.getPublic()).build();
+    }
+
+    @Test
+    public void testValidTokenForOwnKey() throws Exception {
+        SadValidator validator = new SadValidator(decoder(), 100, 60);
+
+        ValidationResult result = validator.validate(
+                "Bearer " + token(issuerKeys, "alice", "VERIFIED", 60_000), "alice_sign", null);
+
+        Assertions.assertTrue(result.valid());
+        Assertions.assertEquals("alice", result.username());
+    }
+
+    @Test
+    public void testRejectsForgedSignature() throws Exception {
+        SadValidator validator = new SadValidator(decoder(), 100, 60);
+
+        ValidationResult result = validator.validate(
+                "Bearer " + token(otherKeys, "alice", "VERIFIED", 60_000), "alice", null);
+
+        Assertions.assertFalse(result.valid());
+    }
+
+    @Test
+    public void testRejectsExpiredAndUnverifiedTokens() throws Exception {
+        SadValidator validator = new SadValidator(decoder(), 100, 60);
+
+        Assertions.assertFalse(validator.validate(
+                "Bearer " + token(issuerKeys, "alice", "VERIFIED", -120_000), "alice", null).valid());
+        ValidationResult unverified = validator.validate(
+                "Bearer " + token(issuerKeys, "alice", "PENDING", 60_000), "alice", null);
+        Assertions.assertFalse(unverified.valid());
+        Assertions.assertTrue(unverified.errorMessage().contains("not verified"));
+    }
+
+    @Test
+    public void testRejectsOtherUsersKey() throws Exception {
+        SadValidator validator = new SadValidator(decoder(), 100, 60);
+        String header = "Bearer " + token(issuerKeys, "alice", "VERIFIED", 60_000);
+
+        Assertions.assertFalse(validator.validate(header, "bob", null).valid());
+        Assertions.assertFalse(validator.validate(header, "alicex", null).valid());
+    }
+
+    @Test
+    public void testRepeatedTokenServedFromClaimsCache() throws Exception {
+        AtomicInteger decodes = new AtomicInteger();
+        JwtDecoder delegate = decoder();
+        SadValidator validator = new SadValidator(token -> {
+            decodes.incrementAndGet();
+            return delegate.decode(token);
+        }, 100, 60);
+        String header = "Bearer " + token(issuerKeys, "alice", "VERIFIED", 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(validator.validate(header, "alice", null).valid());
+        }
+
+        Assertions.assertEquals(1, decodes.get());
+    }
+
+    @Test
+    public void testRejectsJwtWhenVerificationNotConfigured() throws Exception {
+        SadValidator validator = new SadValidator(null, 100, 60);
+
+        Assertions.assertFalse(validator.validate(
+                "Bearer " + token(issuerKeys, "alice", "VERIFIED", 60_000), "alice", null).valid());
+        Assertions.assertTrue(validator.validate(null, "alice", () -> "alice").valid());
+    }
+}
@@ -0,0 +1,87 @@
+package com.gov.crypto.cloudsign.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdempotencyServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private CompletableFuture<ResponseEntity<?>> respond(int status) {
+        runs.incrementAndGet();
+        return CompletableFuture.completedFuture(ResponseEntity.status(status).body("run " + runs.get()));
+    }
+
+    @Test
+    public void testRepeatReplaysStoredResponse() {
+        IdempotencyService service = new IdempotencyService(600, 100, registry);
+
+        ResponseEntity<?> first = service.execute("k1", "req", () -> respond(200)).join();
+        ResponseEntity<?> second = service.execute("k1", "req", () -> respond(200)).join();
+
+        Assertions.assertEquals(1, runs.get());
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, registry.get("idempotency.requests").tag("outcome", "replayed")
+                .counter().count());
+    }
+
+    @Test
+    public void testConcurrentDuplicateWaitsForInFlightResult() {
+        IdempotencyService service = new IdempotencyService(600, 100, registry);
+        CompletableFuture<ResponseEntity<?>> inFlight = new CompletableFuture<>();
+
+        CompletableFuture<ResponseEntity<?>> first = service.execute("k1", "req", () -> {
+            runs.incrementAndGet();
+            return inFlight;
+        });
+        CompletableFuture<ResponseEntity<?>> duplicate = service.execute("k1", "req", () -> respond(200));
+        Assertions.assertFalse(duplicate.isDone());
+
+        inFlight.complete(ResponseEntity.ok("signed"));
+
+        Assertions.assertEquals(1, runs.get());
+        Assertions.assertEquals("signed", first.join().getBody());
+        Assertions.assertEquals("signed", duplicate.join().getBody());
+    }
+
+    @Test
+    public void testFailuresAndBusyResponsesAreNotStored() {
+        IdempotencyService service = new IdempotencyService(600, 100, registry);
+
+        Assertions.assertEquals(500, service.execute("k1", "req", () -> respond(500)).join()
+                .getStatusCode().value());
+        Assertions.assertEquals(429, service.execute("k1", "req", () -> respond(429)).join()
+                .getStatusCode().value());
+        Assertions.assertEquals(200, service.execute("k1", "req", () -> respond(200)).join()
+                .getStatusCode().value());
+
+        Assertions.assertEquals(3, runs.get());
+        Assertions.assertEquals(1, service.size());
+    }
+
+    @Test
+    public void testKeyReusedForDifferentRequestIsRejected() {
+        IdempotencyService service = new IdempotencyService(600, 100, registry);
+        service.execute("k1", "req", () -> respond(200)).join();
+
+        Assertions.assertThrows(IdempotencyKeyReusedException.class,
+                () -> service.execute("k1", "other", () -> respond(200)));
+        Assertions.assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testExpiredResponsesAreDropped() {
+        IdempotencyService service = new IdempotencyService(0, 100, registry);
+        service.execute("k1", "req", () -> respond(200)).join();
+
+        Assertions.assertEquals(1, service.expireEntries());
+        service.execute("k1", "req", () -> respond(200)).join();
+        Assertions.assertEquals(2, runs.get());
+    }
+}
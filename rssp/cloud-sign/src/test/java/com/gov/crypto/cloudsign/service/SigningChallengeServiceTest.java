@@ -4,6 +4,9 @@ import com.gov.crypto.cloudsign.model.UserTotp;
 import com.gov.crypto.cloudsign.repository.UserTotpRepository;
 import com.gov.crypto.cloudsign.service.SigningChallengeService.ChallengeCreatedResult;
 import com.gov.crypto.cloudsign.service.SigningChallengeService.VerificationResult;
+import com.gov.crypto.cloudsign.service.impl.InMemoryChallengeStore;
+import com.gov.crypto.service.HashAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,11 +16,16 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,11 +37,33 @@ public class SigningChallengeServiceTest {
     @Mock
     private TotpService totpService;
 
+    private static final byte[] KEY = "decoded-secret".getBytes();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private InMemoryChallengeStore challengeStore;
+
     private SigningChallengeService signingChallengeService;
 
     @BeforeEach
     public void setup() {
-        signingChallengeService = new SigningChallengeService(userTotpRepository, totpService);
+        meterRegistry = new SimpleMeterRegistry();
+        challengeStore = new InMemoryChallengeStore(meterRegistry);
+        signingChallengeService = new SigningChallengeService(
+                totpVerifier(), challengeStore, meterRegistry, 300, 3);
+    }
+
+    private TotpVerifier totpVerifier() {
+        return new TotpVerifier(userTotpRepository, totpService, meterRegistry, 100, 300);
+    }
+
+    private void givenSecret() {
+        when(userTotpRepository.findByUsername("user1")).thenReturn(Optional.of(new UserTotp("user1", "SECRET")));
+        when(totpService.decodeSecret("SECRET")).thenReturn(KEY);
+    }
+
+    private double events(String event) {
+        return meterRegistry.get("signing.challenges").tag("event", event).counter().count();
     }
 
     @Test
@@ -52,11 +82,10 @@ public class SigningChallengeServiceTest {
         String challengeId = created.challengeId();
 
         // 2. Mock TOTP Setup
-        UserTotp userTotp = new UserTotp("user1", "SECRET");
-        when(userTotpRepository.findByUsername("user1")).thenReturn(Optional.of(userTotp));
+        givenSecret();
 
         // 3. Mock TOTP Verification to Success
-        when(totpService.verifyCode(anyString(), anyInt())).thenReturn(true);
+        when(totpService.matchTimeStep(any(), anyInt())).thenReturn(OptionalLong.of(1));
 
         // 4. Verify
         VerificationResult result = signingChallengeService.verifyChallenge(challengeId, "123456");
@@ -73,11 +102,10 @@ public class SigningChallengeServiceTest {
         String challengeId = created.challengeId();
 
         // 2. Mock TOTP Setup
-        UserTotp userTotp = new UserTotp("user1", "SECRET");
-        when(userTotpRepository.findByUsername("user1")).thenReturn(Optional.of(userTotp));
+        givenSecret();
 
         // 3. Mock TOTP Verification to Failure
-        when(totpService.verifyCode(anyString(), anyInt())).thenReturn(false);
+        when(totpService.matchTimeStep(any(), anyInt())).thenReturn(OptionalLong.empty());
 
         // 4. Verify
         VerificationResult result = signingChallengeService.verifyChallenge(challengeId, "123456");
@@ -100,4 +128,123 @@ public class SigningChallengeServiceTest {
         Assertions.assertFalse(result.valid());
         Assertions.assertEquals("TOTP not set up for user", result.errorMessage());
     }
+
+    @Test
+    public void testVerifyChallenge_MultipleHashes() {
+        List<String> hashes = List.of("hash1", "hash2", "hash3");
+        ChallengeCreatedResult created = signingChallengeService.createChallenge("user1", "alias1", hashes, "SHA256");
+
+        givenSecret();
+        when(totpService.matchTimeStep(any(), anyInt())).thenReturn(OptionalLong.of(1));
+
+        VerificationResult result = signingChallengeService.verifyChallenge(created.challengeId(), "123456");
+
+        Assertions.assertTrue(result.valid());
+        Assertions.assertEquals(hashes, result.challenge().documentHashes());
+        Assertions.assertEquals("hash1", result.challenge().documentHash());
+    }
+
+    @Test
+    public void testCreateChallenge_RejectsEmptyOrOversizedBatch() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> signingChallengeService.createChallenge("user1", "alias1", List.of(), "SHA256"));
+        List<String> tooMany = Collections.nCopies(SigningChallengeService.MAX_HASHES_PER_CHALLENGE + 1, "hash");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> signingChallengeService.createChallenge("user1", "alias1", tooMany, "SHA256"));
+    }
+
+    @Test
+    public void testCreateChallenge_ChecksPreHashedDigests() {
+        String sha384 = Base64.getEncoder().encodeToString(new byte[48]);
+        String sha256 = Base64.getEncoder().encodeToString(new byte[32]);
+
+        ChallengeCreatedResult created = signingChallengeService.createChallenge(
+                "user1", "alias1", List.of(sha384), "SHA384withECDSA", HashAlgorithm.SHA384.oid());
+        Assertions.assertEquals(HashAlgorithm.SHA384.oid(),
+                challengeStore.find(created.challengeId()).orElseThrow().hashAlgo());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> signingChallengeService.createChallenge(
+                "user1", "alias1", List.of(sha256), "SHA384withECDSA", HashAlgorithm.SHA384.oid()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> signingChallengeService.createChallenge(
+                "user1", "alias1", List.of(sha384), "SHA384withECDSA", "1.2.3"));
+    }
+
+    @Test
+    public void testVerifyChallenge_ConsumedOnlyOnce() {
+        ChallengeCreatedResult created = signingChallengeService.createChallenge("user1", "alias1", "hash", "SHA256");
+        givenSecret();
+        when(totpService.matchTimeStep(any(), anyInt())).thenReturn(OptionalLong.of(1));
+
+        Assertions.assertTrue(signingChallengeService.verifyChallenge(created.challengeId(), "123456").valid());
+        Assertions.assertFalse(signingChallengeService.verifyChallenge(created.challengeId(), "123456").valid());
+        Assertions.assertEquals(1.0, events("consumed"));
+        Assertions.assertEquals(0, challengeStore.size());
+    }
+
+    @Test
+    public void testVerifyChallenge_CodeAcceptedOnceAndSecretCached() {
+        ChallengeCreatedResult first = signingChallengeService.createChallenge("user1", "alias1", "hash1", "SHA256");
+        ChallengeCreatedResult second = signingChallengeService.createChallenge("user1", "alias1", "hash2", "SHA256");
+        givenSecret();
+        when(totpService.matchTimeStep(KEY, 123456)).thenReturn(OptionalLong.of(1));
+
+        Assertions.assertTrue(signingChallengeService.verifyChallenge(first.challengeId(), "123456").valid());
+        VerificationResult replayed = signingChallengeService.verifyChallenge(second.challengeId(), "123456");
+
+        Assertions.assertFalse(replayed.valid());
+        Assertions.assertEquals("TOTP code already used", replayed.errorMessage());
+        verify(userTotpRepository, times(1)).findByUsername("user1");
+    }
+
+    @Test
+    public void testVerifyChallenge_LosingConsumeKeepsCode() {
+        ChallengeStore racingStore = Mockito.spy(challengeStore);
+        SigningChallengeService racing = new SigningChallengeService(
+                totpVerifier(), racingStore, meterRegistry, 300, 3);
+        ChallengeCreatedResult lost = racing.createChallenge("user1", "alias1", "hash1", "SHA256");
+        ChallengeCreatedResult next = racing.createChallenge("user1", "alias1", "hash2", "SHA256");
+        givenSecret();
+        when(totpService.matchTimeStep(KEY, 123456)).thenReturn(OptionalLong.of(1));
+        // another confirmation consumed the challenge after this one found it
+        Mockito.doReturn(Optional.empty()).when(racingStore).consume(lost.challengeId());
+
+        VerificationResult raced = racing.verifyChallenge(lost.challengeId(), "123456");
+
+        Assertions.assertEquals("Challenge not found or already used", raced.errorMessage());
+        Assertions.assertTrue(racing.verifyChallenge(next.challengeId(), "123456").valid());
+    }
+
+    @Test
+    public void testExpireChallenges_OnlyDueChallenges() throws Exception {
+        InMemoryChallengeStore shortLivedStore = new InMemoryChallengeStore(new SimpleMeterRegistry());
+        SigningChallengeService shortLived = new SigningChallengeService(
+                totpVerifier(), shortLivedStore, meterRegistry, 0, 3);
+        shortLived.createChallenge("user1", "alias1", "hash", "SHA256");
+        shortLived.createChallenge("user2", "alias2", "hash", "SHA256");
+        Thread.sleep(5);
+
+        Assertions.assertEquals(0, signingChallengeService.expireChallenges());
+        Assertions.assertEquals(2, shortLived.expireChallenges());
+        Assertions.assertEquals(0, shortLivedStore.size());
+        Assertions.assertEquals(2.0, events("expired"));
+    }
+
+    @Test
+    public void testCreateChallenge_PendingLimitPerUser() {
+        ChallengeCreatedResult first = signingChallengeService.createChallenge("user1", "alias1", "hash", "SHA256");
+        for (int i = 1; i < 3; i++) {
+            signingChallengeService.createChallenge("user1", "alias1", "hash" + i, "SHA256");
+        }
+
+        Assertions.assertThrows(PendingChallengeLimitException.class,
+                () -> signingChallengeService.createChallenge("user1", "alias1", "hash", "SHA256"));
+        Assertions.assertNotNull(signingChallengeService.createChallenge("user2", "alias2", "hash", "SHA256"));
+        Assertions.assertEquals(1.0, events("rejected"));
+
+        // Cancelling frees a slot
+        signingChallengeService.cancelChallenge(first.challengeId());
+        Assertions.assertNotNull(signingChallengeService.createChallenge("user1", "alias1", "hash", "SHA256"));
+        Assertions.assertEquals(1.0, events("cancelled"));
+        Assertions.assertEquals(5.0, events("created"));
+    }
 }
@@ -0,0 +1,91 @@
+package com.gov.crypto.cloudsign.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SigningExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SigningExecutor executor;
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testConcurrencyIsBoundedByPermits() throws Exception {
+        executor = new SigningExecutor(2, 100, 1, meterRegistry);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int n = i;
+            results.add(executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return n;
+            }));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertTrue(maxRunning.get() <= 2);
+        Assertions.assertEquals(20, meterRegistry.get("signing.executor.service").timer().count());
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        executor = new SigningExecutor(1, 2, 3, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture<String> busy = executor.submit(() -> {
+            started.countDown();
+            release.await();
+            return "done";
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued1 = executor.submit(() -> "q1");
+        CompletableFuture<String> queued2 = executor.submit(() -> "q2");
+
+        SigningRejectedException rejected = Assertions.assertThrows(SigningRejectedException.class,
+                () -> executor.submit(() -> "over"));
+        Assertions.assertEquals(3, rejected.getRetryAfterSeconds());
+        Assertions.assertEquals(1, meterRegistry.get("signing.executor.rejected").counter().count());
+
+        release.countDown();
+        Assertions.assertEquals("done", busy.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("q1", queued1.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("q2", queued2.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, executor.queued());
+        Assertions.assertEquals("again", executor.submit(() -> "again").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTaskFailureCompletesExceptionally() {
+        executor = new SigningExecutor(1, 10, 1, meterRegistry);
+
+        CompletableFuture<String> result = executor.submit(() -> {
+            throw new IllegalStateException("HSM down");
+        });
+
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(IllegalStateException.class, e.getCause());
+        Assertions.assertEquals(0, executor.active());
+    }
+}
@@ -0,0 +1,81 @@
+package com.gov.crypto.cloudsign.service;
+
+import com.gov.crypto.cloudsign.model.UserTotp;
+import com.gov.crypto.cloudsign.repository.UserTotpRepository;
+import com.gov.crypto.cloudsign.service.TotpVerifier.Outcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TotpVerifierTest {
+
+    private static final byte[] OLD_KEY = "old".getBytes();
+    private static final byte[] NEW_KEY = "new".getBytes();
+
+    @Mock
+    private UserTotpRepository userTotpRepository;
+
+    @Mock
+    private TotpService totpService;
+
+    private TotpVerifier totpVerifier;
+
+    @BeforeEach
+    public void setup() {
+        totpVerifier = new TotpVerifier(userTotpRepository, totpService, new SimpleMeterRegistry(), 100, 300);
+    }
+
+    @Test
+    public void testSecretChangeDropsCachedSecret() {
+        when(userTotpRepository.findByUsername("user1"))
+                .thenReturn(Optional.of(new UserTotp("user1", "OLD")))
+                .thenReturn(Optional.of(new UserTotp("user1", "NEW")));
+        when(totpService.decodeSecret("OLD")).thenReturn(OLD_KEY);
+        when(totpService.decodeSecret("NEW")).thenReturn(NEW_KEY);
+        when(totpService.matchTimeStep(OLD_KEY, 111111)).thenReturn(OptionalLong.of(1));
+        when(totpService.matchTimeStep(NEW_KEY, 222222)).thenReturn(OptionalLong.of(2));
+
+        Assertions.assertEquals(Outcome.VALID, totpVerifier.verify("user1", 111111));
+        totpVerifier.onSecretChanged(new TotpSecretChangedEvent("user1"));
+
+        Assertions.assertEquals(Outcome.VALID, totpVerifier.verify("user1", 222222));
+        verify(userTotpRepository, times(2)).findByUsername("user1");
+    }
+
+    @Test
+    public void testOlderTimeStepIsReplay() {
+        when(userTotpRepository.findByUsername("user1")).thenReturn(Optional.of(new UserTotp("user1", "OLD")));
+        when(totpService.decodeSecret("OLD")).thenReturn(OLD_KEY);
+        when(totpService.matchTimeStep(OLD_KEY, 222222)).thenReturn(OptionalLong.of(2));
+        when(totpService.matchTimeStep(OLD_KEY, 111111)).thenReturn(OptionalLong.of(1));
+
+        Assertions.assertEquals(Outcome.VALID, totpVerifier.verify("user1", 222222));
+        Assertions.assertEquals(Outcome.REPLAYED, totpVerifier.verify("user1", 111111));
+        Assertions.assertEquals(Outcome.REPLAYED, totpVerifier.verify("user1", 222222));
+    }
+
+    @Test
+    public void testUsedStepsExpireWithTheWindow() {
+        when(userTotpRepository.findByUsername("user1")).thenReturn(Optional.of(new UserTotp("user1", "OLD")));
+        when(totpService.decodeSecret("OLD")).thenReturn(OLD_KEY);
+        when(totpService.matchTimeStep(OLD_KEY, 111111)).thenReturn(OptionalLong.of(10));
+        when(totpService.currentTimeStep()).thenReturn(11L, 12L);
+
+        totpVerifier.verify("user1", 111111);
+
+        Assertions.assertEquals(0, totpVerifier.expireUsedCodes());
+        Assertions.assertEquals(1, totpVerifier.expireUsedCodes());
+    }
+}
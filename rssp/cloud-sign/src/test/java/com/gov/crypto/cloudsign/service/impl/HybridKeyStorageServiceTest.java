@@ -0,0 +1,183 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import com.gov.crypto.cloudsign.service.KeyAlreadyExistsException;
+import com.gov.crypto.service.HybridKeyStorage.HybridSignatures;
+import com.gov.crypto.service.KeyStorageService;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HybridKeyStorageServiceTest {
+
+    private static final String HASH = Base64.getEncoder().encodeToString(new byte[48]);
+
+    @TempDir
+    Path tempDir;
+
+    private SoftwareKeyStorageService newClassicalStore() throws Exception {
+        SoftwareKeyStorageService classical = new SoftwareKeyStorageService(
+                tempDir.resolve("ec.p12").toString(), tempDir.resolve("ec").toString(), "changeit");
+        classical.init();
+        return classical;
+    }
+
+    private HybridKeyStorageService newService() throws Exception {
+        return newService(newClassicalStore());
+    }
+
+    private HybridKeyStorageService newService(KeyStorageService classical) throws Exception {
+        HybridKeyStorageService service = new HybridKeyStorageService(classical, new SoftwareKeyStorageService(
+                tempDir.resolve("mldsa.p12").toString(), tempDir.resolve("mldsa").toString(), "changeit",
+                "ML-DSA-65"));
+        service.init();
+        return service;
+    }
+
+    @Test
+    public void testSignHashesHybridReturnsBothSignatures() throws Exception {
+        HybridKeyStorageService service = newService();
+        String ecPem = service.generateKeyPair("alice", "EC");
+        String mlDsaPem = service.mlDsaPublicKeyPem("alice");
+
+        HybridSignatures signed = service.signHashesHybrid("alice", List.of(HASH, HASH), "SHA384withECDSA");
+
+        Assertions.assertEquals(2, signed.classical().size());
+        Assertions.assertEquals(2, signed.mlDsa().size());
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertTrue(verify(ecPem, "EC", "SHA384withECDSA", signed.classical().get(i)));
+            Assertions.assertTrue(verify(mlDsaPem, "ML-DSA", "ML-DSA-65", signed.mlDsa().get(i)));
+        }
+        service.shutdown();
+    }
+
+    @Test
+    public void testMlDsaKeysSurviveRestart() throws Exception {
+        HybridKeyStorageService first = newService();
+        first.generateKeyPair("alice", "EC");
+        String mlDsaPem = first.mlDsaPublicKeyPem("alice");
+        first.shutdown();
+
+        HybridKeyStorageService restarted = newService();
+        HybridSignatures signed = restarted.signHashesHybrid("alice", List.of(HASH), "SHA384withECDSA");
+
+        Assertions.assertEquals(mlDsaPem, restarted.mlDsaPublicKeyPem("alice"));
+        Assertions.assertTrue(verify(mlDsaPem, "ML-DSA", "ML-DSA-65", signed.mlDsa().get(0)));
+        restarted.shutdown();
+    }
+
+    @Test
+    public void testMissingKeyFailsWholeRequest() throws Exception {
+        HybridKeyStorageService service = newService();
+
+        Assertions.assertFalse(service.hasMlDsaKey("nobody"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> service.signHashesHybrid("nobody", List.of(HASH), "SHA384withECDSA"));
+        service.shutdown();
+    }
+
+    @Test
+    public void testAliasFromBeforeHybridSignsClassicallyUntilGenerated() throws Exception {
+        SoftwareKeyStorageService classical = newClassicalStore();
+        String ecPem = classical.generateKeyPair("legacy", "EC");
+
+        HybridKeyStorageService service = newService(classical);
+
+        Assertions.assertFalse(service.hasMlDsaKey("legacy"));
+        String signature = service.signHashes("legacy", List.of(HASH), "SHA384withECDSA").get(0);
+        Assertions.assertTrue(verify(ecPem, "EC", "SHA384withECDSA", signature));
+
+        // Generating again adds the ML-DSA half; the software store keeps the EC key
+        Assertions.assertEquals(ecPem, service.generateKeyPair("legacy", "EC"));
+        Assertions.assertTrue(service.hasMlDsaKey("legacy"));
+        HybridSignatures signed = service.signHashesHybrid("legacy", List.of(HASH), "SHA384withECDSA");
+        Assertions.assertTrue(verify(ecPem, "EC", "SHA384withECDSA", signed.classical().get(0)));
+        Assertions.assertTrue(verify(service.mlDsaPublicKeyPem("legacy"), "ML-DSA", "ML-DSA-65",
+                signed.mlDsa().get(0)));
+        service.shutdown();
+    }
+
+    @Test
+    public void testRegeneratingRefusedBeforeReplacingStoreRotates() throws Exception {
+        ReplacingKeyStore classical = new ReplacingKeyStore();
+        HybridKeyStorageService service = newService(classical);
+        service.generateKeyPair("alice", "EC");
+        String mlDsaPem = service.mlDsaPublicKeyPem("alice");
+
+        Assertions.assertThrows(KeyAlreadyExistsException.class, () -> service.generateKeyPair("alice", "EC"));
+        Assertions.assertThrows(KeyAlreadyExistsException.class,
+                () -> service.generateKeyPairWithCsr("alice", "EC", "CN=Alice"));
+
+        Assertions.assertEquals(1, classical.generated.get());
+        Assertions.assertEquals(mlDsaPem, service.mlDsaPublicKeyPem("alice"));
+        service.shutdown();
+    }
+
+    @Test
+    public void testFailedClassicalGenerationDiscardsMlDsaKey() throws Exception {
+        ReplacingKeyStore classical = new ReplacingKeyStore();
+        classical.failNext = true;
+        HybridKeyStorageService service = newService(classical);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> service.generateKeyPair("alice", "EC"));
+        Assertions.assertFalse(service.hasMlDsaKey("alice"));
+
+        service.generateKeyPair("alice", "EC");
+        Assertions.assertTrue(service.hasMlDsaKey("alice"));
+        service.shutdown();
+    }
+
+    /**
+     * Classical store that replaces an alias's key on every generation, as
+     * the HSM store does.
+     */
+    private static class ReplacingKeyStore implements KeyStorageService {
+
+        final AtomicInteger generated = new AtomicInteger();
+        volatile boolean failNext;
+
+        @Override
+        public String generateKeyPair(String alias, String algorithm) {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("HSM unavailable");
+            }
+            return "key-" + generated.incrementAndGet();
+        }
+
+        @Override
+        public String generateCsr(String alias, String subject) {
+            return "csr-" + generated.get();
+        }
+
+        @Override
+        public String signHash(String keyAlias, String dataHashBase64, String algorithm) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> signDigests(String keyAlias, List<String> digestsBase64, String hashAlgoOid) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static boolean verify(String publicKeyPem, String keyAlgorithm, String signatureAlgorithm,
+            String signatureBase64) throws Exception {
+        String b64 = publicKeyPem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        PublicKey publicKey = KeyFactory.getInstance(keyAlgorithm, BouncyCastleProvider.PROVIDER_NAME)
+                .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(b64)));
+        Signature verifier = Signature.getInstance(signatureAlgorithm, BouncyCastleProvider.PROVIDER_NAME);
+        verifier.initVerify(publicKey);
+        verifier.update(Base64.getDecoder().decode(HASH));
+        return verifier.verify(Base64.getDecoder().decode(signatureBase64));
+    }
+}
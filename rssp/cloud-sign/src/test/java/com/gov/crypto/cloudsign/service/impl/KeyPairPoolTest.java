@@ -0,0 +1,84 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class KeyPairPoolTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger generatedCount = new AtomicInteger();
+
+    private KeyPair generate() throws Exception {
+        generatedCount.incrementAndGet();
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC");
+        kpg.initialize(new ECGenParameterSpec("secp384r1"));
+        return kpg.generateKeyPair();
+    }
+
+    private double takes(String result) {
+        return registry.get("hsm.key_pool.takes").tag("result", result).counter().count();
+    }
+
+    @Test
+    public void testRefillIsRateLimitedUpToHighWatermark() {
+        KeyPairPool pool = new KeyPairPool("0", this::generate, new KeyPairPool.Settings(true, 2, 5, 3),
+                registry, Tags.empty());
+
+        pool.refill();
+        Assertions.assertEquals(3, pool.size());
+        pool.refill();
+        Assertions.assertEquals(5, pool.size());
+        pool.refill();
+        Assertions.assertEquals(5, pool.size());
+    }
+
+    @Test
+    public void testRefillResumesOnlyBelowLowWatermark() throws Exception {
+        KeyPairPool pool = new KeyPairPool("0", this::generate, new KeyPairPool.Settings(true, 2, 4, 10),
+                registry, Tags.empty());
+        pool.refill();
+
+        pool.take();
+        pool.take();
+        pool.refill();
+        Assertions.assertEquals(2, pool.size());
+
+        pool.take();
+        pool.refill();
+        Assertions.assertEquals(4, pool.size());
+    }
+
+    @Test
+    public void testTakeHandsOutDistinctKeysAndFallsBackWhenEmpty() throws Exception {
+        KeyPairPool pool = new KeyPairPool("0", this::generate, new KeyPairPool.Settings(true, 1, 2, 2),
+                registry, Tags.empty());
+        pool.refill();
+
+        Set<KeyPair> taken = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            taken.add(pool.take());
+        }
+
+        Assertions.assertEquals(3, taken.size());
+        Assertions.assertEquals(3, generatedCount.get());
+        Assertions.assertEquals(2, takes("hit"));
+        Assertions.assertEquals(1, takes("miss"));
+    }
+
+    @Test
+    public void testRejectsInvalidWatermarks() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new KeyPairPool("0", this::generate,
+                new KeyPairPool.Settings(true, 5, 2, 1), registry, Tags.empty()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new KeyPairPool("0", this::generate,
+                new KeyPairPool.Settings(true, 1, 2, 0), registry, Tags.empty()));
+    }
+}
@@ -0,0 +1,197 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.ProviderException;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MultiSlotKeyStorageServiceTest {
+
+    private static final String HASH = Base64.getEncoder().encodeToString(new byte[48]);
+
+    private FakeSlot slotA;
+    private FakeSlot slotB;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        slotA = new FakeSlot("A");
+        slotB = new FakeSlot("B");
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testNewKeysAreSpreadAcrossSlots() throws Exception {
+        MultiSlotKeyStorageService service = new MultiSlotKeyStorageService(List.of(slotA, slotB), 3, registry);
+
+        for (int i = 0; i < 4; i++) {
+            service.generateKeyPair("user-" + i, "EC");
+        }
+
+        Assertions.assertEquals(2, slotA.keys.size());
+        Assertions.assertEquals(2, slotB.keys.size());
+        Assertions.assertEquals(2.0, registry.get("hsm.slot.keys").tag("slot", "A").gauge().value());
+    }
+
+    @Test
+    public void testSigningIsRoutedToTheSlotHoldingTheKey() throws Exception {
+        slotB.addKey("existing");
+        MultiSlotKeyStorageService service = new MultiSlotKeyStorageService(List.of(slotA, slotB), 3, registry);
+
+        Assertions.assertNotNull(service.signHash("existing", HASH, "SHA384withECDSA"));
+        Assertions.assertEquals(0, slotA.signCount);
+        Assertions.assertEquals(1, slotB.signCount);
+    }
+
+    @Test
+    public void testKeyCreatedAfterStartupIsFoundLazily() throws Exception {
+        MultiSlotKeyStorageService service = new MultiSlotKeyStorageService(List.of(slotA, slotB), 3, registry);
+        slotA.addKey("late");
+
+        service.signHash("late", HASH, "SHA384withECDSA");
+
+        Assertions.assertEquals(1, slotA.signCount);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> service.signHash("missing", HASH, "SHA384withECDSA"));
+    }
+
+    @Test
+    public void testFailingSlotStopsReceivingTraffic() throws Exception {
+        slotA.addKey("replicated");
+        slotB.addKey("replicated");
+        MultiSlotKeyStorageService service = new MultiSlotKeyStorageService(List.of(slotA, slotB), 2, registry);
+        slotA.down = true;
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertThrows(ProviderException.class,
+                    () -> service.signHash("replicated", HASH, "SHA384withECDSA"));
+        }
+        Assertions.assertFalse(service.isHealthy("A"));
+
+        for (int i = 0; i < 5; i++) {
+            service.signHash("replicated", HASH, "SHA384withECDSA");
+            service.generateKeyPair("new-" + i, "EC");
+        }
+        Assertions.assertEquals(5, slotB.signCount);
+        Assertions.assertEquals(6, slotB.keys.size());
+        Assertions.assertEquals(1, slotA.keys.size());
+    }
+
+    @Test
+    public void testHealthCheckRestoresRecoveredSlot() throws Exception {
+        slotA.addKey("only-on-a");
+        MultiSlotKeyStorageService service = new MultiSlotKeyStorageService(List.of(slotA, slotB), 3, registry);
+
+        slotA.down = true;
+        service.checkHealth();
+        Assertions.assertFalse(service.isHealthy("A"));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> service.signHash("only-on-a", HASH, "SHA384withECDSA"));
+
+        slotA.down = false;
+        service.checkHealth();
+        Assertions.assertTrue(service.isHealthy("A"));
+        Assertions.assertNotNull(service.signHash("only-on-a", HASH, "SHA384withECDSA"));
+    }
+
+    @Test
+    public void testCloseClosesEverySlot() throws Exception {
+        MultiSlotKeyStorageService service = new MultiSlotKeyStorageService(List.of(slotA, slotB), 3, registry);
+
+        service.close();
+
+        Assertions.assertTrue(slotA.closed);
+        Assertions.assertTrue(slotB.closed);
+    }
+
+    /**
+     * In-memory stand-in for one PKCS#11 token.
+     */
+    static class FakeSlot implements KeySlot {
+        final String name;
+        final Map<String, KeyPair> keys = new ConcurrentHashMap<>();
+        volatile boolean down;
+        volatile boolean closed;
+        int signCount;
+
+        FakeSlot(String name) {
+            this.name = name;
+        }
+
+        void addKey(String alias) throws Exception {
+            KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC");
+            kpg.initialize(new ECGenParameterSpec("secp384r1"));
+            keys.put(alias, kpg.generateKeyPair());
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public List<String> aliases() {
+            return new ArrayList<>(keys.keySet());
+        }
+
+        @Override
+        public boolean containsAlias(String alias) {
+            return keys.containsKey(alias);
+        }
+
+        @Override
+        public void probe() {
+            if (down) {
+                throw new ProviderException("Token has been removed");
+            }
+        }
+
+        @Override
+        public synchronized String signHash(String keyAlias, String dataHashBase64, String algorithm)
+                throws Exception {
+            probe();
+            KeyPair keyPair = keys.get(keyAlias);
+            if (keyPair == null) {
+                throw new IllegalArgumentException("Key not found in HSM: " + keyAlias);
+            }
+            Signature signature = Signature.getInstance("SHA384withECDSA");
+            signature.initSign(keyPair.getPrivate());
+            signature.update(Base64.getDecoder().decode(dataHashBase64));
+            signCount++;
+            return Base64.getEncoder().encodeToString(signature.sign());
+        }
+
+        @Override
+        public List<String> signDigests(String keyAlias, List<String> digestsBase64, String hashAlgoOid) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateKeyPair(String alias, String algorithm) throws Exception {
+            probe();
+            addKey(alias);
+            return alias;
+        }
+
+        @Override
+        public String generateCsr(String alias, String subject) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exercises the session pool with the software EC provider standing in for
+ * the PKCS#11 token.
+ */
+public class Pkcs11SessionPoolTest {
+
+    private SimpleMeterRegistry registry;
+    private KeyPair keyPair;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        registry = new SimpleMeterRegistry();
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC");
+        kpg.initialize(new ECGenParameterSpec("secp384r1"));
+        keyPair = kpg.generateKeyPair();
+    }
+
+    @Test
+    public void testConcurrentSigningAcrossSessions() throws Exception {
+        Pkcs11SessionPool pool = new Pkcs11SessionPool(4, 5000,
+                () -> Signature.getInstance("SHA384withECDSA"), registry);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                byte[] data = ("document-" + i).getBytes(StandardCharsets.UTF_8);
+                results.add(executor.submit(() -> pool.sign(keyPair.getPrivate(), data)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Signature verifier = Signature.getInstance("SHA384withECDSA");
+                verifier.initVerify(keyPair.getPublic());
+                verifier.update(("document-" + i).getBytes(StandardCharsets.UTF_8));
+                Assertions.assertTrue(verifier.verify(results.get(i).get()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(64, registry.get("hsm.session.wait").timer().count());
+        Assertions.assertEquals(0, pool.inUse());
+    }
+
+    @Test
+    public void testSignAllUsesOneSession() throws Exception {
+        Pkcs11SessionPool pool = new Pkcs11SessionPool(1, 5000,
+                () -> Signature.getInstance("SHA384withECDSA"), registry);
+        List<byte[]> documents = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            documents.add(("document-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<byte[]> signatures = pool.signAll(keyPair.getPrivate(), documents);
+
+        Assertions.assertEquals(10, signatures.size());
+        for (int i = 0; i < documents.size(); i++) {
+            Signature verifier = Signature.getInstance("SHA384withECDSA");
+            verifier.initVerify(keyPair.getPublic());
+            verifier.update(documents.get(i));
+            Assertions.assertTrue(verifier.verify(signatures.get(i)));
+        }
+        Assertions.assertEquals(1, registry.get("hsm.session.wait").timer().count());
+    }
+
+    @Test
+    public void testSessionsAreNotSharedBetweenCallers() throws Exception {
+        Pkcs11SessionPool pool = new Pkcs11SessionPool(2, 5000,
+                () -> Signature.getInstance("SHA384withECDSA"), registry);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> pool.withSession(signature -> {
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    Thread.sleep(5);
+                    concurrent.decrementAndGet();
+                    return null;
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(2, maxConcurrent.get());
+    }
+
+    @Test
+    public void testWaitTimeoutWhenPoolExhausted() throws Exception {
+        Pkcs11SessionPool pool = new Pkcs11SessionPool(1, 50,
+                () -> Signature.getInstance("SHA384withECDSA"), registry);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try {
+                pool.withSession(signature -> {
+                    held.countDown();
+                    release.await();
+                    return null;
+                });
+            } catch (Exception ignored) {
+            }
+        });
+        holder.start();
+        held.await();
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> pool.sign(keyPair.getPrivate(), new byte[] { 1 }));
+        Assertions.assertEquals(1.0, registry.get("hsm.session.timeouts").counter().count());
+
+        release.countDown();
+        holder.join();
+        Assertions.assertNotNull(pool.sign(keyPair.getPrivate(), new byte[] { 1 }));
+    }
+
+    @Test
+    public void testClosedPoolRejectsCallers() throws Exception {
+        Pkcs11SessionPool pool = new Pkcs11SessionPool(2, 5000,
+                () -> Signature.getInstance("SHA384withECDSA"), registry);
+
+        pool.close();
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> pool.sign(keyPair.getPrivate(), new byte[] { 1 }));
+    }
+}
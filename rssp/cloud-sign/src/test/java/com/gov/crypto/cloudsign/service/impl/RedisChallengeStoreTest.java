@@ -0,0 +1,107 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import com.gov.crypto.cloudsign.service.SigningChallengeService.SigningChallenge;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Runs the store, including its Lua scripts, against a real redis-server.
+ */
+public class RedisChallengeStoreTest {
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    private RedisChallengeStore store;
+
+    @BeforeAll
+    public static void startRedis() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    public static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @BeforeEach
+    public void setup() {
+        redis.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+        store = new RedisChallengeStore(redis, 16);
+    }
+
+    private static SigningChallenge challenge(String id, String username, long ttlMillis) {
+        // Stored with millisecond precision
+        Instant now = Instant.ofEpochMilli(System.currentTimeMillis());
+        return new SigningChallenge(id, username, "alias1", List.of("h1", "h2"), "SHA384withECDSA", null,
+                now, now.plusMillis(ttlMillis));
+    }
+
+    @Test
+    public void testCreateWritesChallengeWithItsSlot() {
+        Assertions.assertTrue(store.create(challenge("c1", "user1", 300_000), 10));
+
+        Assertions.assertTrue(redis.hasKey(RedisChallengeStore.CHALLENGE_PREFIX + "c1"));
+        Assertions.assertTrue(redis.getExpire(RedisChallengeStore.CHALLENGE_PREFIX + "c1") > 0);
+        Assertions.assertEquals(1L, redis.opsForZSet().zCard(RedisChallengeStore.USER_PREFIX + "user1"));
+    }
+
+    @Test
+    public void testCreateRejectedWhenUserLimitReached() {
+        Assertions.assertTrue(store.create(challenge("c1", "user1", 300_000), 2));
+        Assertions.assertTrue(store.create(challenge("c2", "user1", 300_000), 2));
+
+        Assertions.assertFalse(store.create(challenge("c3", "user1", 300_000), 2));
+        Assertions.assertFalse(redis.hasKey(RedisChallengeStore.CHALLENGE_PREFIX + "c3"));
+        Assertions.assertTrue(store.create(challenge("c4", "user2", 300_000), 2));
+
+        // Consuming frees a slot
+        Assertions.assertTrue(store.consume("c1").isPresent());
+        Assertions.assertTrue(store.create(challenge("c3", "user1", 300_000), 2));
+    }
+
+    @Test
+    public void testExpiredReservationsArePruned() throws Exception {
+        Assertions.assertTrue(store.create(challenge("c1", "user1", 20), 1));
+        Thread.sleep(50);
+
+        Assertions.assertTrue(store.create(challenge("c2", "user1", 300_000), 1));
+        Assertions.assertEquals(List.of("c2"),
+                List.copyOf(redis.opsForZSet().range(RedisChallengeStore.USER_PREFIX + "user1", 0, -1)));
+    }
+
+    @Test
+    public void testOtherReplicaReadsAndConsumesOnce() {
+        SigningChallenge created = challenge("c1", "user1", 300_000);
+        Assertions.assertTrue(store.create(created, 10));
+        RedisChallengeStore otherReplica = new RedisChallengeStore(redis, 16);
+
+        Assertions.assertEquals(created, otherReplica.find("c1").orElseThrow());
+        Assertions.assertEquals(created, otherReplica.consume("c1").orElseThrow());
+        Assertions.assertTrue(store.consume("c1").isEmpty());
+        Assertions.assertEquals(0L, redis.opsForZSet().zCard(RedisChallengeStore.USER_PREFIX + "user1"));
+    }
+}
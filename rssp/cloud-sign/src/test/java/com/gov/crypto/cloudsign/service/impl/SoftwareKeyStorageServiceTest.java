@@ -0,0 +1,185 @@
+package com.gov.crypto.cloudsign.service.impl;
+
+import com.gov.crypto.service.HashAlgorithm;
+import com.gov.crypto.service.KeyStorageService.GeneratedKey;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SoftwareKeyStorageServiceTest {
+
+    private static final byte[] HASH = new byte[48];
+
+    @TempDir
+    Path tempDir;
+
+    private SoftwareKeyStorageService newService() throws Exception {
+        SoftwareKeyStorageService service = new SoftwareKeyStorageService(
+                tempDir.resolve("cloud-sign.p12").toString(), tempDir.resolve("keys").toString(), "changeit");
+        service.init();
+        return service;
+    }
+
+    @Test
+    public void testGenerateWritesOneFilePerKey() throws Exception {
+        SoftwareKeyStorageService service = newService();
+
+        service.generateKeyPair("alice", "EC");
+        service.generateKeyPair("bob", "EC");
+
+        try (var files = Files.list(tempDir.resolve("keys"))) {
+            Assertions.assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public void testKeysSurviveRestart() throws Exception {
+        String pem = newService().generateKeyPair("alice", "EC");
+
+        SoftwareKeyStorageService restarted = newService();
+        String sig = restarted.signHash("alice", Base64.getEncoder().encodeToString(HASH), "SHA384withECDSA");
+
+        Assertions.assertTrue(verify(pem, Base64.getDecoder().decode(sig)));
+        Assertions.assertEquals(pem, restarted.generateKeyPair("alice", "EC"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> restarted.signHash("nobody", Base64.getEncoder().encodeToString(HASH), "SHA384withECDSA"));
+    }
+
+    @Test
+    public void testConcurrentGenerateAndSign() throws Exception {
+        SoftwareKeyStorageService service = newService();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> pems = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String alias = "user-" + (i % 4);
+                pems.add(executor.submit(() -> service.generateKeyPair(alias, "EC")));
+            }
+            for (int i = 4; i < 16; i++) {
+                // Same alias always yields the same key
+                Assertions.assertEquals(pems.get(i % 4).get(), pems.get(i).get());
+            }
+
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                int k = i % 4;
+                results.add(executor.submit(() -> verify(pems.get(k).get(), Base64.getDecoder().decode(
+                        service.signHash("user-" + k, Base64.getEncoder().encodeToString(HASH), "SHA384withECDSA")))));
+            }
+            for (Future<Boolean> result : results) {
+                Assertions.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSignDigestsSignsDocumentOnce() throws Exception {
+        SoftwareKeyStorageService service = newService();
+        String pem = service.generateKeyPair("alice", "EC");
+        byte[] document = "contract body".getBytes(StandardCharsets.UTF_8);
+        byte[] digest = MessageDigest.getInstance("SHA-384").digest(document);
+        String digestInfo = Base64.getEncoder().encodeToString(HashAlgorithm.SHA384.digestInfo(digest));
+
+        List<String> sigs = service.signDigests("alice",
+                List.of(Base64.getEncoder().encodeToString(digest), digestInfo), HashAlgorithm.SHA384.oid());
+
+        // Verifies as SHA384withECDSA over the document itself, not over its hash
+        for (String sig : sigs) {
+            Assertions.assertTrue(verify(pem, document, Base64.getDecoder().decode(sig)));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.signDigests("alice",
+                List.of(Base64.getEncoder().encodeToString(HASH)), HashAlgorithm.SHA256.oid()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.signDigests("alice",
+                List.of(Base64.getEncoder().encodeToString(digest)), "1.2.3.4"));
+    }
+
+    @Test
+    public void testGenerateWithCsrReturnsMatchingKeyAndCsr() throws Exception {
+        SoftwareKeyStorageService service = newService();
+
+        GeneratedKey generated = service.generateKeyPairWithCsr("alice", "EC", "CN=Alice,O=Citizen,C=VN");
+
+        PKCS10CertificationRequest csr;
+        try (PEMParser parser = new PEMParser(new StringReader(generated.csrPem()))) {
+            csr = (PKCS10CertificationRequest) parser.readObject();
+        }
+        Assertions.assertEquals(new X500Name("CN=Alice,O=Citizen,C=VN"), csr.getSubject());
+        Assertions.assertTrue(csr.isSignatureValid(
+                new JcaContentVerifierProviderBuilder().build(csr.getSubjectPublicKeyInfo())));
+        Assertions.assertEquals(generated.publicKeyPem(), service.generateKeyPair("alice", "EC"));
+        Assertions.assertArrayEquals(csr.getSubjectPublicKeyInfo().getEncoded(), Base64.getDecoder().decode(
+                generated.publicKeyPem().replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "")));
+    }
+
+    @Test
+    public void testLegacyKeystoreIsMigrated() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC");
+        kpg.initialize(new ECGenParameterSpec("secp384r1"));
+        KeyPair keyPair = kpg.generateKeyPair();
+        X500Name name = new X500Name("CN=legacy");
+        X509Certificate cert = new JcaX509CertificateConverter().getCertificate(new JcaX509v3CertificateBuilder(
+                name, BigInteger.ONE, new Date(), new Date(System.currentTimeMillis() + 86_400_000L),
+                name, keyPair.getPublic()).build(new JcaContentSignerBuilder("SHA384withECDSA")
+                        .build(keyPair.getPrivate())));
+        KeyStore legacy = KeyStore.getInstance("PKCS12");
+        legacy.load(null, "changeit".toCharArray());
+        legacy.setKeyEntry("legacy", keyPair.getPrivate(), "changeit".toCharArray(), new Certificate[] { cert });
+        try (OutputStream os = Files.newOutputStream(tempDir.resolve("cloud-sign.p12"))) {
+            legacy.store(os, "changeit".toCharArray());
+        }
+
+        SoftwareKeyStorageService service = newService();
+
+        Assertions.assertTrue(service.hasKey("legacy"));
+        Assertions.assertFalse(Files.exists(tempDir.resolve("cloud-sign.p12")));
+        Assertions.assertTrue(Files.exists(tempDir.resolve("cloud-sign.p12.migrated")));
+    }
+
+    private static boolean verify(String publicKeyPem, byte[] sig) throws Exception {
+        return verify(publicKeyPem, HASH, sig);
+    }
+
+    private static boolean verify(String publicKeyPem, byte[] data, byte[] sig) throws Exception {
+        String b64 = publicKeyPem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        PublicKey publicKey = KeyFactory.getInstance("EC")
+                .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(b64)));
+        Signature verifier = Signature.getInstance("SHA384withECDSA");
+        verifier.initVerify(publicKey);
+        verifier.update(data);
+        return verifier.verify(sig);
+    }
+}
@@ -5,6 +5,8 @@ import com.warrenstrange.googleauth.GoogleAuthenticator;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.OptionalLong;
+
 public class TotpServiceImplTest {
 
     private final TotpService totpService = new TotpServiceImpl();
@@ -47,4 +49,20 @@ public class TotpServiceImplTest {
         // Let's use 000000
         Assertions.assertFalse(totpService.verifyCode(secret, 0), "0 should be invalid");
     }
+
+    @Test
+    public void testMatchTimeStepAgreesWithGoogleAuthenticator() {
+        TotpServiceImpl service = new TotpServiceImpl();
+        String secret = service.generateSecret();
+        byte[] key = service.decodeSecret(secret);
+        long now = System.currentTimeMillis();
+        long step = now / 30_000;
+
+        Assertions.assertEquals(OptionalLong.of(step),
+                service.matchTimeStep(key, gAuth.getTotpPassword(secret, now), now));
+        Assertions.assertEquals(OptionalLong.of(step - 1),
+                service.matchTimeStep(key, gAuth.getTotpPassword(secret, now - 30_000), now));
+        Assertions.assertEquals(OptionalLong.empty(),
+                service.matchTimeStep(key, gAuth.getTotpPassword(secret, now - 90_000), now));
+    }
 }
@@ -0,0 +1,83 @@
+package com.gov.crypto.service;
+
+import org.bouncycastle.jcajce.interfaces.MLDSAPublicKey;
+import org.bouncycastle.jcajce.spec.MLDSAParameterSpec;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.pqc.crypto.mldsa.HashMLDSASigner;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAPublicKeyParameters;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Security;
+import java.security.Signature;
+
+public class PreHashedSignaturesTest {
+
+    private static final byte[] DOCUMENT = "multi-gigabyte document".getBytes(StandardCharsets.UTF_8);
+
+    @BeforeAll
+    public static void provider() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    private static byte[] signDigest(KeyPair keyPair, HashAlgorithm hashAlgorithm) throws Exception {
+        byte[] digest = MessageDigest.getInstance(hashAlgorithm.jcaName()).digest(DOCUMENT);
+        Signature signer = Signature.getInstance(
+                PreHashedSignatures.signatureAlgorithm(keyPair.getPrivate()), "BC");
+        signer.initSign(keyPair.getPrivate());
+        signer.update(PreHashedSignatures.signatureInput(keyPair.getPrivate(), hashAlgorithm, digest));
+        return signer.sign();
+    }
+
+    private static boolean verifyDocument(KeyPair keyPair, String algorithm, byte[] sig) throws Exception {
+        Signature verifier = Signature.getInstance(algorithm, "BC");
+        verifier.initVerify(keyPair.getPublic());
+        verifier.update(DOCUMENT);
+        return verifier.verify(sig);
+    }
+
+    @Test
+    public void testRsaDigestMatchesPkcs1OverDocument() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        KeyPair keyPair = kpg.generateKeyPair();
+
+        byte[] sig = signDigest(keyPair, HashAlgorithm.SHA256);
+
+        Assertions.assertTrue(verifyDocument(keyPair, "SHA256withRSA", sig));
+    }
+
+    @Test
+    public void testMlDsaDigestIsHashMlDsa() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("ML-DSA", "BC");
+        kpg.initialize(MLDSAParameterSpec.ml_dsa_65);
+        KeyPair keyPair = kpg.generateKeyPair();
+
+        byte[] sig = signDigest(keyPair, HashAlgorithm.SHA512);
+
+        // Reference HashML-DSA verifier hashing the whole document
+        HashMLDSASigner verifier = new HashMLDSASigner();
+        verifier.init(false, new MLDSAPublicKeyParameters(MLDSAParameters.ml_dsa_65_with_sha512,
+                ((MLDSAPublicKey) keyPair.getPublic()).getPublicData()));
+        verifier.update(DOCUMENT, 0, DOCUMENT.length);
+        Assertions.assertTrue(verifier.verifySignature(sig));
+        Assertions.assertFalse(verifyDocument(keyPair, "ML-DSA-65", sig));
+    }
+
+    @Test
+    public void testDigestLengthAndOidAreChecked() throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(DOCUMENT);
+
+        Assertions.assertArrayEquals(digest, HashAlgorithm.SHA256.digest(HashAlgorithm.SHA256.digestInfo(digest)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HashAlgorithm.SHA384.digest(digest));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> HashAlgorithm.SHA3_256.digest(HashAlgorithm.SHA256.digestInfo(digest)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HashAlgorithm.fromOid("1.3.14.3.2.26"));
+    }
+}